@@ -47,6 +47,12 @@ public class ConfigurationKeys {
   public static final String STATE_STORE_FS_URI_KEY = "state.store.fs.uri";
   // Enable / disable state store
   public static final String STATE_STORE_ENABLED = "state.store.enabled";
+  // Maximum number of tables of a file-system-based state store read in parallel when reading a whole store
+  public static final String STATE_STORE_GET_ALL_THREADS_KEY = "state.store.get.all.threads";
+  public static final int DEFAULT_STATE_STORE_GET_ALL_THREADS = 10;
+  // Format states are serialized in, one of LEGACY, COMPACT and COMPACT_COMPRESSED (see gobblin.configuration.State)
+  public static final String STATE_SERIALIZATION_FORMAT_KEY = "state.serialization.format";
+  public static final String DEFAULT_STATE_SERIALIZATION_FORMAT = "LEGACY";
 
   /**
    * Job scheduler configuration properties.
@@ -97,6 +103,11 @@ public class ConfigurationKeys {
   public static final String DEFAULT_FORK_OPERATOR_CLASS = "gobblin.fork.IdentityForkOperator";
   public static final String JOB_COMMIT_POLICY_KEY = "job.commit.policy";
   public static final String DEFAULT_JOB_COMMIT_POLICY = "full";
+  // Whether the datasets of a job are committed in parallel, and the maximum number of datasets committed at a time
+  public static final String PARALLELIZE_DATASET_COMMIT_KEY = "job.commit.parallelize";
+  public static final boolean DEFAULT_PARALLELIZE_DATASET_COMMIT = false;
+  public static final String DATASET_COMMIT_THREADS_KEY = "job.commit.parallel.commits";
+  public static final int DEFAULT_DATASET_COMMIT_THREADS = 20;
   public static final String WORK_UNIT_RETRY_POLICY_KEY = "workunit.retry.policy";
   public static final String WORK_UNIT_RETRY_ENABLED_KEY = "workunit.retry.enabled";
   public static final String JOB_RUN_ONCE_KEY = "job.runonce";
@@ -208,6 +219,12 @@ public class ConfigurationKeys {
   public static final long DEFAULT_FORK_RECORD_QUEUE_TIMEOUT = 1000;
   public static final String FORK_RECORD_QUEUE_TIMEOUT_UNIT_KEY = "fork.record.queue.timeout.unit";
   public static final String DEFAULT_FORK_RECORD_QUEUE_TIMEOUT_UNIT = TimeUnit.MILLISECONDS.name();
+  // Number of records a task accumulates before handing them off to a fork as a single batch (1 disables batching)
+  public static final String FORK_RECORD_BATCH_SIZE_KEY = "fork.record.batch.size";
+  public static final int DEFAULT_FORK_RECORD_BATCH_SIZE = 1;
+  // Whether the fork of a single-branch task runs on the task thread instead of the fork thread pool
+  public static final String FORK_INLINE_SINGLE_BRANCH_KEY = "fork.inline.single.branch";
+  public static final boolean DEFAULT_FORK_INLINE_SINGLE_BRANCH = false;
 
   /**
    * Writer configuration properties.
@@ -237,6 +254,9 @@ public class ConfigurationKeys {
   public static final String WRITER_CODEC_TYPE = WRITER_PREFIX + ".codec.type";
   public static final String WRITER_EAGER_INITIALIZATION_KEY = WRITER_PREFIX + ".eager.initialization";
   public static final String WRITER_PARTITIONER_CLASS = WRITER_PREFIX + ".partitioner.class";
+  // Maximum number of partition writers kept open at the same time, a non-positive value means no limit
+  public static final String WRITER_PARTITIONED_MAX_OPEN_WRITERS = WRITER_PREFIX + ".partitioned.max.open.writers";
+  public static final int DEFAULT_WRITER_PARTITIONED_MAX_OPEN_WRITERS = -1;
   public static final boolean DEFAULT_WRITER_EAGER_INITIALIZATION = false;
   public static final String WRITER_GROUP_NAME = WRITER_PREFIX + ".group.name";
   public static final String DEFAULT_WRITER_FILE_BASE_NAME = "part";
@@ -343,6 +363,9 @@ public class ConfigurationKeys {
   public static final String SOURCE_QUERYBASED_IS_COMPRESSION_ENABLED = "source.querybased.is.compression.enabled";
   public static final String SOURCE_QUERYBASED_JDBC_RESULTSET_FETCH_SIZE =
       "source.querybased.jdbc.resultset.fetch.size";
+  public static final String SOURCE_QUERYBASED_JDBC_PARALLEL_READS = "source.querybased.jdbc.parallel.reads";
+  public static final String SOURCE_QUERYBASED_JDBC_PARALLEL_READS_BUFFER_SIZE =
+      "source.querybased.jdbc.parallel.reads.buffer.size";
 
   /**
    * Configuration properties used by the FileBasedExtractor
@@ -404,6 +427,8 @@ public class ConfigurationKeys {
   public static final String DEFAULT_SOURCE_QUERYBASED_IS_METADATA_COLUMN_CHECK_ENABLED = "true";
   public static final String DEFAULT_COLUMN_NAME_CASE = "NOCHANGE";
   public static final int DEFAULT_SOURCE_QUERYBASED_JDBC_RESULTSET_FETCH_SIZE = 1000;
+  public static final int DEFAULT_SOURCE_QUERYBASED_JDBC_PARALLEL_READS = 1;
+  public static final int DEFAULT_SOURCE_QUERYBASED_JDBC_PARALLEL_READS_BUFFER_SIZE = 10;
 
   public static final String FILEBASED_REPORT_STATUS_ON_COUNT = "filebased.report.status.on.count";
   public static final int DEFAULT_FILEBASED_REPORT_STATUS_ON_COUNT = 10000;
@@ -417,6 +442,10 @@ public class ConfigurationKeys {
   public static final String MR_REPORT_METRICS_AS_COUNTERS_KEY = "mr.report.metrics.as.counters";
   public static final boolean DEFAULT_MR_REPORT_METRICS_AS_COUNTERS = false;
   public static final int DEFAULT_MR_JOB_MAX_MAPPERS = 100;
+  public static final String MR_JOB_PACKED_WORK_UNITS_ENABLED_KEY = "mr.job.packed.work.units.enabled";
+  public static final boolean DEFAULT_MR_JOB_PACKED_WORK_UNITS_ENABLED = false;
+  public static final String MR_JOB_WORK_UNITS_PER_PACKED_FILE_KEY = "mr.job.work.units.per.packed.file";
+  public static final int DEFAULT_MR_JOB_WORK_UNITS_PER_PACKED_FILE = 1000;
 
   /**
    * Configuration properties used by the distributed job launcher.
@@ -548,6 +577,17 @@ public class ConfigurationKeys {
   public static final String KAFKA_BROKERS = "kafka.brokers";
   public static final String KAFKA_SOURCE_WORK_UNITS_CREATION_THREADS = "kafka.source.work.units.creation.threads";
   public static final int KAFKA_SOURCE_WORK_UNITS_CREATION_DEFAULT_THREAD_COUNT = 30;
+  // Whether the offsets of all partitions are fetched with one request per leader before work units are created
+  public static final String KAFKA_SOURCE_BATCH_OFFSET_FETCH_ENABLED = "kafka.source.batch.offset.fetch.enabled";
+  public static final boolean DEFAULT_KAFKA_SOURCE_BATCH_OFFSET_FETCH_ENABLED = true;
+  // Whether Kafka extractors fetch message buffers in a background thread, and how many fetched message buffers
+  // and bytes of messages they keep ahead of the records being decoded
+  public static final String KAFKA_EXTRACTOR_PREFETCH_ENABLED = "kafka.extractor.prefetch.enabled";
+  public static final boolean DEFAULT_KAFKA_EXTRACTOR_PREFETCH_ENABLED = false;
+  public static final String KAFKA_EXTRACTOR_PREFETCH_MAX_BUFFERS = "kafka.extractor.prefetch.max.buffers";
+  public static final int DEFAULT_KAFKA_EXTRACTOR_PREFETCH_MAX_BUFFERS = 4;
+  public static final String KAFKA_EXTRACTOR_PREFETCH_MAX_BYTES = "kafka.extractor.prefetch.max.bytes";
+  public static final int DEFAULT_KAFKA_EXTRACTOR_PREFETCH_MAX_BYTES = 32 * 1024 * 1024;
 
   /**
    * Job execution info server and history store configuration properties.
@@ -562,6 +602,9 @@ public class ConfigurationKeys {
   public static final String DEFAULT_JOB_HISTORY_STORE_USER = "gobblin";
   public static final String JOB_HISTORY_STORE_PASSWORD_KEY = "job.history.store.password";
   public static final String DEFAULT_JOB_HISTORY_STORE_PASSWORD = "gobblin";
+  // Minimum interval between two writes of the job execution information made upon task completion
+  public static final String JOB_HISTORY_STORE_WRITE_INTERVAL_MS_KEY = "job.history.store.write.interval.ms";
+  public static final long DEFAULT_JOB_HISTORY_STORE_WRITE_INTERVAL_MS = 5000;
 
   /**
    * Password encryption and decryption properties.
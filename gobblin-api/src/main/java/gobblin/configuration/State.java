@@ -12,17 +12,27 @@
 
 package gobblin.configuration;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import com.google.gson.JsonArray;
@@ -33,11 +43,19 @@ import lombok.EqualsAndHashCode;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 
 /**
  * A serializable wrapper class that can be persisted for {@link Properties}.
  *
+ * <p>
+ *   {@link #write(DataOutput)} serializes a {@link State} in the {@link SerializationFormat} set by
+ *   {@link ConfigurationKeys#STATE_SERIALIZATION_FORMAT_KEY} in the {@link State} itself, which is
+ *   {@link SerializationFormat#LEGACY} unless configured otherwise, while {@link #readFields(DataInput)} reads
+ *   states serialized in any of the formats.
+ * </p>
+ *
  * @author kgoodhop
  */
 @EqualsAndHashCode(exclude = { "jsonParser" })
@@ -46,6 +64,30 @@ public class State implements Writable {
   private static final Joiner LIST_JOINER = Joiner.on(",");
   private static final Splitter LIST_SPLITTER = Splitter.on(",").trimResults().omitEmptyStrings();
 
+  // States serialized in a compact format start with this value in place of the number of properties
+  private static final int COMPACT_FORMAT_MARKER = -1;
+  private static final byte COMPACT_FORMAT_VERSION = 1;
+  private static final byte COMPACT_FORMAT_COMPRESSED_FLAG = 0x1;
+
+  /**
+   * Formats a {@link State} can be serialized in.
+   */
+  public enum SerializationFormat {
+    /**
+     * The number of properties followed by the key and value of each property, readable by all versions.
+     */
+    LEGACY,
+    /**
+     * Properties sorted by key, with each key stored as the length of the prefix it shares with the previous key
+     * followed by the rest of the key, so the common prefixes of configuration keys are only stored once.
+     */
+    COMPACT,
+    /**
+     * The {@link #COMPACT} format deflated.
+     */
+    COMPACT_COMPRESSED
+  }
+
   private String id;
 
   private final Properties properties;
@@ -63,6 +105,18 @@ public class State implements Writable {
     this.properties = otherState.getProperties();
   }
 
+  /**
+   * Get the {@link SerializationFormat} this {@link State} is serialized in by {@link #write(DataOutput)}, which is
+   * set by {@link ConfigurationKeys#STATE_SERIALIZATION_FORMAT_KEY}. Job, task and work unit states carry the
+   * configuration of their job, so each job serializes its states in its own format.
+   *
+   * @return the {@link SerializationFormat} of this {@link State}
+   */
+  public SerializationFormat getSerializationFormat() {
+    return SerializationFormat.valueOf(getProp(ConfigurationKeys.STATE_SERIALIZATION_FORMAT_KEY,
+        ConfigurationKeys.DEFAULT_STATE_SERIALIZATION_FORMAT).trim().toUpperCase());
+  }
+
   /**
    * Return a copy of the underlying {@link Properties} object.
    *
@@ -482,6 +536,10 @@ public class State implements Writable {
     Text txt = new Text();
 
     int numEntries = in.readInt();
+    if (numEntries == COMPACT_FORMAT_MARKER) {
+      readCompactFields(in);
+      return;
+    }
 
     while (numEntries-- > 0) {
       txt.readFields(in);
@@ -495,6 +553,28 @@ public class State implements Writable {
 
   @Override
   public void write(DataOutput out) throws IOException {
+    write(out, getSerializationFormat());
+  }
+
+  /**
+   * Serialize the properties of this {@link State} in the given {@link SerializationFormat}.
+   *
+   * <p>
+   *   States serialized in a compact format cannot be read by versions that only support the
+   *   {@link SerializationFormat#LEGACY} format.
+   * </p>
+   *
+   * @param out the {@link DataOutput} to serialize to
+   * @param format the {@link SerializationFormat} to use
+   * @throws IOException if the serialization fails
+   */
+  public void write(DataOutput out, SerializationFormat format) throws IOException {
+    Preconditions.checkNotNull(format);
+    if (format != SerializationFormat.LEGACY) {
+      writeCompact(out, format == SerializationFormat.COMPACT_COMPRESSED);
+      return;
+    }
+
     Text txt = new Text();
     out.writeInt(this.properties.size());
 
@@ -507,6 +587,77 @@ public class State implements Writable {
     }
   }
 
+  private void readCompactFields(DataInput in) throws IOException {
+    byte version = in.readByte();
+    if (version != COMPACT_FORMAT_VERSION) {
+      throw new IOException("Unsupported state serialization format version: " + version);
+    }
+
+    if ((in.readByte() & COMPACT_FORMAT_COMPRESSED_FLAG) == 0) {
+      readCompactEntries(in);
+      return;
+    }
+
+    byte[] compressed = new byte[WritableUtils.readVInt(in)];
+    in.readFully(compressed);
+    try (DataInputStream compressedIn =
+        new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+      readCompactEntries(compressedIn);
+    }
+  }
+
+  private void readCompactEntries(DataInput in) throws IOException {
+    int numEntries = WritableUtils.readVInt(in);
+    // Collect the entries first so the synchronized properties are only locked once to add them
+    Map<String, String> entries = Maps.newHashMapWithExpectedSize(numEntries);
+    String previousKey = "";
+    for (int i = 0; i < numEntries; i++) {
+      int sharedPrefixLength = WritableUtils.readVInt(in);
+      String key = previousKey.substring(0, sharedPrefixLength) + Text.readString(in);
+      entries.put(key, Text.readString(in));
+      previousKey = key;
+    }
+    this.properties.putAll(entries);
+  }
+
+  private void writeCompact(DataOutput out, boolean compressed) throws IOException {
+    out.writeInt(COMPACT_FORMAT_MARKER);
+    out.writeByte(COMPACT_FORMAT_VERSION);
+
+    if (!compressed) {
+      out.writeByte(0);
+      writeCompactEntries(out);
+      return;
+    }
+
+    out.writeByte(COMPACT_FORMAT_COMPRESSED_FLAG);
+    ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
+    try (DataOutputStream compressedOut = new DataOutputStream(new DeflaterOutputStream(compressedBytes))) {
+      writeCompactEntries(compressedOut);
+    }
+    WritableUtils.writeVInt(out, compressedBytes.size());
+    out.write(compressedBytes.toByteArray());
+  }
+
+  private void writeCompactEntries(DataOutput out) throws IOException {
+    SortedMap<String, String> sortedEntries = Maps.newTreeMap();
+    for (Map.Entry<Object, Object> entry : this.properties.entrySet()) {
+      sortedEntries.put((String) entry.getKey(), (String) entry.getValue());
+    }
+
+    WritableUtils.writeVInt(out, sortedEntries.size());
+    String previousKey = "";
+    for (Map.Entry<String, String> entry : sortedEntries.entrySet()) {
+      String key = entry.getKey();
+      // Strings.commonPrefix never splits a surrogate pair, so the rest of the key is always valid UTF-16
+      int sharedPrefixLength = Strings.commonPrefix(previousKey, key).length();
+      WritableUtils.writeVInt(out, sharedPrefixLength);
+      Text.writeString(out, key.substring(sharedPrefixLength));
+      Text.writeString(out, entry.getValue());
+      previousKey = key;
+    }
+  }
+
   @Override
   public String toString() {
     return this.properties.toString();
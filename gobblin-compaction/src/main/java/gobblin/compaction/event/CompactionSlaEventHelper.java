@@ -55,6 +55,13 @@ public class CompactionSlaEventHelper {
     state.setProp(SlaEventKeys.UPSTREAM_TS_IN_MILLI_SECS_KEY, Long.toString(time));
   }
 
+  /**
+   * Set the record count of a compaction that did not run an MR job, such as a local compaction.
+   */
+  public static void setRecordCount(State state, long recordCount) {
+    state.setProp(SlaEventKeys.RECORD_COUNT_KEY, Long.toString(recordCount));
+  }
+
   private static void setDatasetUrn(Dataset dataset) {
     dataset.jobProps().setProp(SlaEventKeys.DATASET_URN_KEY, dataset.getUrn());
   }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package gobblin.compaction.mapreduce;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+
+
+/**
+ * An {@link MRCompactorJobRunner} that can compact small datasets in process instead of with an MR job.
+ *
+ * <p>
+ *   A dataset whose total input size is at most the size set by {@code compaction.job.local.max.input.size} is
+ *   compacted by {@link #compactLocally(List, Path)} if its job runner implements this interface.
+ * </p>
+ */
+public interface LocalCompactionJobRunner {
+
+  /**
+   * Compact the data in the given input paths in process, writing the output into the given output directory the same
+   * way the MR job would.
+   *
+   * @return the number of records written
+   */
+  long compactLocally(List<Path> inputPaths, Path outputDir) throws IOException;
+}
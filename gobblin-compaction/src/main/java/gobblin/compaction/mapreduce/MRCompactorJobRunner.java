@@ -38,6 +38,7 @@ import org.joda.time.DateTimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -103,6 +104,15 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
   private static final String COMPACTION_JOB_USE_PRIME_REDUCERS = COMPACTION_JOB_PREFIX + "use.prime.reducers";
   private static final boolean DEFAULT_COMPACTION_JOB_USE_PRIME_REDUCERS = true;
 
+  /**
+   * If the total input size of a dataset is at most this many bytes, and the job runner is a
+   * {@link LocalCompactionJobRunner}, the dataset is compacted in process instead of by an MR job.
+   * 0 means always use MR.
+   */
+  @VisibleForTesting
+  static final String COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE = COMPACTION_JOB_PREFIX + "local.max.input.size";
+  private static final long DEFAULT_COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE = 0;
+
   private static final String HADOOP_JOB_NAME = "Gobblin MR Compaction";
   private static final long MR_JOB_CHECK_COMPLETE_INTERVAL_MS = 5000;
 
@@ -233,16 +243,30 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
           this.status = Status.COMMITTED;
           return;
         }
-        addJars(conf);
-        Job job = Job.getInstance(conf);
-        this.configureJob(job);
-        this.submitAndWait(job);
+        Optional<Job> job = Optional.absent();
+        long localRecordCount = 0;
+        if (shouldCompactLocally()) {
+          this.fs.delete(this.dataset.outputTmpPath(), true);
+          WriterUtils.mkdirsWithRecursivePermission(this.fs, this.dataset.outputTmpPath(), this.perm);
+          LOG.info(String.format("Compacting dataset %s, input %s in process", this.dataset, getInputPaths()));
+          localRecordCount =
+              ((LocalCompactionJobRunner) this).compactLocally(getInputPaths(), this.dataset.outputTmpPath());
+        } else {
+          addJars(conf);
+          job = Optional.of(Job.getInstance(conf));
+          this.configureJob(job.get());
+          this.submitAndWait(job.get());
+        }
         if (shouldPublishData(compactionTimestamp)) {
           moveTmpPathToOutputPath();
           if (this.recompactFromDestPaths) {
             deleteAdditionalInputPaths();
           }
-          submitSlaEvent(job);
+          if (job.isPresent()) {
+            submitSlaEvent(job.get());
+          } else {
+            submitSlaEvent(localRecordCount);
+          }
           LOG.info("Successfully published data for input folder " + this.dataset.inputPath());
           this.status = Status.COMMITTED;
         } else {
@@ -321,6 +345,13 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
         DEFAULT_COMPACTION_JOB_OVERWRITE_OUTPUT_DIR) || this.recompactFromDestPaths;
   }
 
+  @VisibleForTesting
+  boolean shouldCompactLocally() throws IOException {
+    long maxLocalInputSize = this.dataset.jobProps().getPropAsLong(COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE,
+        DEFAULT_COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE);
+    return maxLocalInputSize > 0 && this instanceof LocalCompactionJobRunner && getInputSize() <= maxLocalInputSize;
+  }
+
   private void addJars(Configuration conf) throws IOException {
     if (!this.dataset.jobProps().contains(MRCompactor.COMPACTION_JARS)) {
       return;
@@ -351,7 +382,7 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
     FileOutputFormat.setOutputPath(job, this.dataset.outputTmpPath());
   }
 
-  private List<Path> getInputPaths() {
+  protected List<Path> getInputPaths() {
     List<Path> inputPaths = Lists.newArrayList(this.dataset.inputPath());
     inputPaths.addAll(this.dataset.additionalInputPaths());
     return inputPaths;
@@ -503,6 +534,12 @@ public abstract class MRCompactorJobRunner implements Runnable, Comparable<MRCom
     new SlaEventSubmitter(this.eventSubmitter, "CompactionCompleted", this.dataset.jobProps().getProperties()).submit();
   }
 
+  private void submitSlaEvent(long recordCount) {
+    CompactionSlaEventHelper.populateState(this.dataset, Optional.<Job> absent(), this.fs);
+    CompactionSlaEventHelper.setRecordCount(this.dataset.jobProps(), recordCount);
+    new SlaEventSubmitter(this.eventSubmitter, "CompactionCompleted", this.dataset.jobProps().getProperties()).submit();
+  }
+
   /**
    * Tell the {@link MRCompactorJobRunner} that it can go ahead and publish the data.
    */
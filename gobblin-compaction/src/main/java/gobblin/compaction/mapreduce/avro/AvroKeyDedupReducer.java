@@ -34,7 +34,10 @@ public class AvroKeyDedupReducer
   public enum EVENT_COUNTER {
     MORE_THAN_1,
     DEDUPED,
-    RECORD_COUNT
+    RECORD_COUNT,
+    // Duplicates dropped, and bytes of map output they would have taken, before the shuffle by AvroKeyRawDedupCombiner
+    MAP_SIDE_DEDUPED,
+    SHUFFLE_BYTES_SAVED
   }
 
   private AvroKey<GenericRecord> outKey;
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closer;
+import com.google.common.primitives.UnsignedBytes;
+
+import gobblin.util.recordcount.CompactionRecordCountProvider;
+
+
+/**
+ * Compacts Avro files in process, without launching an MR job, for datasets that are small enough for the job
+ * submission overhead of {@link MRCompactorAvroKeyDedupJobRunner} to dominate.
+ *
+ * If a key schema is given, records are deduplicated with an external merge sort: the dedup key projection and the
+ * record are encoded as in {@link AvroKeyRawMapper}, buffered in memory up to the sort buffer size, sorted by key
+ * bytes, and spilled to sorted runs in a local directory. The runs are then merged k-way, and one record is kept for
+ * each key. As in {@link AvroKeyDedupReducer}, the record kept is the last one read. Otherwise, records are copied
+ * as they are.
+ *
+ * The output is a single file named the same way as the output of {@link AvroKeyCompactorOutputCommitter}.
+ */
+public class AvroKeyLocalCompactor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AvroKeyLocalCompactor.class);
+
+  // Estimate of the memory taken by a buffered entry in addition to its key and value bytes
+  private static final long ENTRY_OVERHEAD = 64;
+  private static final Comparator<byte[]> KEY_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+  private final FileSystem fs;
+  private final Schema schema;
+  private final Optional<Schema> keySchema;
+  private final long sortBufferSize;
+  private final File localTmpDir;
+  private final CodecFactory codec;
+
+  private long recordsRead = 0;
+  private long recordsDeduped = 0;
+  private int runsSpilled = 0;
+
+  /**
+   * @param fs the {@link FileSystem} of the input files and the output directory
+   * @param schema the schema of the output records, which all input files are read with
+   * @param keySchema the schema of the dedup key projection, or absent if records should not be deduplicated
+   * @param sortBufferSize the number of bytes of encoded keys and records to buffer before spilling a sorted run
+   * @param localTmpDir the local directory in which sorted runs are spilled
+   * @param codec the codec of the output file
+   */
+  public AvroKeyLocalCompactor(FileSystem fs, Schema schema, Optional<Schema> keySchema, long sortBufferSize,
+      File localTmpDir, CodecFactory codec) {
+    this.fs = fs;
+    this.schema = schema;
+    this.keySchema = keySchema;
+    this.sortBufferSize = sortBufferSize;
+    this.localTmpDir = localTmpDir;
+    this.codec = codec;
+  }
+
+  /**
+   * Compact the given input files into a single file in the given output directory.
+   *
+   * @return the number of records written
+   */
+  public long compact(List<Path> inputFiles, Path outputDir) throws IOException {
+    Path tmpOutputFile = new Path(outputDir, "_local." + System.nanoTime() + ".avro");
+    long recordsWritten;
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>())) {
+      writer.setCodec(this.codec);
+      writer.create(this.schema, this.fs.create(tmpOutputFile, false));
+      recordsWritten = this.keySchema.isPresent() ? sortAndDedup(inputFiles, writer) : copy(inputFiles, writer);
+    }
+
+    String fileNamePrefix = this.keySchema.isPresent() ? CompactionRecordCountProvider.MR_OUTPUT_FILE_PREFIX
+        : CompactionRecordCountProvider.M_OUTPUT_FILE_PREFIX;
+    Path outputFile =
+        new Path(outputDir, new CompactionRecordCountProvider().constructFileName(fileNamePrefix, recordsWritten));
+    if (!this.fs.rename(tmpOutputFile, outputFile)) {
+      throw new IOException(String.format("Unable to move %s to %s", tmpOutputFile, outputFile));
+    }
+    LOG.info(String.format("Compacted %d records from %d files into %s (%d duplicates dropped, %d sorted runs spilled)",
+        this.recordsRead, inputFiles.size(), outputFile, this.recordsDeduped, this.runsSpilled));
+    return recordsWritten;
+  }
+
+  public long getRecordsRead() {
+    return this.recordsRead;
+  }
+
+  public long getRecordsDeduped() {
+    return this.recordsDeduped;
+  }
+
+  public int getRunsSpilled() {
+    return this.runsSpilled;
+  }
+
+  private long copy(List<Path> inputFiles, DataFileWriter<GenericRecord> writer) throws IOException {
+    GenericRecord record = null;
+    for (Path inputFile : inputFiles) {
+      try (DataFileStream<GenericRecord> reader = openReader(inputFile)) {
+        while (reader.hasNext()) {
+          record = reader.next(record);
+          writer.append(record);
+          this.recordsRead++;
+        }
+      }
+    }
+    return this.recordsRead;
+  }
+
+  private long sortAndDedup(List<Path> inputFiles, DataFileWriter<GenericRecord> writer) throws IOException {
+    File spillDir = Files.createTempDirectory(this.localTmpDir.toPath(), "gobblin-compaction-").toFile();
+    try {
+      RecordEncoder encoder = new RecordEncoder(this.schema, this.keySchema.get());
+      List<Entry> buffer = Lists.newArrayList();
+      List<File> runs = Lists.newArrayList();
+      long bufferedBytes = 0;
+      GenericRecord record = null;
+
+      for (Path inputFile : inputFiles) {
+        try (DataFileStream<GenericRecord> reader = openReader(inputFile)) {
+          while (reader.hasNext()) {
+            record = reader.next(record);
+            Entry entry = encoder.encode(record);
+            buffer.add(entry);
+            bufferedBytes += entry.key.length + entry.value.length + ENTRY_OVERHEAD;
+            this.recordsRead++;
+            if (bufferedBytes >= this.sortBufferSize) {
+              runs.add(spill(buffer, spillDir, runs.size()));
+              buffer.clear();
+              bufferedBytes = 0;
+            }
+          }
+        }
+      }
+
+      if (runs.isEmpty()) {
+        return writeSorted(buffer, writer);
+      }
+      if (!buffer.isEmpty()) {
+        runs.add(spill(buffer, spillDir, runs.size()));
+        buffer.clear();
+      }
+      return merge(runs, writer);
+    } finally {
+      FileUtils.deleteQuietly(spillDir);
+    }
+  }
+
+  private DataFileStream<GenericRecord> openReader(Path inputFile) throws IOException {
+    InputStream in = this.fs.open(inputFile);
+    try {
+      return new DataFileStream<>(in, new GenericDatumReader<GenericRecord>(this.schema));
+    } catch (IOException e) {
+      in.close();
+      throw new IOException("Unable to read " + inputFile, e);
+    }
+  }
+
+  /**
+   * Sort the buffered entries by key, keeping only the last entry read for each key. The sort is stable, so the last
+   * entry read is the last one of its key.
+   */
+  private List<Entry> sortAndDedupBuffer(List<Entry> buffer) {
+    Collections.sort(buffer);
+    List<Entry> deduped = Lists.newArrayListWithCapacity(buffer.size());
+    for (int i = 0; i < buffer.size(); i++) {
+      if (i + 1 < buffer.size() && KEY_COMPARATOR.compare(buffer.get(i).key, buffer.get(i + 1).key) == 0) {
+        this.recordsDeduped++;
+        continue;
+      }
+      deduped.add(buffer.get(i));
+    }
+    return deduped;
+  }
+
+  private long writeSorted(List<Entry> buffer, DataFileWriter<GenericRecord> writer) throws IOException {
+    List<Entry> sorted = sortAndDedupBuffer(buffer);
+    for (Entry entry : sorted) {
+      writer.appendEncoded(ByteBuffer.wrap(entry.value));
+    }
+    return sorted.size();
+  }
+
+  private File spill(List<Entry> buffer, File spillDir, int runIndex) throws IOException {
+    File run = new File(spillDir, "run-" + runIndex);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+      for (Entry entry : sortAndDedupBuffer(buffer)) {
+        out.writeInt(entry.key.length);
+        out.write(entry.key);
+        out.writeInt(entry.value.length);
+        out.write(entry.value);
+      }
+    }
+    this.runsSpilled++;
+    LOG.debug(String.format("Spilled sorted run %s of %d records", run, buffer.size()));
+    return run;
+  }
+
+  /**
+   * Merge the sorted runs, keeping one entry for each key. Runs are spilled in read order, so among entries with the
+   * same key, the one from the run spilled last is kept.
+   */
+  private long merge(List<File> runs, DataFileWriter<GenericRecord> writer) throws IOException {
+    long recordsWritten = 0;
+    try (Closer closer = Closer.create()) {
+      PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size());
+      for (int i = 0; i < runs.size(); i++) {
+        RunReader reader = closer.register(new RunReader(runs.get(i), i));
+        if (reader.advance()) {
+          queue.add(reader);
+        }
+      }
+
+      while (!queue.isEmpty()) {
+        RunReader reader = queue.poll();
+        byte[] key = reader.key;
+        byte[] value = reader.value;
+        if (reader.advance()) {
+          queue.add(reader);
+        }
+        while (!queue.isEmpty() && KEY_COMPARATOR.compare(queue.peek().key, key) == 0) {
+          RunReader duplicate = queue.poll();
+          value = duplicate.value;
+          this.recordsDeduped++;
+          if (duplicate.advance()) {
+            queue.add(duplicate);
+          }
+        }
+        writer.appendEncoded(ByteBuffer.wrap(value));
+        recordsWritten++;
+      }
+    }
+    return recordsWritten;
+  }
+
+  /**
+   * Encodes the dedup key projection and the record in Avro binary encoding.
+   */
+  private static class RecordEncoder {
+
+    private final GenericRecord keyRecord;
+    private final DatumWriter<GenericRecord> keyWriter;
+    private final DatumWriter<GenericRecord> valueWriter;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private BinaryEncoder encoder;
+
+    private RecordEncoder(Schema schema, Schema keySchema) {
+      this.keyRecord = new GenericData.Record(keySchema);
+      this.keyWriter = new GenericDatumWriter<>(keySchema);
+      this.valueWriter = new GenericDatumWriter<>(schema);
+    }
+
+    private Entry encode(GenericRecord record) throws IOException {
+      AvroKeyMapper.populateComparableKeyRecord(record, this.keyRecord);
+      return new Entry(serialize(this.keyWriter, this.keyRecord), serialize(this.valueWriter, record));
+    }
+
+    private byte[] serialize(DatumWriter<GenericRecord> writer, GenericRecord record) throws IOException {
+      this.buffer.reset();
+      this.encoder = EncoderFactory.get().binaryEncoder(this.buffer, this.encoder);
+      writer.write(record, this.encoder);
+      this.encoder.flush();
+      return this.buffer.toByteArray();
+    }
+  }
+
+  private static class Entry implements Comparable<Entry> {
+
+    private final byte[] key;
+    private final byte[] value;
+
+    private Entry(byte[] key, byte[] value) {
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      return KEY_COMPARATOR.compare(this.key, other.key);
+    }
+  }
+
+  /**
+   * Reads the entries of a sorted run. Readers are ordered by their current key, then by the order their runs were
+   * spilled in.
+   */
+  private static class RunReader implements Comparable<RunReader>, Closeable {
+
+    private final DataInputStream in;
+    private final int runIndex;
+    private byte[] key;
+    private byte[] value;
+
+    private RunReader(File run, int runIndex) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+      this.runIndex = runIndex;
+    }
+
+    private boolean advance() throws IOException {
+      int keyLength;
+      try {
+        keyLength = this.in.readInt();
+      } catch (EOFException e) {
+        return false;
+      }
+      this.key = new byte[keyLength];
+      this.in.readFully(this.key);
+      this.value = new byte[this.in.readInt()];
+      this.in.readFully(this.value);
+      return true;
+    }
+
+    @Override
+    public int compareTo(RunReader other) {
+      int result = KEY_COMPARATOR.compare(this.key, other.key);
+      return result != 0 ? result : Integer.compare(this.runIndex, other.runIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+
+/**
+ * Combiner class for compaction MR job for Avro data emitted by {@link AvroKeyRawMapper}.
+ *
+ * It drops duplicates of the same key found in the output of a mapper before the shuffle, keeping the last value
+ * read like {@link AvroKeyRawDedupReducer}, and counts the records dropped and the bytes of map output saved in
+ * {@link AvroKeyDedupReducer.EVENT_COUNTER}.
+ */
+public class AvroKeyRawDedupCombiner extends Reducer<BytesWritable, BytesWritable, BytesWritable, BytesWritable> {
+
+  @Override
+  protected void reduce(BytesWritable key, Iterable<BytesWritable> values, Context context)
+      throws IOException, InterruptedException {
+    int numVals = 0;
+    long droppedBytes = 0;
+    int lastLength = 0;
+    BytesWritable lastValue = null;
+
+    // The value object is reused by the iterator, so only the length of the previous value is kept.
+    for (BytesWritable value : values) {
+      if (numVals > 0) {
+        droppedBytes += key.getLength() + lastLength;
+      }
+      lastLength = value.getLength();
+      lastValue = value;
+      numVals++;
+    }
+
+    if (numVals > 1) {
+      context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.MAP_SIDE_DEDUPED).increment(numVals - 1);
+      context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.SHUFFLE_BYTES_SAVED).increment(droppedBytes);
+    }
+
+    context.write(key, lastValue);
+  }
+}
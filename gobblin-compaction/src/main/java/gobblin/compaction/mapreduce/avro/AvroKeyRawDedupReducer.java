@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapreduce.AvroJob;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+
+/**
+ * Reducer class for compaction MR job for Avro data emitted by {@link AvroKeyRawMapper}.
+ *
+ * If there are multiple values of the same key, it keeps the last value read. Only the value kept is decoded.
+ */
+public class AvroKeyRawDedupReducer
+    extends Reducer<BytesWritable, BytesWritable, AvroKey<GenericRecord>, NullWritable> {
+
+  private AvroKey<GenericRecord> outKey;
+  private DatumReader<GenericRecord> valueReader;
+  private BinaryDecoder decoder;
+
+  @Override
+  protected void setup(Context context) throws IOException, InterruptedException {
+    this.outKey = new AvroKey<>();
+    this.valueReader = new GenericDatumReader<>(AvroJob.getMapOutputValueSchema(context.getConfiguration()));
+  }
+
+  @Override
+  protected void reduce(BytesWritable key, Iterable<BytesWritable> values, Context context)
+      throws IOException, InterruptedException {
+    int numVals = 0;
+    BytesWritable lastValue = null;
+
+    // The same value object is reused by the iterator, so it holds the last value read once the loop is done.
+    for (BytesWritable value : values) {
+      lastValue = value;
+      numVals++;
+    }
+
+    if (numVals > 1) {
+      context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.MORE_THAN_1).increment(1);
+      context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.DEDUPED).increment(numVals - 1);
+    }
+
+    context.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.RECORD_COUNT).increment(1);
+
+    this.decoder = DecoderFactory.get().binaryDecoder(lastValue.getBytes(), 0, lastValue.getLength(), this.decoder);
+    this.outKey.datum(this.valueReader.read(this.outKey.datum(), this.decoder));
+    context.write(this.outKey, NullWritable.get());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import java.io.IOException;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapreduce.AvroJob;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.CombineFileSplit;
+
+
+/**
+ * Mapper class for compaction MR job for Avro data, which emits the dedup key and the record in Avro binary encoding.
+ *
+ * The key is the binary encoding of the projection of the input record on the attributes on which we de-duplicate.
+ * Since the binary encoding of equal projections is the same, records can be sorted and grouped by comparing the
+ * serialized keys byte by byte with the raw comparator of {@link BytesWritable}, without deserializing them as
+ * Avro keys are. Records are grouped rather than sorted by the Avro sort order, which is all dedup needs.
+ *
+ * The value is the binary encoding of the input record with the map output value schema, which is only decoded by
+ * {@link AvroKeyRawDedupReducer} for the one record kept for each key.
+ */
+public class AvroKeyRawMapper extends Mapper<AvroKey<GenericRecord>, NullWritable, BytesWritable, BytesWritable> {
+
+  private GenericRecord keyRecord;
+  private DatumWriter<GenericRecord> keyWriter;
+  private DatumWriter<GenericRecord> valueWriter;
+  private final DataOutputBuffer buffer = new DataOutputBuffer();
+  private BinaryEncoder encoder;
+  private final BytesWritable outKey = new BytesWritable();
+  private final BytesWritable outValue = new BytesWritable();
+
+  @Override
+  protected void setup(Context context) throws IOException, InterruptedException {
+    Schema keySchema = AvroJob.getMapOutputKeySchema(context.getConfiguration());
+    this.keyRecord = new GenericData.Record(keySchema);
+    this.keyWriter = new GenericDatumWriter<>(keySchema);
+    this.valueWriter = new GenericDatumWriter<>(AvroJob.getMapOutputValueSchema(context.getConfiguration()));
+  }
+
+  @Override
+  protected void map(AvroKey<GenericRecord> key, NullWritable value, Context context)
+      throws IOException, InterruptedException {
+    AvroKeyMapper.populateComparableKeyRecord(key.datum(), this.keyRecord);
+    try {
+      serialize(this.keyWriter, this.keyRecord, this.outKey);
+      serialize(this.valueWriter, key.datum(), this.outValue);
+    } catch (AvroRuntimeException e) {
+      final Path[] paths = ((CombineFileSplit) context.getInputSplit()).getPaths();
+      throw new IOException("Unable to process paths " + StringUtils.join(paths, ','), e);
+    }
+    context.write(this.outKey, this.outValue);
+    context.getCounter(AvroKeyMapper.EVENT_COUNTER.RECORD_COUNT).increment(1);
+  }
+
+  private void serialize(DatumWriter<GenericRecord> writer, GenericRecord record, BytesWritable target)
+      throws IOException {
+    this.buffer.reset();
+    this.encoder = EncoderFactory.get().binaryEncoder(this.buffer, this.encoder);
+    writer.write(record, this.encoder);
+    this.encoder.flush();
+    target.set(this.buffer.getData(), 0, this.buffer.getLength());
+  }
+}
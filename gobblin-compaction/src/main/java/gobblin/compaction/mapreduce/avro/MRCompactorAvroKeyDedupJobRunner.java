@@ -12,6 +12,7 @@
 
 package gobblin.compaction.mapreduce.avro;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -25,13 +26,18 @@ import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.SchemaCompatibility;
 import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.hadoop.io.AvroSerialization;
 import org.apache.avro.mapred.AvroKey;
+import org.apache.avro.mapred.AvroOutputFormat;
 import org.apache.avro.mapred.AvroValue;
 import org.apache.avro.mapreduce.AvroJob;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -44,8 +50,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 
 import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.mapreduce.LocalCompactionJobRunner;
 import gobblin.compaction.mapreduce.MRCompactorJobRunner;
+import gobblin.configuration.State;
 import gobblin.util.AvroUtils;
+import gobblin.util.FileListUtils;
 
 
 /**
@@ -55,9 +64,16 @@ import gobblin.util.AvroUtils;
  * To dedup using entire records set compaction.use.all.attributes=true. Otherwise, a schema needs
  * to be provided by compaction.avro.key.schema.loc, based on which the dedup is performed.
  *
+ * If compaction.job.avro.raw.key=true, dedup keys and records are shuffled in Avro binary encoding and keys are
+ * compared byte by byte (see {@link AvroKeyRawMapper}). In this mode, duplicates can also be dropped before the
+ * shuffle by setting compaction.job.avro.raw.key.combiner=true.
+ *
+ * Datasets no larger than compaction.job.local.max.input.size are compacted in process by
+ * {@link AvroKeyLocalCompactor}, with the same dedup key, instead of by an MR job.
+ *
  * @author ziliu
  */
-public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
+public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner implements LocalCompactionJobRunner {
 
   private static final Logger LOG = LoggerFactory.getLogger(MRCompactorAvroKeyDedupJobRunner.class);
 
@@ -76,6 +92,27 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
   private static final String COMPACTION_JOB_AVRO_KEY_SCHEMA_LOC = COMPACTION_JOB_PREFIX + "avro.key.schema.loc";
   private static final String COMPACTION_JOB_DEDUP_KEY = COMPACTION_JOB_PREFIX + "dedup.key";
 
+  /**
+   * If true, dedup keys and records are emitted by the mapper in Avro binary encoding, and keys are compared as raw
+   * bytes, so neither keys nor duplicate records are deserialized by the shuffle and the reducer.
+   */
+  private static final String COMPACTION_JOB_AVRO_RAW_KEY = COMPACTION_JOB_PREFIX + "avro.raw.key";
+  private static final boolean DEFAULT_COMPACTION_JOB_AVRO_RAW_KEY = false;
+
+  /**
+   * If true and compaction.job.avro.raw.key=true, duplicates in the output of each mapper are dropped before the
+   * shuffle by {@link AvroKeyRawDedupCombiner}.
+   */
+  private static final String COMPACTION_JOB_AVRO_RAW_KEY_COMBINER = COMPACTION_JOB_PREFIX + "avro.raw.key.combiner";
+  private static final boolean DEFAULT_COMPACTION_JOB_AVRO_RAW_KEY_COMBINER = false;
+
+  /**
+   * Properties related to compacting a dataset in process with {@link AvroKeyLocalCompactor}.
+   */
+  private static final String COMPACTION_JOB_LOCAL_SORT_BUFFER_SIZE = COMPACTION_JOB_PREFIX + "local.sort.buffer.size";
+  private static final long DEFAULT_COMPACTION_JOB_LOCAL_SORT_BUFFER_SIZE = 134217728;
+  private static final String COMPACTION_JOB_LOCAL_TMP_DIR = COMPACTION_JOB_PREFIX + "local.tmp.dir";
+
   private static final String AVRO = "avro";
   private static final String SCHEMA_DEDUP_FIELD_ANNOTATOR = "primarykey";
 
@@ -95,10 +132,16 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
   private static final DedupKeyOption DEFAULT_DEDUP_KEY_OPTION = DedupKeyOption.KEY;
 
   private final boolean useSingleInputSchema;
+  private final boolean useRawKey;
+  private final boolean useRawKeyCombiner;
 
   public MRCompactorAvroKeyDedupJobRunner(Dataset dataset, FileSystem fs) {
     super(dataset, fs);
     this.useSingleInputSchema = this.dataset.jobProps().getPropAsBoolean(COMPACTION_JOB_AVRO_SINGLE_INPUT_SCHEMA, true);
+    this.useRawKey = this.shouldDeduplicate
+        && this.dataset.jobProps().getPropAsBoolean(COMPACTION_JOB_AVRO_RAW_KEY, DEFAULT_COMPACTION_JOB_AVRO_RAW_KEY);
+    this.useRawKeyCombiner = this.useRawKey && this.dataset.jobProps()
+        .getPropAsBoolean(COMPACTION_JOB_AVRO_RAW_KEY_COMBINER, DEFAULT_COMPACTION_JOB_AVRO_RAW_KEY_COMBINER);
   }
 
   @Override
@@ -112,8 +155,15 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
     if (this.useSingleInputSchema) {
       AvroJob.setInputKeySchema(job, newestSchema);
     }
-    AvroJob.setMapOutputKeySchema(job, this.shouldDeduplicate ? getKeySchema(job, newestSchema) : newestSchema);
-    AvroJob.setMapOutputValueSchema(job, newestSchema);
+    Schema mapOutputKeySchema = this.shouldDeduplicate ? getDedupKeySchema(newestSchema) : newestSchema;
+    if (this.useRawKey) {
+      // Only record the schemas, since AvroJob would also set the map output classes and comparators for AvroKey
+      AvroSerialization.setKeyWriterSchema(job.getConfiguration(), mapOutputKeySchema);
+      AvroSerialization.setValueWriterSchema(job.getConfiguration(), newestSchema);
+    } else {
+      AvroJob.setMapOutputKeySchema(job, mapOutputKeySchema);
+      AvroJob.setMapOutputValueSchema(job, newestSchema);
+    }
     AvroJob.setOutputKeySchema(job, newestSchema);
   }
 
@@ -124,7 +174,7 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
    * If compaction.dedup.key=custom, it reads the schema from compaction.avro.key.schema.loc.
    * If the read fails, or if the custom key schema is incompatible with topicSchema, option "key" will be used.
    */
-  private Schema getKeySchema(Job job, Schema topicSchema) throws IOException {
+  private Schema getDedupKeySchema(Schema topicSchema) throws IOException {
     Schema keySchema = null;
     DedupKeyOption dedupKeyOption = getDedupKeyOption();
     if (dedupKeyOption == DedupKeyOption.ALL) {
@@ -215,8 +265,10 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
   }
 
   private Schema getNewestSchemaFromSource(Job job) throws IOException {
-    Path[] sourceDirs = FileInputFormat.getInputPaths(job);
+    return getNewestSchemaFromSource(Arrays.asList(FileInputFormat.getInputPaths(job)));
+  }
 
+  private Schema getNewestSchemaFromSource(List<Path> sourceDirs) throws IOException {
     List<FileStatus> files = new ArrayList<FileStatus>();
 
     for (Path sourceDir : sourceDirs) {
@@ -267,6 +319,45 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
     return new Path(this.dataset.jobProps().getProp(COMPACTION_JOB_AVRO_KEY_SCHEMA_LOC));
   }
 
+  @Override
+  public long compactLocally(List<Path> inputPaths, Path outputDir) throws IOException {
+    Schema newestSchema = getNewestSchemaFromSource(inputPaths);
+    Optional<Schema> keySchema =
+        this.shouldDeduplicate ? Optional.of(getDedupKeySchema(newestSchema)) : Optional.<Schema> absent();
+
+    List<Path> inputFiles = Lists.newArrayList();
+    for (FileStatus status : FileListUtils.listFilesRecursively(this.fs, inputPaths)) {
+      if (FilenameUtils.isExtension(status.getPath().getName(), AVRO)) {
+        inputFiles.add(status.getPath());
+      }
+    }
+
+    State props = this.dataset.jobProps();
+    AvroKeyLocalCompactor compactor = new AvroKeyLocalCompactor(this.fs, newestSchema, keySchema,
+        props.getPropAsLong(COMPACTION_JOB_LOCAL_SORT_BUFFER_SIZE, DEFAULT_COMPACTION_JOB_LOCAL_SORT_BUFFER_SIZE),
+        new File(props.getProp(COMPACTION_JOB_LOCAL_TMP_DIR, System.getProperty("java.io.tmpdir"))),
+        getLocalOutputCodec());
+    return compactor.compact(inputFiles, outputDir);
+  }
+
+  /**
+   * The codec {@link AvroKeyCompactorOutputFormat} would use: output is compressed unless turned off in the job
+   * properties, with the Avro output codec, deflate by default.
+   */
+  private CodecFactory getLocalOutputCodec() {
+    State props = this.dataset.jobProps();
+    if (!props.getPropAsBoolean("mapreduce.output.fileoutputformat.compress",
+        props.getPropAsBoolean("mapred.output.compress", true))) {
+      return CodecFactory.nullCodec();
+    }
+    String codec = props.getProp(AvroJob.CONF_OUTPUT_CODEC, DataFileConstants.DEFLATE_CODEC);
+    if (codec.equals(DataFileConstants.DEFLATE_CODEC)) {
+      return CodecFactory.deflateCodec(
+          props.getPropAsInt(AvroOutputFormat.DEFLATE_LEVEL_KEY, AvroOutputFormat.DEFAULT_DEFLATE_LEVEL));
+    }
+    return CodecFactory.fromString(codec);
+  }
+
   @Override
   protected void setInputFormatClass(Job job) {
     job.setInputFormatClass(AvroKeyRecursiveCombineFileInputFormat.class);
@@ -274,17 +365,17 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
 
   @Override
   protected void setMapperClass(Job job) {
-    job.setMapperClass(AvroKeyMapper.class);
+    job.setMapperClass(this.useRawKey ? AvroKeyRawMapper.class : AvroKeyMapper.class);
   }
 
   @Override
   protected void setMapOutputKeyClass(Job job) {
-    job.setMapOutputKeyClass(AvroKey.class);
+    job.setMapOutputKeyClass(this.useRawKey ? BytesWritable.class : AvroKey.class);
   }
 
   @Override
   protected void setMapOutputValueClass(Job job) {
-    job.setMapOutputValueClass(AvroValue.class);
+    job.setMapOutputValueClass(this.useRawKey ? BytesWritable.class : AvroValue.class);
   }
 
   @Override
@@ -294,7 +385,14 @@ public class MRCompactorAvroKeyDedupJobRunner extends MRCompactorJobRunner {
 
   @Override
   protected void setReducerClass(Job job) {
-    job.setReducerClass(AvroKeyDedupReducer.class);
+    if (this.useRawKey) {
+      job.setReducerClass(AvroKeyRawDedupReducer.class);
+      if (this.useRawKeyCombiner) {
+        job.setCombinerClass(AvroKeyRawDedupCombiner.class);
+      }
+    } else {
+      job.setReducerClass(AvroKeyDedupReducer.class);
+    }
   }
 
   @Override
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.io.Files;
+
+import gobblin.compaction.dataset.Dataset;
+import gobblin.compaction.mapreduce.avro.MRCompactorAvroKeyDedupJobRunner;
+import gobblin.configuration.ConfigurationKeys;
+
+
+/**
+ * Unit tests for {@link MRCompactorJobRunner}.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce" })
+public class MRCompactorJobRunnerTest {
+
+  private static final int INPUT_FILE_SIZE = 100;
+
+  private File tmpDir;
+  private FileSystem fs;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.tmpDir = Files.createTempDir();
+    this.fs = FileSystem.getLocal(new Configuration());
+
+    File inputDir = new File(this.tmpDir, "input");
+    Assert.assertTrue(inputDir.mkdirs());
+    Files.write(new byte[INPUT_FILE_SIZE], new File(inputDir, "part1.avro"));
+    Files.write(new byte[INPUT_FILE_SIZE], new File(inputDir, "part2.avro"));
+  }
+
+  /**
+   * Check that a dataset is only compacted in process if the job runner supports it and the total input size is at
+   * most {@link MRCompactorJobRunner#COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE}.
+   */
+  @Test
+  public void testShouldCompactLocally() throws IOException {
+    // Local compaction is disabled by default
+    Assert.assertFalse(createJobRunner(null).shouldCompactLocally());
+    Assert.assertFalse(createJobRunner(0L).shouldCompactLocally());
+
+    Assert.assertTrue(createJobRunner(2L * INPUT_FILE_SIZE).shouldCompactLocally());
+    Assert.assertTrue(createJobRunner(10L * INPUT_FILE_SIZE).shouldCompactLocally());
+    Assert.assertFalse(createJobRunner(2L * INPUT_FILE_SIZE - 1).shouldCompactLocally());
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.tmpDir);
+  }
+
+  private MRCompactorJobRunner createJobRunner(Long maxLocalInputSize) {
+    Dataset dataset = new Dataset.Builder().withInputPath(new Path(this.tmpDir.getAbsolutePath(), "input"))
+        .withOutputPath(new Path(this.tmpDir.getAbsolutePath(), "output"))
+        .withOutputTmpPath(new Path(this.tmpDir.getAbsolutePath(), "output-tmp")).build();
+    dataset.setJobProp(ConfigurationKeys.JOB_NAME_KEY, MRCompactorJobRunnerTest.class.getSimpleName());
+    dataset.setJobProp(MRCompactor.COMPACTION_SHOULD_DEDUPLICATE, true);
+    if (maxLocalInputSize != null) {
+      dataset.setJobProp(MRCompactorJobRunner.COMPACTION_JOB_LOCAL_MAX_INPUT_SIZE, maxLocalInputSize);
+    }
+    return new MRCompactorAvroKeyDedupJobRunner(dataset, this.fs);
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import static gobblin.compaction.mapreduce.avro.AvroKeyTestHelper.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import gobblin.util.recordcount.CompactionRecordCountProvider;
+
+
+/**
+ * Unit tests for {@link AvroKeyLocalCompactor}.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce" })
+public class AvroKeyLocalCompactorTest {
+
+  private File tmpDir;
+  private FileSystem fs;
+  private List<Path> inputFiles;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.tmpDir = Files.createTempDir();
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.inputFiles = ImmutableList.of(
+        writeInput("input1.avro", createRecord("a", 1L, "first"), createRecord("b", 1L, "first"),
+            createRecord("c", 1L, "first")),
+        writeInput("input2.avro", createRecord("b", 1L, "second"), createRecord("a", 2L, "first"),
+            createRecord("a", 1L, "second")));
+  }
+
+  @Test
+  public void testDedupInMemory() throws IOException {
+    AvroKeyLocalCompactor compactor = createCompactor(Optional.of(KEY_SCHEMA), 1024 * 1024);
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "output-in-memory");
+    Assert.assertEquals(compactor.compact(this.inputFiles, outputDir), 4L);
+    Assert.assertEquals(compactor.getRunsSpilled(), 0);
+    assertDeduped(outputDir, compactor);
+  }
+
+  @Test
+  public void testDedupWithSpills() throws IOException {
+    // Every record fills the sort buffer, so each one is spilled to its own run
+    AvroKeyLocalCompactor compactor = createCompactor(Optional.of(KEY_SCHEMA), 1);
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "output-spilled");
+    Assert.assertEquals(compactor.compact(this.inputFiles, outputDir), 4L);
+    Assert.assertEquals(compactor.getRunsSpilled(), 6);
+    assertDeduped(outputDir, compactor);
+  }
+
+  @Test
+  public void testCopyWithoutDedup() throws IOException {
+    AvroKeyLocalCompactor compactor = createCompactor(Optional.<Schema> absent(), 1);
+    Path outputDir = new Path(this.tmpDir.getAbsolutePath(), "output-copied");
+    Assert.assertEquals(compactor.compact(this.inputFiles, outputDir), 6L);
+
+    Path outputFile = getOutputFile(outputDir);
+    Assert.assertTrue(outputFile.getName().startsWith(CompactionRecordCountProvider.M_OUTPUT_FILE_PREFIX));
+    Assert.assertEquals(readOutput(outputFile).size(), 6);
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.tmpDir);
+  }
+
+  private AvroKeyLocalCompactor createCompactor(Optional<Schema> keySchema, long sortBufferSize) {
+    return new AvroKeyLocalCompactor(this.fs, SCHEMA, keySchema, sortBufferSize, this.tmpDir,
+        CodecFactory.deflateCodec(1));
+  }
+
+  private void assertDeduped(Path outputDir, AvroKeyLocalCompactor compactor) throws IOException {
+    Assert.assertEquals(compactor.getRecordsRead(), 6L);
+    Assert.assertEquals(compactor.getRecordsDeduped(), 2L);
+
+    Path outputFile = getOutputFile(outputDir);
+    Assert.assertTrue(outputFile.getName().startsWith(CompactionRecordCountProvider.MR_OUTPUT_FILE_PREFIX));
+    Assert.assertEquals(new CompactionRecordCountProvider().getRecordCount(outputFile), 4L);
+
+    Map<String, String> payloads = Maps.newHashMap();
+    for (GenericRecord record : readOutput(outputFile)) {
+      payloads.put(record.get("id") + ":" + record.get("time"), record.get("payload").toString());
+    }
+    Assert.assertEquals(payloads.size(), 4);
+
+    // The last record read is kept for each key
+    Assert.assertEquals(payloads.get("a:1"), "second");
+    Assert.assertEquals(payloads.get("b:1"), "second");
+    Assert.assertEquals(payloads.get("a:2"), "first");
+    Assert.assertEquals(payloads.get("c:1"), "first");
+  }
+
+  private Path getOutputFile(Path outputDir) throws IOException {
+    FileStatus[] statuses = this.fs.listStatus(outputDir);
+    Assert.assertEquals(statuses.length, 1);
+    return statuses[0].getPath();
+  }
+
+  private List<GenericRecord> readOutput(Path outputFile) throws IOException {
+    List<GenericRecord> records = Lists.newArrayList();
+    try (DataFileStream<GenericRecord> reader =
+        new DataFileStream<>(this.fs.open(outputFile), new GenericDatumReader<GenericRecord>(SCHEMA))) {
+      for (GenericRecord record : reader) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private Path writeInput(String name, GenericRecord... records) throws IOException {
+    File file = new File(this.tmpDir, name);
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA))) {
+      writer.create(SCHEMA, file);
+      for (GenericRecord record : records) {
+        writer.append(record);
+      }
+    }
+    return new Path(file.getAbsolutePath());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import static gobblin.compaction.mapreduce.avro.AvroKeyTestHelper.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.hadoop.io.AvroSerialization;
+import org.apache.avro.mapred.AvroKey;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.counters.GenericCounter;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+
+/**
+ * Unit tests for deduping with {@link AvroKeyRawMapper}, {@link AvroKeyRawDedupCombiner} and
+ * {@link AvroKeyRawDedupReducer}.
+ */
+@Test(groups = { "gobblin.compaction.mapreduce" })
+public class AvroKeyRawDedupTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testDedup() throws Exception {
+    Configuration conf = new Configuration();
+    AvroSerialization.setKeyWriterSchema(conf, KEY_SCHEMA);
+    AvroSerialization.setValueWriterSchema(conf, SCHEMA);
+
+    // Map
+    AvroKeyRawMapper mapper = new AvroKeyRawMapper();
+    AvroKeyRawMapper.Context mapContext = mock(AvroKeyRawMapper.Context.class);
+    when(mapContext.getConfiguration()).thenReturn(conf);
+    when(mapContext.getCounter(any(Enum.class))).thenReturn(new GenericCounter());
+    final List<BytesWritable> keys = Lists.newArrayList();
+    final List<BytesWritable> values = Lists.newArrayList();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        keys.add(new BytesWritable(((BytesWritable) invocation.getArguments()[0]).copyBytes()));
+        values.add(new BytesWritable(((BytesWritable) invocation.getArguments()[1]).copyBytes()));
+        return null;
+      }
+    }).when(mapContext).write(any(BytesWritable.class), any(BytesWritable.class));
+
+    mapper.setup(mapContext);
+    mapper.map(new AvroKey<>(createRecord("a", 1L, "first")), NullWritable.get(), mapContext);
+    mapper.map(new AvroKey<>(createRecord("a", 1L, "second")), NullWritable.get(), mapContext);
+    mapper.map(new AvroKey<>(createRecord("b", 1L, "third")), NullWritable.get(), mapContext);
+
+    // Records with the same dedup key have byte-identical keys
+    Assert.assertEquals(keys.get(0), keys.get(1));
+    Assert.assertNotEquals(keys.get(0), keys.get(2));
+
+    // Combine
+    AvroKeyRawDedupCombiner combiner = new AvroKeyRawDedupCombiner();
+    AvroKeyRawDedupCombiner.Context combineContext = mock(AvroKeyRawDedupCombiner.Context.class);
+    Counter mapSideDeduped = new GenericCounter();
+    Counter shuffleBytesSaved = new GenericCounter();
+    when(combineContext.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.MAP_SIDE_DEDUPED)).thenReturn(mapSideDeduped);
+    when(combineContext.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.SHUFFLE_BYTES_SAVED))
+        .thenReturn(shuffleBytesSaved);
+    combiner.reduce(keys.get(0), ImmutableList.of(values.get(0), values.get(1)), combineContext);
+    verify(combineContext).write(keys.get(0), values.get(1));
+    Assert.assertEquals(mapSideDeduped.getValue(), 1L);
+    Assert.assertEquals(shuffleBytesSaved.getValue(), (long) (keys.get(0).getLength() + values.get(0).getLength()));
+
+    // Reduce
+    AvroKeyRawDedupReducer reducer = new AvroKeyRawDedupReducer();
+    AvroKeyRawDedupReducer.Context reduceContext = mock(AvroKeyRawDedupReducer.Context.class);
+    when(reduceContext.getConfiguration()).thenReturn(conf);
+    Counter deduped = new GenericCounter();
+    when(reduceContext.getCounter(any(Enum.class))).thenReturn(new GenericCounter());
+    when(reduceContext.getCounter(AvroKeyDedupReducer.EVENT_COUNTER.DEDUPED)).thenReturn(deduped);
+    final List<GenericRecord> output = Lists.newArrayList();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        output.add(new GenericData.Record((GenericData.Record) ((AvroKey<GenericRecord>) invocation.getArguments()[0])
+            .datum(), true));
+        return null;
+      }
+    }).when(reduceContext).write(any(AvroKey.class), any(NullWritable.class));
+
+    reducer.setup(reduceContext);
+    reducer.reduce(keys.get(0), ImmutableList.of(values.get(0), values.get(1)), reduceContext);
+    reducer.reduce(keys.get(2), ImmutableList.of(values.get(2)), reduceContext);
+
+    Assert.assertEquals(deduped.getValue(), 1L);
+    Assert.assertEquals(output.size(), 2);
+    Assert.assertEquals(output.get(0).get("payload").toString(), "second");
+    Assert.assertEquals(output.get(1).get("id").toString(), "b");
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.compaction.mapreduce.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+
+/**
+ * A helper class for the schemas and records shared by the Avro compaction tests.
+ */
+class AvroKeyTestHelper {
+
+  /**
+   * Schema of the records to compact.
+   */
+  static final Schema SCHEMA = SchemaBuilder.record("Event").namespace("gobblin.test").fields()
+      .requiredString("id").requiredLong("time").optionalString("payload").endRecord();
+
+  /**
+   * Schema of the dedup key of the records, made of the fields of {@link #SCHEMA} other than the payload.
+   */
+  static final Schema KEY_SCHEMA = SchemaBuilder.record("Event").namespace("gobblin.test").fields()
+      .requiredString("id").requiredLong("time").endRecord();
+
+  private AvroKeyTestHelper() {
+  }
+
+  static GenericRecord createRecord(String id, long time, String payload) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    record.put("time", time);
+    record.put("payload", payload);
+    return record;
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.config.store.deploy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Charsets;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigRenderOptions;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.common.impl.ConfigStoreBackedTopology;
+import gobblin.config.common.impl.ConfigStoreTopologyInspector;
+import gobblin.config.common.impl.InMemoryTopology;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStore;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Compiles one version of a {@link ConfigStore} into a single {@link ConfigStoreSnapshot}, typically right after the
+ * version is deployed with {@link StoreDeployer}.
+ *
+ * <p>
+ *   The whole topology of the store is walked once, starting from the root and following children and imports, and
+ *   circular dependencies are detected at compile time. For each node, the snapshot records its children, its own and
+ *   recursive imports, its own config and its resolution order. The resolution order is the list of nodes obtained
+ *   by expanding the node, its own imports in order and its parent, as done by
+ *   {@link gobblin.config.common.impl.ConfigStoreBackedValueInspector}, keeping only the first occurrence of each node.
+ *   Resolving a config from the snapshot is then a sequence of
+ *   {@link Config#withFallback(com.typesafe.config.ConfigMergeable)} calls on own configs.
+ * </p>
+ *
+ * <p>
+ *   Own configs are stored unresolved, so that {@link ConfigFactory#defaultOverrides()} and environment variables are
+ *   still applied when a config is read rather than when the store is compiled.
+ * </p>
+ */
+@Alpha
+@Slf4j
+public class ConfigStoreCompiler {
+
+  private final ConfigStore store;
+  private final String version;
+  private final ConfigStoreTopologyInspector topology;
+
+  private final List<ConfigKeyPath> nodes = new ArrayList<>();
+  private final Map<ConfigKeyPath, Integer> nodeIndices = new HashMap<>();
+  private final Map<ConfigKeyPath, Set<ConfigKeyPath>> resolutionOrders = new HashMap<>();
+
+  private ConfigStoreCompiler(ConfigStore store, String version) {
+    this.store = store;
+    this.version = version;
+    this.topology = new InMemoryTopology(new ConfigStoreBackedTopology(store, version));
+  }
+
+  /**
+   * Compile the given version of a {@link ConfigStore} and write the resulting snapshot to an {@link OutputStream}.
+   * The {@link OutputStream} is not closed.
+   *
+   * @throws gobblin.config.common.impl.CircularDependencyException if the store has circular imports.
+   * @throws IOException if an own config cannot be stored in the snapshot, or the snapshot cannot be written.
+   */
+  public static void compile(ConfigStore store, String version, OutputStream out) throws IOException {
+    new ConfigStoreCompiler(store, version).compile(out);
+  }
+
+  private void compile(OutputStream out) throws IOException {
+    // The list of nodes grows while it is walked, as children, imports and their ancestors are discovered
+    getNodeIndex(SingleLinkedListConfigKeyPath.ROOT);
+    List<int[]> children = new ArrayList<>();
+    List<int[]> ownImports = new ArrayList<>();
+    List<int[]> importsRecursively = new ArrayList<>();
+    List<int[]> resolutionOrderIndices = new ArrayList<>();
+    for (int i = 0; i < this.nodes.size(); i++) {
+      ConfigKeyPath node = this.nodes.get(i);
+      children.add(getNodeIndices(this.topology.getChildren(node)));
+      ownImports.add(getNodeIndices(this.topology.getOwnImports(node)));
+      // Also checks the whole store for circular dependencies the first time it is called
+      importsRecursively.add(getNodeIndices(this.topology.getImportsRecursively(node)));
+      resolutionOrderIndices.add(getNodeIndices(getResolutionOrder(node)));
+    }
+
+    ByteArrayOutputStream records = new ByteArrayOutputStream();
+    DataOutputStream recordsOut = new DataOutputStream(records);
+    int[] recordOffsets = new int[this.nodes.size()];
+    for (int i = 0; i < this.nodes.size(); i++) {
+      ConfigKeyPath node = this.nodes.get(i);
+      recordOffsets[i] = recordsOut.size();
+      writeString(recordsOut, node.getAbsolutePathString());
+      writeNodeIndices(recordsOut, children.get(i));
+      writeNodeIndices(recordsOut, ownImports.get(i));
+      writeNodeIndices(recordsOut, importsRecursively.get(i));
+      writeNodeIndices(recordsOut, resolutionOrderIndices.get(i));
+      writeString(recordsOut, renderOwnConfig(node));
+    }
+    recordsOut.flush();
+
+    int slotCount = Integer.highestOneBit(Math.max(1, this.nodes.size())) * 4;
+    int[] slots = new int[slotCount];
+    for (int i = 0; i < slotCount; i++) {
+      slots[i] = ConfigStoreSnapshot.NO_NODE;
+    }
+    for (int i = 0; i < this.nodes.size(); i++) {
+      int slot = ConfigStoreSnapshot.hash(this.nodes.get(i).getAbsolutePathString().getBytes(Charsets.UTF_8))
+          & (slotCount - 1);
+      while (slots[slot] != ConfigStoreSnapshot.NO_NODE) {
+        slot = (slot + 1) & (slotCount - 1);
+      }
+      slots[slot] = i;
+    }
+
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(ConfigStoreSnapshot.MAGIC);
+    dataOut.writeInt(ConfigStoreSnapshot.FORMAT_VERSION);
+    dataOut.writeInt(this.nodes.size());
+    dataOut.writeInt(slotCount);
+    for (int slot : slots) {
+      dataOut.writeInt(slot);
+    }
+    int recordsStart = ConfigStoreSnapshot.HEADER_SIZE + 4 * slotCount + 4 * this.nodes.size();
+    for (int recordOffset : recordOffsets) {
+      dataOut.writeInt(recordsStart + recordOffset);
+    }
+    records.writeTo(dataOut);
+    dataOut.flush();
+
+    log.info(String.format("Compiled %d config keys of version %s of store %s into a snapshot of %d bytes",
+        this.nodes.size(), this.version, this.store.getStoreURI(), dataOut.size()));
+  }
+
+  /**
+   * Get the resolution order of a config key, i.e., the key itself, then the resolution orders of its own imports in
+   * order, then the resolution order of its parent, keeping only the first occurrence of each key. Since
+   * {@link Config#withFallback(com.typesafe.config.ConfigMergeable)} is associative, and merging a config that was
+   * already merged earlier has no effect, this gives the same result as resolving the imports recursively.
+   */
+  private Set<ConfigKeyPath> getResolutionOrder(ConfigKeyPath configKey) {
+    Set<ConfigKeyPath> resolutionOrder = this.resolutionOrders.get(configKey);
+    if (resolutionOrder != null) {
+      return resolutionOrder;
+    }
+
+    resolutionOrder = new LinkedHashSet<>();
+    resolutionOrder.add(configKey);
+    if (!configKey.isRootPath()) {
+      for (ConfigKeyPath ownImport : this.topology.getOwnImports(configKey)) {
+        resolutionOrder.addAll(getResolutionOrder(ownImport));
+      }
+      resolutionOrder.addAll(getResolutionOrder(configKey.getParent()));
+    }
+    this.resolutionOrders.put(configKey, resolutionOrder);
+    return resolutionOrder;
+  }
+
+  private String renderOwnConfig(ConfigKeyPath configKey) throws IOException {
+    Config ownConfig = this.store.getOwnConfig(configKey, this.version);
+    String rendered = ownConfig.root().render(ConfigRenderOptions.concise());
+    // Unresolved substitutions are rendered as is, make sure nothing is lost on the way back
+    if (!ConfigFactory.parseString(rendered).root().equals(ownConfig.root())) {
+      throw new IOException(String.format("The config of key %s cannot be stored in a snapshot: %s", configKey,
+          ownConfig.root().render(ConfigRenderOptions.defaults().setOriginComments(true))));
+    }
+    return rendered;
+  }
+
+  private int getNodeIndex(ConfigKeyPath configKey) {
+    Integer index = this.nodeIndices.get(configKey);
+    if (index == null) {
+      index = this.nodes.size();
+      this.nodes.add(configKey);
+      this.nodeIndices.put(configKey, index);
+    }
+    return index;
+  }
+
+  private int[] getNodeIndices(Collection<ConfigKeyPath> configKeys) {
+    int[] indices = new int[configKeys.size()];
+    int i = 0;
+    for (ConfigKeyPath configKey : configKeys) {
+      indices[i++] = getNodeIndex(configKey);
+    }
+    return indices;
+  }
+
+  private static void writeNodeIndices(DataOutputStream out, int[] indices) throws IOException {
+    out.writeInt(indices.length);
+    for (int index : indices) {
+      out.writeInt(index);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(Charsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.config.store.deploy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.google.common.base.Charsets;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.store.api.ConfigStore;
+
+
+/**
+ * A read-only view of one version of a {@link ConfigStore} compiled by {@link ConfigStoreCompiler}.
+ *
+ * <p>
+ *   The snapshot is a single binary file, meant to be memory-mapped, laid out as follows (all integers are big-endian):
+ *   <ul>
+ *     <li>a header made of {@link #MAGIC}, {@link #FORMAT_VERSION}, the number of nodes and the number of hash slots,
+ *     <li>the hash slots, each holding the index of a node or -1. A node is found by hashing its absolute path (see
+ *     {@link #hash(byte[])}) and probing the following slots until its path or an empty slot is found,
+ *     <li>the offset of the record of each node,
+ *     <li>the node records.
+ *   </ul>
+ *   A node record contains the absolute path of the node, then the node indices of its children, of its own imports,
+ *   of its recursive imports and of its resolution order, each prefixed by their count, and finally the own
+ *   {@link com.typesafe.config.Config} of the node rendered in HOCON. Strings are UTF-8 bytes prefixed by their length.
+ * </p>
+ *
+ * <p>
+ *   The resolution order of a node lists the nodes whose own configs, merged with
+ *   {@link com.typesafe.config.Config#withFallback(com.typesafe.config.ConfigMergeable)} in that order, give the
+ *   resolved config of the node.
+ * </p>
+ *
+ * <p>
+ *   This class only uses absolute reads on the underlying {@link ByteBuffer}, and is thread-safe.
+ * </p>
+ */
+@Alpha
+public class ConfigStoreSnapshot {
+
+  /** "GCSS", for Gobblin Config Store Snapshot. */
+  public static final int MAGIC = 0x47435353;
+  public static final int FORMAT_VERSION = 1;
+
+  static final int HEADER_SIZE = 4 * 4;
+  static final int NO_NODE = -1;
+
+  private static final int CHILDREN = 0;
+  private static final int OWN_IMPORTS = 1;
+  private static final int IMPORTS_RECURSIVELY = 2;
+  private static final int RESOLUTION_ORDER = 3;
+  private static final int OWN_CONFIG = 4;
+
+  private final ByteBuffer buffer;
+  private final int nodeCount;
+  private final int slotCount;
+
+  public ConfigStoreSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a config store snapshot");
+    }
+    if (buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Unsupported config store snapshot format version " + buffer.getInt(4));
+    }
+    this.nodeCount = buffer.getInt(8);
+    this.slotCount = buffer.getInt(12);
+  }
+
+  public int getNodeCount() {
+    return this.nodeCount;
+  }
+
+  /**
+   * @return the index of the node with the given absolute path, or a negative value if there is no such node.
+   */
+  public int getNode(String path) {
+    byte[] pathBytes = path.getBytes(Charsets.UTF_8);
+    int mask = this.slotCount - 1;
+    for (int slot = hash(pathBytes) & mask;; slot = (slot + 1) & mask) {
+      int node = this.buffer.getInt(HEADER_SIZE + 4 * slot);
+      if (node == NO_NODE || pathEquals(node, pathBytes)) {
+        return node;
+      }
+    }
+  }
+
+  public String getPath(int node) {
+    return getString(getRecordOffset(node));
+  }
+
+  public int[] getChildren(int node) {
+    return getNodes(node, CHILDREN);
+  }
+
+  public int[] getOwnImports(int node) {
+    return getNodes(node, OWN_IMPORTS);
+  }
+
+  public int[] getImportsRecursively(int node) {
+    return getNodes(node, IMPORTS_RECURSIVELY);
+  }
+
+  public int[] getResolutionOrder(int node) {
+    return getNodes(node, RESOLUTION_ORDER);
+  }
+
+  /**
+   * @return the own config of the node rendered in HOCON.
+   */
+  public String getOwnConfig(int node) {
+    return getString(getSectionOffset(node, OWN_CONFIG));
+  }
+
+  static int hash(byte[] pathBytes) {
+    int hash = 1;
+    for (byte b : pathBytes) {
+      hash = 31 * hash + b;
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private int getRecordOffset(int node) {
+    if (node < 0 || node >= this.nodeCount) {
+      throw new IndexOutOfBoundsException("No node " + node + " in snapshot of " + this.nodeCount + " nodes");
+    }
+    return this.buffer.getInt(HEADER_SIZE + 4 * this.slotCount + 4 * node);
+  }
+
+  private int getSectionOffset(int node, int section) {
+    int offset = getRecordOffset(node);
+    // Skip the path
+    offset += 4 + this.buffer.getInt(offset);
+    for (int i = 0; i < section; i++) {
+      offset += 4 + 4 * this.buffer.getInt(offset);
+    }
+    return offset;
+  }
+
+  private int[] getNodes(int node, int section) {
+    int offset = getSectionOffset(node, section);
+    int[] nodes = new int[this.buffer.getInt(offset)];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = this.buffer.getInt(offset + 4 + 4 * i);
+    }
+    return nodes;
+  }
+
+  private boolean pathEquals(int node, byte[] pathBytes) {
+    int offset = getRecordOffset(node);
+    if (this.buffer.getInt(offset) != pathBytes.length) {
+      return false;
+    }
+    for (int i = 0; i < pathBytes.length; i++) {
+      if (this.buffer.get(offset + 4 + i) != pathBytes[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String getString(int offset) {
+    byte[] bytes = new byte[this.buffer.getInt(offset)];
+    ByteBuffer view = this.buffer.duplicate();
+    view.position(offset + 4);
+    view.get(bytes);
+    return new String(bytes, Charsets.UTF_8);
+  }
+}
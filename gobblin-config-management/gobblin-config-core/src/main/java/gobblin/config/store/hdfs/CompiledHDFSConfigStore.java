@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.config.store.hdfs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.fs.permission.FsPermission;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import gobblin.annotation.Alpha;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStoreWithBatchFetches;
+import gobblin.config.store.api.ConfigStoreWithResolution;
+import gobblin.config.store.api.ConfigStoreWithStableVersioning;
+import gobblin.config.store.api.VersionDoesNotExistException;
+import gobblin.config.store.deploy.ConfigStoreCompiler;
+import gobblin.config.store.deploy.ConfigStoreSnapshot;
+import gobblin.config.store.deploy.FsDeploymentConfig;
+
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A {@link SimpleHDFSConfigStore} that serves each version from a {@link ConfigStoreSnapshot}, compiled when the
+ * version is deployed, instead of listing and reading the files of every config key on HDFS.
+ *
+ * <p>
+ *   The snapshot of a version is the file {@link #SNAPSHOT_FILE_NAME} in the version directory. It is memory-mapped
+ *   the first time the version is accessed, after being copied to a local temporary file if the store is not on the
+ *   local file system. Config keys are then looked up in constant time, and resolved configs are merged from own
+ *   configs in the order precomputed by {@link ConfigStoreCompiler}, without walking the import graph. Versions
+ *   deployed without a snapshot are compiled in memory on first access.
+ * </p>
+ *
+ * <p>
+ *   When querying this store, the scheme should be of the form {@code compiled-[hdfs-scheme]}. This class can be
+ *   constructed using a {@link CompiledHDFSConfigStoreFactory}.
+ * </p>
+ */
+@Alpha
+@Slf4j
+@ConfigStoreWithStableVersioning
+public class CompiledHDFSConfigStore extends SimpleHDFSConfigStore
+    implements ConfigStoreWithResolution, ConfigStoreWithBatchFetches {
+
+  public static final String SNAPSHOT_FILE_NAME = "_snapshot.bin";
+
+  private final FileSystem fs;
+  // Reads the files of the store, to compile snapshots
+  private final SimpleHDFSConfigStore sourceStore;
+  private final Cache<String, CompiledVersion> compiledVersions;
+
+  protected CompiledHDFSConfigStore(FileSystem fs, URI physicalStoreRoot, URI logicalStoreRoot) {
+    super(fs, physicalStoreRoot, logicalStoreRoot);
+    this.fs = fs;
+    this.sourceStore = new SimpleHDFSConfigStore(fs, physicalStoreRoot, logicalStoreRoot);
+    this.compiledVersions = CacheBuilder.newBuilder().build();
+  }
+
+  @Override
+  public Collection<ConfigKeyPath> getChildren(ConfigKeyPath configKey, String version)
+      throws VersionDoesNotExistException {
+    Preconditions.checkNotNull(configKey, "configKey cannot be null!");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version cannot be null or empty!");
+
+    CompiledVersion compiledVersion = getCompiledVersion(version);
+    int node = compiledVersion.snapshot.getNode(configKey.getAbsolutePathString());
+    if (node < 0) {
+      return new ArrayList<>();
+    }
+    return compiledVersion.getConfigKeys(compiledVersion.snapshot.getChildren(node));
+  }
+
+  @Override
+  public List<ConfigKeyPath> getOwnImports(ConfigKeyPath configKey, String version)
+      throws VersionDoesNotExistException {
+    Preconditions.checkNotNull(configKey, "configKey cannot be null!");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version cannot be null or empty!");
+
+    CompiledVersion compiledVersion = getCompiledVersion(version);
+    int node = compiledVersion.snapshot.getNode(configKey.getAbsolutePathString());
+    if (node < 0) {
+      return new ArrayList<>();
+    }
+    return compiledVersion.getConfigKeys(compiledVersion.snapshot.getOwnImports(node));
+  }
+
+  @Override
+  public Config getOwnConfig(ConfigKeyPath configKey, String version) throws VersionDoesNotExistException {
+    Preconditions.checkNotNull(configKey, "configKey cannot be null!");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version cannot be null or empty!");
+
+    CompiledVersion compiledVersion = getCompiledVersion(version);
+    int node = compiledVersion.snapshot.getNode(configKey.getAbsolutePathString());
+    if (node < 0) {
+      return ConfigFactory.empty();
+    }
+    return compiledVersion.getOwnConfig(node);
+  }
+
+  /**
+   * {@inheritDoc}.
+   *
+   * <p>
+   *   Like {@link SimpleHDFSConfigStore#getOwnConfig(ConfigKeyPath, String)}, the returned {@link Config} is not
+   *   resolved, and does not include {@link ConfigFactory#defaultOverrides()}.
+   * </p>
+   */
+  @Override
+  public Config getResolvedConfig(ConfigKeyPath configKey, String version) throws VersionDoesNotExistException {
+    Preconditions.checkNotNull(configKey, "configKey cannot be null!");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version cannot be null or empty!");
+
+    CompiledVersion compiledVersion = getCompiledVersion(version);
+    Config resolvedConfig = ConfigFactory.empty();
+    for (int node : compiledVersion.snapshot.getResolutionOrder(compiledVersion.getClosestNode(configKey))) {
+      resolvedConfig = resolvedConfig.withFallback(compiledVersion.getOwnConfig(node));
+    }
+    return resolvedConfig;
+  }
+
+  @Override
+  public List<ConfigKeyPath> getImportsRecursively(ConfigKeyPath configKey, String version)
+      throws VersionDoesNotExistException {
+    Preconditions.checkNotNull(configKey, "configKey cannot be null!");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(version), "version cannot be null or empty!");
+
+    CompiledVersion compiledVersion = getCompiledVersion(version);
+    return compiledVersion.getConfigKeys(
+        compiledVersion.snapshot.getImportsRecursively(compiledVersion.getClosestNode(configKey)));
+  }
+
+  @Override
+  public Map<ConfigKeyPath, Config> getOwnConfigs(Collection<ConfigKeyPath> configKeys, String version)
+      throws VersionDoesNotExistException {
+    Map<ConfigKeyPath, Config> result = new HashMap<>();
+    for (ConfigKeyPath configKey : configKeys) {
+      result.put(configKey, getOwnConfig(configKey, version));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}.
+   *
+   * <p>
+   *   Unlike {@link #getResolvedConfig(ConfigKeyPath, String)}, the returned {@link Config}s are resolved against
+   *   {@link ConfigFactory#defaultOverrides()} and environment variables, since they are returned as is by
+   *   {@link gobblin.config.common.impl.ConfigStoreBackedValueInspector#getResolvedConfigs(Collection)}.
+   * </p>
+   */
+  @Override
+  public Map<ConfigKeyPath, Config> getResolvedConfigs(Collection<ConfigKeyPath> configKeys, String version)
+      throws VersionDoesNotExistException {
+    Map<ConfigKeyPath, Config> result = new HashMap<>();
+    for (ConfigKeyPath configKey : configKeys) {
+      result.put(configKey, getResolvedConfig(configKey, version).withFallback(ConfigFactory.defaultOverrides())
+          .withFallback(ConfigFactory.systemEnvironment()).resolve());
+    }
+    return result;
+  }
+
+  /**
+   * Deploy the configs as done by {@link SimpleHDFSConfigStore#deploy(FsDeploymentConfig)}, then compile the new
+   * version into a snapshot.
+   */
+  @Override
+  public void deploy(FsDeploymentConfig deploymentConfig) throws IOException {
+    super.deploy(deploymentConfig);
+    compile(deploymentConfig.getNewVersion(), deploymentConfig.getStorePermissions());
+  }
+
+  /**
+   * Compile a version of the store into the file {@link #SNAPSHOT_FILE_NAME} of the version directory, unless that
+   * file already exists. The snapshot is written to a temporary file first, and then renamed.
+   */
+  public void compile(String version, FsPermission permission) throws IOException {
+    Path snapshotPath = new Path(getVersionRoot(version), SNAPSHOT_FILE_NAME);
+    if (this.fs.exists(snapshotPath)) {
+      log.info(String.format("Version %s of store %s is already compiled", version, getStoreURI()));
+      return;
+    }
+
+    Path tmpSnapshotPath = new Path(snapshotPath.getParent(), SNAPSHOT_FILE_NAME + ".tmp");
+    try (OutputStream out = new BufferedOutputStream(this.fs.create(tmpSnapshotPath, true))) {
+      ConfigStoreCompiler.compile(this.sourceStore, version, out);
+    }
+    this.fs.setPermission(tmpSnapshotPath, permission);
+    if (!this.fs.rename(tmpSnapshotPath, snapshotPath)) {
+      throw new IOException(String.format("Failed to rename %s to %s", tmpSnapshotPath, snapshotPath));
+    }
+    this.compiledVersions.invalidate(version);
+  }
+
+  private CompiledVersion getCompiledVersion(final String version) throws VersionDoesNotExistException {
+    try {
+      return this.compiledVersions.get(version, new Callable<CompiledVersion>() {
+        @Override
+        public CompiledVersion call() throws IOException {
+          return loadCompiledVersion(version);
+        }
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      for (Throwable cause : Throwables.getCausalChain(e)) {
+        Throwables.propagateIfInstanceOf(cause, VersionDoesNotExistException.class);
+      }
+      throw new RuntimeException(
+          String.format("Error while loading snapshot of version \"%s\" for store \"%s\"", version, getStoreURI()),
+          e.getCause());
+    }
+  }
+
+  private CompiledVersion loadCompiledVersion(String version) throws IOException {
+    Path snapshotPath = new Path(getVersionRoot(version), SNAPSHOT_FILE_NAME);
+    if (!this.fs.exists(snapshotPath)) {
+      log.info(String.format("Version %s of store %s has no snapshot, compiling it in memory", version, getStoreURI()));
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ConfigStoreCompiler.compile(this.sourceStore, version, out);
+      return new CompiledVersion(new ConfigStoreSnapshot(ByteBuffer.wrap(out.toByteArray())));
+    }
+    return new CompiledVersion(new ConfigStoreSnapshot(map(snapshotPath)));
+  }
+
+  /**
+   * Memory-map a snapshot file, copying it to a local temporary file first if it is not on the local file system.
+   */
+  private ByteBuffer map(Path snapshotPath) throws IOException {
+    boolean isLocal = this.fs instanceof LocalFileSystem || this.fs instanceof RawLocalFileSystem;
+    File localFile;
+    if (isLocal) {
+      localFile = new File(snapshotPath.toUri().getPath());
+    } else {
+      localFile = File.createTempFile(SNAPSHOT_FILE_NAME, null);
+      try (InputStream in = this.fs.open(snapshotPath); OutputStream out = new FileOutputStream(localFile)) {
+        ByteStreams.copy(in, out);
+      }
+    }
+
+    try (RandomAccessFile file = new RandomAccessFile(localFile, "r"); FileChannel channel = file.getChannel()) {
+      // The mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      if (!isLocal && !localFile.delete()) {
+        localFile.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * A {@link ConfigStoreSnapshot} of a version, with the own {@link Config}s parsed so far.
+   */
+  private static class CompiledVersion {
+
+    private final ConfigStoreSnapshot snapshot;
+    private final Cache<Integer, Config> ownConfigs = CacheBuilder.newBuilder().softValues().build();
+
+    private CompiledVersion(ConfigStoreSnapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    private Config getOwnConfig(final int node) {
+      try {
+        return this.ownConfigs.get(node, new Callable<Config>() {
+          @Override
+          public Config call() {
+            return ConfigFactory.parseString(snapshot.getOwnConfig(node));
+          }
+        });
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+
+    /**
+     * Get the node of a config key, or of its closest ancestor in the snapshot if the key itself is not in the
+     * snapshot. A key that is not in the snapshot has no own config and no imports, so its imports and its resolved
+     * config are those of its parent.
+     */
+    private int getClosestNode(ConfigKeyPath configKey) {
+      ConfigKeyPath current = configKey;
+      int node = this.snapshot.getNode(current.getAbsolutePathString());
+      while (node < 0 && !current.isRootPath()) {
+        current = current.getParent();
+        node = this.snapshot.getNode(current.getAbsolutePathString());
+      }
+      return node;
+    }
+
+    private List<ConfigKeyPath> getConfigKeys(int[] nodes) {
+      List<ConfigKeyPath> configKeys = new ArrayList<>(nodes.length);
+      for (int node : nodes) {
+        ConfigKeyPath configKey = SingleLinkedListConfigKeyPath.ROOT;
+        for (String name : Splitter.on(SingleLinkedListConfigKeyPath.PATH_DELIMETER).omitEmptyStrings()
+            .split(this.snapshot.getPath(node))) {
+          configKey = configKey.createChild(name);
+        }
+        configKeys.add(configKey);
+      }
+      return configKeys;
+    }
+  }
+}
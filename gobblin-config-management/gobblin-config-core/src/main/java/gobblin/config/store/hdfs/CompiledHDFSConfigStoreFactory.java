@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.config.store.hdfs;
+
+import java.net.URI;
+
+import org.apache.hadoop.fs.FileSystem;
+
+import com.typesafe.config.Config;
+
+import gobblin.annotation.Alpha;
+
+
+/**
+ * A {@link SimpleHDFSConfigStoreFactory} for creating {@link CompiledHDFSConfigStore}s. Stores are located the same
+ * way, but the logical scheme is of the form {@code compiled-[hdfs-scheme]}.
+ */
+@Alpha
+public class CompiledHDFSConfigStoreFactory extends SimpleHDFSConfigStoreFactory {
+
+  protected static final String COMPILED_HDFS_SCHEME_PREFIX = "compiled-";
+
+  public CompiledHDFSConfigStoreFactory() {
+    super();
+  }
+
+  public CompiledHDFSConfigStoreFactory(Config factoryConfig) {
+    super(factoryConfig);
+  }
+
+  @Override
+  protected SimpleHDFSConfigStore createConfigStore(FileSystem fs, URI physicalStoreRoot, URI logicalStoreRoot) {
+    return new CompiledHDFSConfigStore(fs, physicalStoreRoot, logicalStoreRoot);
+  }
+
+  @Override
+  protected String getSchemePrefix() {
+    return COMPILED_HDFS_SCHEME_PREFIX;
+  }
+}
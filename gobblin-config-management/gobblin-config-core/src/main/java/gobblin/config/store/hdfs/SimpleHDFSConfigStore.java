@@ -365,7 +365,7 @@ public class SimpleHDFSConfigStore implements ConfigStore, Deployable<FsDeployme
    * Constructs a {@link Path} that points to the location of the given version of the {@link ConfigStore} on HDFS. If
    * this {@link Path} does not exist, a {@link VersionDoesNotExistException} is thrown.
    */
-  private Path getVersionRoot(String version) throws VersionDoesNotExistException {
+  protected Path getVersionRoot(String version) throws VersionDoesNotExistException {
 
     try {
       return this.versions.get(version, new VersionRootLoader(version));
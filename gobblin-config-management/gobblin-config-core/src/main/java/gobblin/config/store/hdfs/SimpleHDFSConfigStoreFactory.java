@@ -96,7 +96,7 @@ public class SimpleHDFSConfigStoreFactory implements ConfigStoreFactory<SimpleHD
 
   @Override
   public String getScheme() {
-    return SIMPLE_HDFS_SCHEME_PREFIX + getPhysicalScheme();
+    return getSchemePrefix() + getPhysicalScheme();
   }
 
   /**
@@ -122,10 +122,26 @@ public class SimpleHDFSConfigStoreFactory implements ConfigStoreFactory<SimpleHD
   public SimpleHDFSConfigStore createConfigStore(URI configKey) throws ConfigStoreCreationException {
     FileSystem fs = createFileSystem(configKey);
     URI physicalStoreRoot = getStoreRoot(fs, configKey);
-    URI logicalStoreRoot = URI.create(SIMPLE_HDFS_SCHEME_PREFIX + physicalStoreRoot);
+    URI logicalStoreRoot = URI.create(getSchemePrefix() + physicalStoreRoot);
+    return createConfigStore(fs, physicalStoreRoot, logicalStoreRoot);
+  }
+
+  /**
+   * Creates the {@link SimpleHDFSConfigStore} once its physical and logical roots are known. Subclasses serving the
+   * store through a different implementation should override this method, together with {@link #getSchemePrefix()}.
+   */
+  protected SimpleHDFSConfigStore createConfigStore(FileSystem fs, URI physicalStoreRoot, URI logicalStoreRoot) {
     return new SimpleHDFSConfigStore(fs, physicalStoreRoot, logicalStoreRoot);
   }
 
+  /**
+   * Returns the prefix prepended to the physical scheme to form the logical scheme of the store, see
+   * {@link #getScheme()}.
+   */
+  protected String getSchemePrefix() {
+    return SIMPLE_HDFS_SCHEME_PREFIX;
+  }
+
   /**
    * Returns the physical scheme this {@link ConfigStoreFactory} is responsible for. To support new HDFS
    * {@link FileSystem} implementations, subclasses should override this method.
@@ -169,9 +185,9 @@ public class SimpleHDFSConfigStoreFactory implements ConfigStoreFactory<SimpleHD
   private URI createFileSystemURI(URI configKey) throws URISyntaxException, IOException {
     // Validate the scheme
     String configKeyScheme = configKey.getScheme();
-    if (!configKeyScheme.startsWith(SIMPLE_HDFS_SCHEME_PREFIX)) {
+    if (!configKeyScheme.startsWith(getSchemePrefix())) {
       throw new IllegalArgumentException(String.format("Scheme for configKey \"%s\" must begin with \"%s\"!", configKey,
-          SIMPLE_HDFS_SCHEME_PREFIX));
+          getSchemePrefix()));
     }
 
     if (Strings.isNullOrEmpty(configKey.getAuthority())) {
@@ -179,7 +195,7 @@ public class SimpleHDFSConfigStoreFactory implements ConfigStoreFactory<SimpleHD
     }
     else {
       String uriPhysicalScheme =
-          configKeyScheme.substring(SIMPLE_HDFS_SCHEME_PREFIX.length(), configKeyScheme.length());
+          configKeyScheme.substring(getSchemePrefix().length(), configKeyScheme.length());
       return new URI(uriPhysicalScheme, configKey.getAuthority(), "", "", "");
     }
   }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.config.store.hdfs;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.typesafe.config.Config;
+
+import gobblin.config.common.impl.CircularDependencyException;
+import gobblin.config.common.impl.ConfigStoreBackedTopology;
+import gobblin.config.common.impl.ConfigStoreBackedValueInspector;
+import gobblin.config.common.impl.InMemoryTopology;
+import gobblin.config.common.impl.SingleLinkedListConfigKeyPath;
+import gobblin.config.store.api.ConfigKeyPath;
+import gobblin.config.store.api.ConfigStore;
+import gobblin.config.store.deploy.FsDeploymentConfig;
+
+
+/**
+ * Unit tests for {@link CompiledHDFSConfigStore}, checked against a {@link SimpleHDFSConfigStore} on the same files.
+ */
+@Test(groups = "gobblin.config.store.hdfs")
+public class CompiledHdfsConfigStoreTest {
+
+  private static final String VERSION = "v1.0";
+  private static final List<String> CONFIG_KEYS = ImmutableList.of("/", "/tags", "/tags/t1", "/tags/t2", "/datasets",
+      "/datasets/ds1", "/datasets/ds1/child", "/tags/phantom/p", "/datasets/ds1/missing");
+
+  private File storeDir;
+  private FileSystem fs;
+  private URI physicalStoreRoot;
+  private SimpleHDFSConfigStore simpleStore;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.storeDir = Files.createTempDir();
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.physicalStoreRoot = this.fs.makeQualified(new Path(this.storeDir.getAbsolutePath())).toUri();
+    this.simpleStore = new SimpleHDFSConfigStore(this.fs, this.physicalStoreRoot,
+        URI.create(SimpleHDFSConfigStoreFactory.SIMPLE_HDFS_SCHEME_PREFIX + this.physicalStoreRoot));
+
+    Path versionRoot = getVersionRoot(VERSION);
+    writeFile(new Path(versionRoot, "main.conf"), "a : root\nb : root\nc : root\nbase : /data");
+    writeFile(new Path(versionRoot, "tags/t1/main.conf"), "b : t1\nd : t1\npath : ${base}\"/t1\"");
+    writeFile(new Path(versionRoot, "tags/t2/main.conf"), "d : t2\ne : t2");
+    writeFile(new Path(versionRoot, "tags/t2/includes.conf"), "/tags/t1");
+    writeFile(new Path(versionRoot, "datasets/main.conf"), "c : datasets");
+    writeFile(new Path(versionRoot, "datasets/ds1/main.conf"), "a : ds1");
+    writeFile(new Path(versionRoot, "datasets/ds1/includes.conf"), "/tags/t2\n/tags/t1");
+    writeFile(new Path(versionRoot, "datasets/ds1/child/main.conf"), "f : child");
+    writeFile(new Path(versionRoot, "datasets/ds1/child/includes.conf"), "/tags/phantom/p");
+  }
+
+  @Test
+  public void testCompiledInMemory() throws Exception {
+    CompiledHDFSConfigStore store = createStore();
+    assertSameAsSimpleStore(store);
+    Assert.assertFalse(this.fs.exists(new Path(getVersionRoot(VERSION), CompiledHDFSConfigStore.SNAPSHOT_FILE_NAME)));
+  }
+
+  @Test(dependsOnMethods = "testCompiledInMemory")
+  public void testCompiledSnapshot() throws Exception {
+    createStore().compile(VERSION, FsDeploymentConfig.DEFAULT_STORE_PERMISSIONS);
+    Assert.assertTrue(this.fs.exists(new Path(getVersionRoot(VERSION), CompiledHDFSConfigStore.SNAPSHOT_FILE_NAME)));
+
+    CompiledHDFSConfigStore store = createStore();
+    assertSameAsSimpleStore(store);
+
+    Config config = getValueInspector(store).getResolvedConfig(getConfigKey("/datasets/ds1/child"));
+    Assert.assertEquals(config.getString("a"), "ds1");
+    Assert.assertEquals(config.getString("b"), "t1");
+    Assert.assertEquals(config.getString("c"), "datasets");
+    Assert.assertEquals(config.getString("d"), "t2");
+    Assert.assertEquals(config.getString("f"), "child");
+    Assert.assertEquals(config.getString("path"), "/data/t1");
+  }
+
+  @Test(expectedExceptions = CircularDependencyException.class)
+  public void testCircularDependency() throws Exception {
+    String version = "circular";
+    Path versionRoot = getVersionRoot(version);
+    writeFile(new Path(versionRoot, "tags/t1/includes.conf"), "/tags/t2");
+    writeFile(new Path(versionRoot, "tags/t2/includes.conf"), "/tags/t1");
+
+    createStore().compile(version, FsDeploymentConfig.DEFAULT_STORE_PERMISSIONS);
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.storeDir);
+  }
+
+  private void assertSameAsSimpleStore(CompiledHDFSConfigStore store) {
+    ConfigStoreBackedValueInspector expectedInspector = getValueInspector(this.simpleStore);
+    ConfigStoreBackedValueInspector inspector = getValueInspector(store);
+    InMemoryTopology expectedTopology = getTopology(this.simpleStore);
+
+    for (String path : CONFIG_KEYS) {
+      ConfigKeyPath configKey = getConfigKey(path);
+      Assert.assertEquals(Sets.newHashSet(store.getChildren(configKey, VERSION)),
+          Sets.newHashSet(this.simpleStore.getChildren(configKey, VERSION)), path);
+      Assert.assertEquals(store.getOwnImports(configKey, VERSION), this.simpleStore.getOwnImports(configKey, VERSION),
+          path);
+      Assert.assertEquals(store.getImportsRecursively(configKey, VERSION),
+          expectedTopology.getImportsRecursively(configKey), path);
+      Assert.assertEquals(store.getOwnConfig(configKey, VERSION), this.simpleStore.getOwnConfig(configKey, VERSION),
+          path);
+      Assert.assertEquals(inspector.getResolvedConfig(configKey), expectedInspector.getResolvedConfig(configKey), path);
+    }
+  }
+
+  private CompiledHDFSConfigStore createStore() {
+    return new CompiledHDFSConfigStore(this.fs, this.physicalStoreRoot,
+        URI.create(CompiledHDFSConfigStoreFactory.COMPILED_HDFS_SCHEME_PREFIX + this.physicalStoreRoot));
+  }
+
+  private static InMemoryTopology getTopology(ConfigStore store) {
+    return new InMemoryTopology(new ConfigStoreBackedTopology(store, VERSION));
+  }
+
+  private static ConfigStoreBackedValueInspector getValueInspector(ConfigStore store) {
+    return new ConfigStoreBackedValueInspector(store, VERSION, getTopology(store));
+  }
+
+  private static ConfigKeyPath getConfigKey(String path) {
+    ConfigKeyPath configKey = SingleLinkedListConfigKeyPath.ROOT;
+    for (String name : path.split(SingleLinkedListConfigKeyPath.PATH_DELIMETER)) {
+      if (!name.isEmpty()) {
+        configKey = configKey.createChild(name);
+      }
+    }
+    return configKey;
+  }
+
+  private Path getVersionRoot(String version) {
+    return new Path(new Path(new Path(this.physicalStoreRoot), SimpleHDFSConfigStore.CONFIG_STORE_NAME), version);
+  }
+
+  private void writeFile(Path path, String content) throws IOException {
+    try (Writer writer = new OutputStreamWriter(this.fs.create(path, true), Charsets.UTF_8)) {
+      writer.write(content);
+    }
+  }
+}
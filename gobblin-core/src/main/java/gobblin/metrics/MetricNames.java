@@ -25,6 +25,9 @@ public class MetricNames {
     public static final String RECORDS_FAILED_METER = "gobblin.extractor.records.failed";
     // Times extraction of records.
     public static final String EXTRACT_TIMER = "gobblin.extractor.extract.time";
+    // Times waiting for data to be fetched from the source, and decoding fetched data into records.
+    public static final String FETCH_WAIT_TIMER = "gobblin.extractor.fetch.wait.time";
+    public static final String DECODE_TIMER = "gobblin.extractor.decode.time";
   }
 
   /**
@@ -99,5 +102,36 @@ public class MetricNames {
      * A {@link com.codahale.metrics.Timer} measuring the time taken for each write operation.
      */
     public static final String WRITE_TIMER = "gobblin.writer.write.time";
+
+    /**
+     * A {@link com.codahale.metrics.Timer} measuring the time taken to receive the response of each request sent by a
+     * {@link gobblin.writer.http.AbstractHttpWriter}.
+     */
+    public static final String HTTP_RESPONSE_TIMER = "gobblin.writer.http.response.time";
+
+    /**
+     * A {@link com.codahale.metrics.Gauge} measuring the number of requests sent by a
+     * {@link gobblin.writer.http.AbstractHttpWriter} whose response has not been processed yet.
+     */
+    public static final String HTTP_IN_FLIGHT_REQUESTS_GAUGE = "gobblin.writer.http.requests.inflight";
+
+    /**
+     * A {@link com.codahale.metrics.Gauge} measuring the number of partition writers currently open in a
+     * {@link gobblin.writer.PartitionedDataWriter}.
+     */
+    public static final String OPEN_PARTITION_WRITERS_GAUGE = "gobblin.writer.partitioned.writers.open";
+
+    /**
+     * A {@link com.codahale.metrics.Counter} measuring the number of partition writers closed by a
+     * {@link gobblin.writer.PartitionedDataWriter} because the maximum number of open writers was reached.
+     */
+    public static final String EVICTED_PARTITION_WRITERS_COUNTER = "gobblin.writer.partitioned.writers.evicted";
+
+    /**
+     * A {@link com.codahale.metrics.Counter} measuring the number of partition writers re-opened by a
+     * {@link gobblin.writer.PartitionedDataWriter} to a new file after a previous writer of the same partition
+     * was evicted.
+     */
+    public static final String ROLLED_PARTITION_WRITERS_COUNTER = "gobblin.writer.partitioned.writers.rolled";
   }
 }
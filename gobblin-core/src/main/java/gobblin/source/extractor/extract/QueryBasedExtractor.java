@@ -125,6 +125,10 @@ public abstract class QueryBasedExtractor<S, D> implements Extractor<S, D>, Prot
     return this.workUnitName;
   }
 
+  protected List<Predicate> getPredicateList() {
+    return this.predicateList;
+  }
+
   public QueryBasedExtractor(WorkUnitState workUnitState) {
     this.workUnitState = workUnitState;
     this.workUnit = this.workUnitState.getWorkunit();
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.jdbc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.codehaus.jackson.node.JsonNodeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.WorkUnitState;
+import gobblin.source.extractor.DataRecordException;
+import gobblin.source.extractor.Extractor;
+
+
+/**
+ * An {@link Extractor} that reads the data of a {@link JdbcExtractor} directly from the JDBC {@link ResultSet} into
+ * Avro {@link GenericRecord}s, instead of going through JSON records of strings that are then converted to Avro by
+ * {@link gobblin.converter.avro.JsonIntermediateToAvroConverter}.
+ *
+ * <p>
+ *   The {@link JdbcExtractor} is used for everything but reading the data, i.e., for the schema metadata, the
+ *   watermarks and the record count. The Avro schema is derived from the {@link ResultSetMetaData} of the data
+ *   query, and rows are streamed from the {@link ResultSet} using native JDBC getters. As with
+ *   {@link gobblin.converter.avro.JsonIntermediateToAvroConverter}, dates, times and timestamps are converted to
+ *   epoch times in the time zone given by {@link ConfigurationKeys#CONVERTER_AVRO_DATE_TIMEZONE}, while binary
+ *   columns are read as bytes instead of Base64-encoded strings.
+ * </p>
+ */
+public class JdbcAvroExtractor implements Extractor<Schema, GenericRecord> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcAvroExtractor.class);
+
+  private static final String SOURCE_TYPE = "source.type";
+  private static final long LOG_RECORD_COUNT_INTERVAL = 100000;
+
+  private final JdbcExtractor jdbcExtractor;
+  private final WorkUnitState workUnitState;
+  private final Calendar calendar;
+  private final boolean epochTimeInSeconds;
+
+  private ResultSet resultSet;
+  private Schema schema;
+  private ColumnReader[] columnReaders;
+  private boolean hasNextRecord = true;
+  private long recordCount = 0;
+
+  /**
+   * @param jdbcExtractor a {@link JdbcExtractor} on which {@link JdbcExtractor#build()} has been called
+   * @param workUnitState the {@link WorkUnitState} of the {@link JdbcExtractor}
+   */
+  public JdbcAvroExtractor(JdbcExtractor jdbcExtractor, WorkUnitState workUnitState) {
+    this.jdbcExtractor = jdbcExtractor;
+    this.workUnitState = workUnitState;
+    this.calendar = Calendar.getInstance(
+        TimeZone.getTimeZone(workUnitState.getProp(ConfigurationKeys.CONVERTER_AVRO_DATE_TIMEZONE, "UTC")));
+    this.epochTimeInSeconds = workUnitState.getPropAsBoolean(ConfigurationKeys.CONVERTER_IS_EPOCH_TIME_IN_SECONDS);
+  }
+
+  @Override
+  public Schema getSchema() throws IOException {
+    initialize();
+    return this.schema;
+  }
+
+  @Override
+  public GenericRecord readRecord(@Deprecated GenericRecord reuse) throws DataRecordException, IOException {
+    if (!this.hasNextRecord || !this.jdbcExtractor.getFetchStatus()) {
+      return null;
+    }
+    initialize();
+
+    try {
+      if (!this.resultSet.next()) {
+        this.hasNextRecord = false;
+        LOG.info("Total number of records processed: " + this.recordCount);
+        return null;
+      }
+
+      GenericRecord record =
+          reuse != null && reuse.getSchema() == this.schema ? reuse : new GenericData.Record(this.schema);
+      for (int i = 0; i < this.columnReaders.length; i++) {
+        record.put(i, this.columnReaders[i].read(this.resultSet, i + 1, this));
+      }
+
+      if (++this.recordCount % LOG_RECORD_COUNT_INTERVAL == 0) {
+        LOG.info("Total number of records processed so far: " + this.recordCount);
+      }
+      return record;
+    } catch (SQLException e) {
+      throw new DataRecordException("Failed to get records using JDBC; error - " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public long getExpectedRecordCount() {
+    return this.jdbcExtractor.getExpectedRecordCount();
+  }
+
+  @Override
+  public long getHighWatermark() {
+    return this.jdbcExtractor.getHighWatermark();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.jdbcExtractor.close();
+  }
+
+  /**
+   * Execute the data query and derive the Avro schema and the {@link ColumnReader}s from its {@link ResultSetMetaData}.
+   */
+  private void initialize() throws IOException {
+    if (this.schema != null) {
+      return;
+    }
+
+    try {
+      this.resultSet = this.jdbcExtractor.getDataResultSet();
+      ResultSetMetaData metadata = this.resultSet.getMetaData();
+      List<String> columnNames = this.jdbcExtractor.getHeaderRecord();
+
+      int numColumns = metadata.getColumnCount();
+      this.columnReaders = new ColumnReader[numColumns];
+      List<Schema.Field> fields = Lists.newArrayListWithCapacity(numColumns);
+      for (int i = 1; i <= numColumns; i++) {
+        ColumnReader columnReader = ColumnReader.forColumn(metadata, i);
+        this.columnReaders[i - 1] = columnReader;
+
+        String sourceType = metadata.getColumnTypeName(i).toLowerCase();
+        Schema fieldSchema = Schema.create(columnReader.avroType);
+        fieldSchema.addProp(SOURCE_TYPE, sourceType);
+        boolean nullable = metadata.isNullable(i) != ResultSetMetaData.columnNoNulls;
+        if (nullable) {
+          fieldSchema = Schema.createUnion(Lists.newArrayList(Schema.create(Schema.Type.NULL), fieldSchema));
+        }
+
+        String columnName = columnNames != null && columnNames.size() == numColumns ? columnNames.get(i - 1)
+            : metadata.getColumnLabel(i);
+        Schema.Field field =
+            new Schema.Field(columnName, fieldSchema, "", nullable ? JsonNodeFactory.instance.nullNode() : null);
+        field.addProp(SOURCE_TYPE, sourceType);
+        fields.add(field);
+      }
+
+      Schema schema = Schema.createRecord(this.workUnitState.getExtract().getTable(), "",
+          this.workUnitState.getExtract().getNamespace(), false);
+      schema.setFields(fields);
+      this.schema = schema;
+    } catch (DataRecordException | SQLException e) {
+      throw new IOException("Failed to get the Avro schema from the JDBC resultset", e);
+    }
+  }
+
+  private long toEpochTime(java.util.Date date) {
+    return this.epochTimeInSeconds ? date.getTime() / 1000 : date.getTime();
+  }
+
+  /**
+   * Reads the value of a column from the current row of a {@link ResultSet} as an Avro value.
+   */
+  private enum ColumnReader {
+    BOOLEAN(Schema.Type.BOOLEAN) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        boolean value = resultSet.getBoolean(column);
+        return resultSet.wasNull() ? null : value;
+      }
+    },
+    INT(Schema.Type.INT) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+      }
+    },
+    LONG(Schema.Type.LONG) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+      }
+    },
+    FLOAT(Schema.Type.FLOAT) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        float value = resultSet.getFloat(column);
+        return resultSet.wasNull() ? null : value;
+      }
+    },
+    DOUBLE(Schema.Type.DOUBLE) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        double value = resultSet.getDouble(column);
+        return resultSet.wasNull() ? null : value;
+      }
+    },
+    DATE(Schema.Type.LONG) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        java.sql.Date value = resultSet.getDate(column, extractor.calendar);
+        return value == null ? null : extractor.toEpochTime(value);
+      }
+    },
+    TIME(Schema.Type.LONG) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        java.sql.Time value = resultSet.getTime(column, extractor.calendar);
+        return value == null ? null : extractor.toEpochTime(value);
+      }
+    },
+    TIMESTAMP(Schema.Type.LONG) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        java.sql.Timestamp value = resultSet.getTimestamp(column, extractor.calendar);
+        return value == null ? null : extractor.toEpochTime(value);
+      }
+    },
+    BYTES(Schema.Type.BYTES) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        byte[] value = resultSet.getBytes(column);
+        return value == null ? null : ByteBuffer.wrap(value);
+      }
+    },
+    STRING(Schema.Type.STRING) {
+      @Override
+      Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException {
+        return resultSet.getString(column);
+      }
+    };
+
+    private final Schema.Type avroType;
+
+    ColumnReader(Schema.Type avroType) {
+      this.avroType = avroType;
+    }
+
+    abstract Object read(ResultSet resultSet, int column, JdbcAvroExtractor extractor) throws SQLException;
+
+    /**
+     * Get the {@link ColumnReader} for a column. Types that have no lossless Avro counterpart, e.g., unsigned
+     * 64-bit integers, are read as strings, while decimals are read as doubles like
+     * {@link JdbcExtractor#getDataTypeMap()} maps them.
+     */
+    static ColumnReader forColumn(ResultSetMetaData metadata, int column) throws SQLException {
+      switch (metadata.getColumnType(column)) {
+        case Types.BIT:
+        case Types.BOOLEAN:
+          return metadata.getPrecision(column) > 1 ? BYTES : BOOLEAN;
+        case Types.TINYINT:
+        case Types.SMALLINT:
+          return INT;
+        case Types.INTEGER:
+          return metadata.isSigned(column) ? INT : LONG;
+        case Types.BIGINT:
+          return metadata.isSigned(column) ? LONG : STRING;
+        case Types.REAL:
+          return FLOAT;
+        case Types.FLOAT:
+        case Types.DOUBLE:
+        case Types.DECIMAL:
+        case Types.NUMERIC:
+          return DOUBLE;
+        case Types.DATE:
+          return DATE;
+        case Types.TIME:
+          return TIME;
+        case Types.TIMESTAMP:
+          return TIMESTAMP;
+        case Types.BINARY:
+        case Types.VARBINARY:
+        case Types.LONGVARBINARY:
+        case Types.BLOB:
+          return BYTES;
+        default:
+          return STRING;
+      }
+    }
+  }
+}
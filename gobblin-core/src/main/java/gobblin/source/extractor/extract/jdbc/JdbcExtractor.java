@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
@@ -37,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -60,6 +62,7 @@ import gobblin.source.extractor.schema.ColumnNameCase;
 import gobblin.source.extractor.schema.Schema;
 import gobblin.source.extractor.utils.Utils;
 import gobblin.source.extractor.watermark.Predicate;
+import gobblin.source.extractor.watermark.WatermarkPredicate;
 import gobblin.source.extractor.watermark.WatermarkType;
 import gobblin.source.workunit.WorkUnit;
 
@@ -88,6 +91,7 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
   private long totalRecordCount = 0;
   private boolean nextRecord = true;
   private int unknownColumnCounter = 1;
+  private JdbcParallelRangeReader parallelRangeReader = null;
 
   private Logger log = LoggerFactory.getLogger(JdbcExtractor.class);
 
@@ -669,31 +673,11 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
       }
     }
 
-    this.log.info("Executing query:" + query);
     ResultSet resultSet = null;
     try {
       this.jdbcSource = createJdbcSource();
       this.dataConnection = this.jdbcSource.getConnection();
-
-      PreparedStatement statement =
-          this.dataConnection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
-
-      int parameterPosition = 1;
-      if (queryParameters != null && queryParameters.size() > 0) {
-        for (String parameter : queryParameters) {
-          statement.setString(parameterPosition, parameter);
-          parameterPosition++;
-        }
-      }
-      if (fetchSize != 0) {
-        statement.setFetchSize(fetchSize);
-      }
-      final boolean status = statement.execute();
-      if (status == false) {
-        log.error("Failed to execute sql:" + query);
-      }
-      resultSet = statement.getResultSet();
-
+      resultSet = executePreparedSql(this.dataConnection, query, queryParameters, fetchSize);
     } catch (Exception e) {
       log.error("Failed to execute sql:" + query + " ;error-" + e.getMessage(), e);
     }
@@ -703,12 +687,84 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
     return output;
   }
 
+  /**
+   * Execute the data query with the given predicates over the given connection, used to read sub-ranges of the
+   * watermark range of the work unit concurrently
+   *
+   * @param connection - connection to execute the query over
+   * @param predicateList - predicates(filters) of the query
+   * @return JDBC ResultSet
+   */
+  ResultSet executeDataQuery(Connection connection, List<Predicate> predicateList)
+      throws DataRecordException, SQLException {
+    String query = null;
+    List<String> queryParameters = null;
+    int fetchSize = 0;
+
+    List<Command> cmds = this.getDataMetadata(this.workUnit.getProp(ConfigurationKeys.SOURCE_QUERYBASED_SCHEMA),
+        this.workUnit.getProp(ConfigurationKeys.SOURCE_ENTITY), this.workUnit, predicateList);
+    for (Command cmd : cmds) {
+      if (cmd instanceof JdbcCommand) {
+        switch ((JdbcCommandType) cmd.getCommandType()) {
+          case QUERY:
+            query = cmd.getParams().get(0);
+            break;
+          case QUERYPARAMS:
+            queryParameters = cmd.getParams();
+            break;
+          case FETCHSIZE:
+            fetchSize = Integer.parseInt(cmd.getParams().get(0));
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    return executePreparedSql(connection, query, queryParameters, fetchSize);
+  }
+
+  private ResultSet executePreparedSql(Connection connection, String query, List<String> queryParameters,
+      int fetchSize) throws SQLException {
+    this.log.info("Executing query:" + query);
+    PreparedStatement statement =
+        connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+    int parameterPosition = 1;
+    if (queryParameters != null && queryParameters.size() > 0) {
+      for (String parameter : queryParameters) {
+        statement.setString(parameterPosition, parameter);
+        parameterPosition++;
+      }
+    }
+    if (fetchSize != 0) {
+      statement.setFetchSize(fetchSize);
+    }
+    final boolean status = statement.execute();
+    if (status == false) {
+      log.error("Failed to execute sql:" + query);
+    }
+    return statement.getResultSet();
+  }
+
   /**
    * Create JDBC source to get connection
    *
    * @return JDBCSource
    */
   protected JdbcProvider createJdbcSource() {
+    if (this.jdbcSource == null || this.jdbcSource.isClosed()) {
+      this.jdbcSource = createJdbcSource(1);
+    }
+    return this.jdbcSource;
+  }
+
+  /**
+   * Create a new JDBC source to get connections from
+   *
+   * @param numConnections - maximum number of connections of the JDBC source
+   * @return JDBCSource
+   */
+  JdbcProvider createJdbcSource(int numConnections) {
     String driver = this.workUnit.getProp(ConfigurationKeys.SOURCE_CONN_DRIVER);
     String userName = this.workUnit.getProp(ConfigurationKeys.SOURCE_CONN_USERNAME);
     String password = PasswordManager.getInstance(this.workUnit)
@@ -719,13 +775,10 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
     int proxyPort = this.workUnit.getProp(ConfigurationKeys.SOURCE_CONN_USE_PROXY_PORT) != null
         ? this.workUnit.getPropAsInt(ConfigurationKeys.SOURCE_CONN_USE_PROXY_PORT) : -1;
 
-    if (this.jdbcSource == null || this.jdbcSource.isClosed()) {
-      this.jdbcSource = new JdbcProvider(driver, connectionUrl, userName, password, 1, this.getTimeOut(), "DEFAULT",
-          proxyHost, proxyPort);
-      return this.jdbcSource;
-    } else {
-      return this.jdbcSource;
-    }
+    JdbcProvider jdbcProvider = new JdbcProvider(driver, connectionUrl, userName, password, numConnections,
+        this.getTimeOut(), "DEFAULT", proxyHost, proxyPort);
+    jdbcProvider.setMaxActive(Math.max(jdbcProvider.getMaxActive(), numConnections));
+    return jdbcProvider;
   }
 
   @Override
@@ -767,12 +820,30 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
     List<Command> cmds;
     try {
       if (isFirstPull()) {
-        this.log.info("Get data recordset using JDBC");
-        cmds = this.getDataMetadata(schema, entity, workUnit, predicateList);
-        this.dataResponse = this.executePreparedSql(cmds);
+        int parallelReads = this.workUnit.getPropAsInt(ConfigurationKeys.SOURCE_QUERYBASED_JDBC_PARALLEL_READS,
+            ConfigurationKeys.DEFAULT_SOURCE_QUERYBASED_JDBC_PARALLEL_READS);
+        Optional<List<List<Predicate>>> subRangePredicates =
+            parallelReads > 1 ? this.getSubRangePredicates(predicateList, parallelReads)
+                : Optional.<List<List<Predicate>>> absent();
+
+        if (subRangePredicates.isPresent()) {
+          int batchSize = this.workUnit.getPropAsInt(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE, 0);
+          this.parallelRangeReader = new JdbcParallelRangeReader(this, subRangePredicates.get(), parallelReads,
+              batchSize == 0 ? ConfigurationKeys.DEFAULT_SOURCE_FETCH_SIZE : batchSize,
+              this.workUnit.getPropAsInt(ConfigurationKeys.SOURCE_QUERYBASED_JDBC_PARALLEL_READS_BUFFER_SIZE,
+                  ConfigurationKeys.DEFAULT_SOURCE_QUERYBASED_JDBC_PARALLEL_READS_BUFFER_SIZE));
+          this.parallelRangeReader.start();
+        } else {
+          this.log.info("Get data recordset using JDBC");
+          cmds = this.getDataMetadata(schema, entity, workUnit, predicateList);
+          this.dataResponse = this.executePreparedSql(cmds);
+        }
         this.setFirstPull(false);
       }
 
+      if (this.parallelRangeReader != null) {
+        return this.parallelRangeReader.nextRecordSet();
+      }
       rs = this.getData(this.dataResponse);
       return rs;
     } catch (Exception e) {
@@ -780,6 +851,91 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
     }
   }
 
+  /**
+   * Split the watermark range of the work unit into sub-ranges that can be read concurrently. The sub-ranges do not
+   * overlap and together cover exactly the watermark range, since each but the last one ends right before the next
+   * one starts, and the first and last ones keep the low and high watermark predicates of the work unit.
+   *
+   * @param predicateList - predicates(filters) of the work unit
+   * @param maxSubRanges - maximum number of sub-ranges
+   * @return predicates of each sub-range, or absent if the watermark range cannot be split
+   */
+  private Optional<List<List<Predicate>>> getSubRangePredicates(List<Predicate> predicateList, int maxSubRanges) {
+    String watermarkColumn = this.workUnit.getProp(ConfigurationKeys.EXTRACT_DELTA_FIELDS_KEY);
+    String watermarkType = this.workUnit.getProp(ConfigurationKeys.SOURCE_QUERYBASED_WATERMARK_TYPE);
+    if (StringUtils.isBlank(watermarkColumn) || StringUtils.isBlank(watermarkType)
+        || this.hasMultipleWatermarkColumns(watermarkColumn) || this.getSampleRecordCount() >= 0) {
+      this.log.info("Watermark range cannot be split for parallel reads; reading it with a single query");
+      return Optional.absent();
+    }
+
+    Predicate lwmPredicate = null;
+    Predicate hwmPredicate = null;
+    List<Predicate> otherPredicates = new ArrayList<>();
+    for (Predicate predicate : predicateList) {
+      if (watermarkColumn.equals(predicate.getColumnName()) && predicate.getType() == Predicate.PredicateType.LWM) {
+        lwmPredicate = predicate;
+      } else if (watermarkColumn.equals(predicate.getColumnName())
+          && predicate.getType() == Predicate.PredicateType.HWM) {
+        hwmPredicate = predicate;
+      } else {
+        otherPredicates.add(predicate);
+      }
+    }
+    if (lwmPredicate == null || hwmPredicate == null) {
+      this.log.info("Watermark range is unbounded; reading it with a single query");
+      return Optional.absent();
+    }
+
+    WatermarkPredicate watermark =
+        new WatermarkPredicate(watermarkColumn, WatermarkType.valueOf(watermarkType.toUpperCase()));
+    List<Long> subRangeStarts = new ArrayList<>(new TreeMap<>(
+        watermark.getPartitions(lwmPredicate.getValue(), hwmPredicate.getValue(), 1, maxSubRanges)).keySet());
+    if (subRangeStarts.size() < 2) {
+      this.log.info("Watermark range is too small to be split; reading it with a single query");
+      return Optional.absent();
+    }
+
+    List<List<Predicate>> subRangePredicates = new ArrayList<>();
+    for (int i = 0; i < subRangeStarts.size(); i++) {
+      List<Predicate> predicates = new ArrayList<>(otherPredicates);
+      predicates.add(i == 0 ? lwmPredicate
+          : watermark.getPredicate(this, subRangeStarts.get(i), ">=", Predicate.PredicateType.LWM));
+      predicates.add(i == subRangeStarts.size() - 1 ? hwmPredicate
+          : watermark.getPredicate(this, subRangeStarts.get(i + 1), "<", Predicate.PredicateType.HWM));
+      subRangePredicates.add(predicates);
+    }
+    return Optional.of(subRangePredicates);
+  }
+
+  /**
+   * Execute the query extracting the data of the work unit, if not done already, and get its {@link ResultSet}
+   * to read the data from directly instead of through {@link #getRecordSet(String, String, WorkUnit, List)}.
+   *
+   * @return the {@link ResultSet} of the data query
+   * @throws DataRecordException if the data query fails
+   */
+  protected ResultSet getDataResultSet() throws DataRecordException {
+    try {
+      if (isFirstPull()) {
+        this.log.info("Get data resultset using JDBC");
+        List<Command> cmds = this.getDataMetadata(this.workUnit.getProp(ConfigurationKeys.SOURCE_QUERYBASED_SCHEMA),
+            this.workUnit.getProp(ConfigurationKeys.SOURCE_ENTITY), this.workUnit, this.getPredicateList());
+        this.dataResponse = this.executePreparedSql(cmds);
+        this.setFirstPull(false);
+      }
+    } catch (Exception e) {
+      throw new DataRecordException("Failed to get resultset using JDBC; error - " + e.getMessage(), e);
+    }
+
+    Iterator<ResultSet> itr = (Iterator<ResultSet>) this.dataResponse.getResults().values().iterator();
+    ResultSet resultset = itr.hasNext() ? itr.next() : null;
+    if (resultset == null) {
+      throw new DataRecordException("Failed to get resultset using JDBC - data query did not return a resultset");
+    }
+    return resultset;
+  }
+
   @Override
   public JsonArray getSchema(CommandOutput<?, ?> response) throws SchemaException, IOException {
     this.log.debug("Extract schema from resultset");
@@ -918,17 +1074,7 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
 
       int recordCount = 0;
       while (resultset.next()) {
-
-        final int numColumns = resultsetMetadata.getColumnCount();
-        JsonObject jsonObject = new JsonObject();
-
-        for (int i = 1; i < numColumns + 1; i++) {
-          final String columnName = this.getHeaderRecord().get(i - 1);
-          jsonObject.addProperty(columnName, parseColumnAsString(resultset, resultsetMetadata, i));
-
-        }
-
-        recordSet.add(jsonObject);
+        recordSet.add(toJsonRecord(resultset, resultsetMetadata));
 
         recordCount++;
         this.totalRecordCount++;
@@ -947,6 +1093,24 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
     }
   }
 
+  /**
+   * Convert the current row of a resultset into a record
+   *
+   * @param resultset - JDBC ResultSet positioned on the row
+   * @param resultsetMetadata - metadata of the resultset
+   * @return record with the value of each column as a string
+   */
+  JsonObject toJsonRecord(ResultSet resultset, ResultSetMetaData resultsetMetadata) throws SQLException {
+    final int numColumns = resultsetMetadata.getColumnCount();
+    JsonObject jsonObject = new JsonObject();
+
+    for (int i = 1; i < numColumns + 1; i++) {
+      final String columnName = this.getHeaderRecord().get(i - 1);
+      jsonObject.addProperty(columnName, parseColumnAsString(resultset, resultsetMetadata, i));
+    }
+    return jsonObject;
+  }
+
   /*
    * For Blob data, need to get the bytes and use base64 encoding to encode the byte[]
    * When reading from the String, need to use base64 decoder
@@ -1109,7 +1273,12 @@ public abstract class JdbcExtractor extends QueryBasedExtractor<JsonArray, JsonE
 
   @Override
   public void closeConnection() throws Exception {
-    this.jdbcSource.close();
+    if (this.parallelRangeReader != null) {
+      this.parallelRangeReader.close();
+    }
+    if (this.jdbcSource != null) {
+      this.jdbcSource.close();
+    }
     if (this.dataConnection != null) {
       try {
         this.dataConnection.close();
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.jdbc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+
+import gobblin.source.extractor.DataRecordException;
+import gobblin.source.extractor.watermark.Predicate;
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Reads sub-ranges of the watermark range of a work unit concurrently for a {@link JdbcExtractor}, each over its own
+ * pooled connection, and merges the records read into record sets returned by {@link #nextRecordSet()}.
+ *
+ * <p>
+ *   Record sets of at most a given number of records are buffered in a bounded queue, so readers block when the
+ *   records are not consumed fast enough. A failure to read any sub-range fails {@link #nextRecordSet()}, so the
+ *   work unit never succeeds with only part of its watermark range read.
+ * </p>
+ */
+class JdbcParallelRangeReader implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcParallelRangeReader.class);
+
+  private final JdbcExtractor extractor;
+  private final List<List<Predicate>> subRangePredicates;
+  private final int recordSetSize;
+  private final JdbcProvider jdbcSource;
+  private final ExecutorService executor;
+  private final BlockingQueue<RecordSet> recordSets;
+
+  private int remainingSubRanges;
+  private long recordCount = 0;
+
+  /**
+   * @param extractor the {@link JdbcExtractor} to read records for
+   * @param subRangePredicates the predicates of the data query of each sub-range
+   * @param parallelism the number of sub-ranges to read concurrently
+   * @param recordSetSize the maximum number of records in a record set
+   * @param maxBufferedRecordSets the maximum number of record sets buffered before they are consumed
+   */
+  JdbcParallelRangeReader(JdbcExtractor extractor, List<List<Predicate>> subRangePredicates, int parallelism,
+      int recordSetSize, int maxBufferedRecordSets) {
+    this.extractor = extractor;
+    this.subRangePredicates = subRangePredicates;
+    this.recordSetSize = recordSetSize;
+    this.remainingSubRanges = subRangePredicates.size();
+    this.jdbcSource = extractor.createJdbcSource(parallelism);
+    this.recordSets = new LinkedBlockingQueue<>(maxBufferedRecordSets);
+    this.executor = Executors.newFixedThreadPool(parallelism,
+        ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("JdbcRangeReader-%d")));
+  }
+
+  /**
+   * Start reading the sub-ranges.
+   */
+  void start() {
+    LOG.info(String.format("Reading %d sub-ranges of the watermark range concurrently", this.remainingSubRanges));
+    for (final List<Predicate> predicates : this.subRangePredicates) {
+      this.executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            readSubRange(predicates);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Get the next set of records read from any of the sub-ranges, waiting for one to be read if needed.
+   *
+   * @return an {@link Iterator} over the records, which is empty once all sub-ranges have been read
+   * @throws DataRecordException if reading any of the sub-ranges failed
+   */
+  Iterator<JsonElement> nextRecordSet() throws DataRecordException {
+    try {
+      while (this.remainingSubRanges > 0) {
+        RecordSet recordSet = this.recordSets.take();
+        if (recordSet.failure.isPresent()) {
+          throw new DataRecordException("Failed to read a sub-range of the watermark range; error - "
+              + recordSet.failure.get().getMessage(), recordSet.failure.get());
+        }
+        if (recordSet.records.isEmpty()) {
+          this.remainingSubRanges--;
+          continue;
+        }
+
+        this.recordCount += recordSet.records.size();
+        LOG.info("Total number of records processed so far: " + this.recordCount);
+        return recordSet.records.iterator();
+      }
+      return Collections.emptyIterator();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new DataRecordException("Interrupted while waiting for records", ie);
+    }
+  }
+
+  private void readSubRange(List<Predicate> predicates) throws InterruptedException {
+    try (Connection connection = this.jdbcSource.getConnection()) {
+      ResultSet resultSet = this.extractor.executeDataQuery(connection, predicates);
+      if (resultSet == null) {
+        throw new DataRecordException("Data query did not return a resultset");
+      }
+
+      ResultSetMetaData resultSetMetadata = resultSet.getMetaData();
+      List<JsonElement> records = Lists.newArrayListWithCapacity(this.recordSetSize);
+      while (resultSet.next()) {
+        records.add(this.extractor.toJsonRecord(resultSet, resultSetMetadata));
+        if (records.size() >= this.recordSetSize) {
+          this.recordSets.put(new RecordSet(records, Optional.<Exception> absent()));
+          records = Lists.newArrayListWithCapacity(this.recordSetSize);
+        }
+      }
+      if (!records.isEmpty()) {
+        this.recordSets.put(new RecordSet(records, Optional.<Exception> absent()));
+      }
+    } catch (SQLException | DataRecordException | RuntimeException e) {
+      this.recordSets.put(new RecordSet(Collections.<JsonElement> emptyList(), Optional.<Exception> of(e)));
+      return;
+    }
+
+    // Mark the end of the sub-range
+    this.recordSets.put(new RecordSet(Collections.<JsonElement> emptyList(), Optional.<Exception> absent()));
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.executor.shutdownNow();
+    this.recordSets.clear();
+    try {
+      this.jdbcSource.close();
+    } catch (SQLException e) {
+      throw new IOException("Failed to close the JDBC source", e);
+    }
+  }
+
+  /**
+   * Records read from a sub-range, or the failure to read them.
+   */
+  private static class RecordSet {
+    private final List<JsonElement> records;
+    private final Optional<Exception> failure;
+
+    private RecordSet(List<JsonElement> records, Optional<Exception> failure) {
+      this.records = records;
+      this.failure = failure;
+    }
+  }
+}
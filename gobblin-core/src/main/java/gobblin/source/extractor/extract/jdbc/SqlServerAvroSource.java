@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.jdbc;
+
+import java.io.IOException;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gobblin.configuration.WorkUnitState;
+import gobblin.source.extractor.Extractor;
+import gobblin.source.extractor.exception.ExtractPrepareException;
+import gobblin.source.extractor.extract.QueryBasedSource;
+
+
+/**
+ * An implementation of a SQL Server source that extracts Avro records directly from the JDBC resultset using a
+ * {@link JdbcAvroExtractor}, so no {@link gobblin.converter.avro.JsonIntermediateToAvroConverter} is needed.
+ */
+public class SqlServerAvroSource extends QueryBasedSource<Schema, GenericRecord> {
+  private static final Logger LOG = LoggerFactory.getLogger(SqlServerAvroSource.class);
+
+  @Override
+  public Extractor<Schema, GenericRecord> getExtractor(WorkUnitState state) throws IOException {
+    SqlServerExtractor extractor = new SqlServerExtractor(state);
+    try {
+      extractor.build();
+    } catch (ExtractPrepareException e) {
+      LOG.error("Failed to prepare extractor: error - " + e.getMessage());
+      throw new IOException(e);
+    }
+    return new JdbcAvroExtractor(extractor, state);
+  }
+}
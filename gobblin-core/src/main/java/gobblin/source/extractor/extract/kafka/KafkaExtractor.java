@@ -13,6 +13,7 @@
 package gobblin.source.extractor.extract.kafka;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +26,8 @@ import org.slf4j.LoggerFactory;
 
 import kafka.message.MessageAndOffset;
 
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
@@ -36,6 +39,8 @@ import com.google.gson.Gson;
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
 import gobblin.configuration.WorkUnitState;
+import gobblin.instrumented.Instrumented;
+import gobblin.metrics.MetricNames;
 import gobblin.metrics.Tag;
 import gobblin.source.extractor.DataRecordException;
 import gobblin.source.extractor.Extractor;
@@ -73,11 +78,18 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
   private final Set<Integer> errorPartitions;
   private int undecodableMessageCount = 0;
 
+  private final Optional<KafkaMessageBufferPrefetcher> prefetcher;
+
   private Iterator<MessageAndOffset> messageIterator = null;
   private int currentPartitionIdx = INITIAL_PARTITION_IDX;
   private long currentPartitionRecordCount = 0;
   private long currentPartitionTotalSize = 0;
 
+  private Optional<Timer> fetchWaitTimer = Optional.absent();
+  private Optional<Timer> decodeTimer = Optional.absent();
+  private long totalFetchWaitNanos = 0;
+  private long totalDecodeNanos = 0;
+
   public KafkaExtractor(WorkUnitState state) {
     super(state);
     this.workUnitState = state;
@@ -96,6 +108,18 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
 
     this.errorPartitions = Sets.newHashSet();
 
+    if (state.getPropAsBoolean(ConfigurationKeys.KAFKA_EXTRACTOR_PREFETCH_ENABLED,
+        ConfigurationKeys.DEFAULT_KAFKA_EXTRACTOR_PREFETCH_ENABLED)) {
+      this.prefetcher = Optional.of(this.closer.register(new KafkaMessageBufferPrefetcher(this.kafkaWrapper,
+          this.topicName, this.partitions, this.lowWatermark, this.highWatermark,
+          state.getPropAsInt(ConfigurationKeys.KAFKA_EXTRACTOR_PREFETCH_MAX_BUFFERS,
+              ConfigurationKeys.DEFAULT_KAFKA_EXTRACTOR_PREFETCH_MAX_BUFFERS),
+          state.getPropAsInt(ConfigurationKeys.KAFKA_EXTRACTOR_PREFETCH_MAX_BYTES,
+              ConfigurationKeys.DEFAULT_KAFKA_EXTRACTOR_PREFETCH_MAX_BYTES))));
+    } else {
+      this.prefetcher = Optional.absent();
+    }
+
     // The actual high watermark starts with the low watermark
     this.workUnitState.setActualHighWatermark(this.lowWatermark);
   }
@@ -121,6 +145,8 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
       if (this.messageIterator == null || !this.messageIterator.hasNext()) {
         try {
           this.messageIterator = fetchNextMessageBuffer();
+        } catch (InterruptedIOException iioe) {
+          throw iioe;
         } catch (Exception e) {
           LOG.error(String.format("Failed to fetch next message buffer for partition %s. Will skip this partition.",
               getCurrentPartition()), e);
@@ -147,6 +173,7 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
         }
 
         this.nextWatermark.set(this.currentPartitionIdx, nextValidMessage.nextOffset());
+        long decodeStartNanos = System.nanoTime();
         try {
           D record = decodeRecord(nextValidMessage);
           this.currentPartitionRecordCount++;
@@ -159,6 +186,10 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
             LOG.error(String.format("A record from partition %s cannot be decoded.", getCurrentPartition()), t);
             incrementErrorCount();
           }
+        } finally {
+          long decodeNanos = System.nanoTime() - decodeStartNanos;
+          this.totalDecodeNanos += decodeNanos;
+          Instrumented.updateTimer(this.decodeTimer, decodeNanos, TimeUnit.NANOSECONDS);
         }
       }
     }
@@ -221,11 +252,33 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
     }
     int currentPartitionId = this.getCurrentPartition().getId();
     switchMetricContext(Lists.<Tag<?>> newArrayList(new Tag<Integer>("kafka_partition", currentPartitionId)));
+
+    if (isInstrumentationEnabled()) {
+      this.fetchWaitTimer = Optional.of(getMetricContext().timer(MetricNames.ExtractorMetrics.FETCH_WAIT_TIMER));
+      this.decodeTimer = Optional.of(getMetricContext().timer(MetricNames.ExtractorMetrics.DECODE_TIMER));
+    }
   }
 
-  private Iterator<MessageAndOffset> fetchNextMessageBuffer() {
-    return this.kafkaWrapper.fetchNextMessageBuffer(this.partitions.get(this.currentPartitionIdx),
-        this.nextWatermark.get(this.currentPartitionIdx), this.highWatermark.get(this.currentPartitionIdx));
+  /**
+   * Get the next message buffer of the current partition, from the prefetcher if prefetching is enabled.
+   */
+  private Iterator<MessageAndOffset> fetchNextMessageBuffer() throws IOException {
+    long fetchStartNanos = System.nanoTime();
+    try {
+      if (this.prefetcher.isPresent()) {
+        return this.prefetcher.get().take(this.currentPartitionIdx);
+      }
+      return this.kafkaWrapper.fetchNextMessageBuffer(this.partitions.get(this.currentPartitionIdx),
+          this.nextWatermark.get(this.currentPartitionIdx), this.highWatermark.get(this.currentPartitionIdx));
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the next message buffer of partition "
+          + getCurrentPartition());
+    } finally {
+      long fetchWaitNanos = System.nanoTime() - fetchStartNanos;
+      this.totalFetchWaitNanos += fetchWaitNanos;
+      Instrumented.updateTimer(this.fetchWaitTimer, fetchWaitNanos, TimeUnit.NANOSECONDS);
+    }
   }
 
   private boolean shouldLogError() {
@@ -278,6 +331,8 @@ public abstract class KafkaExtractor<S, D> extends EventBasedExtractor<S, D> {
         LOG.info(String.format("Avg time to pull a record for partition %s not recorded", partition));
       }
     }
+    LOG.info(String.format("Time spent waiting for message buffers = %d ms, decoding records = %d ms",
+        TimeUnit.NANOSECONDS.toMillis(this.totalFetchWaitNanos), TimeUnit.NANOSECONDS.toMillis(this.totalDecodeNanos)));
     this.closer.close();
   }
 
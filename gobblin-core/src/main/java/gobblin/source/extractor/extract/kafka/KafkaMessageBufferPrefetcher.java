@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.kafka;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import kafka.message.MessageAndOffset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Fetches message buffers of the partitions processed by a {@link KafkaExtractor} in a background thread, so that
+ * fetching the next message buffer overlaps with decoding the records of the current one, and moving to the next
+ * partition does not wait for a fetch.
+ *
+ * <p>
+ *   Partitions are fetched in order, each from its start offset up to its high watermark. At most a given number
+ *   of fetched message buffers, holding at most a given number of bytes of messages, are kept before they are
+ *   taken using {@link #take(int)}. The messages of a message buffer are iterated by the fetcher thread to find
+ *   the offset to fetch next.
+ * </p>
+ *
+ * <p>
+ *   {@link #take(int)} publishes the index of the partition being consumed. Once the consumer has moved past a
+ *   partition, the fetcher stops fetching it and skips to the partition being consumed.
+ * </p>
+ */
+class KafkaMessageBufferPrefetcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(KafkaMessageBufferPrefetcher.class);
+
+  private final KafkaWrapper kafkaWrapper;
+  private final List<KafkaPartition> partitions;
+  private final MultiLongWatermark startOffsets;
+  private final MultiLongWatermark highWatermark;
+  private final int maxBufferedBytes;
+
+  private final BlockingQueue<MessageBuffer> buffers;
+  private final Semaphore bufferedBytes;
+  private final ExecutorService executor;
+
+  private volatile boolean started = false;
+
+  // Index of the partition being consumed, only written by the consumer thread
+  private volatile int consumerPartitionIdx = 0;
+
+  // A message buffer of a later partition taken while looking for one of an earlier partition
+  private Optional<MessageBuffer> pendingBuffer = Optional.absent();
+
+  KafkaMessageBufferPrefetcher(KafkaWrapper kafkaWrapper, String topicName, List<KafkaPartition> partitions,
+      MultiLongWatermark startOffsets, MultiLongWatermark highWatermark, int maxBuffers, int maxBufferedBytes) {
+    Preconditions.checkArgument(maxBuffers > 0, "The maximum number of prefetched message buffers must be positive");
+    Preconditions.checkArgument(maxBufferedBytes > 0, "The maximum number of prefetched bytes must be positive");
+    this.kafkaWrapper = kafkaWrapper;
+    this.partitions = partitions;
+    this.startOffsets = new MultiLongWatermark(startOffsets);
+    this.highWatermark = highWatermark;
+    this.maxBufferedBytes = maxBufferedBytes;
+    this.buffers = new LinkedBlockingQueue<>(maxBuffers);
+    this.bufferedBytes = new Semaphore(maxBufferedBytes);
+    this.executor = Executors.newSingleThreadExecutor(
+        ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("KafkaPrefetcher-" + topicName + "-%d")));
+  }
+
+  /**
+   * Start fetching message buffers in the background.
+   */
+  void start() {
+    if (this.started) {
+      return;
+    }
+    this.started = true;
+    this.executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < KafkaMessageBufferPrefetcher.this.partitions.size(); i++) {
+            if (!isPassedByConsumer(i)) {
+              fetchPartition(i);
+            }
+          }
+        } catch (InterruptedException ie) {
+          LOG.info("Prefetching of Kafka message buffers has been interrupted");
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+  }
+
+  /**
+   * Take the next message buffer of a partition, waiting for it to be fetched if needed. Message buffers of
+   * earlier partitions, which have not been entirely consumed, are discarded.
+   *
+   * @param partitionIdx index of the partition
+   * @return an {@link Iterator} over the messages of the message buffer, or {@code null} if there are no more
+   *         messages to fetch for the partition
+   * @throws IOException if fetching the message buffer failed
+   */
+  Iterator<MessageAndOffset> take(int partitionIdx) throws IOException, InterruptedException {
+    if (partitionIdx > this.consumerPartitionIdx) {
+      this.consumerPartitionIdx = partitionIdx;
+    }
+    start();
+    while (true) {
+      MessageBuffer buffer;
+      if (this.pendingBuffer.isPresent()) {
+        buffer = this.pendingBuffer.get();
+        this.pendingBuffer = Optional.absent();
+      } else {
+        buffer = this.buffers.take();
+        this.bufferedBytes.release(getPermits(buffer));
+      }
+
+      if (buffer.partitionIdx < partitionIdx) {
+        continue;
+      }
+      if (buffer.partitionIdx > partitionIdx) {
+        this.pendingBuffer = Optional.of(buffer);
+        return null;
+      }
+      if (buffer.failure.isPresent()) {
+        throw new IOException("Failed to fetch message buffer for partition " + this.partitions.get(partitionIdx),
+            buffer.failure.get());
+      }
+      return buffer.messages.isEmpty() ? null : buffer.messages.iterator();
+    }
+  }
+
+  private void fetchPartition(int partitionIdx) throws InterruptedException {
+    KafkaPartition partition = this.partitions.get(partitionIdx);
+    long nextOffset = this.startOffsets.get(partitionIdx);
+    long maxOffset = this.highWatermark.get(partitionIdx);
+
+    while (nextOffset < maxOffset) {
+      if (isPassedByConsumer(partitionIdx)) {
+        // Message buffers of the partition would be discarded by the consumer
+        return;
+      }
+      List<MessageAndOffset> messages = Lists.newArrayList();
+      int sizeInBytes = 0;
+      try {
+        Iterator<MessageAndOffset> iterator =
+            this.kafkaWrapper.fetchNextMessageBuffer(partition, nextOffset, maxOffset);
+        while (iterator != null && iterator.hasNext()) {
+          MessageAndOffset message = iterator.next();
+          messages.add(message);
+          sizeInBytes += message.message().size();
+        }
+      } catch (Exception e) {
+        put(new MessageBuffer(partitionIdx, Collections.<MessageAndOffset> emptyList(), 0, Optional.of(e)));
+        return;
+      }
+
+      if (messages.isEmpty()) {
+        break;
+      }
+      long lastNextOffset = messages.get(messages.size() - 1).nextOffset();
+      put(new MessageBuffer(partitionIdx, messages, sizeInBytes, Optional.<Exception> absent()));
+      if (lastNextOffset <= nextOffset) {
+        break;
+      }
+      nextOffset = lastNextOffset;
+    }
+
+    // Mark the end of the partition
+    put(new MessageBuffer(partitionIdx, Collections.<MessageAndOffset> emptyList(), 0, Optional.<Exception> absent()));
+  }
+
+  private boolean isPassedByConsumer(int partitionIdx) {
+    return partitionIdx < this.consumerPartitionIdx;
+  }
+
+  private void put(MessageBuffer buffer) throws InterruptedException {
+    this.bufferedBytes.acquire(getPermits(buffer));
+    this.buffers.put(buffer);
+  }
+
+  /**
+   * A message buffer larger than the byte limit only needs all the permits, so it can always be buffered.
+   */
+  private int getPermits(MessageBuffer buffer) {
+    return Math.min(buffer.sizeInBytes, this.maxBufferedBytes);
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.executor.shutdownNow();
+    this.buffers.clear();
+  }
+
+  /**
+   * Messages fetched for a partition, or the failure to fetch them.
+   */
+  private static class MessageBuffer {
+    private final int partitionIdx;
+    private final List<MessageAndOffset> messages;
+    private final int sizeInBytes;
+    private final Optional<Exception> failure;
+
+    private MessageBuffer(int partitionIdx, List<MessageAndOffset> messages, int sizeInBytes,
+        Optional<Exception> failure) {
+      this.partitionIdx = partitionIdx;
+      this.messages = messages;
+      this.sizeInBytes = sizeInBytes;
+      this.failure = failure;
+    }
+  }
+}
@@ -13,6 +13,7 @@
 package gobblin.source.extractor.extract.kafka;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -35,10 +36,13 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.io.Closer;
+import com.google.common.net.HostAndPort;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.gson.Gson;
@@ -114,6 +118,11 @@ public abstract class KafkaSource<S, D> extends EventBasedSource<S, D> {
 
   private final Set<KafkaPartition> partitionsToBeProcessed = Sets.newConcurrentHashSet();
 
+  // Earliest and latest offsets of partitions fetched in batches before creating work units
+  private final Map<KafkaPartition, Long> earliestOffsets = Maps.newConcurrentMap();
+  private final Map<KafkaPartition, Long> latestOffsets = Maps.newConcurrentMap();
+  private volatile boolean offsetsFetchedInBatches = false;
+
   private final Closer closer = Closer.create();
 
   private final AtomicInteger failToGetOffsetCount = new AtomicInteger(0);
@@ -138,6 +147,11 @@ public abstract class KafkaSource<S, D> extends EventBasedSource<S, D> {
     ExecutorService threadPool =
         Executors.newFixedThreadPool(numOfThreads, ExecutorsUtils.newThreadFactory(Optional.of(LOG)));
 
+    if (state.getPropAsBoolean(ConfigurationKeys.KAFKA_SOURCE_BATCH_OFFSET_FETCH_ENABLED,
+        ConfigurationKeys.DEFAULT_KAFKA_SOURCE_BATCH_OFFSET_FETCH_ENABLED)) {
+      fetchOffsetsInBatches(topics, numOfThreads);
+    }
+
     Stopwatch createWorkUnitStopwatch = Stopwatch.createStarted();
 
     for (KafkaTopic topic : topics) {
@@ -158,6 +172,49 @@ public abstract class KafkaSource<S, D> extends EventBasedSource<S, D> {
     return KafkaWorkUnitPacker.getInstance(this, state).pack(workUnits, numOfMultiWorkunits);
   }
 
+  /**
+   * Fetch the earliest and latest offsets of all partitions of the given topics, using one request per leader for
+   * each kind of offset, with the requests to different leaders sent concurrently. The offsets of partitions missing
+   * from the results are fetched one partition at a time when creating their work units.
+   */
+  @VisibleForTesting
+  void fetchOffsetsInBatches(List<KafkaTopic> topics, int numOfThreads) {
+    Multimap<HostAndPort, KafkaPartition> partitionsByLeader = ArrayListMultimap.create();
+    for (KafkaTopic topic : topics) {
+      for (KafkaPartition partition : topic.getPartitions()) {
+        partitionsByLeader.put(partition.getLeader().getHostAndPort(), partition);
+      }
+    }
+    if (partitionsByLeader.isEmpty()) {
+      return;
+    }
+
+    ExecutorService threadPool =
+        Executors.newFixedThreadPool(Math.min(numOfThreads, partitionsByLeader.keySet().size()),
+            ExecutorsUtils.newThreadFactory(Optional.of(LOG), Optional.of("KafkaOffsetFetcher-%d")));
+
+    Stopwatch fetchOffsetsStopwatch = Stopwatch.createStarted();
+
+    for (final Map.Entry<HostAndPort, Collection<KafkaPartition>> entry : partitionsByLeader.asMap().entrySet()) {
+      threadPool.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            KafkaSource.this.earliestOffsets.putAll(KafkaSource.this.kafkaWrapper.getEarliestOffsets(entry.getValue()));
+            KafkaSource.this.latestOffsets.putAll(KafkaSource.this.kafkaWrapper.getLatestOffsets(entry.getValue()));
+          } catch (Throwable t) {
+            LOG.error("Caught error in fetching offsets from leader " + entry.getKey(), t);
+          }
+        }
+      });
+    }
+
+    ExecutorsUtils.shutdownExecutorService(threadPool, Optional.of(LOG), 1L, TimeUnit.HOURS);
+    this.offsetsFetchedInBatches = true;
+    LOG.info(String.format("Fetched offsets of %d partitions from %d leaders in %d seconds", partitionsByLeader.size(),
+        partitionsByLeader.keySet().size(), fetchOffsetsStopwatch.elapsed(TimeUnit.SECONDS)));
+  }
+
   /**
    * Given a {@link List} of {@link KafkaTopic}s, return a {@link Map} that links each {@link KafkaTopic} with the extra
    * configuration information specified in the state via the key {@link #KAFKA_TOPIC_SPECIFIC_STATE}.
@@ -272,8 +329,8 @@ public abstract class KafkaSource<S, D> extends EventBasedSource<S, D> {
     boolean failedToGetKafkaOffsets = false;
 
     try {
-      offsets.setEarliestOffset(this.kafkaWrapper.getEarliestOffset(partition));
-      offsets.setLatestOffset(this.kafkaWrapper.getLatestOffset(partition));
+      offsets.setEarliestOffset(getEarliestOffset(partition));
+      offsets.setLatestOffset(getLatestOffset(partition));
     } catch (KafkaOffsetRetrievalFailureException e) {
       failedToGetKafkaOffsets = true;
     }
@@ -356,6 +413,37 @@ public abstract class KafkaSource<S, D> extends EventBasedSource<S, D> {
     return getWorkUnitForTopicPartition(partition, offsets, topicSpecificState);
   }
 
+  @VisibleForTesting
+  long getEarliestOffset(KafkaPartition partition) throws KafkaOffsetRetrievalFailureException {
+    Long offset = this.offsetsFetchedInBatches ? this.earliestOffsets.get(partition) : null;
+    if (offset == null) {
+      if (this.offsetsFetchedInBatches) {
+        LOG.info(String.format("Earliest offset of partition %s was not fetched in a batch, fetching it alone",
+            partition));
+      }
+      return this.kafkaWrapper.getEarliestOffset(partition);
+    }
+    return offset;
+  }
+
+  @VisibleForTesting
+  long getLatestOffset(KafkaPartition partition) throws KafkaOffsetRetrievalFailureException {
+    Long offset = this.offsetsFetchedInBatches ? this.latestOffsets.get(partition) : null;
+    if (offset == null) {
+      if (this.offsetsFetchedInBatches) {
+        LOG.info(String.format("Latest offset of partition %s was not fetched in a batch, fetching it alone",
+            partition));
+      }
+      return this.kafkaWrapper.getLatestOffset(partition);
+    }
+    return offset;
+  }
+
+  @VisibleForTesting
+  void setKafkaWrapper(KafkaWrapper kafkaWrapper) {
+    this.kafkaWrapper = kafkaWrapper;
+  }
+
   private long getPreviousOffsetForPartition(KafkaPartition partition, SourceState state)
       throws PreviousOffsetNotFoundException {
 
@@ -19,6 +19,7 @@ import gobblin.util.DatasetFilterUtils;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -28,6 +29,7 @@ import java.util.regex.Pattern;
 
 import kafka.api.PartitionFetchInfo;
 import kafka.api.PartitionOffsetRequestInfo;
+import kafka.common.ErrorMapping;
 import kafka.common.TopicAndPartition;
 import kafka.javaapi.FetchRequest;
 import kafka.javaapi.FetchResponse;
@@ -44,10 +46,13 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.google.common.net.HostAndPort;
 
 
@@ -120,6 +125,15 @@ public class KafkaWrapper implements Closeable {
     return this.brokers;
   }
 
+  /**
+   * Use the given {@link SimpleConsumer} to talk to a broker through the old Kafka API instead of connecting to it.
+   */
+  @VisibleForTesting
+  void setSimpleConsumer(String broker, SimpleConsumer consumer) {
+    Preconditions.checkState(this.kafkaAPI instanceof KafkaOldAPI, "Only the old Kafka API uses SimpleConsumers");
+    ((KafkaOldAPI) this.kafkaAPI).activeConsumers.put(broker, consumer);
+  }
+
   public List<KafkaTopic> getFilteredTopics(List<Pattern> blacklist, List<Pattern> whitelist) {
     return this.kafkaAPI.getFilteredTopics(blacklist, whitelist);
   }
@@ -132,6 +146,28 @@ public class KafkaWrapper implements Closeable {
     return this.kafkaAPI.getLatestOffset(partition);
   }
 
+  /**
+   * Get the earliest offsets of a collection of partitions, using a single request for all partitions with the same
+   * leader where supported.
+   *
+   * @return a {@link Map} from partitions to their earliest offsets, which does not contain the partitions whose
+   * earliest offsets could not be retrieved
+   */
+  public Map<KafkaPartition, Long> getEarliestOffsets(Collection<KafkaPartition> partitions) {
+    return this.kafkaAPI.getEarliestOffsets(partitions);
+  }
+
+  /**
+   * Get the latest offsets of a collection of partitions, using a single request for all partitions with the same
+   * leader where supported.
+   *
+   * @return a {@link Map} from partitions to their latest offsets, which does not contain the partitions whose
+   * latest offsets could not be retrieved
+   */
+  public Map<KafkaPartition, Long> getLatestOffsets(Collection<KafkaPartition> partitions) {
+    return this.kafkaAPI.getLatestOffsets(partitions);
+  }
+
   public Iterator<MessageAndOffset> fetchNextMessageBuffer(KafkaPartition partition, long nextOffset, long maxOffset) {
     return this.kafkaAPI.fetchNextMessageBuffer(partition, nextOffset, maxOffset);
   }
@@ -156,6 +192,38 @@ public class KafkaWrapper implements Closeable {
 
     protected abstract long getLatestOffset(KafkaPartition partition) throws KafkaOffsetRetrievalFailureException;
 
+    /**
+     * Get the earliest offsets of partitions one partition at a time. Implementations able to get the offsets of
+     * many partitions at once should override this method.
+     */
+    protected Map<KafkaPartition, Long> getEarliestOffsets(Collection<KafkaPartition> partitions) {
+      Map<KafkaPartition, Long> offsets = Maps.newHashMap();
+      for (KafkaPartition partition : partitions) {
+        try {
+          offsets.put(partition, getEarliestOffset(partition));
+        } catch (KafkaOffsetRetrievalFailureException e) {
+          LOG.warn(String.format("Failed to get earliest offset for partition %s: %s", partition, e));
+        }
+      }
+      return offsets;
+    }
+
+    /**
+     * Get the latest offsets of partitions one partition at a time. Implementations able to get the offsets of
+     * many partitions at once should override this method.
+     */
+    protected Map<KafkaPartition, Long> getLatestOffsets(Collection<KafkaPartition> partitions) {
+      Map<KafkaPartition, Long> offsets = Maps.newHashMap();
+      for (KafkaPartition partition : partitions) {
+        try {
+          offsets.put(partition, getLatestOffset(partition));
+        } catch (KafkaOffsetRetrievalFailureException e) {
+          LOG.warn(String.format("Failed to get latest offset for partition %s: %s", partition, e));
+        }
+      }
+      return offsets;
+    }
+
     protected abstract Iterator<MessageAndOffset> fetchNextMessageBuffer(KafkaPartition partition, long nextOffset,
         long maxOffset);
   }
@@ -323,6 +391,84 @@ public class KafkaWrapper implements Closeable {
           String.format("Fetching offset for partition %s has failed.", partition));
     }
 
+    @Override
+    protected Map<KafkaPartition, Long> getEarliestOffsets(Collection<KafkaPartition> partitions) {
+      return getOffsets(partitions, kafka.api.OffsetRequest.EarliestTime());
+    }
+
+    @Override
+    protected Map<KafkaPartition, Long> getLatestOffsets(Collection<KafkaPartition> partitions) {
+      return getOffsets(partitions, kafka.api.OffsetRequest.LatestTime());
+    }
+
+    /**
+     * Get the offsets of partitions before the given time, using one {@link OffsetRequest} per leader.
+     */
+    private Map<KafkaPartition, Long> getOffsets(Collection<KafkaPartition> partitions, long time) {
+      Multimap<HostAndPort, KafkaPartition> partitionsByLeader = ArrayListMultimap.create();
+      for (KafkaPartition partition : partitions) {
+        partitionsByLeader.put(partition.getLeader().getHostAndPort(), partition);
+      }
+
+      Map<KafkaPartition, Long> offsets = Maps.newHashMapWithExpectedSize(partitions.size());
+      for (Map.Entry<HostAndPort, Collection<KafkaPartition>> entry : partitionsByLeader.asMap().entrySet()) {
+        offsets.putAll(getOffsetsFromLeader(entry.getKey(), entry.getValue(), time));
+      }
+      return offsets;
+    }
+
+    /**
+     * Get the offsets of partitions led by the same broker in a single {@link OffsetRequest}. Only the partitions
+     * whose offsets could not be retrieved are included in the request when retrying.
+     */
+    private Map<KafkaPartition, Long> getOffsetsFromLeader(HostAndPort leader, Collection<KafkaPartition> partitions,
+        long time) {
+      SimpleConsumer consumer = this.getSimpleConsumer(leader);
+      Map<KafkaPartition, Long> offsets = Maps.newHashMapWithExpectedSize(partitions.size());
+      List<KafkaPartition> remainingPartitions = Lists.newArrayList(partitions);
+
+      for (int i = 0; i < NUM_TRIES_FETCH_OFFSET && !remainingPartitions.isEmpty(); i++) {
+        if (i > 0) {
+          try {
+            Thread.sleep((long) ((i - 1 + Math.random()) * 1000));
+          } catch (InterruptedException e2) {
+            LOG.error("Caught interrupted exception between retries of getting offsets. " + e2);
+          }
+        }
+
+        Map<TopicAndPartition, PartitionOffsetRequestInfo> offsetRequestInfo = Maps.newHashMap();
+        for (KafkaPartition partition : remainingPartitions) {
+          offsetRequestInfo.put(new TopicAndPartition(partition.getTopicName(), partition.getId()),
+              new PartitionOffsetRequestInfo(time, 1));
+        }
+
+        try {
+          OffsetResponse offsetResponse = consumer.getOffsetsBefore(new OffsetRequest(offsetRequestInfo,
+              kafka.api.OffsetRequest.CurrentVersion(), DEFAULT_KAFKA_CLIENT_NAME));
+          for (Iterator<KafkaPartition> iterator = remainingPartitions.iterator(); iterator.hasNext();) {
+            KafkaPartition partition = iterator.next();
+            if (offsetResponse.errorCode(partition.getTopicName(), partition.getId()) != ErrorMapping.NoError()) {
+              continue;
+            }
+            long[] partitionOffsets = offsetResponse.offsets(partition.getTopicName(), partition.getId());
+            if (partitionOffsets.length > 0) {
+              offsets.put(partition, partitionOffsets[0]);
+              iterator.remove();
+            }
+          }
+        } catch (Exception e) {
+          LOG.warn(String.format("Fetching offsets for %d partitions from leader %s has failed %d time(s). Reason: %s",
+              remainingPartitions.size(), leader, i + 1, e));
+        }
+      }
+
+      if (!remainingPartitions.isEmpty()) {
+        LOG.warn(String.format("Fetching offsets from leader %s has failed for partitions %s.", leader,
+            remainingPartitions));
+      }
+      return offsets;
+    }
+
     @Override
     protected Iterator<MessageAndOffset> fetchNextMessageBuffer(KafkaPartition partition, long nextOffset,
         long maxOffset) {
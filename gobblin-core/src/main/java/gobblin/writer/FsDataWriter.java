@@ -66,6 +66,8 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
   protected final FsPermission dirPermission;
   protected final Optional<String> group;
   protected final Closer closer = Closer.create();
+  private boolean closed = false;
+  private boolean committed = false;
 
   public FsDataWriter(FsDataWriterBuilder<?, D> builder, State properties) throws IOException {
     this.properties = properties;
@@ -178,6 +180,12 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
     }
 
     HadoopUtils.renamePath(this.fs, this.stagingFile, this.outputFile);
+    this.committed = true;
+
+    // A writer closed before it is committed, e.g., an evicted partition writer, records its output file here
+    if (this.closed && this.shouldIncludeRecordCountInFileName) {
+      recordOutputFile();
+    }
   }
 
   /**
@@ -201,6 +209,18 @@ public abstract class FsDataWriter<D> implements DataWriter<D>, FinalState {
   public void close() throws IOException {
     this.closer.close();
 
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+
+    // The record count is added to the name of the output file, which only exists once the writer is committed
+    if (!this.shouldIncludeRecordCountInFileName || this.committed) {
+      recordOutputFile();
+    }
+  }
+
+  private void recordOutputFile() throws IOException {
     if (this.shouldIncludeRecordCountInFileName) {
       String filePathWithRecordCount = addRecordCountToFileName();
       this.properties.appendToSetProp(this.allOutputFilesPropName, filePathWithRecordCount);
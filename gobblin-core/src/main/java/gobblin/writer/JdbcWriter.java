@@ -21,6 +21,7 @@ import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
 import gobblin.converter.jdbc.JdbcEntryData;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -172,6 +173,10 @@ public class JdbcWriter implements DataWriter<JdbcEntryData> {
   public void close() throws IOException {
     try {
       try {
+        if (commands instanceof Closeable) {
+          ((Closeable) commands).close();
+        }
+
         if (failed && conn != null) {
           conn.rollback();
         }
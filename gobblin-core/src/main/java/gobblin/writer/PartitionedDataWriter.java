@@ -15,6 +15,7 @@ package gobblin.writer;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
@@ -23,17 +24,27 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.reflect.ConstructorUtils;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Closer;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
+import gobblin.instrumented.Instrumented;
 import gobblin.instrumented.writer.InstrumentedDataWriterDecorator;
 import gobblin.instrumented.writer.InstrumentedPartitionedDataWriterDecorator;
+import gobblin.metrics.GobblinMetrics;
+import gobblin.metrics.MetricContext;
+import gobblin.metrics.MetricNames;
 import gobblin.util.AvroUtils;
 import gobblin.util.FinalState;
 import gobblin.writer.partitioner.WriterPartitioner;
@@ -42,6 +53,15 @@ import gobblin.writer.partitioner.WriterPartitioner;
 /**
  * {@link DataWriter} that partitions data using a partitioner, instantiates appropriate writers, and sends records to
  * the chosen writer.
+ *
+ * <p>
+ *   The number of concurrently open partition writers can be capped with
+ *   {@link ConfigurationKeys#WRITER_PARTITIONED_MAX_OPEN_WRITERS}. When the cap is reached, the least recently used
+ *   partition writer is closed, which releases its resources. It is only committed along with the other partition
+ *   writers by {@link #commit()}, so nothing is published before the task succeeds. A record for that partition
+ *   arriving later opens a new writer with a new writer id, rolling the partition to a new file.
+ * </p>
+ *
  * @param <S> schema type.
  * @param <D> record type.
  */
@@ -57,20 +77,75 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
   private final LoadingCache<GenericRecord, DataWriter<D>> partitionWriters;
   private final Optional<PartitionAwareDataWriterBuilder> builder;
   private final boolean shouldPartition;
+  private final boolean boundedPartitionWriters;
   private final Closer closer;
 
+  // The partition of the last record and its writer. Partitioners returning the same partition instance for
+  // consecutive records, e.g., TimeBasedWriterPartitioner, skip the cache lookup.
+  private GenericRecord lastPartition;
+  private DataWriter<D> lastPartitionWriter;
+
+  // Partition writers evicted from the cache that still need to be closed
+  private final List<Map.Entry<GenericRecord, DataWriter<D>>> pendingEvictedWriters = Lists.newArrayList();
+  // Partition writers evicted from the cache and closed, which are committed by commit()
+  private final List<EvictedWriter<D>> evictedWriters = Lists.newArrayList();
+  // Number of writers evicted for each partition, which is also the sequence number of its open writer
+  private final Map<GenericRecord, Integer> partitionEvictions = Maps.newHashMap();
+
+  private final Optional<Counter> evictedWritersCounter;
+  private final Optional<Counter> rolledWritersCounter;
+
   public PartitionedDataWriter(DataWriterBuilder<S, D> builder, final State state) throws IOException {
 
     this.baseWriterId = builder.getWriterId();
     this.closer = Closer.create();
-    this.partitionWriters = CacheBuilder.newBuilder().build(new CacheLoader<GenericRecord, DataWriter<D>>() {
+
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+    int maxOpenWriters = state.getPropAsInt(ConfigurationKeys.WRITER_PARTITIONED_MAX_OPEN_WRITERS,
+        ConfigurationKeys.DEFAULT_WRITER_PARTITIONED_MAX_OPEN_WRITERS);
+    this.boundedPartitionWriters = maxOpenWriters > 0;
+    if (this.boundedPartitionWriters) {
+      // A single segment makes the cache evict the globally least recently used writer
+      cacheBuilder.maximumSize(maxOpenWriters).concurrencyLevel(1);
+    }
+    this.partitionWriters = cacheBuilder.removalListener(new RemovalListener<GenericRecord, DataWriter<D>>() {
+      @Override
+      public void onRemoval(RemovalNotification<GenericRecord, DataWriter<D>> notification) {
+        if (notification.wasEvicted()) {
+          // The writer is closed by the writing thread so failures can be propagated
+          PartitionedDataWriter.this.pendingEvictedWriters.add(notification);
+        }
+      }
+    }).build(new CacheLoader<GenericRecord, DataWriter<D>>() {
       @Override
       public DataWriter<D> load(final GenericRecord key) throws Exception {
-        return closer
-            .register(new InstrumentedPartitionedDataWriterDecorator<D>(createPartitionWriter(key), state, key));
+        if (PartitionedDataWriter.this.partitionEvictions.containsKey(key)
+            && PartitionedDataWriter.this.rolledWritersCounter.isPresent()) {
+          PartitionedDataWriter.this.rolledWritersCounter.get().inc();
+        }
+        return new InstrumentedPartitionedDataWriterDecorator<D>(createPartitionWriter(key), state, key);
       }
     });
 
+    if (GobblinMetrics.isEnabled(state)) {
+      MetricContext metricContext =
+          this.closer.register(Instrumented.getMetricContext(state, PartitionedDataWriter.class));
+      metricContext.register(metricContext.newContextAwareGauge(
+          MetricNames.DataWriterMetrics.OPEN_PARTITION_WRITERS_GAUGE, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+              return PartitionedDataWriter.this.partitionWriters.size();
+            }
+          }));
+      this.evictedWritersCounter =
+          Optional.of(metricContext.counter(MetricNames.DataWriterMetrics.EVICTED_PARTITION_WRITERS_COUNTER));
+      this.rolledWritersCounter =
+          Optional.of(metricContext.counter(MetricNames.DataWriterMetrics.ROLLED_PARTITION_WRITERS_COUNTER));
+    } else {
+      this.evictedWritersCounter = Optional.absent();
+      this.rolledWritersCounter = Optional.absent();
+    }
+
     if (state.contains(ConfigurationKeys.WRITER_PARTITIONER_CLASS)) {
       Preconditions.checkArgument(builder instanceof PartitionAwareDataWriterBuilder,
           String.format("%s was specified but the writer %s does not support partitioning.",
@@ -91,8 +166,7 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
       }
     } else {
       this.shouldPartition = false;
-      InstrumentedDataWriterDecorator<D> writer =
-          this.closer.register(new InstrumentedDataWriterDecorator<D>(builder.build(), state));
+      InstrumentedDataWriterDecorator<D> writer = new InstrumentedDataWriterDecorator<D>(builder.build(), state);
       this.partitionWriters.put(NON_PARTITIONED_WRITER_KEY, writer);
       this.partitioner = Optional.absent();
       this.builder = Optional.absent();
@@ -104,16 +178,61 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
     try {
       GenericRecord partition =
           this.shouldPartition ? this.partitioner.get().partitionForRecord(record) : NON_PARTITIONED_WRITER_KEY;
-      DataWriter<D> writer = this.partitionWriters.get(partition);
-      writer.write(record);
+      if (partition != this.lastPartition) {
+        if (this.boundedPartitionWriters && this.lastPartition != null) {
+          // Record the access to the last partition skipped by the fast path so its writer is not evicted first
+          this.partitionWriters.getIfPresent(this.lastPartition);
+        }
+        this.lastPartitionWriter = this.partitionWriters.get(partition);
+        this.lastPartition = partition;
+      }
+      this.lastPartitionWriter.write(record);
     } catch (ExecutionException ee) {
       throw new IOException(ee);
     }
+    // If the write failed, writers evicted by it are closed by commit() or close()
+    closeEvictedWriters();
+  }
+
+  /**
+   * Close the partition writers that have been evicted from the cache of open writers. They are not committed
+   * until {@link #commit()} is called, after the parent task has checked the quality of the data.
+   */
+  private void closeEvictedWriters() throws IOException {
+    while (!this.pendingEvictedWriters.isEmpty()) {
+      Map.Entry<GenericRecord, DataWriter<D>> evicted = this.pendingEvictedWriters.remove(0);
+      GenericRecord partition = evicted.getKey();
+      DataWriter<D> writer = evicted.getValue();
+      if (writer == this.lastPartitionWriter) {
+        this.lastPartition = null;
+        this.lastPartitionWriter = null;
+      }
+      log.info(String.format("Closing writer for partition %s as the maximum number of open writers is reached.",
+          partition));
+
+      int sequence = getWriterSequence(partition);
+      this.partitionEvictions.put(partition, sequence + 1);
+      this.evictedWriters.add(new EvictedWriter<>(partition, writer, sequence));
+      if (this.evictedWritersCounter.isPresent()) {
+        this.evictedWritersCounter.get().inc();
+      }
+      writer.close();
+    }
   }
 
   @Override
   public void commit() throws IOException {
+    closeEvictedWriters();
+
     int writersCommitted = 0;
+    for (EvictedWriter<D> evicted : this.evictedWriters) {
+      try {
+        evicted.writer.commit();
+        writersCommitted++;
+      } catch (Throwable throwable) {
+        log.error(String.format("Failed to commit evicted writer for partition %s.", evicted.partition), throwable);
+      }
+    }
     for (Map.Entry<GenericRecord, DataWriter<D>> entry : this.partitionWriters.asMap().entrySet()) {
       try {
         entry.getValue().commit();
@@ -122,7 +241,7 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
         log.error(String.format("Failed to commit writer for partition %s.", entry.getKey()), throwable);
       }
     }
-    if (writersCommitted < this.partitionWriters.asMap().size()) {
+    if (writersCommitted < this.evictedWriters.size() + this.partitionWriters.asMap().size()) {
       throw new IOException("Failed to commit all writers.");
     }
   }
@@ -130,6 +249,14 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
   @Override
   public void cleanup() throws IOException {
     int writersCleanedUp = 0;
+    for (EvictedWriter<D> evicted : this.evictedWriters) {
+      try {
+        evicted.writer.cleanup();
+        writersCleanedUp++;
+      } catch (Throwable throwable) {
+        log.error(String.format("Failed to cleanup evicted writer for partition %s.", evicted.partition));
+      }
+    }
     for (Map.Entry<GenericRecord, DataWriter<D>> entry : this.partitionWriters.asMap().entrySet()) {
       try {
         entry.getValue().cleanup();
@@ -138,7 +265,7 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
         log.error(String.format("Failed to cleanup writer for partition %s.", entry.getKey()));
       }
     }
-    if (writersCleanedUp < this.partitionWriters.asMap().size()) {
+    if (writersCleanedUp < this.evictedWriters.size() + this.partitionWriters.asMap().size()) {
       throw new IOException("Failed to clean up all writers.");
     }
   }
@@ -146,6 +273,9 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
   @Override
   public long recordsWritten() {
     long totalRecords = 0;
+    for (EvictedWriter<D> evicted : this.evictedWriters) {
+      totalRecords += evicted.writer.recordsWritten();
+    }
     for (Map.Entry<GenericRecord, DataWriter<D>> entry : this.partitionWriters.asMap().entrySet()) {
       totalRecords += entry.getValue().recordsWritten();
     }
@@ -155,6 +285,9 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
   @Override
   public long bytesWritten() throws IOException {
     long totalBytes = 0;
+    for (EvictedWriter<D> evicted : this.evictedWriters) {
+      totalBytes += evicted.writer.bytesWritten();
+    }
     for (Map.Entry<GenericRecord, DataWriter<D>> entry : this.partitionWriters.asMap().entrySet()) {
       totalBytes += entry.getValue().bytesWritten();
     }
@@ -163,7 +296,17 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
 
   @Override
   public void close() throws IOException {
-    this.closer.close();
+    try {
+      // Writers evicted by a failed write have not been closed yet, the other evicted writers have
+      for (Map.Entry<GenericRecord, DataWriter<D>> evicted : this.pendingEvictedWriters) {
+        this.closer.register(evicted.getValue());
+      }
+      for (DataWriter<D> writer : this.partitionWriters.asMap().values()) {
+        this.closer.register(writer);
+      }
+    } finally {
+      this.closer.close();
+    }
   }
 
   private DataWriter<D> createPartitionWriter(GenericRecord partition) throws IOException {
@@ -179,21 +322,11 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
 
     State state = new State();
     try {
+      for (EvictedWriter<D> evicted : this.evictedWriters) {
+        addPartitionFinalState(state, evicted.partition, evicted.sequence, evicted.writer);
+      }
       for (Map.Entry<GenericRecord, DataWriter<D>> entry : this.partitionWriters.asMap().entrySet()) {
-        if (entry.getValue() instanceof FinalState) {
-
-          State partitionFinalState = ((FinalState) entry.getValue()).getFinalState();
-
-          if (this.shouldPartition) {
-            for (String key : partitionFinalState.getPropertyNames()) {
-              // Prevent overwriting final state across writers
-              partitionFinalState.setProp(key + "_" + AvroUtils.serializeAsPath(entry.getKey(), false, true),
-                  partitionFinalState.getProp(key));
-            }
-          }
-
-          state.addAll(partitionFinalState);
-        }
+        addPartitionFinalState(state, entry.getKey(), getWriterSequence(entry.getKey()), entry.getValue());
       }
       state.setProp("RecordsWritten", recordsWritten());
       state.setProp("BytesWritten", bytesWritten());
@@ -204,4 +337,48 @@ public class PartitionedDataWriter<S, D> implements DataWriter<D>, FinalState {
     }
     return state;
   }
+
+  /**
+   * Add the final state of a partition writer. The keys of the first writer of a partition are suffixed with the
+   * partition, and the keys of the writers the partition is rolled to are further suffixed with their sequence number.
+   */
+  private void addPartitionFinalState(State state, GenericRecord partition, int sequence, DataWriter<D> writer) {
+    if (writer instanceof FinalState) {
+
+      State partitionFinalState = ((FinalState) writer).getFinalState();
+
+      if (this.shouldPartition) {
+        String suffix = "_" + AvroUtils.serializeAsPath(partition, false, true) + (sequence > 0 ? "_" + sequence : "");
+        for (String key : partitionFinalState.getPropertyNames()) {
+          // Prevent overwriting final state across writers
+          partitionFinalState.setProp(key + suffix, partitionFinalState.getProp(key));
+        }
+      }
+
+      state.addAll(partitionFinalState);
+    }
+  }
+
+  /**
+   * @return the sequence number of the open writer of a partition, i.e., the number of its writers evicted so far.
+   */
+  private int getWriterSequence(GenericRecord partition) {
+    Integer evictions = this.partitionEvictions.get(partition);
+    return evictions == null ? 0 : evictions;
+  }
+
+  /**
+   * A partition writer evicted from the cache of open writers, which has been closed but not committed yet.
+   */
+  private static class EvictedWriter<D> {
+    private final GenericRecord partition;
+    private final DataWriter<D> writer;
+    private final int sequence;
+
+    private EvictedWriter(GenericRecord partition, DataWriter<D> writer, int sequence) {
+      this.partition = partition;
+      this.writer = writer;
+      this.sequence = sequence;
+    }
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.commands;
+
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.util.ExecutorsUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.ToString;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+
+/**
+ * JdbcBufferedInserter that hands entries over to another JdbcBufferedInserter in a background thread, so that
+ * conversion of records in the writer thread overlaps with the JDBC calls of the underlying inserter.
+ *
+ * Entries are handed over in batches of the insert batch size, and at most a given number of batches can be pending
+ * before insert blocks. As the underlying inserter is only called from the background thread, the connection must
+ * not be used by other threads until flush returns. A failure of the background thread fails the next insert or flush.
+ */
+@ToString(of = {"inserter", "batchSize"})
+public class AsyncJdbcBufferedInserter implements JdbcBufferedInserter, Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncJdbcBufferedInserter.class);
+
+  private final JdbcBufferedInserter inserter;
+  private final int batchSize;
+  private final Semaphore pendingBatches;
+  private final ExecutorService executor;
+  private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+  private List<JdbcEntryData> batch;
+  private String batchDatabaseName;
+  private String batchTable;
+
+  public AsyncJdbcBufferedInserter(State state, JdbcBufferedInserter inserter) {
+    this.inserter = inserter;
+    this.batchSize = state.getPropAsInt(WRITER_JDBC_INSERT_BATCH_SIZE, DEFAULT_WRITER_JDBC_INSERT_BATCH_SIZE);
+    if (batchSize < 1) {
+      throw new IllegalArgumentException(WRITER_JDBC_INSERT_BATCH_SIZE + " should be a positive number");
+    }
+    int maxPendingBatches = state.getPropAsInt(WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES,
+                                               DEFAULT_WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES);
+    if (maxPendingBatches < 1) {
+      throw new IllegalArgumentException(WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES + " should be a positive number");
+    }
+    this.pendingBatches = new Semaphore(maxPendingBatches);
+    this.batch = Lists.newArrayListWithCapacity(batchSize);
+    this.executor = Executors.newSingleThreadExecutor(
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("JdbcAsyncInserter-%d")));
+  }
+
+  /**
+   * Adds entry to the current batch, and hands the batch over to the background thread once it is full. Blocks while
+   * the maximum number of batches is pending.
+   * {@inheritDoc}
+   * @see gobblin.writer.commands.JdbcBufferedInserter#insert(java.lang.String, java.lang.String, gobblin.converter.jdbc.JdbcEntryData)
+   */
+  @Override
+  public void insert(String databaseName, String table, JdbcEntryData jdbcEntryData) throws SQLException {
+    checkFailure();
+    if (!batch.isEmpty() && !(databaseName.equals(batchDatabaseName) && table.equals(batchTable))) {
+      submitBatch();
+    }
+    batchDatabaseName = databaseName;
+    batchTable = table;
+    batch.add(jdbcEntryData);
+    if (batch.size() >= batchSize) {
+      submitBatch();
+    }
+  }
+
+  private void submitBatch() throws SQLException {
+    final String databaseName = batchDatabaseName;
+    final String table = batchTable;
+    final List<JdbcEntryData> entries = batch;
+    batch = Lists.newArrayListWithCapacity(batchSize);
+    try {
+      pendingBatches.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for pending inserts", e);
+    }
+
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (failure.get() == null) {
+            for (JdbcEntryData entry : entries) {
+              inserter.insert(databaseName, table, entry);
+            }
+          }
+        } catch (Exception e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          pendingBatches.release();
+        }
+      }
+    });
+  }
+
+  /**
+   * Hands the current batch over, and waits until all the entries have been inserted and the underlying inserter
+   * has been flushed.
+   * {@inheritDoc}
+   * @see gobblin.writer.commands.JdbcBufferedInserter#flush()
+   */
+  @Override
+  public void flush() throws SQLException {
+    checkFailure();
+    if (!batch.isEmpty()) {
+      submitBatch();
+    }
+    try {
+      executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          if (failure.get() == null) {
+            inserter.flush();
+          }
+          return null;
+        }
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for pending inserts", e);
+    } catch (ExecutionException e) {
+      failure.compareAndSet(null, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+    }
+    checkFailure();
+  }
+
+  private void checkFailure() throws SQLException {
+    Exception e = failure.get();
+    if (e != null) {
+      throw new SQLException("Failed to insert in background thread.", e);
+    }
+  }
+
+  /**
+   * Stops the background thread. Entries not flushed yet are discarded.
+   */
+  @Override
+  public void close() throws IOException {
+    ExecutorsUtils.shutdownExecutorService(executor, Optional.of(LOG));
+    if (inserter instanceof Closeable) {
+      ((Closeable) inserter).close();
+    }
+  }
+}
@@ -26,6 +26,25 @@ public interface JdbcBufferedInserter {
   public static final int MAX_WRITER_JDBC_INSERT_BUFFER_SIZE = 10 * 1024 * 1024; //10 MBytes
   public static final String WRITER_JDBC_MAX_PARAM_SIZE = WRITER_PREFIX + ".jdbc.insert_max_param_size";
   public static final int DEFAULT_WRITER_JDBC_MAX_PARAM_SIZE = 100000; //MySQL limit
+  public static final String WRITER_JDBC_INSERT_METHOD = WRITER_PREFIX + ".jdbc.insert_method";
+  public static final String DEFAULT_WRITER_JDBC_INSERT_METHOD = InsertMethod.MULTI_ROW.name();
+  public static final String WRITER_JDBC_INSERT_ASYNC = WRITER_PREFIX + ".jdbc.insert_async";
+  public static final boolean DEFAULT_WRITER_JDBC_INSERT_ASYNC = false;
+  public static final String WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES =
+      WRITER_PREFIX + ".jdbc.insert_async_max_pending_batches";
+  public static final int DEFAULT_WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES = 2;
+
+  /**
+   * How entries are inserted into JDBC RDBMS.
+   */
+  public static enum InsertMethod {
+    /** JDBC batch of a single row INSERT statement. See {@link GenericJdbcBufferedInserter}. */
+    BATCH,
+    /** INSERT statement with multiple rows. See {@link MultiRowJdbcBufferedInserter}. */
+    MULTI_ROW,
+    /** MySQL LOAD DATA LOCAL INFILE from an in-memory buffer. See {@link MySqlLoadDataBufferedInserter}. */
+    LOAD_DATA
+  }
 
   /**
    * Inserts entry. Depends on the current batch size, buffer size, param size, it can either put into buffer
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.commands;
+
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.converter.jdbc.JdbcEntryDatum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import lombok.ToString;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rholder.retry.Retryer;
+import com.github.rholder.retry.RetryerBuilder;
+import com.github.rholder.retry.StopStrategies;
+import com.github.rholder.retry.WaitStrategies;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+/**
+ * The implementation of JdbcBufferedInserter for MySQL that bulk loads entries with LOAD DATA LOCAL INFILE.
+ * Entries are serialized as tab separated rows into an in-memory buffer, which is streamed to the server by
+ * MySQL Connector/J instead of a local file once it exceeds the insert buffer size. This avoids parsing the values
+ * of an INSERT statement on the server, which makes it the fastest way to load large amount of rows into MySQL.
+ * http://dev.mysql.com/doc/refman/5.7/en/load-data.html
+ *
+ * Note that LOAD DATA LOCAL needs to be enabled on the server (local_infile) and in the driver (allowLoadLocalInfile).
+ */
+@ToString(exclude = {"buffer", "retryer", "conn"})
+public class MySqlLoadDataBufferedInserter implements JdbcBufferedInserter {
+  private static final Logger LOG = LoggerFactory.getLogger(MySqlLoadDataBufferedInserter.class);
+
+  private static final String LOAD_DATA_STATEMENT_FORMAT =
+      "LOAD DATA LOCAL INFILE 'gobblin.stream' INTO TABLE %s.%s CHARACTER SET utf8mb4 (%s)";
+  private static final String MYSQL_STATEMENT_CLASS = "com.mysql.jdbc.Statement";
+  private static final Joiner JOINER_ON_COMMA = Joiner.on(',');
+  private static final String NULL_VALUE = "\\N";
+
+  private final Connection conn;
+  private final int bufferSize;
+  private final RowBuffer buffer;
+  private final Retryer<Boolean> retryer;
+
+  private String loadDataStmt;
+  private int pendingRowCount;
+
+  public MySqlLoadDataBufferedInserter(State state, Connection conn) {
+    this.conn = conn;
+    int requestedBufferSize = state.getPropAsInt(WRITER_JDBC_INSERT_BUFFER_SIZE,
+                                                 DEFAULT_WRITER_JDBC_INSERT_BUFFER_SIZE);
+    if (requestedBufferSize < 1) {
+      throw new IllegalArgumentException(WRITER_JDBC_INSERT_BUFFER_SIZE + " should be a positive number");
+    }
+    this.bufferSize = Math.min(requestedBufferSize, MAX_WRITER_JDBC_INSERT_BUFFER_SIZE);
+    if (bufferSize != requestedBufferSize) {
+      LOG.info("Changing buffer size from " + requestedBufferSize + " to " + bufferSize);
+    }
+    this.buffer = new RowBuffer(bufferSize);
+
+    //retry after 2, 4, 8, 16... sec, max 30 sec delay
+    this.retryer = RetryerBuilder.<Boolean>newBuilder()
+                                 .retryIfException()
+                                 .withWaitStrategy(WaitStrategies.exponentialWait(1000, 30, TimeUnit.SECONDS))
+                                 .withStopStrategy(StopStrategies.stopAfterAttempt(5))
+                                 .build();
+  }
+
+  /**
+   * Appends entry into buffer. If the buffer size is exceeded, it will stream the buffer to MySQL.
+   * {@inheritDoc}
+   * @see gobblin.writer.commands.JdbcBufferedInserter#insert(java.lang.String, java.lang.String, gobblin.converter.jdbc.JdbcEntryData)
+   */
+  @Override
+  public void insert(String databaseName, String table, JdbcEntryData jdbcEntryData) throws SQLException {
+    if (loadDataStmt == null) {
+      initialize(databaseName, table, jdbcEntryData);
+    }
+
+    StringBuilder row = new StringBuilder();
+    for (JdbcEntryDatum datum : jdbcEntryData) {
+      if (row.length() > 0) {
+        row.append('\t');
+      }
+      appendValue(row, datum.getVal());
+    }
+    byte[] bytes = row.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+    buffer.write(bytes, 0, bytes.length);
+    pendingRowCount++;
+
+    if (buffer.size() >= bufferSize) {
+      loadBuffer();
+    }
+  }
+
+  private void initialize(String databaseName, String table, JdbcEntryData jdbcEntryData) {
+    List<String> columnNames = Lists.newArrayList();
+    for (JdbcEntryDatum datum : jdbcEntryData) {
+      columnNames.add(datum.getColumnName());
+    }
+    loadDataStmt = String.format(LOAD_DATA_STATEMENT_FORMAT, databaseName, table, JOINER_ON_COMMA.join(columnNames));
+    LOG.info("Initialized for bulk load " + this);
+  }
+
+  /**
+   * Appends a value in the format expected by LOAD DATA with the default field and line terminators and escape
+   * character.
+   */
+  private static void appendValue(StringBuilder row, Object val) {
+    if (val == null) {
+      row.append(NULL_VALUE);
+      return;
+    }
+    if (val instanceof Boolean) {
+      row.append((Boolean) val ? '1' : '0');
+      return;
+    }
+
+    String str = val.toString();
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      switch (c) {
+        case '\\':
+          row.append("\\\\");
+          break;
+        case '\t':
+          row.append("\\t");
+          break;
+        case '\n':
+          row.append("\\n");
+          break;
+        case '\r':
+          row.append("\\r");
+          break;
+        case '\0':
+          row.append("\\0");
+          break;
+        default:
+          row.append(c);
+      }
+    }
+  }
+
+  private void loadBuffer() throws SQLException {
+    Callable<Boolean> loadCall = new Callable<Boolean>() { //Need a Callable interface to be wrapped by Retryer.
+      @Override
+      public Boolean call() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+          setLocalInfileInputStream(stmt, buffer.toInputStream());
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Executing SQL " + loadDataStmt + " with " + pendingRowCount + " rows");
+          }
+          return stmt.execute(loadDataStmt);
+        }
+      }
+    };
+
+    try {
+      retryer.wrap(loadCall).call();
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to load data.", e);
+    }
+    buffer.reset();
+    pendingRowCount = 0;
+  }
+
+  /**
+   * Makes MySQL Connector/J read the data of the next LOAD DATA LOCAL INFILE statement from the stream instead of
+   * the local file. The driver is accessed by reflection so that it does not need to be a compile time dependency.
+   */
+  protected void setLocalInfileInputStream(Statement stmt, InputStream inputStream) throws SQLException {
+    try {
+      Class<?> mysqlStatementClass = Class.forName(MYSQL_STATEMENT_CLASS);
+      mysqlStatementClass.getMethod("setLocalInfileInputStream", InputStream.class)
+                         .invoke(stmt.unwrap(mysqlStatementClass), inputStream);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new SQLException("Streaming LOAD DATA LOCAL INFILE requires MySQL Connector/J", e);
+    }
+  }
+
+  @Override
+  public void flush() throws SQLException {
+    if (pendingRowCount > 0) {
+      loadBuffer();
+    }
+  }
+
+  /**
+   * ByteArrayOutputStream that can be read without copying its content.
+   */
+  private static class RowBuffer extends ByteArrayOutputStream {
+    private RowBuffer(int size) {
+      super(size);
+    }
+
+    private InputStream toInputStream() {
+      return new ByteArrayInputStream(buf, 0, count);
+    }
+  }
+}
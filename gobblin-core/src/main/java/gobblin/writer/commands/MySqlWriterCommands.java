@@ -16,6 +16,8 @@ import gobblin.configuration.State;
 import gobblin.converter.jdbc.JdbcType;
 import gobblin.converter.jdbc.JdbcEntryData;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -29,8 +31,11 @@ import com.google.common.collect.ImmutableMap;
 
 /**
  * The implementation of JdbcWriterCommands for MySQL.
+ * Entries are inserted with multi-row INSERT statements by default, or with LOAD DATA LOCAL INFILE or JDBC batches
+ * depending on JdbcBufferedInserter.WRITER_JDBC_INSERT_METHOD, optionally from a background thread if
+ * JdbcBufferedInserter.WRITER_JDBC_INSERT_ASYNC is enabled.
  */
-public class MySqlWriterCommands implements JdbcWriterCommands {
+public class MySqlWriterCommands implements JdbcWriterCommands, Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(MySqlWriterCommands.class);
 
   private static final String CREATE_TABLE_SQL_FORMAT = "CREATE TABLE %s SELECT * FROM %s WHERE 1=2";
@@ -47,7 +52,31 @@ public class MySqlWriterCommands implements JdbcWriterCommands {
 
   public MySqlWriterCommands(State state, Connection conn) {
     this.conn = conn;
-    this.jdbcBufferedWriter = new MySqlBufferedInserter(state, conn);
+    this.jdbcBufferedWriter = createBufferedInserter(state, conn);
+  }
+
+  private static JdbcBufferedInserter createBufferedInserter(State state, Connection conn) {
+    InsertMethod insertMethod =
+        InsertMethod.valueOf(state.getProp(WRITER_JDBC_INSERT_METHOD, DEFAULT_WRITER_JDBC_INSERT_METHOD).toUpperCase());
+    JdbcBufferedInserter inserter;
+    switch (insertMethod) {
+      case BATCH:
+        inserter = new GenericJdbcBufferedInserter(state, conn);
+        break;
+      case MULTI_ROW:
+        inserter = new MySqlBufferedInserter(state, conn);
+        break;
+      case LOAD_DATA:
+        inserter = new MySqlLoadDataBufferedInserter(state, conn);
+        break;
+      default:
+        throw new IllegalArgumentException(insertMethod + " is not supported");
+    }
+
+    if (state.getPropAsBoolean(WRITER_JDBC_INSERT_ASYNC, DEFAULT_WRITER_JDBC_INSERT_ASYNC)) {
+      return new AsyncJdbcBufferedInserter(state, inserter);
+    }
+    return inserter;
   }
 
   @Override
@@ -146,6 +175,13 @@ public class MySqlWriterCommands implements JdbcWriterCommands {
     }
   }
 
+  @Override
+  public void close() throws IOException {
+    if (jdbcBufferedWriter instanceof Closeable) {
+      ((Closeable) jdbcBufferedWriter).close();
+    }
+  }
+
   @Override
   public String toString() {
     return String.format("MySqlWriterCommands [bufferedWriter=%s]", jdbcBufferedWriter);
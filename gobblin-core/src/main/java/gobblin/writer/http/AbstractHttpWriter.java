@@ -12,7 +12,15 @@
 package gobblin.writer.http;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
@@ -25,14 +33,32 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import gobblin.configuration.State;
+import gobblin.instrumented.Instrumented;
 import gobblin.instrumented.writer.InstrumentedDataWriter;
+import gobblin.metrics.MetricContext;
+import gobblin.metrics.MetricNames;
+import gobblin.util.ExecutorsUtils;
 
 /**
  * Base class for HTTP writers. Defines the main extension points for different implementations.
+ *
+ * <p>
+ *   By default, each request is sent and its response processed before the next record is accepted. If a maximum
+ *   number of in-flight requests greater than 1 is given, requests are sent asynchronously by a pool of sender
+ *   threads, which call {@link #sendRequest(HttpUriRequest)} and {@link #waitForResponse(ListenableFuture)}, while
+ *   {@link #processResponse(HttpResponse)} is still called by the writer thread, once there are too many requests in
+ *   flight, and for all outstanding requests on {@link #commit()} and {@link #close()}. Responses are processed in
+ *   the order the requests were sent unless {@link #isResponseOrderRequired()} is overridden to return false.
+ * </p>
  */
 public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
                                             implements HttpWriterDecoration<D> {
@@ -46,6 +72,15 @@ public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
   private long _numRecordsWritten = 0;
   private long _numBytesWritten = 0;
   private Optional<HttpUriRequest> _curRequest = Optional.absent();
+  // Asynchronous sending of requests
+  private final int _maxInFlightRequests;
+  private final Optional<ListeningExecutorService> _sender;
+  private final Deque<ListenableFuture<HttpResponse>> _inFlightRequests = new ArrayDeque<>();
+  // Only used if the order of responses is not required
+  private final BlockingQueue<ListenableFuture<HttpResponse>> _completedRequests = new LinkedBlockingQueue<>();
+  // Size of _inFlightRequests, which can be read by other threads, e.g., metric reporters
+  private final AtomicInteger _numInFlightRequests = new AtomicInteger();
+  private final Optional<Timer> _responseTimer;
 
   class HttpClientConnectionManagerWithConnTracking
         extends DelegatingHttpClientConnectionManager {
@@ -70,11 +105,53 @@ public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
   public AbstractHttpWriter(State state, Optional<Logger> log,
                             HttpClientBuilder httpClientInject,
                             HttpClientConnectionManager connManager) {
+    this(state, log, httpClientInject, connManager, 1);
+  }
+
+  /**
+   * Creates a writer configured by an {@link AbstractHttpWriterBuilder}, including the maximum number of in-flight
+   * requests set by gobblin.writer.http.max.in.flight.requests.
+   */
+  public AbstractHttpWriter(AbstractHttpWriterBuilder<?, D, ?> builder) {
+    this(builder.getState(), builder.getLogger(), builder.getHttpClientBuilder(), builder.getHttpConnManager(),
+        builder.getMaxInFlightRequests());
+  }
+
+  /**
+   * @param maxInFlightRequests the maximum number of requests sent but whose response has not been processed yet;
+   *                            requests are sent asynchronously if greater than 1, so the connection manager should
+   *                            allow as many connections
+   */
+  public AbstractHttpWriter(State state, Optional<Logger> log,
+                            HttpClientBuilder httpClientInject,
+                            HttpClientConnectionManager connManager,
+                            int maxInFlightRequests) {
     super(state);
+    Preconditions.checkArgument(maxInFlightRequests > 0, "The maximum number of in-flight requests must be positive");
     _log = log.isPresent() ? log.get() : LoggerFactory.getLogger(this.getClass());
     _debugLogEnabled = _log.isDebugEnabled();
     httpClientInject.setConnectionManager(new HttpClientConnectionManagerWithConnTracking(connManager));
     _client = httpClientInject.build();
+
+    _maxInFlightRequests = maxInFlightRequests;
+    _sender = maxInFlightRequests > 1
+        ? Optional.of(MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(maxInFlightRequests,
+            ExecutorsUtils.newThreadFactory(Optional.of(_log), Optional.of("HttpWriterSender-%d")))))
+        : Optional.<ListeningExecutorService>absent();
+
+    if (isInstrumentationEnabled()) {
+      MetricContext metricContext = getMetricContext();
+      _responseTimer = Optional.of(metricContext.timer(MetricNames.DataWriterMetrics.HTTP_RESPONSE_TIMER));
+      metricContext.register(metricContext.newContextAwareGauge(
+          MetricNames.DataWriterMetrics.HTTP_IN_FLIGHT_REQUESTS_GAUGE, new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+              return getNumInFlightRequests();
+            }
+          }));
+    } else {
+      _responseTimer = Optional.absent();
+    }
   }
 
 
@@ -84,6 +161,30 @@ public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
     _client.close();
   }
 
+  /**
+   * Processes the responses of all outstanding requests before committing.
+   */
+  @Override
+  public void commit() throws IOException {
+    drainInFlightRequests();
+    super.commit();
+  }
+
+  /**
+   * Processes the responses of all outstanding requests before closing.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      drainInFlightRequests();
+    } finally {
+      if (_sender.isPresent()) {
+        ExecutorsUtils.shutdownExecutorService(_sender.get(), Optional.of(_log), 1, TimeUnit.MINUTES);
+      }
+      super.close();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -107,10 +208,21 @@ public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
   public void writeImpl(D record) throws IOException {
     _curRequest = onNewRecord(record, _curRequest);
     if (_curRequest.isPresent()) {
+      if (_sender.isPresent()) {
+        while (_inFlightRequests.size() >= _maxInFlightRequests) {
+          processNextResponse();
+        }
+        sendRequestAsync(_curRequest.get());
+        return;
+      }
+
+      long startNanos = System.nanoTime();
       ListenableFuture<HttpResponse> responseFuture = sendRequest(_curRequest.get());
       waitForResponse(responseFuture);
       try {
-        processResponse(responseFuture.get());
+        HttpResponse response = responseFuture.get();
+        Instrumented.updateTimer(_responseTimer, System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        processResponse(response);
       }
       catch (InterruptedException | ExecutionException e) {
         throw new RuntimeException(e);
@@ -118,6 +230,72 @@ public abstract class AbstractHttpWriter<D> extends InstrumentedDataWriter<D>
     }
   }
 
+  /**
+   * Whether the responses of requests sent asynchronously must be processed in the order the requests were sent.
+   * Subclasses can override this method to return false, so that responses are processed as soon as they are
+   * received.
+   */
+  protected boolean isResponseOrderRequired() {
+    return true;
+  }
+
+  /** The number of requests sent whose response has not been processed yet */
+  public int getNumInFlightRequests() {
+    return _numInFlightRequests.get();
+  }
+
+  private void sendRequestAsync(final HttpUriRequest request) {
+    final ListenableFuture<HttpResponse> responseFuture = _sender.get().submit(new Callable<HttpResponse>() {
+      @Override
+      public HttpResponse call() throws Exception {
+        long startNanos = System.nanoTime();
+        ListenableFuture<HttpResponse> future = sendRequest(request);
+        waitForResponse(future);
+        HttpResponse response = future.get();
+        Instrumented.updateTimer(_responseTimer, System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return response;
+      }
+    });
+    _inFlightRequests.add(responseFuture);
+    _numInFlightRequests.incrementAndGet();
+    if (!isResponseOrderRequired()) {
+      responseFuture.addListener(new Runnable() {
+        @Override
+        public void run() {
+          _completedRequests.add(responseFuture);
+        }
+      }, MoreExecutors.sameThreadExecutor());
+    }
+  }
+
+  /**
+   * Waits for the response of the oldest in-flight request, or for any response if the order of responses is not
+   * required, and processes it.
+   */
+  private void processNextResponse() throws IOException {
+    try {
+      ListenableFuture<HttpResponse> responseFuture =
+          isResponseOrderRequired() ? _inFlightRequests.peek() : _completedRequests.take();
+      _inFlightRequests.remove(responseFuture);
+      _numInFlightRequests.decrementAndGet();
+      processResponse(responseFuture.get());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for an HTTP response", e);
+    }
+    catch (ExecutionException e) {
+      throw new IOException("HTTP request failed: " + e.getCause(), e.getCause());
+    }
+  }
+
+  private void drainInFlightRequests() throws IOException {
+    while (!_inFlightRequests.isEmpty()) {
+      processNextResponse();
+    }
+    _completedRequests.clear();
+  }
+
 
   public Logger getLog() {
     return _log;
@@ -3,32 +3,67 @@ package gobblin.writer.http;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.typesafe.config.Config;
 
 import gobblin.config.ConfigBuilder;
 import gobblin.configuration.State;
+import gobblin.writer.Destination;
 import gobblin.writer.FluentDataWriterBuilder;
 
 public abstract class AbstractHttpWriterBuilder<S, D, B extends AbstractHttpWriterBuilder<S, D, B>>
        extends FluentDataWriterBuilder<S, D, B> {
   public static final String CONF_PREFIX = "gobblin.writer.http.";
+  public static final String MAX_IN_FLIGHT_REQUESTS_KEY = "max.in.flight.requests";
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 1;
 
   private HttpClientBuilder _httpClientBuilder =
       HttpClientBuilder.create().disableCookieManagement().useSystemProperties();
-  // TODO Add an option for connection pooling
-  private HttpClientConnectionManager _httpConnManager = new BasicHttpClientConnectionManager();
+  private HttpClientConnectionManager _httpConnManager = null;
+  private int _maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+  private State _state = new State();
+  private Optional<Logger> _logger = Optional.absent();
+
+  /**
+   * Set the destination to write to, and configure this builder from the properties of the destination.
+   */
+  @Override
+  public B writeTo(Destination destination) {
+    super.writeTo(destination);
+    return fromState(destination.getProperties());
+  }
 
   public B fromState(State state) {
+    _state = state;
     Config config = ConfigBuilder.create().loadProps(state.getProperties(), CONF_PREFIX).build();
     fromConfig(config);
     return typedSelf();
   }
 
   public B fromConfig(Config config) {
+    if (config.hasPath(MAX_IN_FLIGHT_REQUESTS_KEY)) {
+      withMaxInFlightRequests(config.getInt(MAX_IN_FLIGHT_REQUESTS_KEY));
+    }
+    return typedSelf();
+  }
+
+  public State getState() {
+    return _state;
+  }
+
+  public B withLogger(Optional<Logger> logger) {
+    _logger = logger;
     return typedSelf();
   }
 
+  public Optional<Logger> getLogger() {
+    return _logger;
+  }
+
   public B withHttpClientBuilder(HttpClientBuilder builder) {
     _httpClientBuilder = builder;
     return typedSelf();
@@ -43,8 +78,36 @@ public abstract class AbstractHttpWriterBuilder<S, D, B extends AbstractHttpWrit
     return typedSelf();
   }
 
+  /**
+   * The connection manager set using {@link #withHttpClientConnectionManager(HttpClientConnectionManager)}, or by
+   * default a connection manager with a single connection if requests are sent synchronously, and a pool of as many
+   * connections as the maximum number of in-flight requests otherwise.
+   */
   HttpClientConnectionManager getHttpConnManager() {
-    return _httpConnManager;
+    if (_httpConnManager != null) {
+      return _httpConnManager;
+    }
+    if (_maxInFlightRequests <= 1) {
+      return new BasicHttpClientConnectionManager();
+    }
+    PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+    connManager.setMaxTotal(_maxInFlightRequests);
+    connManager.setDefaultMaxPerRoute(_maxInFlightRequests);
+    return connManager;
+  }
+
+  /**
+   * Set the maximum number of requests sent whose response has not been processed yet. Requests are sent
+   * asynchronously if it is greater than 1.
+   */
+  public B withMaxInFlightRequests(int maxInFlightRequests) {
+    Preconditions.checkArgument(maxInFlightRequests > 0, "The maximum number of in-flight requests must be positive");
+    _maxInFlightRequests = maxInFlightRequests;
+    return typedSelf();
+  }
+
+  public int getMaxInFlightRequests() {
+    return _maxInFlightRequests;
   }
 
 
@@ -13,6 +13,8 @@
 package gobblin.writer.partitioner;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.avro.Schema;
 import org.apache.avro.SchemaBuilder;
@@ -21,6 +23,7 @@ import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeFieldType;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -45,6 +48,14 @@ import gobblin.util.ForkOperatorUtils;
  * A prefix and a suffix can be added to the partition, e.g., the partition path can be
  * 'prefix/2015/11/05/suffix'.
  *
+ * Since every timestamp within the same time bucket (e.g., the same hour for {@link Granularity#HOUR}) maps to the
+ * same partition, the boundaries of the most recent bucket and a canonical partition {@link GenericRecord} for each
+ * recently seen bucket are cached, so records falling into a cached bucket get the same partition instance without
+ * any allocation. This can be disabled using {@link #WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED}. When a
+ * {@link #WRITER_PARTITION_PATTERN} is used, the bucket is derived from the finest time field in the pattern, and the
+ * cache is not used if the pattern contains seconds or milliseconds. Returned partitions must not be modified, and
+ * instances of this class are not thread-safe.
+ *
  * @author ziliu
  */
 public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner<D> {
@@ -56,11 +67,17 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   public static final String DEFAULT_WRITER_PARTITION_TIMEZONE = ConfigurationKeys.PST_TIMEZONE_NAME;
   public static final String WRITER_PARTITION_GRANULARITY = ConfigurationKeys.WRITER_PREFIX + ".partition.granularity";
   public static final Granularity DEFAULT_WRITER_PARTITION_GRANULARITY = Granularity.HOUR;
+  public static final String WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED =
+      ConfigurationKeys.WRITER_PREFIX + ".partition.time.bucket.cache.enabled";
+  public static final boolean DEFAULT_WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED = true;
 
   public static final String PARTITIONED_PATH = "partitionedPath";
   public static final String PREFIX = "prefix";
   public static final String SUFFIX = "suffix";
 
+  // Maximum number of canonical partitions kept for buckets other than the current one, e.g., for late data
+  private static final int MAX_CACHED_BUCKET_PARTITIONS = 128;
+
   public enum Granularity {
     YEAR,
     MONTH,
@@ -76,6 +93,21 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
   private final Optional<DateTimeFormatter> timestampToPathFormatter;
   private final Schema schema;
 
+  // Time field whose buckets map to a single partition, absent if partitions are not cached
+  private final Optional<DateTimeFieldType> bucketFieldType;
+  // Canonical partition of each recently seen bucket keyed by the start of the bucket, in access order
+  private final Map<Long, GenericRecord> bucketPartitions =
+      new LinkedHashMap<Long, GenericRecord>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, GenericRecord> eldest) {
+          return size() > MAX_CACHED_BUCKET_PARTITIONS;
+        }
+      };
+  // Boundaries [start, end) of the most recent bucket and its partition
+  private long currentBucketStart = Long.MAX_VALUE;
+  private long currentBucketEnd = Long.MIN_VALUE;
+  private GenericRecord currentBucketPartition;
+
   public TimeBasedWriterPartitioner(State state, int numBranches, int branchId) {
     this.writerPartitionPrefix = getWriterPartitionPrefix(state, numBranches, branchId);
     this.writerPartitionSuffix = getWriterPartitionSuffix(state, numBranches, branchId);
@@ -83,6 +115,7 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     this.timeZone = getTimeZone(state, numBranches, branchId);
     this.timestampToPathFormatter = getTimestampToPathFormatter(state, numBranches, branchId);
     this.schema = getSchema();
+    this.bucketFieldType = getBucketFieldType(state, numBranches, branchId);
   }
 
   private static String getWriterPartitionPrefix(State state, int numBranches, int branchId) {
@@ -118,6 +151,103 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     return DateTimeZone.forID(state.getProp(propName, DEFAULT_WRITER_PARTITION_TIMEZONE));
   }
 
+  private Optional<DateTimeFieldType> getBucketFieldType(State state, int numBranches, int branchId) {
+    String propName = ForkOperatorUtils.getPropertyNameForBranch(WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED,
+        numBranches, branchId);
+    if (!state.getPropAsBoolean(propName, DEFAULT_WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED)) {
+      return Optional.absent();
+    }
+
+    if (this.timestampToPathFormatter.isPresent()) {
+      String patternPropName =
+          ForkOperatorUtils.getPropertyNameForBranch(WRITER_PARTITION_PATTERN, numBranches, branchId);
+      Optional<Granularity> patternGranularity = getPatternGranularity(state.getProp(patternPropName));
+      return patternGranularity.isPresent() ? Optional.of(getDateTimeFieldType(patternGranularity.get()))
+          : Optional.<DateTimeFieldType> absent();
+    }
+    return Optional.of(getDateTimeFieldType(this.granularity));
+  }
+
+  /**
+   * Get the finest {@link Granularity} of the time fields in a {@link DateTimeFormat} pattern, i.e., the
+   * {@link Granularity} within which the formatted value of the pattern does not change. Fields that are constant
+   * within a day but not within a month or a year, such as the week of the year, are treated as {@link Granularity#DAY}
+   * and time zone fields are treated as {@link Granularity#HOUR} because of daylight saving time transitions.
+   *
+   * @return the {@link Granularity} of the pattern, or {@link Optional#absent()} if the pattern contains seconds,
+   *         milliseconds or any unknown field
+   */
+  @SuppressWarnings("fallthrough")
+  static Optional<Granularity> getPatternGranularity(String pattern) {
+    Granularity finest = Granularity.YEAR;
+    boolean inQuote = false;
+    for (char c : pattern.toCharArray()) {
+      if (c == '\'') {
+        inQuote = !inQuote;
+        continue;
+      }
+      if (inQuote || !Character.isLetter(c)) {
+        continue;
+      }
+
+      Granularity fieldGranularity;
+      switch (c) {
+        case 'G':
+        case 'C':
+        case 'Y':
+        case 'y':
+          fieldGranularity = Granularity.YEAR;
+          break;
+        case 'M':
+          fieldGranularity = Granularity.MONTH;
+          break;
+        case 'x':
+        case 'w':
+        case 'e':
+        case 'E':
+        case 'D':
+        case 'd':
+          fieldGranularity = Granularity.DAY;
+          break;
+        case 'a':
+        case 'K':
+        case 'h':
+        case 'H':
+        case 'k':
+        case 'z':
+        case 'Z':
+          fieldGranularity = Granularity.HOUR;
+          break;
+        case 'm':
+          fieldGranularity = Granularity.MINUTE;
+          break;
+        default:
+          return Optional.absent();
+      }
+      if (fieldGranularity.ordinal() > finest.ordinal()) {
+        finest = fieldGranularity;
+      }
+    }
+    return Optional.of(finest);
+  }
+
+  private static DateTimeFieldType getDateTimeFieldType(Granularity granularity) {
+    switch (granularity) {
+      case YEAR:
+        return DateTimeFieldType.year();
+      case MONTH:
+        return DateTimeFieldType.monthOfYear();
+      case DAY:
+        return DateTimeFieldType.dayOfMonth();
+      case HOUR:
+        return DateTimeFieldType.hourOfDay();
+      case MINUTE:
+        return DateTimeFieldType.minuteOfHour();
+      default:
+        throw new IllegalArgumentException("Unsupported granularity " + granularity);
+    }
+  }
+
   private Schema getSchema() {
     if (this.timestampToPathFormatter.isPresent()) {
       return getDateTimeFormatBasedSchema();
@@ -130,10 +260,32 @@ public abstract class TimeBasedWriterPartitioner<D> implements WriterPartitioner
     return this.schema;
   }
 
-  @SuppressWarnings("fallthrough")
   @Override
   public GenericRecord partitionForRecord(D record) {
     long timestamp = getRecordTimestamp(record);
+    if (!this.bucketFieldType.isPresent()) {
+      return computePartition(timestamp);
+    }
+
+    if (timestamp >= this.currentBucketStart && timestamp < this.currentBucketEnd) {
+      return this.currentBucketPartition;
+    }
+
+    DateTime bucketStart = new DateTime(timestamp, this.timeZone).property(this.bucketFieldType.get()).roundFloorCopy();
+    this.currentBucketStart = bucketStart.getMillis();
+    this.currentBucketEnd = bucketStart.property(this.bucketFieldType.get()).addToCopy(1).getMillis();
+
+    GenericRecord partition = this.bucketPartitions.get(this.currentBucketStart);
+    if (partition == null) {
+      partition = computePartition(timestamp);
+      this.bucketPartitions.put(this.currentBucketStart, partition);
+    }
+    this.currentBucketPartition = partition;
+    return partition;
+  }
+
+  @SuppressWarnings("fallthrough")
+  private GenericRecord computePartition(long timestamp) {
     GenericRecord partition = new GenericData.Record(this.schema);
     if (!Strings.isNullOrEmpty(this.writerPartitionPrefix)) {
       partition.put(PREFIX, this.writerPartitionPrefix);
@@ -21,6 +21,8 @@ import java.io.IOException;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import gobblin.source.workunit.WorkUnit;
+
 
 public class StateTest {
 
@@ -120,4 +122,92 @@ public class StateTest {
     Assert.assertEquals(state2.getPropAsDouble("double"), Double.MIN_VALUE);
     Assert.assertEquals(state2.getPropAsBoolean("boolean"), false);
   }
+
+  @Test
+  public void testCompactSerialization()
+      throws IOException {
+    State state = new State();
+    for (int i = 0; i < 100; i++) {
+      state.setProp("source.querybased.key" + i, "value" + i);
+    }
+    state.setProp("", "empty key");
+    state.setProp("unicode.\ud83d\ude00", "\u00e9\ud83d\ude01");
+    state.setProp("unicode.\ud83d\ude01", "");
+
+    byte[] legacy = serialize(state, State.SerializationFormat.LEGACY);
+    byte[] compact = serialize(state, State.SerializationFormat.COMPACT);
+    byte[] compressed = serialize(state, State.SerializationFormat.COMPACT_COMPRESSED);
+
+    Assert.assertTrue(compact.length < legacy.length);
+    Assert.assertTrue(compressed.length < compact.length);
+
+    // States serialized in any format can be read regardless of the format in use
+    for (byte[] bytes : new byte[][] { legacy, compact, compressed }) {
+      State deserialized = new State();
+      deserialized.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+      Assert.assertEquals(deserialized, state);
+    }
+  }
+
+  @Test
+  public void testCompactSerializationOfConsecutiveStates()
+      throws IOException {
+    State state1 = new State();
+    state1.setProp("key1", "value1");
+    State state2 = new State();
+    state2.setProp("key2", "value2");
+
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(byteStream);
+    state1.write(out, State.SerializationFormat.COMPACT_COMPRESSED);
+    state2.write(out, State.SerializationFormat.LEGACY);
+    new State().write(out, State.SerializationFormat.COMPACT);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(byteStream.toByteArray()));
+    State deserialized = new State();
+    deserialized.readFields(in);
+    Assert.assertEquals(deserialized, state1);
+    deserialized = new State();
+    deserialized.readFields(in);
+    Assert.assertEquals(deserialized, state2);
+    deserialized = new State();
+    deserialized.readFields(in);
+    Assert.assertTrue(deserialized.getPropertyNames().isEmpty());
+    Assert.assertEquals(in.read(), -1);
+  }
+
+  @Test
+  public void testConfiguredSerializationFormat()
+      throws IOException {
+    State compactState = new State();
+    compactState.setProp(ConfigurationKeys.STATE_SERIALIZATION_FORMAT_KEY, "compact_compressed");
+    compactState.setProp("key", "value");
+    Assert.assertEquals(compactState.getSerializationFormat(), State.SerializationFormat.COMPACT_COMPRESSED);
+
+    State legacyState = new State();
+    legacyState.setProp("key", "value");
+    Assert.assertEquals(legacyState.getSerializationFormat(), State.SerializationFormat.LEGACY);
+
+    // Each state is serialized in its own format, regardless of the format of other states
+    ByteArrayOutputStream compactBytes = new ByteArrayOutputStream();
+    compactState.write(new DataOutputStream(compactBytes));
+    Assert.assertEquals(compactBytes.toByteArray(),
+        serialize(compactState, State.SerializationFormat.COMPACT_COMPRESSED));
+    ByteArrayOutputStream legacyBytes = new ByteArrayOutputStream();
+    legacyState.write(new DataOutputStream(legacyBytes));
+    Assert.assertEquals(legacyBytes.toByteArray(), serialize(legacyState, State.SerializationFormat.LEGACY));
+
+    // A work unit state inherits the format of its job
+    State jobState = new State();
+    jobState.setProp(ConfigurationKeys.STATE_SERIALIZATION_FORMAT_KEY, "COMPACT");
+    WorkUnitState workUnitState = new WorkUnitState(WorkUnit.createEmpty(), jobState);
+    Assert.assertEquals(workUnitState.getSerializationFormat(), State.SerializationFormat.COMPACT);
+  }
+
+  private static byte[] serialize(State state, State.SerializationFormat format)
+      throws IOException {
+    ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+    state.write(new DataOutputStream(byteStream), format);
+    return byteStream.toByteArray();
+  }
 }
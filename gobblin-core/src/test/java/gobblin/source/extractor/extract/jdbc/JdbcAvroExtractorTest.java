@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.jdbc;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import gobblin.configuration.WorkUnitState;
+import gobblin.source.extractor.DataRecordException;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.WorkUnit;
+
+
+/**
+ * Unit tests for {@link JdbcAvroExtractor}, reading from an in-memory Derby database.
+ */
+@Test(groups = { "gobblin.source.extractor.extract.jdbc" })
+public class JdbcAvroExtractorTest {
+
+  private static final String DB_URL = "jdbc:derby:memory:JdbcAvroExtractorTest";
+
+  private Connection connection;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+    this.connection = DriverManager.getConnection(DB_URL + ";create=true");
+    try (Statement statement = this.connection.createStatement()) {
+      statement.execute("CREATE TABLE test (id INTEGER NOT NULL, name VARCHAR(32), amount BIGINT, "
+          + "price DECIMAL(10, 2), ratio DOUBLE, active BOOLEAN, created TIMESTAMP, data VARCHAR(16) FOR BIT DATA)");
+      statement.execute("INSERT INTO test VALUES (1, 'name_1', 10000000000, 12.5, 0.25, true, "
+          + "'1970-01-02 00:00:00', X'0102')");
+      statement.execute("INSERT INTO test VALUES (2, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+    }
+  }
+
+  @Test
+  public void testReadRecords() throws Exception {
+    WorkUnitState workUnitState =
+        new WorkUnitState(WorkUnit.create(new Extract(Extract.TableType.SNAPSHOT_ONLY, "namespace", "test")));
+    workUnitState.setId("id");
+    JdbcAvroExtractor extractor = new JdbcAvroExtractor(new MysqlExtractor(workUnitState) {
+      @Override
+      protected ResultSet getDataResultSet() throws DataRecordException {
+        try {
+          return JdbcAvroExtractorTest.this.connection.createStatement().executeQuery(
+              "SELECT id, name, amount, price, ratio, active, created, data FROM test ORDER BY id");
+        } catch (SQLException e) {
+          throw new DataRecordException("Failed to query test table", e);
+        }
+      }
+    }, workUnitState);
+
+    Schema schema = extractor.getSchema();
+    Assert.assertEquals(schema.getName(), "test");
+    Assert.assertEquals(schema.getNamespace(), "namespace");
+    Assert.assertEquals(schema.getField("ID").schema().getType(), Schema.Type.INT);
+    Assert.assertEquals(getNonNullType(schema.getField("NAME").schema()), Schema.Type.STRING);
+    Assert.assertEquals(getNonNullType(schema.getField("AMOUNT").schema()), Schema.Type.LONG);
+    Assert.assertEquals(getNonNullType(schema.getField("PRICE").schema()), Schema.Type.DOUBLE);
+    Assert.assertEquals(getNonNullType(schema.getField("ACTIVE").schema()), Schema.Type.BOOLEAN);
+    Assert.assertEquals(getNonNullType(schema.getField("CREATED").schema()), Schema.Type.LONG);
+    Assert.assertEquals(getNonNullType(schema.getField("DATA").schema()), Schema.Type.BYTES);
+
+    GenericRecord record = extractor.readRecord(null);
+    Assert.assertEquals(record.get("ID"), 1);
+    Assert.assertEquals(record.get("NAME"), "name_1");
+    Assert.assertEquals(record.get("AMOUNT"), 10000000000L);
+    Assert.assertEquals(record.get("PRICE"), 12.5);
+    Assert.assertEquals(record.get("RATIO"), 0.25);
+    Assert.assertEquals(record.get("ACTIVE"), true);
+    // Timestamps are interpreted in UTC by default
+    Assert.assertEquals(record.get("CREATED"), 24L * 3600 * 1000);
+    Assert.assertEquals(record.get("DATA"), ByteBuffer.wrap(new byte[] { 1, 2 }));
+
+    // The record passed for reuse is filled in place
+    GenericRecord reused = extractor.readRecord(record);
+    Assert.assertSame(reused, record);
+    Assert.assertEquals(reused.get("ID"), 2);
+    for (String column : new String[] { "NAME", "AMOUNT", "PRICE", "RATIO", "ACTIVE", "CREATED", "DATA" }) {
+      Assert.assertNull(reused.get(column));
+    }
+
+    Assert.assertNull(extractor.readRecord(null));
+    extractor.close();
+  }
+
+  @AfterClass
+  public void tearDown() throws SQLException {
+    this.connection.close();
+  }
+
+  private static Schema.Type getNonNullType(Schema schema) {
+    Assert.assertEquals(schema.getType(), Schema.Type.UNION);
+    return schema.getTypes().get(1).getType();
+  }
+}
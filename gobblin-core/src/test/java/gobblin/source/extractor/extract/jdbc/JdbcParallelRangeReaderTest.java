@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonElement;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.WorkUnitState;
+import gobblin.source.extractor.DataRecordException;
+import gobblin.source.extractor.watermark.Predicate;
+import gobblin.source.extractor.watermark.WatermarkPredicate;
+import gobblin.source.extractor.watermark.WatermarkType;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.WorkUnit;
+
+
+/**
+ * Unit tests for reading the watermark range of a {@link JdbcExtractor} with a {@link JdbcParallelRangeReader},
+ * using an in-memory Derby database.
+ */
+@Test(groups = { "gobblin.source.extractor.extract.jdbc" })
+public class JdbcParallelRangeReaderTest {
+
+  private static final String DB_URL = "jdbc:derby:memory:JdbcParallelRangeReaderTest";
+  private static final int NUM_ROWS = 100;
+  private static final String SUB_RANGE_FAILURE = "Sub-range query failed";
+
+  private Connection connection;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+    this.connection = DriverManager.getConnection(DB_URL + ";create=true");
+    try (Statement statement = this.connection.createStatement()) {
+      statement.execute("CREATE TABLE test (id INTEGER NOT NULL, name VARCHAR(32))");
+    }
+    try (PreparedStatement statement = this.connection.prepareStatement("INSERT INTO test VALUES (?, ?)")) {
+      for (int i = 1; i <= NUM_ROWS; i++) {
+        statement.setInt(1, i);
+        statement.setString(2, "name_" + i);
+        statement.executeUpdate();
+      }
+    }
+  }
+
+  @Test
+  public void testParallelReads() throws Exception {
+    JdbcExtractor extractor = createExtractor(4);
+    WatermarkPredicate watermark = new WatermarkPredicate("id", WatermarkType.SIMPLE);
+    List<Predicate> predicates = Lists.newArrayList(
+        watermark.getPredicate(extractor, 1, ">=", Predicate.PredicateType.LWM),
+        watermark.getPredicate(extractor, 90, "<=", Predicate.PredicateType.HWM));
+
+    // Every row of the watermark range is read exactly once
+    Assert.assertEquals(readIds(extractor, predicates), range(1, 90));
+  }
+
+  @Test
+  public void testUnboundedRangeIsReadSequentially() throws Exception {
+    JdbcExtractor extractor = createExtractor(4);
+    WatermarkPredicate watermark = new WatermarkPredicate("id", WatermarkType.SIMPLE);
+    List<Predicate> predicates =
+        Lists.newArrayList(watermark.getPredicate(extractor, 50, "<=", Predicate.PredicateType.HWM));
+
+    Assert.assertEquals(readIds(extractor, predicates), range(1, 50));
+  }
+
+  @Test
+  public void testFailedSubRangeFailsTheRead() throws Exception {
+    // The data query of the second sub-range to be read fails
+    JdbcExtractor extractor = createExtractor(4, 2);
+    WatermarkPredicate watermark = new WatermarkPredicate("id", WatermarkType.SIMPLE);
+    List<Predicate> predicates = Lists.newArrayList(
+        watermark.getPredicate(extractor, 1, ">=", Predicate.PredicateType.LWM),
+        watermark.getPredicate(extractor, 90, "<=", Predicate.PredicateType.HWM));
+
+    // The records of the other sub-ranges may be returned, but the read must fail instead of ending early
+    List<Integer> ids = Lists.newArrayList();
+    try {
+      readIds(extractor, predicates, ids);
+      Assert.fail("Reading the watermark range should fail when a sub-range fails");
+    } catch (DataRecordException e) {
+      Assert.assertTrue(Throwables.getRootCause(e) instanceof SQLException);
+      Assert.assertEquals(Throwables.getRootCause(e).getMessage(), SUB_RANGE_FAILURE);
+    }
+    Assert.assertTrue(ids.size() < 90);
+  }
+
+  @AfterClass
+  public void tearDown() throws SQLException {
+    this.connection.close();
+  }
+
+  private static JdbcExtractor createExtractor(int parallelReads) {
+    return createExtractor(parallelReads, 0);
+  }
+
+  /**
+   * @param failingQuery the number of the data query of a sub-range that fails, or 0 if none fails
+   */
+  private static JdbcExtractor createExtractor(int parallelReads, final int failingQuery) {
+    WorkUnit workUnit = WorkUnit.create(new Extract(Extract.TableType.SNAPSHOT_ONLY, "namespace", "test"));
+    workUnit.setProp(ConfigurationKeys.SOURCE_CONN_DRIVER, "org.apache.derby.jdbc.EmbeddedDriver");
+    workUnit.setProp(ConfigurationKeys.EXTRACT_DELTA_FIELDS_KEY, "id");
+    workUnit.setProp(ConfigurationKeys.SOURCE_QUERYBASED_WATERMARK_TYPE, "simple");
+    workUnit.setProp(ConfigurationKeys.SOURCE_QUERYBASED_FETCH_SIZE, 7);
+    workUnit.setProp(ConfigurationKeys.SOURCE_QUERYBASED_JDBC_PARALLEL_READS, parallelReads);
+    workUnit.setProp(ConfigurationKeys.SOURCE_QUERYBASED_JDBC_PARALLEL_READS_BUFFER_SIZE, 2);
+    WorkUnitState workUnitState = new WorkUnitState(workUnit);
+    workUnitState.setId("id");
+
+    final AtomicInteger dataQueries = new AtomicInteger();
+    JdbcExtractor extractor = new SqlServerExtractor(workUnitState) {
+      @Override
+      public String getConnectionUrl() {
+        return DB_URL;
+      }
+
+      @Override
+      ResultSet executeDataQuery(Connection connection, List<Predicate> predicateList)
+          throws DataRecordException, SQLException {
+        if (dataQueries.incrementAndGet() == failingQuery) {
+          throw new SQLException(SUB_RANGE_FAILURE);
+        }
+        return super.executeDataQuery(connection, predicateList);
+      }
+    };
+    extractor.setExtractSql(
+        "SELECT id, name FROM test WHERE " + ConfigurationKeys.DEFAULT_SOURCE_QUERYBASED_WATERMARK_PREDICATE_SYMBOL);
+    extractor.setSampleRecordCount(-1);
+    extractor.setHeaderRecord(Lists.newArrayList("id", "name"));
+    return extractor;
+  }
+
+  private static List<Integer> readIds(JdbcExtractor extractor, List<Predicate> predicates) throws Exception {
+    List<Integer> ids = Lists.newArrayList();
+    readIds(extractor, predicates, ids);
+    Collections.sort(ids);
+    return ids;
+  }
+
+  private static void readIds(JdbcExtractor extractor, List<Predicate> predicates, List<Integer> ids)
+      throws Exception {
+    try {
+      Iterator<JsonElement> records;
+      while ((records = extractor.getRecordSet(null, null, null, predicates)).hasNext()) {
+        while (records.hasNext()) {
+          ids.add(records.next().getAsJsonObject().get("id").getAsInt());
+        }
+      }
+    } finally {
+      extractor.closeConnection();
+    }
+  }
+
+  private static List<Integer> range(int start, int end) {
+    List<Integer> values = Lists.newArrayList();
+    for (int i = start; i <= end; i++) {
+      values.add(i);
+    }
+    return values;
+  }
+}
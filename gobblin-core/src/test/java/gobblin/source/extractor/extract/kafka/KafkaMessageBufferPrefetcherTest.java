@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.source.extractor.extract.kafka;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import kafka.message.Message;
+import kafka.message.MessageAndOffset;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+
+/**
+ * Unit tests for {@link KafkaMessageBufferPrefetcher}.
+ */
+@Test(groups = { "gobblin.source.extractor.extract.kafka" })
+public class KafkaMessageBufferPrefetcherTest {
+
+  private static final String TOPIC = "testTopic";
+  private static final int MESSAGES_PER_FETCH = 3;
+
+  @Test
+  public void testTake() throws Exception {
+    List<KafkaPartition> partitions = createPartitions(2);
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+
+    // Partition 0 has 7 messages to pull, partition 1 has 2
+    try (KafkaMessageBufferPrefetcher prefetcher = new KafkaMessageBufferPrefetcher(kafkaWrapper, TOPIC, partitions,
+        new MultiLongWatermark(Lists.newArrayList(0L, 10L)), new MultiLongWatermark(Lists.newArrayList(7L, 12L)),
+        2, 1024 * 1024)) {
+      Assert.assertEquals(collectOffsets(prefetcher, 0), Lists.newArrayList(0L, 1L, 2L, 3L, 4L, 5L, 6L));
+      Assert.assertEquals(collectOffsets(prefetcher, 1), Lists.newArrayList(10L, 11L));
+    }
+  }
+
+  @Test
+  public void testSkipPartially() throws Exception {
+    List<KafkaPartition> partitions = createPartitions(3);
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+
+    // Allow less bytes than a single message buffer holds, which should still make progress
+    try (KafkaMessageBufferPrefetcher prefetcher = new KafkaMessageBufferPrefetcher(kafkaWrapper, TOPIC, partitions,
+        new MultiLongWatermark(Lists.newArrayList(0L, 0L, 0L)), new MultiLongWatermark(Lists.newArrayList(9L, 9L, 2L)),
+        1, 1)) {
+      // Only consume the first message buffer of partition 0, and skip partition 1 entirely
+      Assert.assertNotNull(prefetcher.take(0));
+      Assert.assertEquals(collectOffsets(prefetcher, 2), Lists.newArrayList(0L, 1L));
+    }
+  }
+
+  @Test
+  public void testStopFetchingPassedPartition() throws Exception {
+    List<KafkaPartition> partitions = createPartitions(2);
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+
+    // Partition 0 has 3000 messages to pull, which would take 1000 fetches
+    try (KafkaMessageBufferPrefetcher prefetcher = new KafkaMessageBufferPrefetcher(kafkaWrapper, TOPIC, partitions,
+        new MultiLongWatermark(Lists.newArrayList(0L, 0L)), new MultiLongWatermark(Lists.newArrayList(3000L, 2L)),
+        1, 1024 * 1024)) {
+      Assert.assertNotNull(prefetcher.take(0));
+      Assert.assertEquals(collectOffsets(prefetcher, 1), Lists.newArrayList(0L, 1L));
+    }
+
+    // Besides the taken message buffer, at most one queued and one being put were fetched, plus one in flight
+    Mockito.verify(kafkaWrapper, Mockito.atMost(4)).fetchNextMessageBuffer(Mockito.eq(partitions.get(0)),
+        Mockito.anyLong(), Mockito.anyLong());
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testFetchFailure() throws Exception {
+    List<KafkaPartition> partitions = createPartitions(1);
+    KafkaWrapper kafkaWrapper = Mockito.mock(KafkaWrapper.class);
+    Mockito.when(kafkaWrapper.fetchNextMessageBuffer(Mockito.any(KafkaPartition.class), Mockito.anyLong(),
+        Mockito.anyLong())).thenThrow(new RuntimeException("Fetch failure"));
+
+    try (KafkaMessageBufferPrefetcher prefetcher = new KafkaMessageBufferPrefetcher(kafkaWrapper, TOPIC, partitions,
+        new MultiLongWatermark(Lists.newArrayList(0L)), new MultiLongWatermark(Lists.newArrayList(5L)), 1, 1024)) {
+      prefetcher.take(0);
+    }
+  }
+
+  private static List<KafkaPartition> createPartitions(int numPartitions) {
+    List<KafkaPartition> partitions = Lists.newArrayList();
+    for (int i = 0; i < numPartitions; i++) {
+      partitions.add(new KafkaPartition.Builder().withTopicName(TOPIC).withId(i).build());
+    }
+    return partitions;
+  }
+
+  /**
+   * Create a mock {@link KafkaWrapper} returning at most {@link #MESSAGES_PER_FETCH} messages per fetch.
+   */
+  private static KafkaWrapper createKafkaWrapper() {
+    KafkaWrapper kafkaWrapper = Mockito.mock(KafkaWrapper.class);
+    Mockito.when(kafkaWrapper.fetchNextMessageBuffer(Mockito.any(KafkaPartition.class), Mockito.anyLong(),
+        Mockito.anyLong())).thenAnswer(new Answer<Iterator<MessageAndOffset>>() {
+          @Override
+          public Iterator<MessageAndOffset> answer(InvocationOnMock invocation) {
+            long nextOffset = (Long) invocation.getArguments()[1];
+            long maxOffset = (Long) invocation.getArguments()[2];
+            List<MessageAndOffset> messages = Lists.newArrayList();
+            for (long offset = nextOffset; offset < Math.min(maxOffset, nextOffset + MESSAGES_PER_FETCH); offset++) {
+              messages.add(new MessageAndOffset(new Message(new byte[] { (byte) offset }), offset));
+            }
+            return messages.iterator();
+          }
+        });
+    return kafkaWrapper;
+  }
+
+  private static List<Long> collectOffsets(KafkaMessageBufferPrefetcher prefetcher, int partitionIdx)
+      throws Exception {
+    List<Long> offsets = Lists.newArrayList();
+    Iterator<MessageAndOffset> messages;
+    while ((messages = prefetcher.take(partitionIdx)) != null) {
+      while (messages.hasNext()) {
+        offsets.add(messages.next().offset());
+      }
+    }
+    return offsets;
+  }
+}
@@ -13,10 +13,16 @@
 package gobblin.source.extractor.extract.kafka;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -94,6 +100,65 @@ public class KafkaSourceTest {
     Assert.assertNull(topicSpecificStateMap.get(topic3.getName()));
   }
 
+  @Test
+  public void testOffsetsFetchedInBatchesWithFallback() throws Exception {
+    String topicName = "testTopic";
+    final KafkaPartition partition0 = createDummyKafkaPartition(topicName, 0, "leader1", 1);
+    final KafkaPartition partition1 = createDummyKafkaPartition(topicName, 1, "leader1", 1);
+    final KafkaPartition partition2 = createDummyKafkaPartition(topicName, 2, "leader2", 2);
+    KafkaTopic topic = new KafkaTopic(topicName, Lists.newArrayList(partition0, partition1, partition2));
+
+    // The batch of leader1 misses partition 1, and the batch of leader2 fails
+    KafkaWrapper kafkaWrapper = Mockito.mock(KafkaWrapper.class);
+    Answer<Map<KafkaPartition, Long>> batchAnswer = new Answer<Map<KafkaPartition, Long>>() {
+      @Override
+      public Map<KafkaPartition, Long> answer(InvocationOnMock invocation) {
+        Collection<?> partitions = (Collection<?>) invocation.getArguments()[0];
+        if (partitions.contains(partition2)) {
+          throw new RuntimeException("Leader unavailable");
+        }
+        Map<KafkaPartition, Long> offsets = Maps.newHashMap();
+        offsets.put(partition0, 0L);
+        return offsets;
+      }
+    };
+    Mockito.when(kafkaWrapper.getEarliestOffsets(Mockito.anyCollectionOf(KafkaPartition.class)))
+        .thenAnswer(batchAnswer);
+    Mockito.when(kafkaWrapper.getLatestOffsets(Mockito.anyCollectionOf(KafkaPartition.class)))
+        .thenAnswer(batchAnswer);
+    Mockito.when(kafkaWrapper.getEarliestOffset(partition1)).thenReturn(1L);
+    Mockito.when(kafkaWrapper.getLatestOffset(partition1)).thenReturn(11L);
+    Mockito.when(kafkaWrapper.getEarliestOffset(partition2)).thenReturn(2L);
+    Mockito.when(kafkaWrapper.getLatestOffset(partition2))
+        .thenThrow(new KafkaOffsetRetrievalFailureException("Leader unavailable"));
+
+    KafkaDummySource dummyKafkaSource = new KafkaDummySource();
+    dummyKafkaSource.setKafkaWrapper(kafkaWrapper);
+    dummyKafkaSource.fetchOffsetsInBatches(ImmutableList.of(topic), 2);
+
+    // Offsets fetched in a batch are not fetched again
+    Assert.assertEquals(dummyKafkaSource.getEarliestOffset(partition0), 0L);
+    Assert.assertEquals(dummyKafkaSource.getLatestOffset(partition0), 0L);
+    Mockito.verify(kafkaWrapper, Mockito.never()).getEarliestOffset(partition0);
+    Mockito.verify(kafkaWrapper, Mockito.never()).getLatestOffset(partition0);
+
+    // Offsets of partitions missing from a batch, or whose batch failed, are fetched one partition at a time
+    Assert.assertEquals(dummyKafkaSource.getEarliestOffset(partition1), 1L);
+    Assert.assertEquals(dummyKafkaSource.getLatestOffset(partition1), 11L);
+    Assert.assertEquals(dummyKafkaSource.getEarliestOffset(partition2), 2L);
+    try {
+      dummyKafkaSource.getLatestOffset(partition2);
+      Assert.fail("Expected the offset retrieval to fail");
+    } catch (KafkaOffsetRetrievalFailureException e) {
+      // Expected
+    }
+  }
+
+  private KafkaPartition createDummyKafkaPartition(String topicName, int id, String leaderHost, int leaderId) {
+    return new KafkaPartition.Builder().withTopicName(topicName).withId(id).withLeaderHostAndPort(leaderHost, 9092)
+        .withLeaderId(leaderId).build();
+  }
+
   private KafkaTopic createDummyKafkaTopic(String topicName) {
     KafkaPartition partition = new KafkaPartition.Builder().withTopicName(topicName).withId(1)
         .withLeaderHostAndPort("testHost", 1).withLeaderId(1).build();
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package gobblin.source.extractor.extract.kafka;
+
+import java.util.Map;
+
+import kafka.javaapi.OffsetRequest;
+import kafka.javaapi.OffsetResponse;
+import kafka.javaapi.consumer.SimpleConsumer;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+
+
+/**
+ * Unit tests for fetching the offsets of many partitions at once with {@link KafkaWrapper}.
+ */
+@Test(groups = { "gobblin.source.extractor.extract.kafka" })
+public class KafkaWrapperTest {
+
+  private static final String TOPIC = "testTopic";
+  private static final String LEADER_1 = "leader1:9092";
+  private static final String LEADER_2 = "leader2:9092";
+
+  private final KafkaPartition partition0 = createPartition(0, "leader1", 1);
+  private final KafkaPartition partition1 = createPartition(1, "leader1", 1);
+  private final KafkaPartition partition2 = createPartition(2, "leader2", 2);
+
+  @Test
+  public void testOffsetsFetchedOncePerLeader() throws Exception {
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+    SimpleConsumer consumer1 = mockConsumer(kafkaWrapper, LEADER_1, mockResponse(ImmutableMap.of(0, 10L, 1, 11L)));
+    SimpleConsumer consumer2 = mockConsumer(kafkaWrapper, LEADER_2, mockResponse(ImmutableMap.of(2, 12L)));
+
+    Map<KafkaPartition, Long> offsets =
+        kafkaWrapper.getLatestOffsets(ImmutableList.of(this.partition0, this.partition1, this.partition2));
+
+    Assert.assertEquals(offsets, ImmutableMap.of(this.partition0, 10L, this.partition1, 11L, this.partition2, 12L));
+    Mockito.verify(consumer1, Mockito.times(1)).getOffsetsBefore(Mockito.any(OffsetRequest.class));
+    Mockito.verify(consumer2, Mockito.times(1)).getOffsetsBefore(Mockito.any(OffsetRequest.class));
+  }
+
+  @Test
+  public void testFailedBatchOnlyMissesPartitionsOfItsLeader() throws Exception {
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+    mockConsumer(kafkaWrapper, LEADER_1, mockResponse(ImmutableMap.of(0, 10L, 1, 11L)));
+    SimpleConsumer consumer2 = Mockito.mock(SimpleConsumer.class);
+    Mockito.when(consumer2.getOffsetsBefore(Mockito.any(OffsetRequest.class)))
+        .thenThrow(new RuntimeException("Leader unavailable"));
+    kafkaWrapper.setSimpleConsumer(LEADER_2, consumer2);
+
+    Map<KafkaPartition, Long> offsets =
+        kafkaWrapper.getEarliestOffsets(ImmutableList.of(this.partition0, this.partition1, this.partition2));
+
+    Assert.assertEquals(offsets, ImmutableMap.of(this.partition0, 10L, this.partition1, 11L));
+    Mockito.verify(consumer2, Mockito.atLeast(2)).getOffsetsBefore(Mockito.any(OffsetRequest.class));
+  }
+
+  @Test
+  public void testPartitionsMissingFromResponseAreRetried() throws Exception {
+    KafkaWrapper kafkaWrapper = createKafkaWrapper();
+
+    // Partition 1 is missing from the first response and has an error in the second one
+    OffsetResponse firstResponse = mockResponse(ImmutableMap.of(0, 10L));
+    OffsetResponse secondResponse = mockResponse(ImmutableMap.of(1, 11L));
+    Mockito.when(secondResponse.errorCode(TOPIC, 1)).thenReturn((short) 1);
+    OffsetResponse thirdResponse = mockResponse(ImmutableMap.of(1, 11L));
+    SimpleConsumer consumer = Mockito.mock(SimpleConsumer.class);
+    Mockito.when(consumer.getOffsetsBefore(Mockito.any(OffsetRequest.class)))
+        .thenReturn(firstResponse, secondResponse, thirdResponse);
+    kafkaWrapper.setSimpleConsumer(LEADER_1, consumer);
+
+    Map<KafkaPartition, Long> offsets =
+        kafkaWrapper.getLatestOffsets(ImmutableList.of(this.partition0, this.partition1));
+
+    Assert.assertEquals(offsets, ImmutableMap.of(this.partition0, 10L, this.partition1, 11L));
+    Mockito.verify(consumer, Mockito.times(3)).getOffsetsBefore(Mockito.any(OffsetRequest.class));
+  }
+
+  private static KafkaWrapper createKafkaWrapper() {
+    State state = new State();
+    state.setProp(ConfigurationKeys.KAFKA_BROKERS, LEADER_1);
+    return KafkaWrapper.create(state);
+  }
+
+  private static KafkaPartition createPartition(int id, String leaderHost, int leaderId) {
+    return new KafkaPartition.Builder().withTopicName(TOPIC).withId(id).withLeaderHostAndPort(leaderHost, 9092)
+        .withLeaderId(leaderId).build();
+  }
+
+  private static SimpleConsumer mockConsumer(KafkaWrapper kafkaWrapper, String broker, OffsetResponse response) {
+    SimpleConsumer consumer = Mockito.mock(SimpleConsumer.class);
+    Mockito.when(consumer.getOffsetsBefore(Mockito.any(OffsetRequest.class))).thenReturn(response);
+    kafkaWrapper.setSimpleConsumer(broker, consumer);
+    return consumer;
+  }
+
+  /**
+   * Create an {@link OffsetResponse} with the given offsets by partition id, and no offset for other partitions.
+   */
+  private static OffsetResponse mockResponse(Map<Integer, Long> offsets) {
+    OffsetResponse response = Mockito.mock(OffsetResponse.class);
+    Mockito.when(response.offsets(Mockito.anyString(), Mockito.anyInt())).thenReturn(new long[0]);
+    for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+      Mockito.when(response.offsets(TOPIC, entry.getKey())).thenReturn(new long[] { entry.getValue() });
+    }
+    return response;
+  }
+}
@@ -14,14 +14,19 @@ package gobblin.writer;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
+import gobblin.util.FinalState;
 import gobblin.writer.test.TestPartitionAwareWriterBuilder;
 import gobblin.writer.test.TestPartitioner;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Lists;
+
 
 /**
  * Test {@link gobblin.writer.PartitionedDataWriter}
@@ -101,4 +106,89 @@ public class PartitionedWriterTest {
 
   }
 
+  @Test
+  public void testMaxOpenWriters() throws IOException {
+
+    State state = new State();
+    state.setProp(ConfigurationKeys.WRITER_PARTITIONER_CLASS, TestPartitioner.class.getCanonicalName());
+    state.setProp(ConfigurationKeys.WRITER_PARTITIONED_MAX_OPEN_WRITERS, 1);
+
+    TestPartitionAwareWriterBuilder builder = new TestPartitionAwareWriterBuilder();
+
+    DataWriter<String> writer = new PartitionedDataWriter<String, String>(builder, state);
+
+    writer.write("abc");
+    Assert.assertEquals(builder.actions.size(), 2);
+    builder.actions.clear();
+
+    // Opening a writer for partition "b" evicts the writer of partition "a", which is closed but not committed
+    writer.write("bcd");
+    Assert.assertEquals(builder.actions.size(), 3);
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.BUILD, "b");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.WRITE, "b");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLOSE, "a");
+
+    // Partition "a" is rolled to a new writer
+    writer.write("abc");
+    writer.write("abc");
+    Assert.assertEquals(builder.actions.size(), 4);
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.BUILD, "a");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.WRITE, "a");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLOSE, "b");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.WRITE, "a");
+
+    // Records and bytes written by evicted writers are still accounted for
+    Assert.assertEquals(writer.recordsWritten(), 4);
+    Assert.assertEquals(writer.bytesWritten(), 4);
+
+    // Evicted writers are committed along with the open writer, which is the only one left to close
+    writer.commit();
+    writer.close();
+    Assert.assertEquals(builder.actions.size(), 4);
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.COMMIT, "a");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.COMMIT, "b");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.COMMIT, "a");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLOSE, "a");
+
+    // The final state of each writer a partition is rolled to is kept under its own key
+    State finalState = ((FinalState) writer).getFinalState();
+    List<Long> recordsWrittenByWriter = Lists.newArrayList();
+    for (String key : finalState.getPropertyNames()) {
+      if (key.startsWith("RecordsWritten_")) {
+        recordsWrittenByWriter.add(finalState.getPropAsLong(key));
+      }
+    }
+    Collections.sort(recordsWrittenByWriter);
+    Assert.assertEquals(recordsWrittenByWriter, Lists.newArrayList(1L, 1L, 2L));
+  }
+
+  @Test
+  public void testEvictedWritersNotCommittedOnFailure() throws IOException {
+
+    State state = new State();
+    state.setProp(ConfigurationKeys.WRITER_PARTITIONER_CLASS, TestPartitioner.class.getCanonicalName());
+    state.setProp(ConfigurationKeys.WRITER_PARTITIONED_MAX_OPEN_WRITERS, 1);
+
+    TestPartitionAwareWriterBuilder builder = new TestPartitionAwareWriterBuilder();
+
+    DataWriter<String> writer = new PartitionedDataWriter<String, String>(builder, state);
+
+    writer.write("abc");
+    writer.write("bcd");
+    builder.actions.clear();
+
+    // A failed task closes and cleans up its writers without committing them
+    writer.close();
+    writer.cleanup();
+    Assert.assertEquals(builder.actions.size(), 3);
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLOSE, "b");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLEANUP, "a");
+    assertAction(builder.actions.poll(), TestPartitionAwareWriterBuilder.Actions.CLEANUP, "b");
+  }
+
+  private static void assertAction(TestPartitionAwareWriterBuilder.Action action,
+      TestPartitionAwareWriterBuilder.Actions type, String partition) {
+    Assert.assertEquals(action.getType(), type);
+    Assert.assertEquals(action.getPartition(), partition);
+  }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.http;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import gobblin.configuration.State;
+import gobblin.writer.Destination;
+
+
+/**
+ * Unit tests for sending requests asynchronously with an {@link AbstractHttpWriter}.
+ */
+@Test(groups = { "gobblin.writer.http" })
+public class AbstractHttpWriterTest {
+
+  @Test
+  public void testResponsesProcessedInOrder() throws Exception {
+    TestHttpWriter writer = new TestHttpWriter(4, true);
+    for (int i = 0; i < 20; i++) {
+      writer.write(i);
+      Assert.assertTrue(writer.getNumInFlightRequests() <= 4);
+    }
+    writer.commit();
+    Assert.assertEquals(writer.getNumInFlightRequests(), 0);
+    Assert.assertEquals(writer.processed, range(20));
+    Assert.assertTrue(writer.maxConcurrentRequests.get() <= 4);
+    writer.close();
+  }
+
+  @Test
+  public void testResponsesProcessedOnCompletion() throws Exception {
+    TestHttpWriter writer = new TestHttpWriter(4, false);
+    for (int i = 0; i < 20; i++) {
+      writer.write(i);
+    }
+    writer.close();
+    Assert.assertEquals(writer.getNumInFlightRequests(), 0);
+    Collections.sort(writer.processed);
+    Assert.assertEquals(writer.processed, range(20));
+  }
+
+  @Test
+  public void testSynchronousRequests() throws Exception {
+    TestHttpWriter writer = new TestHttpWriter(1, true);
+    for (int i = 0; i < 5; i++) {
+      writer.write(i);
+      Assert.assertEquals(writer.processed.size(), i + 1);
+    }
+    writer.close();
+    Assert.assertEquals(writer.processed, range(5));
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testFailedRequest() throws Exception {
+    TestHttpWriter writer = new TestHttpWriter(2, true);
+    writer.failedRecord = 1;
+    try {
+      for (int i = 0; i < 5; i++) {
+        writer.write(i);
+      }
+      writer.commit();
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testMaxInFlightRequestsFromBuilder() throws Exception {
+    State state = new State();
+    state.setProp(AbstractHttpWriterBuilder.CONF_PREFIX + AbstractHttpWriterBuilder.MAX_IN_FLIGHT_REQUESTS_KEY, 3);
+    TestHttpWriterBuilder builder = new TestHttpWriterBuilder().writeTo(Destination.of(Destination.DestinationType.HDFS,
+        state));
+    Assert.assertEquals(builder.getMaxInFlightRequests(), 3);
+
+    TestHttpWriter writer = builder.build();
+    for (int i = 0; i < 20; i++) {
+      writer.write(i);
+      Assert.assertTrue(writer.getNumInFlightRequests() <= 3);
+    }
+    writer.close();
+    Assert.assertEquals(writer.getNumInFlightRequests(), 0);
+    Assert.assertEquals(writer.processed, range(20));
+    Assert.assertTrue(writer.maxConcurrentRequests.get() > 1);
+    Assert.assertTrue(writer.maxConcurrentRequests.get() <= 3);
+  }
+
+  private static List<Integer> range(int end) {
+    List<Integer> values = Lists.newArrayList();
+    for (int i = 0; i < end; i++) {
+      values.add(i);
+    }
+    return values;
+  }
+
+  /**
+   * Sends requests whose responses take longer for lower records, and records the order responses are processed in.
+   */
+  private static class TestHttpWriter extends AbstractHttpWriter<Integer> {
+    private final boolean responseOrderRequired;
+    private final List<Integer> processed = Lists.newArrayList();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private volatile int failedRecord = -1;
+
+    TestHttpWriter(int maxInFlightRequests, boolean responseOrderRequired) {
+      super(new State(), Optional.<org.slf4j.Logger> absent(), HttpClientBuilder.create(),
+          new BasicHttpClientConnectionManager(), maxInFlightRequests);
+      this.responseOrderRequired = responseOrderRequired;
+    }
+
+    TestHttpWriter(TestHttpWriterBuilder builder) {
+      super(builder);
+      this.responseOrderRequired = true;
+    }
+
+    @Override
+    protected boolean isResponseOrderRequired() {
+      return this.responseOrderRequired;
+    }
+
+    @Override
+    public HttpHost chooseServerHost() {
+      return new HttpHost("localhost");
+    }
+
+    @Override
+    public void onConnect(HttpHost serverHost) throws IOException {
+    }
+
+    @Override
+    public Optional<HttpUriRequest> onNewRecord(Integer record, Optional<HttpUriRequest> request) {
+      return Optional.<HttpUriRequest> of(new HttpPost("http://localhost/" + record));
+    }
+
+    @Override
+    public ListenableFuture<HttpResponse> sendRequest(HttpUriRequest request) throws IOException {
+      int record = Integer.parseInt(request.getURI().getPath().substring(1));
+      int concurrent = this.concurrentRequests.incrementAndGet();
+      try {
+        synchronized (this.maxConcurrentRequests) {
+          this.maxConcurrentRequests.set(Math.max(this.maxConcurrentRequests.get(), concurrent));
+        }
+        Thread.sleep((4 - record % 4) * 5);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new IOException(ie);
+      } finally {
+        this.concurrentRequests.decrementAndGet();
+      }
+      if (record == this.failedRecord) {
+        throw new IOException("Failed to send request for record " + record);
+      }
+      BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+      response.setHeader("record", Integer.toString(record));
+      return Futures.<HttpResponse> immediateFuture(response);
+    }
+
+    @Override
+    public void waitForResponse(ListenableFuture<HttpResponse> responseFuture) {
+    }
+
+    @Override
+    public void processResponse(HttpResponse response) throws IOException, UnexpectedResponseException {
+      this.processed.add(Integer.parseInt(response.getFirstHeader("record").getValue()));
+    }
+  }
+
+  private static class TestHttpWriterBuilder extends AbstractHttpWriterBuilder<Void, Integer, TestHttpWriterBuilder> {
+    @Override
+    public TestHttpWriter build() throws IOException {
+      return new TestHttpWriter(this);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.jdbc;
+
+import static org.mockito.Mockito.*;
+import static gobblin.writer.commands.JdbcBufferedInserter.*;
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.converter.jdbc.JdbcEntryDatum;
+import gobblin.writer.commands.AsyncJdbcBufferedInserter;
+import gobblin.writer.commands.JdbcBufferedInserter;
+import gobblin.writer.commands.MultiRowJdbcBufferedInserter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Inserts entries into an in-memory Derby database with {@link MultiRowJdbcBufferedInserter}, directly and from a
+ * background thread with {@link AsyncJdbcBufferedInserter}.
+ */
+@Test(groups = {"gobblin.writer"})
+public class AsyncJdbcBufferedInserterTest {
+  private static final String DB_URL = "jdbc:derby:memory:AsyncJdbcBufferedInserterTest";
+  private static final String DB = "testdb";
+  private static final String TABLE = "stg";
+  private static final int ENTRY_COUNT = 1007;
+
+  private Connection conn;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+    conn = DriverManager.getConnection(DB_URL + ";create=true");
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE TABLE " + DB + "." + TABLE + " (id INTEGER NOT NULL, name VARCHAR(32))");
+    }
+  }
+
+  @BeforeMethod
+  public void deleteAll() throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      stmt.execute("DELETE FROM " + DB + "." + TABLE);
+    }
+  }
+
+  public void testMultiRowInsert() throws SQLException {
+    State state = new State();
+    state.setProp(WRITER_JDBC_INSERT_BATCH_SIZE, 100);
+
+    insertEntries(new MultiRowJdbcBufferedInserter(state, conn));
+    assertInserted();
+  }
+
+  public void testAsyncInsert() throws Exception {
+    State state = new State();
+    state.setProp(WRITER_JDBC_INSERT_BATCH_SIZE, 100);
+    state.setProp(WRITER_JDBC_INSERT_ASYNC_MAX_PENDING_BATCHES, 1);
+
+    try (AsyncJdbcBufferedInserter inserter =
+        new AsyncJdbcBufferedInserter(state, new MultiRowJdbcBufferedInserter(state, conn))) {
+      insertEntries(inserter);
+    }
+    assertInserted();
+  }
+
+  @Test(expectedExceptions = SQLException.class)
+  public void testAsyncInsertFailure() throws Exception {
+    State state = new State();
+    state.setProp(WRITER_JDBC_INSERT_BATCH_SIZE, 10);
+    JdbcBufferedInserter failingInserter = mock(JdbcBufferedInserter.class);
+    doThrow(new SQLException("Failed to insert")).when(failingInserter)
+        .insert(anyString(), anyString(), any(JdbcEntryData.class));
+
+    try (AsyncJdbcBufferedInserter inserter = new AsyncJdbcBufferedInserter(state, failingInserter)) {
+      insertEntries(inserter);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() throws SQLException {
+    conn.close();
+  }
+
+  private static void insertEntries(JdbcBufferedInserter inserter) throws SQLException {
+    for (int i = 0; i < ENTRY_COUNT; i++) {
+      inserter.insert(DB, TABLE, createEntry(i, "name_" + i));
+    }
+    inserter.flush();
+  }
+
+  private void assertInserted() throws SQLException {
+    try (Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT COUNT(*), COUNT(DISTINCT id), MAX(name) FROM " + DB + "." + TABLE)) {
+      Assert.assertTrue(rs.next());
+      Assert.assertEquals(rs.getInt(1), ENTRY_COUNT);
+      Assert.assertEquals(rs.getInt(2), ENTRY_COUNT);
+      Assert.assertEquals(rs.getString(3), "name_999");
+    }
+  }
+
+  private static JdbcEntryData createEntry(Integer id, String name) {
+    return new JdbcEntryData(ImmutableList.of(new JdbcEntryDatum("id", id), new JdbcEntryDatum("name", name)));
+  }
+}
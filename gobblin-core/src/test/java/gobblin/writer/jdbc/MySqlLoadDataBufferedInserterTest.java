@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.jdbc;
+
+import static org.mockito.Mockito.*;
+import static gobblin.writer.commands.JdbcBufferedInserter.*;
+import gobblin.configuration.State;
+import gobblin.converter.jdbc.JdbcEntryData;
+import gobblin.converter.jdbc.JdbcEntryDatum;
+import gobblin.writer.commands.MySqlLoadDataBufferedInserter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+@Test(groups = {"gobblin.writer"})
+public class MySqlLoadDataBufferedInserterTest {
+
+  public void testLoadData() throws SQLException {
+    State state = new State();
+    state.setProp(WRITER_JDBC_INSERT_BUFFER_SIZE, 58);
+
+    Connection conn = mock(Connection.class);
+    Statement stmt = mock(Statement.class);
+    when(conn.createStatement()).thenReturn(stmt);
+    TestLoadDataBufferedInserter inserter = new TestLoadDataBufferedInserter(state, conn);
+
+    final int entryCount = 10;
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < entryCount; i++) {
+      inserter.insert("db", "stg", createEntry(i, "a\tb\\c\nd", i % 2 == 0, null, new Date(0)));
+      expected.append(i).append("\ta\\tb\\\\c\\nd\t").append(i % 2 == 0 ? 1 : 0).append("\t\\N\t")
+              .append(new Date(0)).append('\n');
+    }
+    inserter.flush();
+
+    // Each row is 29 bytes, so the buffer is loaded every 2 rows.
+    verify(stmt, times(entryCount / 2)).execute(
+        "LOAD DATA LOCAL INFILE 'gobblin.stream' INTO TABLE db.stg CHARACTER SET utf8mb4 (a,b,c,d,e)");
+    Assert.assertEquals(inserter.loaded.size(), entryCount / 2);
+    StringBuilder loaded = new StringBuilder();
+    for (String data : inserter.loaded) {
+      loaded.append(data);
+    }
+    Assert.assertEquals(loaded.toString(), expected.toString());
+
+    // Nothing is left to load
+    inserter.flush();
+    verify(stmt, times(entryCount / 2)).execute(anyString());
+  }
+
+  private JdbcEntryData createEntry(Object... vals) {
+    List<JdbcEntryDatum> datumList = Lists.newArrayList();
+    char colName = 'a';
+    for (Object val : vals) {
+      datumList.add(new JdbcEntryDatum(String.valueOf(colName++), val));
+    }
+    return new JdbcEntryData(ImmutableList.copyOf(datumList));
+  }
+
+  /**
+   * Records the data streamed to the mocked statement.
+   */
+  private static class TestLoadDataBufferedInserter extends MySqlLoadDataBufferedInserter {
+    private final List<String> loaded = Lists.newArrayList();
+
+    private TestLoadDataBufferedInserter(State state, Connection conn) {
+      super(state, conn);
+    }
+
+    @Override
+    protected void setLocalInfileInputStream(Statement stmt, InputStream inputStream) throws SQLException {
+      try {
+        loaded.add(IOUtils.toString(inputStream, StandardCharsets.UTF_8.name()));
+      } catch (IOException e) {
+        throw new SQLException(e);
+      }
+    }
+  }
+}
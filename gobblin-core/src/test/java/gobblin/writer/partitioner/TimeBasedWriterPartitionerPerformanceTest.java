@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.partitioner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericRecord;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.writer.partitioner.TimeBasedWriterPartitionerTest.TimestampWriterPartitioner;
+
+
+/**
+ * Performance tests comparing the per-record cost of {@link TimeBasedWriterPartitioner#partitionForRecord(Object)}
+ * with and without the time bucket cache, for mostly ordered timestamps spread over a few days.
+ */
+@Test(groups = { "performance" })
+public class TimeBasedWriterPartitionerPerformanceTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimeBasedWriterPartitionerPerformanceTest.class);
+
+  private static final int ROUNDS = 5;
+  private static final int NUM_RECORDS = 10000000;
+
+  public void granularityPerformance() {
+    run(TimeBasedWriterPartitioner.Granularity.HOUR.name());
+  }
+
+  public void patternPerformance() {
+    run("yyyy/MM/dd/HH");
+  }
+
+  private static void run(String granularityOrPattern) {
+    long[] timestamps = new long[NUM_RECORDS];
+    long start = new DateTime(2016, 3, 1, 0, 0, DateTimeZone.forID(ConfigurationKeys.PST_TIMEZONE_NAME)).getMillis();
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      // About 50 records per second, with one in a thousand records arriving an hour late
+      timestamps[i] = start + i * 20L - (i % 1000 == 0 ? TimeUnit.HOURS.toMillis(1) : 0L);
+    }
+
+    TimestampWriterPartitioner uncachedPartitioner = null;
+    TimestampWriterPartitioner cachedPartitioner = null;
+    for (int round = 0; round < ROUNDS; round++) {
+      for (boolean cacheEnabled : new boolean[] { false, true }) {
+        TimestampWriterPartitioner partitioner =
+            new TimestampWriterPartitioner(createState(granularityOrPattern, cacheEnabled));
+        int hash = 0;
+        long startNanos = System.nanoTime();
+        for (long timestamp : timestamps) {
+          hash += System.identityHashCode(partitioner.partitionForRecord(timestamp));
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        LOG.info(String.format("%s round %d, cache %s: %.1f ns/record (%d)", granularityOrPattern, round,
+            cacheEnabled ? "enabled" : "disabled", (double) elapsedNanos / NUM_RECORDS, hash));
+        if (cacheEnabled) {
+          cachedPartitioner = partitioner;
+        } else {
+          uncachedPartitioner = partitioner;
+        }
+      }
+    }
+
+    // The cache must not change the partitions
+    for (int i = 0; i < NUM_RECORDS; i += 997) {
+      GenericRecord partition = cachedPartitioner.partitionForRecord(timestamps[i]);
+      Assert.assertEquals(partition, uncachedPartitioner.partitionForRecord(timestamps[i]));
+    }
+  }
+
+  private static State createState(String granularityOrPattern, boolean cacheEnabled) {
+    State state = new State();
+    if (granularityOrPattern.equals(granularityOrPattern.toUpperCase())) {
+      state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_GRANULARITY, granularityOrPattern);
+    } else {
+      state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, granularityOrPattern);
+    }
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED, cacheEnabled);
+    return state;
+  }
+}
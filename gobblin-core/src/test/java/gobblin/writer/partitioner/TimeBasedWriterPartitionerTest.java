@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.writer.partitioner;
+
+import java.util.Random;
+
+import org.apache.avro.generic.GenericRecord;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.writer.partitioner.TimeBasedWriterPartitioner.Granularity;
+
+
+/**
+ * Tests for the time bucket cache of {@link TimeBasedWriterPartitioner}.
+ */
+@Test(groups = { "gobblin.writer.partitioner" })
+public class TimeBasedWriterPartitionerTest {
+
+  /**
+   * A {@link TimeBasedWriterPartitioner} for records that are timestamps themselves.
+   */
+  static class TimestampWriterPartitioner extends TimeBasedWriterPartitioner<Long> {
+
+    TimestampWriterPartitioner(State state) {
+      super(state, 1, 0);
+    }
+
+    @Override
+    public long getRecordTimestamp(Long record) {
+      return record;
+    }
+  }
+
+  @Test
+  public void testPatternGranularity() {
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("yyyy/MM/dd"), Optional.of(Granularity.DAY));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("yyyy/MM/dd/HH"),
+        Optional.of(Granularity.HOUR));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("yyyy-MM"), Optional.of(Granularity.MONTH));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("'day'_yyyy_MM_dd"),
+        Optional.of(Granularity.DAY));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("yyyy/MM/dd/HH/mm"),
+        Optional.of(Granularity.MINUTE));
+    Assert.assertEquals(TimeBasedWriterPartitioner.getPatternGranularity("yyyy/MM/dd/HH/mm/ss"),
+        Optional.<Granularity> absent());
+  }
+
+  @Test
+  public void testCachedPartitionsWithGranularity() {
+    for (Granularity granularity : Granularity.values()) {
+      State state = new State();
+      state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_GRANULARITY, granularity.name());
+      assertSamePartitions(state, granularity);
+    }
+  }
+
+  @Test
+  public void testCachedPartitionsWithPattern() {
+    for (String pattern : new String[] { "yyyy/MM/dd", "yyyy/MM/dd/HH", "yyyy/'week'_ww", "yyyy/MM/dd/HH/z" }) {
+      State state = new State();
+      state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_PATTERN, pattern);
+      assertSamePartitions(state, TimeBasedWriterPartitioner.getPatternGranularity(pattern).get());
+    }
+  }
+
+  @Test
+  public void testSamePartitionInstanceWithinBucket() {
+    State state = new State();
+    state.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_GRANULARITY, Granularity.HOUR.name());
+    TimestampWriterPartitioner partitioner = new TimestampWriterPartitioner(state);
+
+    DateTimeZone timeZone = DateTimeZone.forID(ConfigurationKeys.PST_TIMEZONE_NAME);
+    long hour = new DateTime(2016, 3, 1, 10, 0, timeZone).getMillis();
+    GenericRecord partition = partitioner.partitionForRecord(hour);
+    Assert.assertSame(partitioner.partitionForRecord(hour + 1000L), partition);
+    Assert.assertSame(partitioner.partitionForRecord(hour + 3599999L), partition);
+
+    GenericRecord nextPartition = partitioner.partitionForRecord(hour + 3600000L);
+    Assert.assertNotEquals(nextPartition, partition);
+
+    // Late data for a recently seen bucket gets back the same partition instance
+    Assert.assertSame(partitioner.partitionForRecord(hour + 10L), partition);
+  }
+
+  /**
+   * Check that partitions computed with the time bucket cache are the same as the ones computed without it for
+   * random timestamps around the daylight saving time transitions, as well as for consecutive timestamps.
+   */
+  private static void assertSamePartitions(State state, Granularity granularity) {
+    State uncachedState = new State(state);
+    uncachedState.setProp(TimeBasedWriterPartitioner.WRITER_PARTITION_TIME_BUCKET_CACHE_ENABLED, false);
+    TimestampWriterPartitioner cached = new TimestampWriterPartitioner(state);
+    TimestampWriterPartitioner uncached = new TimestampWriterPartitioner(uncachedState);
+
+    DateTimeZone timeZone = DateTimeZone.forID(ConfigurationKeys.PST_TIMEZONE_NAME);
+    long[] starts = { new DateTime(2016, 3, 13, 0, 0, timeZone).getMillis(),
+        new DateTime(2016, 11, 6, 0, 0, timeZone).getMillis(),
+        new DateTime(2016, 12, 31, 22, 0, timeZone).getMillis() };
+    Random random = new Random(granularity.ordinal());
+    for (long start : starts) {
+      long timestamp = start;
+      for (int i = 0; i < 5000; i++) {
+        timestamp += random.nextInt(60000);
+        assertSamePartition(cached, uncached, timestamp, granularity);
+        long randomTimestamp = start + (long) (random.nextDouble() * 3L * 24L * 3600000L);
+        assertSamePartition(cached, uncached, randomTimestamp, granularity);
+      }
+    }
+  }
+
+  private static void assertSamePartition(TimestampWriterPartitioner cached, TimestampWriterPartitioner uncached,
+      long timestamp, Granularity granularity) {
+    Assert.assertEquals(cached.partitionForRecord(timestamp), uncached.partitionForRecord(timestamp),
+        "Partition mismatch for timestamp " + timestamp + " with granularity " + granularity);
+  }
+}
@@ -12,6 +12,8 @@
 
 package gobblin.writer.test;
 
+import gobblin.configuration.State;
+import gobblin.util.FinalState;
 import gobblin.writer.DataWriter;
 import gobblin.writer.PartitionAwareDataWriterBuilder;
 import lombok.Data;
@@ -42,7 +44,7 @@ public class TestPartitionAwareWriterBuilder extends PartitionAwareDataWriterBui
     return new TestDataWriter(partition);
   }
 
-  private class TestDataWriter implements DataWriter<String> {
+  private class TestDataWriter implements DataWriter<String>, FinalState {
 
     private String partition;
     private long recordsWritten = 0;
@@ -77,6 +79,12 @@ public class TestPartitionAwareWriterBuilder extends PartitionAwareDataWriterBui
     @Override public void close() throws IOException {
       actions.add(new Action(Actions.CLOSE, this.partition, null));
     }
+
+    @Override public State getFinalState() {
+      State state = new State();
+      state.setProp("RecordsWritten", this.recordsWritten);
+      return state;
+    }
   }
 
   @Data
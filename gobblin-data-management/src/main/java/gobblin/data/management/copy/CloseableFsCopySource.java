@@ -15,6 +15,7 @@ import gobblin.configuration.SourceState;
 import gobblin.configuration.State;
 import gobblin.configuration.WorkUnitState;
 import gobblin.data.management.copy.extractor.CloseableFsFileAwareInputStreamExtractor;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.source.extractor.Extractor;
 import gobblin.source.extractor.extract.sftp.SftpLightWeightFileSystem;
 import gobblin.util.HadoopUtils;
@@ -25,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.hadoop.fs.FileSystem;
 
+import com.google.common.base.Optional;
 import com.google.common.io.Closer;
 
 
@@ -64,8 +66,8 @@ public class CloseableFsCopySource extends CopySource {
     }
   }
 
-  @Override protected Extractor<String, FileAwareInputStream> extractorForCopyableFile(FileSystem fs, CopyableFile cf)
-      throws IOException {
-    return new CloseableFsFileAwareInputStreamExtractor(fs, cf);
+  @Override protected Extractor<String, FileAwareInputStream> extractorForCopyableFile(FileSystem fs, CopyableFile cf,
+      Optional<DistcpFileSplitter.Split> split) throws IOException {
+    return new CloseableFsFileAwareInputStreamExtractor(fs, cf, split);
   }
 }
@@ -18,6 +18,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
@@ -74,9 +75,17 @@ public class CopyConfiguration {
         publishDirTmp = new Path(targetFs.getWorkingDirectory(), publishDirTmp);
       }
       this.publishDir = publishDirTmp;
-      this.copyContext = new CopyContext();
+      this.copyContext = new CopyContext(createListingCache(properties));
       this.targetFs = targetFs;
     }
+
+    private static Optional<SourceListingCache> createListingCache(Properties properties) {
+      if (!properties.containsKey(SourceListingCache.LISTING_CACHE_DIR_KEY)) {
+        return Optional.absent();
+      }
+      return Optional.of(new SourceListingCache(
+          new Path(properties.getProperty(SourceListingCache.LISTING_CACHE_DIR_KEY)), new Configuration()));
+    }
   }
 
   public static CopyConfigurationBuilder builder(FileSystem targetFs, Properties properties) {
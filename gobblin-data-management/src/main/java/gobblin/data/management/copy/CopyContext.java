@@ -14,17 +14,21 @@ package gobblin.data.management.copy;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
 
 import com.google.common.base.Optional;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
+import gobblin.util.FileListUtils;
+
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -40,9 +44,19 @@ public class CopyContext {
    * should be fully qualified paths in case multiple {@link org.apache.hadoop.fs.FileSystem}s are in use.
    */
   private final Cache<Path, Optional<FileStatus>> fileStatusCache;
+  /**
+   * Persisted listings of dataset directories, used to avoid listing directories that did not change since the last
+   * run of the job. See {@link SourceListingCache}.
+   */
+  private final Optional<SourceListingCache> listingCache;
 
   public CopyContext() {
+    this(Optional.<SourceListingCache> absent());
+  }
+
+  public CopyContext(Optional<SourceListingCache> listingCache) {
     this.fileStatusCache = CacheBuilder.newBuilder().recordStats().maximumSize(10000).build();
+    this.listingCache = listingCache;
   }
 
   /**
@@ -66,8 +80,23 @@ public class CopyContext {
     }
   }
 
+  /**
+   * List all files under the given path of a dataset, using the {@link SourceListingCache} if enabled. The filter is
+   * only applied to files.
+   */
+  public List<FileStatus> listFilesRecursively(FileSystem fs, String datasetURN, Path path, PathFilter fileFilter)
+      throws IOException {
+    if (this.listingCache.isPresent()) {
+      return this.listingCache.get().listFilesRecursively(fs, datasetURN, path, fileFilter);
+    }
+    return FileListUtils.listFilesRecursively(fs, path, fileFilter);
+  }
+
   public void logCacheStatistics() {
     log.info(this.fileStatusCache.stats().toString());
+    if (this.listingCache.isPresent()) {
+      this.listingCache.get().logStatistics();
+    }
   }
 
 }
@@ -41,6 +41,7 @@ import gobblin.configuration.WorkUnitState;
 import gobblin.data.management.copy.extractor.EmptyExtractor;
 import gobblin.data.management.copy.extractor.FileAwareInputStreamExtractor;
 import gobblin.data.management.copy.publisher.CopyEventSubmitterHelper;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.data.management.dataset.DatasetUtils;
 import gobblin.data.management.partition.FileSet;
 import gobblin.dataset.Dataset;
@@ -123,6 +124,8 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
       long maxSizePerBin = state.getPropAsLong(MAX_SIZE_MULTI_WORKUNITS, 0);
       long maxWorkUnitsPerMultiWorkUnit = state.getPropAsLong(MAX_WORK_UNITS_PER_BIN, 50);
       final long minWorkUnitWeight = Math.max(1, maxSizePerBin / maxWorkUnitsPerMultiWorkUnit);
+      final Optional<Long> maxSplitSize = DistcpFileSplitter.allowSplit(state)
+          ? Optional.of(state.getPropAsLong(DistcpFileSplitter.MAX_SPLIT_SIZE_KEY)) : Optional.<Long> absent();
 
       // TODO: The comparator sets the priority of file sets. Currently, all file sets have the same priority, this needs to
       // be pluggable.
@@ -164,7 +167,7 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
               }
 
               return new DatasetWorkUnitGenerator(iterableCopyableDataset, sourceFs, targetFs, state, workUnitList,
-                  copyConfiguration, minWorkUnitWeight);
+                  copyConfiguration, minWorkUnitWeight, maxSplitSize);
             }
           });
 
@@ -229,6 +232,7 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
     private final ConcurrentBoundedWorkUnitList workUnitList;
     private final CopyConfiguration copyConfiguration;
     private final long minWorkUnitWeight;
+    private final Optional<Long> maxSplitSize;
 
     @Override
     public Void call() {
@@ -261,6 +265,15 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
             workUnit.setProp(ConfigurationKeys.DATASET_URN_KEY, datasetAndPartition.toString());
             workUnit.setProp(SlaEventKeys.DATASET_URN_KEY, this.copyableDataset.datasetURN());
             workUnit.setProp(SlaEventKeys.PARTITION_KEY, copyEntity.getFileSet());
+            if (this.maxSplitSize.isPresent() && copyEntity instanceof CopyableFile) {
+              for (WorkUnit splitWorkUnit : DistcpFileSplitter.splitFile((CopyableFile) copyEntity, workUnit,
+                  this.maxSplitSize.get())) {
+                setWorkUnitWeight(splitWorkUnit, copyEntity, minWorkUnitWeight);
+                computeAndSetWorkUnitGuid(splitWorkUnit);
+                workUnitsForPartition.add(splitWorkUnit);
+              }
+              continue;
+            }
             setWorkUnitWeight(workUnit, copyEntity, minWorkUnitWeight);
             computeAndSetWorkUnitGuid(workUnit);
             workUnitsForPartition.add(workUnit);
@@ -294,14 +307,14 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
 
     if (CopyableFile.class.isAssignableFrom(copyEntityClass)) {
       CopyableFile copyEntity = (CopyableFile) deserializeCopyEntity(state);
-      return extractorForCopyableFile(getSourceFileSystem(state), copyEntity);
+      return extractorForCopyableFile(getSourceFileSystem(state), copyEntity, DistcpFileSplitter.getSplit(state));
     }
     return new EmptyExtractor<>("empty");
   }
 
-  protected Extractor<String, FileAwareInputStream> extractorForCopyableFile(FileSystem fs, CopyableFile cf)
-      throws IOException {
-    return new FileAwareInputStreamExtractor(fs, cf);
+  protected Extractor<String, FileAwareInputStream> extractorForCopyableFile(FileSystem fs, CopyableFile cf,
+      Optional<DistcpFileSplitter.Split> split) throws IOException {
+    return new FileAwareInputStreamExtractor(fs, cf, split);
   }
 
   @Override
@@ -320,7 +333,10 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
 
   private void setWorkUnitWeight(WorkUnit workUnit, CopyEntity copyEntity, long minWeight) {
     long weight = 0;
-    if (copyEntity instanceof CopyableFile) {
+    Optional<DistcpFileSplitter.Split> split = DistcpFileSplitter.getSplit(workUnit);
+    if (split.isPresent()) {
+      weight = split.get().getLength();
+    } else if (copyEntity instanceof CopyableFile) {
       weight = ((CopyableFile) copyEntity).getOrigin().getLen();
     }
     weight = Math.max(weight, minWeight);
@@ -330,7 +346,12 @@ public class CopySource extends AbstractSource<String, FileAwareInputStream> {
   private static void computeAndSetWorkUnitGuid(WorkUnit workUnit) throws IOException {
     Guid guid = Guid.fromStrings(workUnit.contains(ConfigurationKeys.CONVERTER_CLASSES_KEY)
         ? workUnit.getProp(ConfigurationKeys.CONVERTER_CLASSES_KEY) : "");
-    setWorkUnitGuid(workUnit, guid.append(deserializeCopyEntity(workUnit)));
+    guid = guid.append(deserializeCopyEntity(workUnit));
+    Optional<DistcpFileSplitter.Split> split = DistcpFileSplitter.getSplit(workUnit);
+    if (split.isPresent()) {
+      guid = guid.append(Guid.fromStrings(split.get().toString()));
+    }
+    setWorkUnitGuid(workUnit, guid);
   }
 
   /**
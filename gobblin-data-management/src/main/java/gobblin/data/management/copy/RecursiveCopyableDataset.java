@@ -15,7 +15,6 @@ package gobblin.data.management.copy;
 import gobblin.data.management.dataset.DatasetUtils;
 import gobblin.dataset.FileSystemDataset;
 import gobblin.util.PathUtils;
-import gobblin.util.FileListUtils;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -59,7 +58,8 @@ public class RecursiveCopyableDataset implements CopyableDataset, FileSystemData
 
     Path nonGlobSearchPath = PathUtils.deepestNonGlobPath(this.glob);
 
-    List<FileStatus> files = FileListUtils.listFilesRecursively(this.fs, this.rootPath, this.pathFilter);
+    List<FileStatus> files = configuration.getCopyContext().listFilesRecursively(this.fs, datasetURN(), this.rootPath,
+        this.pathFilter);
 
     List<CopyableFile> copyableFiles = Lists.newArrayList();
 
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * A persisted cache of the recursive listing of the source directories of copyable datasets.
+ *
+ * <p>
+ *   For each dataset, the cache stores the children of every directory under the dataset root along with the
+ *   modification time of the directory when it was listed. On the next listing, a directory whose modification time
+ *   has not changed is not listed again, its children are taken from the cache instead. Since the modification time
+ *   of a directory only changes when its direct children are added, removed or renamed, each cached subdirectory is
+ *   still checked with {@link FileSystem#getFileStatus}, which is much cheaper than listing it.
+ * </p>
+ *
+ * <p>
+ *   Cached file statuses are not refreshed, so the cache should only be enabled for datasets whose files are not
+ *   modified in place once written, e.g. appended to. The cache for a dataset is rewritten after each successful
+ *   listing, and only contains directories that still exist.
+ * </p>
+ */
+@Slf4j
+public class SourceListingCache {
+
+  /** Directory where listings are persisted. The cache is disabled if not set. */
+  public static final String LISTING_CACHE_DIR_KEY = CopyConfiguration.COPY_PREFIX + ".listingCache.dir";
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String CACHE_FILE_SUFFIX = ".listing";
+
+  private final Path cacheDir;
+  private final Configuration conf;
+  private final AtomicLong directoryHits = new AtomicLong();
+  private final AtomicLong directoryMisses = new AtomicLong();
+
+  /**
+   * Children of a directory at the time it was listed.
+   */
+  @AllArgsConstructor
+  private static class DirectoryListing {
+    private final long modificationTime;
+    private final FileStatus[] children;
+  }
+
+  public SourceListingCache(Path cacheDir, Configuration conf) {
+    this.cacheDir = cacheDir;
+    this.conf = conf;
+  }
+
+  /**
+   * List all files under the given path, like {@link gobblin.util.FileListUtils#listFilesRecursively}, reusing the
+   * cached listing of directories that did not change since the last listing of the given dataset. The filter is only
+   * applied to files.
+   */
+  public List<FileStatus> listFilesRecursively(FileSystem fs, String datasetURN, Path path, PathFilter fileFilter)
+      throws IOException {
+    Path cacheFile = getCacheFile(datasetURN);
+    Map<Path, DirectoryListing> previousListings = load(cacheFile, datasetURN);
+    Map<Path, DirectoryListing> currentListings = Maps.newHashMap();
+
+    List<FileStatus> files = Lists.newArrayList();
+    listFilesRecursivelyHelper(fs, files, fs.getFileStatus(path), fileFilter, previousListings, currentListings);
+
+    save(cacheFile, datasetURN, currentListings);
+    return files;
+  }
+
+  /**
+   * @return the number of directories whose cached listing was reused.
+   */
+  public long getDirectoryHits() {
+    return this.directoryHits.get();
+  }
+
+  /**
+   * @return the number of directories that were listed.
+   */
+  public long getDirectoryMisses() {
+    return this.directoryMisses.get();
+  }
+
+  /**
+   * Log the directory hits and misses of this cache.
+   */
+  public void logStatistics() {
+    log.info(String.format("Source listing cache: %d directories reused, %d directories listed.",
+        this.directoryHits.get(), this.directoryMisses.get()));
+  }
+
+  @SuppressWarnings("deprecation")
+  private void listFilesRecursivelyHelper(FileSystem fs, List<FileStatus> files, FileStatus fileStatus,
+      PathFilter fileFilter, Map<Path, DirectoryListing> previousListings, Map<Path, DirectoryListing> currentListings)
+      throws IOException {
+    if (!fileStatus.isDir()) {
+      if (fileFilter.accept(fileStatus.getPath())) {
+        files.add(fileStatus);
+      }
+      return;
+    }
+
+    Path dir = fileStatus.getPath();
+    DirectoryListing listing = previousListings.get(dir);
+    boolean cached = listing != null && listing.modificationTime == fileStatus.getModificationTime();
+    if (cached) {
+      this.directoryHits.incrementAndGet();
+    } else {
+      this.directoryMisses.incrementAndGet();
+      listing = new DirectoryListing(fileStatus.getModificationTime(), fs.listStatus(dir));
+    }
+    currentListings.put(dir, listing);
+
+    for (FileStatus child : listing.children) {
+      if (cached && child.isDir()) {
+        // The cached status of a subdirectory has the modification time it had when its parent was listed
+        try {
+          child = fs.getFileStatus(child.getPath());
+        } catch (FileNotFoundException fnfe) {
+          // Deleted since the parent was listed, which should have changed the parent modification time
+          continue;
+        }
+      }
+      listFilesRecursivelyHelper(fs, files, child, fileFilter, previousListings, currentListings);
+    }
+  }
+
+  private Path getCacheFile(String datasetURN) {
+    return new Path(this.cacheDir,
+        Hashing.sha1().hashString(datasetURN, Charsets.UTF_8).toString() + CACHE_FILE_SUFFIX);
+  }
+
+  private Map<Path, DirectoryListing> load(Path cacheFile, String datasetURN) {
+    Map<Path, DirectoryListing> listings = Maps.newHashMap();
+    try {
+      FileSystem cacheFs = cacheFile.getFileSystem(this.conf);
+      if (!cacheFs.exists(cacheFile)) {
+        return listings;
+      }
+      try (DataInputStream in = cacheFs.open(cacheFile)) {
+        if (in.readInt() != FORMAT_VERSION || !datasetURN.equals(in.readUTF())) {
+          log.warn(String.format("Ignoring source listing cache %s written for a different version or dataset.",
+              cacheFile));
+          return listings;
+        }
+        int numDirectories = in.readInt();
+        for (int i = 0; i < numDirectories; i++) {
+          Path dir = new Path(in.readUTF());
+          long modificationTime = in.readLong();
+          FileStatus[] children = new FileStatus[in.readInt()];
+          for (int j = 0; j < children.length; j++) {
+            children[j] = new FileStatus();
+            children[j].readFields(in);
+          }
+          listings.put(dir, new DirectoryListing(modificationTime, children));
+        }
+      }
+    } catch (IOException ioe) {
+      log.warn(String.format("Failed to load source listing cache %s, will list dataset %s fully.", cacheFile,
+          datasetURN), ioe);
+      listings.clear();
+    }
+    return listings;
+  }
+
+  private void save(Path cacheFile, String datasetURN, Map<Path, DirectoryListing> listings) {
+    try {
+      FileSystem cacheFs = cacheFile.getFileSystem(this.conf);
+      Path tmpFile = new Path(cacheFile.getParent(), "_tmp_" + cacheFile.getName());
+      try (DataOutputStream out = cacheFs.create(tmpFile, true)) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(datasetURN);
+        out.writeInt(listings.size());
+        for (Map.Entry<Path, DirectoryListing> entry : listings.entrySet()) {
+          out.writeUTF(entry.getKey().toString());
+          out.writeLong(entry.getValue().modificationTime);
+          out.writeInt(entry.getValue().children.length);
+          for (FileStatus child : entry.getValue().children) {
+            child.write(out);
+          }
+        }
+      }
+      cacheFs.delete(cacheFile, false);
+      if (!cacheFs.rename(tmpFile, cacheFile)) {
+        throw new IOException(String.format("Could not move %s to %s.", tmpFile, cacheFile));
+      }
+      log.debug(String.format("Saved listing of %d directories of dataset %s to %s.", listings.size(), datasetURN,
+          cacheFile));
+    } catch (IOException ioe) {
+      // The listing itself succeeded, the next run will just list more directories
+      log.warn(String.format("Failed to save source listing cache %s for dataset %s.", cacheFile, datasetURN), ioe);
+    }
+  }
+}
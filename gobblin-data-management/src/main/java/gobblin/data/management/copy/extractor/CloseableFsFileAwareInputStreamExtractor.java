@@ -12,12 +12,14 @@
 package gobblin.data.management.copy.extractor;
 
 import gobblin.data.management.copy.CopyableFile;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.source.extractor.extract.sftp.SftpLightWeightFileSystem;
 
 import java.io.IOException;
 
 import org.apache.hadoop.fs.FileSystem;
 
+import com.google.common.base.Optional;
 import com.google.common.io.Closer;
 
 
@@ -31,8 +33,13 @@ public class CloseableFsFileAwareInputStreamExtractor extends FileAwareInputStre
 
   public CloseableFsFileAwareInputStreamExtractor(FileSystem fs, CopyableFile file)
       throws IOException {
+    this(fs, file, Optional.<DistcpFileSplitter.Split> absent());
+  }
+
+  public CloseableFsFileAwareInputStreamExtractor(FileSystem fs, CopyableFile file,
+      Optional<DistcpFileSplitter.Split> split) throws IOException {
 
-    super(fs, file);
+    super(fs, file, split);
     closer.register(fs);
   }
 
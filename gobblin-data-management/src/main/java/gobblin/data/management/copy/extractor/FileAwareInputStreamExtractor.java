@@ -14,14 +14,18 @@ package gobblin.data.management.copy.extractor;
 
 import gobblin.data.management.copy.CopyableFile;
 import gobblin.data.management.copy.FileAwareInputStream;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.source.extractor.DataRecordException;
 import gobblin.source.extractor.Extractor;
 
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 
+import com.google.common.base.Optional;
+
 
 /**
  * An implementation of {@link Extractor} that extracts {@link InputStream}s. This extractor is suitable for copy jobs
@@ -32,18 +36,30 @@ import org.apache.hadoop.fs.FileSystem;
  * In Gobblin {@link Extractor} terms, each {@link FileAwareInputStream} is a record. i.e one record per copyable file.
  * The extractor is capable of extracting multiple files
  * <p>
+ *
+ * <p>
+ * If the work unit copies a {@link DistcpFileSplitter.Split} of the file, the stream is positioned at the start of the
+ * split. The writer is responsible for reading only the length of the split.
+ * </p>
  */
 public class FileAwareInputStreamExtractor implements Extractor<String, FileAwareInputStream> {
 
   private final FileSystem fs;
   private final CopyableFile file;
+  private final Optional<DistcpFileSplitter.Split> split;
   /** True indicates the unique record has already been read. */
   private boolean recordRead;
 
   public FileAwareInputStreamExtractor(FileSystem fs, CopyableFile file) throws IOException {
+    this(fs, file, Optional.<DistcpFileSplitter.Split> absent());
+  }
+
+  public FileAwareInputStreamExtractor(FileSystem fs, CopyableFile file, Optional<DistcpFileSplitter.Split> split)
+      throws IOException {
 
     this.fs = fs;
     this.file = file;
+    this.split = split;
     this.recordRead = false;
   }
 
@@ -62,7 +78,11 @@ public class FileAwareInputStreamExtractor implements Extractor<String, FileAwar
 
     if (!this.recordRead) {
       this.recordRead = true;
-      return new FileAwareInputStream(this.file, fs.open(this.file.getFileStatus().getPath()));
+      FSDataInputStream inputStream = this.fs.open(this.file.getFileStatus().getPath());
+      if (this.split.isPresent()) {
+        inputStream.seek(this.split.get().getLowPosition());
+      }
+      return new FileAwareInputStream(this.file, inputStream);
     }
     return null;
 
@@ -18,14 +18,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 
 import lombok.extern.slf4j.Slf4j;
@@ -43,6 +46,7 @@ import gobblin.data.management.copy.entities.CommitStepCopyEntity;
 import gobblin.data.management.copy.entities.PostPublishStep;
 import gobblin.data.management.copy.entities.PrePublishStep;
 import gobblin.data.management.copy.recovery.RecoveryHelper;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.data.management.copy.writer.FileAwareInputStreamDataWriter;
 import gobblin.data.management.copy.CopyEntity;
 import gobblin.data.management.copy.writer.FileAwareInputStreamDataWriterBuilder;
@@ -167,6 +171,8 @@ public class CopyDataPublisher extends DataPublisher implements UnpublishedHandl
     log.info(String.format("[%s] Found %d prePublish steps and %d postPublish steps.", datasetAndPartition.identifier(),
         prePublish.size(), postPublish.size()));
 
+    mergeSplits(datasetAndPartition, datasetWorkUnitStates);
+
     executeCommitSequence(prePublish);
     // Targets are always absolute, so we start moving from root (will skip any existing directories).
     HadoopUtils.renameRecursively(fs, datasetWriterOutputPath, new Path("/"));
@@ -184,7 +190,9 @@ public class CopyDataPublisher extends DataPublisher implements UnpublishedHandl
       CopyEntity copyEntity = CopySource.deserializeCopyEntity(wus);
       if (copyEntity instanceof CopyableFile) {
         CopyableFile copyableFile = (CopyableFile) copyEntity;
-        if (wus.getWorkingState() == WorkingState.COMMITTED) {
+        Optional<DistcpFileSplitter.Split> split = DistcpFileSplitter.getSplit(wus);
+        boolean isFirstSplitOrWholeFile = !split.isPresent() || split.get().getSplitNumber() == 0;
+        if (wus.getWorkingState() == WorkingState.COMMITTED && isFirstSplitOrWholeFile) {
           CopyEventSubmitterHelper.submitSuccessfulFilePublish(eventSubmitter, copyableFile, wus);
         }
         if (datasetOriginTimestamp > copyableFile.getOriginTimestamp()) {
@@ -200,6 +208,41 @@ public class CopyDataPublisher extends DataPublisher implements UnpublishedHandl
         Long.toString(datasetOriginTimestamp), Long.toString(datasetUpstreamTimestamp));
   }
 
+  /**
+   * Merge the parts written for each file copied in {@link DistcpFileSplitter.Split}s into the file in the writer
+   * output directory.
+   */
+  private void mergeSplits(CopyEntity.DatasetAndPartition datasetAndPartition,
+      Collection<WorkUnitState> datasetWorkUnitStates) throws IOException {
+    Map<Path, Path[]> partsByFile = Maps.newHashMap();
+    Map<Path, Long> lengthByFile = Maps.newHashMap();
+    for (WorkUnitState wus : datasetWorkUnitStates) {
+      Optional<DistcpFileSplitter.Split> split = DistcpFileSplitter.getSplit(wus);
+      if (!split.isPresent()) {
+        continue;
+      }
+      CopyableFile file = (CopyableFile) CopySource.deserializeCopyEntity(wus);
+      Path outputPath =
+          FileAwareInputStreamDataWriter.getOutputFilePath(file, this.writerOutputDir, datasetAndPartition);
+      if (!partsByFile.containsKey(outputPath)) {
+        partsByFile.put(outputPath, new Path[split.get().getTotalSplits()]);
+        lengthByFile.put(outputPath, file.getOrigin().getLen());
+      }
+      if (wus.getWorkingState() == WorkingState.SUCCESSFUL) {
+        partsByFile.get(outputPath)[split.get().getSplitNumber()] =
+            DistcpFileSplitter.getSplitPath(outputPath, split.get());
+      }
+    }
+
+    for (Map.Entry<Path, Path[]> entry : partsByFile.entrySet()) {
+      List<Path> parts = Lists.newArrayList(entry.getValue());
+      if (parts.contains(null)) {
+        throw new IOException(String.format("Not all splits of %s were copied.", entry.getKey()));
+      }
+      DistcpFileSplitter.mergeSplits(this.fs, entry.getKey(), parts, lengthByFile.get(entry.getKey()));
+    }
+  }
+
   private List<CommitStep> getCommitSequence(Collection<WorkUnitState> workUnits, Class<?> baseClass)
       throws IOException {
     List<CommitStepCopyEntity> steps = Lists.newArrayList();
@@ -241,7 +284,8 @@ public class CopyDataPublisher extends DataPublisher implements UnpublishedHandl
   private int persistFailedFileSet(Collection<? extends WorkUnitState> workUnitStates) throws IOException {
     int filesPersisted = 0;
     for (WorkUnitState wu : workUnitStates) {
-      if (wu.getWorkingState() == WorkingState.SUCCESSFUL) {
+      // Persisted files are whole files, so splits of a file are not persisted
+      if (wu.getWorkingState() == WorkingState.SUCCESSFUL && !DistcpFileSplitter.getSplit(wu).isPresent()) {
         CopyEntity entity = CopySource.deserializeCopyEntity(wu);
         if (entity instanceof CopyableFile) {
           CopyableFile file = (CopyableFile) entity;
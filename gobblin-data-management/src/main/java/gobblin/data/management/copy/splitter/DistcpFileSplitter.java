@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy.splitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.data.management.copy.CopyConfiguration;
+import gobblin.data.management.copy.CopyableFile;
+import gobblin.data.management.copy.writer.FileAwareInputStreamDataWriterBuilder;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.util.io.StreamUtils;
+
+
+/**
+ * Helper methods to copy large {@link CopyableFile}s in parallel byte ranges.
+ *
+ * <p>
+ *   If {@link #MAX_SPLIT_SIZE_KEY} is set, {@link gobblin.data.management.copy.CopySource} creates one work unit per
+ *   {@link Split} of every file larger than the split size. Each work unit copies its byte range of the origin file
+ *   to its own part file next to the destination in the writer output directory, and
+ *   {@link gobblin.data.management.copy.publisher.CopyDataPublisher} merges the parts of each file with
+ *   {@link #mergeSplits} before publishing.
+ * </p>
+ *
+ * <p>
+ *   Splits are a multiple of the block size of the origin file, so that the parts can be concatenated with
+ *   {@link FileSystem#concat} if the destination block size is the same. Otherwise, or if the target
+ *   {@link FileSystem} does not support concat, the parts are copied in order into the destination file.
+ * </p>
+ *
+ * <p>
+ *   Splitting only applies to raw copies, with {@link FileAwareInputStreamDataWriterBuilder} and no converters, since
+ *   converters and other writers don't preserve byte offsets.
+ * </p>
+ */
+@Slf4j
+public class DistcpFileSplitter {
+
+  /** Files larger than this many bytes are copied in splits of at most this size, rounded up to a block. */
+  public static final String MAX_SPLIT_SIZE_KEY = CopyConfiguration.COPY_PREFIX + ".split.maxSplitSize";
+  public static final long DEFAULT_MAX_SPLIT_SIZE = 0;
+  /** Whether to read back each part after writing it and compare its checksum with the bytes read from the origin. */
+  public static final String VERIFY_SPLIT_CHECKSUM_KEY = CopyConfiguration.COPY_PREFIX + ".split.verifyChecksum";
+  public static final boolean DEFAULT_VERIFY_SPLIT_CHECKSUM = true;
+
+  public static final String SPLIT_KEY = CopyConfiguration.COPY_PREFIX + ".split.serialized";
+
+  private static final String PART_SUFFIX = ".__PART";
+  private static final Gson GSON = new Gson();
+
+  /**
+   * A byte range of an origin file.
+   */
+  @Data
+  @AllArgsConstructor
+  public static class Split {
+    /** First byte of the range, inclusive. */
+    private final long lowPosition;
+    /** Last byte of the range, exclusive. */
+    private final long highPosition;
+    private final int splitNumber;
+    private final int totalSplits;
+
+    public long getLength() {
+      return this.highPosition - this.lowPosition;
+    }
+  }
+
+  /**
+   * @return whether files of the job described by the given {@link State} should be split.
+   */
+  public static boolean allowSplit(State state) {
+    return state.getPropAsLong(MAX_SPLIT_SIZE_KEY, DEFAULT_MAX_SPLIT_SIZE) > 0
+        && StringUtils.isBlank(state.getProp(ConfigurationKeys.CONVERTER_CLASSES_KEY))
+        && FileAwareInputStreamDataWriterBuilder.class.getName()
+            .equals(state.getProp(ConfigurationKeys.WRITER_BUILDER_CLASS));
+  }
+
+  /**
+   * Split the given work unit, which copies the given {@link CopyableFile}, into one work unit per {@link Split}.
+   * If the file is not larger than the split size, the work unit is returned as is.
+   */
+  public static List<WorkUnit> splitFile(CopyableFile file, WorkUnit workUnit, long maxSplitSize) {
+    long len = file.getOrigin().getLen();
+    long blockSize = Math.max(1, file.getOrigin().getBlockSize());
+    long splitSize = Math.max(blockSize, (maxSplitSize + blockSize - 1) / blockSize * blockSize);
+
+    List<WorkUnit> splitWorkUnits = Lists.newArrayList();
+    if (len <= splitSize) {
+      splitWorkUnits.add(workUnit);
+      return splitWorkUnits;
+    }
+
+    int totalSplits = (int) ((len + splitSize - 1) / splitSize);
+    for (int i = 0; i < totalSplits; i++) {
+      WorkUnit splitWorkUnit = WorkUnit.copyOf(workUnit);
+      long lowPosition = i * splitSize;
+      setSplit(splitWorkUnit, new Split(lowPosition, Math.min(len, lowPosition + splitSize), i, totalSplits));
+      splitWorkUnits.add(splitWorkUnit);
+    }
+    log.info(String.format("Split %s of %d bytes into %d splits of %d bytes.", file.getOrigin().getPath(), len,
+        totalSplits, splitSize));
+    return splitWorkUnits;
+  }
+
+  public static void setSplit(State state, Split split) {
+    state.setProp(SPLIT_KEY, GSON.toJson(split));
+  }
+
+  public static Optional<Split> getSplit(State state) {
+    return state.contains(SPLIT_KEY) ? Optional.of(GSON.fromJson(state.getProp(SPLIT_KEY), Split.class))
+        : Optional.<Split> absent();
+  }
+
+  /**
+   * @return the path at which the part of the given {@link Split} of the file at the given path is written.
+   */
+  public static Path getSplitPath(Path path, Split split) {
+    return new Path(path.getParent(), path.getName() + PART_SUFFIX + split.getSplitNumber());
+  }
+
+  /**
+   * Merge the given parts, in order, into the file at the given path, and delete the parts.
+   *
+   * @param expectedLength the length of the origin file, checked against the merged file.
+   */
+  public static void mergeSplits(FileSystem fs, Path target, List<Path> parts, long expectedLength)
+      throws IOException {
+    Path first = parts.get(0);
+    boolean merged = false;
+    if (parts.size() > 1) {
+      try {
+        fs.concat(first, parts.subList(1, parts.size()).toArray(new Path[parts.size() - 1]));
+        merged = true;
+      } catch (UnsupportedOperationException | IOException exc) {
+        log.info(String.format("Could not concat parts of %s, will merge them in order: %s", target, exc));
+      }
+    } else {
+      merged = true;
+    }
+
+    if (merged) {
+      if (!fs.rename(first, target)) {
+        throw new IOException(String.format("Could not move %s to %s.", first, target));
+      }
+    } else {
+      orderedMerge(fs, target, parts);
+    }
+
+    long mergedLength = fs.getFileStatus(target).getLen();
+    if (mergedLength != expectedLength) {
+      throw new IOException(String.format("Merged file %s has %d bytes, expected %d.", target, mergedLength,
+          expectedLength));
+    }
+    log.info(String.format("Merged %d parts into %s.", parts.size(), target));
+  }
+
+  private static void orderedMerge(FileSystem fs, Path target, List<Path> parts) throws IOException {
+    FileStatus firstStatus = fs.getFileStatus(parts.get(0));
+    Path tmpTarget = new Path(target.getParent(), target.getName() + PART_SUFFIX + "merge");
+    try (OutputStream os = fs.create(tmpTarget, true, fs.getConf().getInt("io.file.buffer.size", 4096),
+        firstStatus.getReplication(), firstStatus.getBlockSize())) {
+      for (Path part : parts) {
+        try (InputStream is = fs.open(part)) {
+          StreamUtils.copy(is, os);
+        }
+      }
+    }
+
+    fs.setPermission(tmpTarget, firstStatus.getPermission());
+    try {
+      fs.setOwner(tmpTarget, firstStatus.getOwner(), firstStatus.getGroup());
+    } catch (IOException ioe) {
+      log.warn("Failed to set owner and/or group for path " + tmpTarget, ioe);
+    }
+    if (!fs.rename(tmpTarget, target)) {
+      throw new IOException(String.format("Could not move %s to %s.", tmpTarget, target));
+    }
+    for (Path part : parts) {
+      fs.delete(part, false);
+    }
+    log.debug("Merged parts " + Arrays.toString(parts.toArray()));
+  }
+}
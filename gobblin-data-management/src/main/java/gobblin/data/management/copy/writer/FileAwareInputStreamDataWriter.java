@@ -22,21 +22,36 @@ import gobblin.data.management.copy.FileAwareInputStream;
 import gobblin.data.management.copy.OwnerAndPermission;
 import gobblin.data.management.copy.PreserveAttributes;
 import gobblin.data.management.copy.recovery.RecoveryHelper;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
+import gobblin.instrumented.Instrumented;
+import gobblin.metrics.MetricContext;
 import gobblin.state.ConstructState;
 import gobblin.util.FinalState;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.PathUtils;
 import gobblin.util.FileListUtils;
 import gobblin.util.ForkOperatorUtils;
 import gobblin.util.WriterUtils;
-import gobblin.util.io.StreamUtils;
+import gobblin.util.io.StreamCopier;
 import gobblin.writer.DataWriter;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -49,10 +64,14 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterators;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Closer;
 
 
@@ -62,6 +81,34 @@ import com.google.common.io.Closer;
 @Slf4j
 public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInputStream>, FinalState {
 
+  /** Size in bytes of the buffers used to copy each file. */
+  public static final String BUFFER_SIZE_KEY = "gobblin.copy.writer.bufferSize";
+  /** Whether to read the next buffer from the origin while the previous one is written to the destination. */
+  public static final String DOUBLE_BUFFERED_KEY = "gobblin.copy.writer.doubleBuffered";
+  public static final boolean DEFAULT_DOUBLE_BUFFERED = true;
+  /** Files smaller than this many bytes are copied without double buffering, even if it is enabled. */
+  public static final String DOUBLE_BUFFERED_MIN_FILE_SIZE_KEY = "gobblin.copy.writer.doubleBufferedMinFileSize";
+  public static final long DEFAULT_DOUBLE_BUFFERED_MIN_FILE_SIZE = 8 * StreamCopier.DEFAULT_BUFFER_SIZE;
+  /**
+   * Whether to copy files between local file systems with {@link FileChannel#transferTo}. Only applies if there are no
+   * converters, since the file is then copied as is. The file is read and written with {@link java.io.File}s instead
+   * of the writer's {@link FileSystem} and the extractor's stream, so no checksum file is written for it, and any
+   * throttling or metering of the extractor's stream is skipped.
+   */
+  public static final String TRANSFER_LOCAL_FILES_KEY = "gobblin.copy.writer.transferLocalFiles";
+  public static final boolean DEFAULT_TRANSFER_LOCAL_FILES = false;
+
+  public static final String BYTES_COPIED_METER = "gobblin.copy.writer.bytes.copied";
+  public static final String READ_WAIT_TIMER = "gobblin.copy.writer.read.wait.time";
+  public static final String WRITE_WAIT_TIMER = "gobblin.copy.writer.write.wait.time";
+  public static final String FILE_BYTES_PER_SECOND_HISTOGRAM = "gobblin.copy.writer.file.bytes.per.second";
+
+  private static final String LOCAL_FS_SCHEME = "file";
+
+  // Threads reading ahead of the writes of double-buffered copies, shared by all writers of the JVM
+  private static final ExecutorService COPY_READER_EXECUTOR = Executors.newCachedThreadPool(
+      ExecutorsUtils.newDaemonThreadFactory(Optional.of(log), Optional.of("FileAwareInputStreamDataWriter-reader-%d")));
+
   protected final AtomicLong bytesWritten = new AtomicLong();
   protected final AtomicLong filesWritten = new AtomicLong();
   protected final State state;
@@ -71,12 +118,20 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
   protected final Closer closer = Closer.create();
   protected CopyableDatasetMetadata copyableDatasetMetadata;
   protected final RecoveryHelper recoveryHelper;
+  /** The byte range of the origin file copied by this writer, if the file was split. */
+  protected final Optional<DistcpFileSplitter.Split> split;
   /**
    * The copyable file in the WorkUnit might be modified by converters (e.g. output extensions added / removed).
    * This field is set when {@link #write} is called, and points to the actual, possibly modified {@link gobblin.data.management.copy.CopyEntity}
    * that was written by this writer.
    */
   protected Optional<CopyableFile> actualProcessedCopyableFile;
+  protected final MetricContext metricContext;
+  protected final int bufferSize;
+  private final Meter bytesCopiedMeter;
+  private final Timer readWaitTimer;
+  private final Timer writeWaitTimer;
+  private final Histogram fileBytesPerSecond;
 
   public FileAwareInputStreamDataWriter(State state, int numBranches, int branchId) throws IOException {
 
@@ -96,7 +151,16 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
     this.copyableDatasetMetadata =
         CopyableDatasetMetadata.deserialize(state.getProp(CopySource.SERIALIZED_COPYABLE_DATASET));
     this.recoveryHelper = new RecoveryHelper(this.fs, state);
+    this.split = DistcpFileSplitter.getSplit(state);
     this.actualProcessedCopyableFile = Optional.absent();
+
+    this.metricContext =
+        this.closer.register(Instrumented.getMetricContext(state, FileAwareInputStreamDataWriter.class));
+    this.bufferSize = state.getPropAsInt(BUFFER_SIZE_KEY, StreamCopier.DEFAULT_BUFFER_SIZE);
+    this.bytesCopiedMeter = this.metricContext.meter(BYTES_COPIED_METER);
+    this.readWaitTimer = this.metricContext.timer(READ_WAIT_TIMER);
+    this.writeWaitTimer = this.metricContext.timer(WRITE_WAIT_TIMER);
+    this.fileBytesPerSecond = this.metricContext.histogram(FILE_BYTES_PER_SECOND_HISTOGRAM);
   }
 
   @Override
@@ -140,19 +204,26 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
         return input.getReplication() == replication && input.getBlockSize() == blockSize;
       }
     };
-    Optional<FileStatus> persistedFile =
-        this.recoveryHelper.findPersistedFile(this.state, copyableFile, fileStatusAttributesFilter);
+    // Persisted files are whole files, so they cannot be recovered for a split
+    Optional<FileStatus> persistedFile = this.split.isPresent() ? Optional.<FileStatus> absent()
+        : this.recoveryHelper.findPersistedFile(this.state, copyableFile, fileStatusAttributesFilter);
 
     if (persistedFile.isPresent()) {
       log.info(String.format("Recovering persisted file %s to %s.", persistedFile.get().getPath(), writeAt));
       this.fs.rename(persistedFile.get().getPath(), writeAt);
+    } else if (this.split.isPresent()) {
+      writeSplit(inputStream, writeAt, copyableFile, this.split.get(), replication, blockSize);
+    } else if (canTransferLocally(copyableFile)) {
+      inputStream.close();
+      transferLocalFile(copyableFile, writeAt);
     } else {
 
-      FSDataOutputStream os =
-          this.fs.create(writeAt, true, this.fs.getConf().getInt("io.file.buffer.size", 4096), replication, blockSize);
+      FSDataOutputStream os = this.fs.create(writeAt, true, this.bufferSize, replication, blockSize);
       try {
-        this.bytesWritten.addAndGet(StreamUtils.copy(inputStream, os));
-        log.info("bytes written: " + this.bytesWritten.get() + " for file " + copyableFile);
+        StreamCopier copier = createStreamCopier(inputStream, os, copyableFile.getOrigin().getLen());
+        long bytesCopied = copier.copy();
+        this.bytesWritten.addAndGet(bytesCopied);
+        logThroughput(bytesCopied, copier.getCopyNanos(), Optional.of(copier), copyableFile);
       } finally {
         os.close();
         inputStream.close();
@@ -160,6 +231,104 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
     }
   }
 
+  /**
+   * @return whether the origin and destination of the given file are both on a local file system, and the file is
+   * copied unchanged, so that it can be copied with {@link #transferLocalFile}.
+   */
+  private boolean canTransferLocally(CopyableFile copyableFile) {
+    return this.state.getPropAsBoolean(TRANSFER_LOCAL_FILES_KEY, DEFAULT_TRANSFER_LOCAL_FILES)
+        && Strings.isNullOrEmpty(this.state.getProp(ConfigurationKeys.CONVERTER_CLASSES_KEY))
+        && LOCAL_FS_SCHEME.equals(copyableFile.getOrigin().getPath().toUri().getScheme())
+        && LOCAL_FS_SCHEME.equals(this.fs.getUri().getScheme());
+  }
+
+  /**
+   * Copy a file between local file systems with {@link FileChannel#transferTo}, which avoids copying the file
+   * contents through the JVM heap.
+   */
+  private void transferLocalFile(CopyableFile copyableFile, Path writeAt) throws IOException {
+    File source = new File(copyableFile.getOrigin().getPath().toUri().getPath());
+    File target = new File(writeAt.toUri().getPath());
+    long startNanos = System.nanoTime();
+    long bytesCopied;
+    try (FileInputStream is = new FileInputStream(source); FileOutputStream os = new FileOutputStream(target)) {
+      FileChannel sourceChannel = is.getChannel();
+      bytesCopied = StreamCopier.transfer(sourceChannel, 0, sourceChannel.size(), os.getChannel());
+    }
+    this.bytesCopiedMeter.mark(bytesCopied);
+    this.bytesWritten.addAndGet(bytesCopied);
+    logThroughput(bytesCopied, System.nanoTime() - startNanos, Optional.<StreamCopier> absent(), copyableFile);
+  }
+
+  /**
+   * Create a {@link StreamCopier} for a copy of the given number of bytes. Only copies of at least
+   * {@link #DOUBLE_BUFFERED_MIN_FILE_SIZE_KEY} bytes are double buffered, since overlapping the reads and writes of a
+   * few buffers does not pay for handing them over to another thread.
+   */
+  private StreamCopier createStreamCopier(InputStream inputStream, OutputStream outputStream, long bytesToCopy) {
+    boolean doubleBuffered = this.state.getPropAsBoolean(DOUBLE_BUFFERED_KEY, DEFAULT_DOUBLE_BUFFERED)
+        && bytesToCopy >= this.state.getPropAsLong(DOUBLE_BUFFERED_MIN_FILE_SIZE_KEY,
+            DEFAULT_DOUBLE_BUFFERED_MIN_FILE_SIZE);
+    return new StreamCopier(inputStream, outputStream).withBufferSize(this.bufferSize)
+        .withDoubleBuffering(doubleBuffered).withReaderExecutor(COPY_READER_EXECUTOR)
+        .withBytesCopiedMeter(this.bytesCopiedMeter).withReadWaitTimer(this.readWaitTimer)
+        .withWriteWaitTimer(this.writeWaitTimer);
+  }
+
+  /**
+   * Record the throughput of the copy of a file, and log it along with the time spent waiting on reads and writes if
+   * the file was copied with a {@link StreamCopier}.
+   */
+  private void logThroughput(long bytes, long copyNanos, Optional<StreamCopier> copier, CopyableFile copyableFile) {
+    long bytesPerSecond = copyNanos > 0 ? bytes * TimeUnit.SECONDS.toNanos(1) / copyNanos : bytes;
+    this.fileBytesPerSecond.update(bytesPerSecond);
+    if (!copier.isPresent()) {
+      log.info(String.format("bytes written: %d for file %s (%d bytes/s)", bytes, copyableFile, bytesPerSecond));
+    } else {
+      log.info(String.format("bytes written: %d for file %s (%d bytes/s, read wait %d ms, write wait %d ms)", bytes,
+          copyableFile, bytesPerSecond, TimeUnit.NANOSECONDS.toMillis(copier.get().getReadWaitNanos()),
+          TimeUnit.NANOSECONDS.toMillis(copier.get().getWriteWaitNanos())));
+    }
+  }
+
+  /**
+   * Write the {@link DistcpFileSplitter.Split} of the origin file starting at the current position of the input stream.
+   * Unless disabled, the written part is read back and its checksum compared with the checksum of the bytes read.
+   */
+  private void writeSplit(FSDataInputStream inputStream, Path writeAt, CopyableFile copyableFile,
+      DistcpFileSplitter.Split split, short replication, long blockSize) throws IOException {
+    CRC32 sourceChecksum = new CRC32();
+    long bytesCopied;
+    FSDataOutputStream os = this.fs.create(writeAt, true, this.bufferSize, replication, blockSize);
+    try {
+      InputStream splitStream =
+          new CheckedInputStream(ByteStreams.limit(inputStream, split.getLength()), sourceChecksum);
+      bytesCopied = createStreamCopier(splitStream, os, split.getLength()).copy();
+    } finally {
+      os.close();
+      inputStream.close();
+    }
+
+    if (bytesCopied != split.getLength()) {
+      throw new IOException(String.format("Copied %d bytes for split %d of %s, expected %d.", bytesCopied,
+          split.getSplitNumber(), copyableFile.getOrigin().getPath(), split.getLength()));
+    }
+    if (this.state.getPropAsBoolean(DistcpFileSplitter.VERIFY_SPLIT_CHECKSUM_KEY,
+        DistcpFileSplitter.DEFAULT_VERIFY_SPLIT_CHECKSUM)) {
+      CRC32 writtenChecksum = new CRC32();
+      try (InputStream is = new CheckedInputStream(this.fs.open(writeAt), writtenChecksum)) {
+        ByteStreams.copy(is, ByteStreams.nullOutputStream());
+      }
+      if (writtenChecksum.getValue() != sourceChecksum.getValue()) {
+        throw new IOException(String.format("Checksum mismatch for split %d of %s written to %s.",
+            split.getSplitNumber(), copyableFile.getOrigin().getPath(), writeAt));
+      }
+    }
+    this.bytesWritten.addAndGet(bytesCopied);
+    log.info(String.format("bytes written: %d for split %d of %d of file %s", bytesCopied, split.getSplitNumber(),
+        split.getTotalSplits(), copyableFile));
+  }
+
   /**
    * Sets the owner/group and permission for the file in the task staging directory
    */
@@ -287,6 +456,9 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
     Path stagingFilePath = getStagingFilePath(copyableFile);
     Path outputFilePath = getOutputFilePath(copyableFile, this.outputDir,
         copyableFile.getDatasetAndPartition(this.copyableDatasetMetadata));
+    if (this.split.isPresent()) {
+      outputFilePath = DistcpFileSplitter.getSplitPath(outputFilePath, this.split.get());
+    }
 
     log.info(String.format("Committing data from %s to %s", stagingFilePath, outputFilePath));
     try {
@@ -303,7 +475,9 @@ public class FileAwareInputStreamDataWriter implements DataWriter<FileAwareInput
       }
     } catch (IOException ioe) {
       // persist file
-      this.recoveryHelper.persistFile(this.state, copyableFile, stagingFilePath);
+      if (!this.split.isPresent()) {
+        this.recoveryHelper.persistFile(this.state, copyableFile, stagingFilePath);
+      }
       throw ioe;
     } finally {
       try {
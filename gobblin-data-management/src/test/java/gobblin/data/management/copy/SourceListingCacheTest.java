@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+import gobblin.util.FileListUtils;
+
+
+public class SourceListingCacheTest {
+
+  private static final String DATASET = "dataset";
+
+  private File tmpDir;
+  private FileSystem fs;
+  private Path root;
+  private Path cacheDir;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.tmpDir = Files.createTempDir();
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.root = new Path(this.tmpDir.getAbsolutePath(), "root");
+    this.cacheDir = new Path(this.tmpDir.getAbsolutePath(), "cache");
+
+    createFile(new Path(this.root, "file1"));
+    createFile(new Path(this.root, "dir1/file2"));
+    createFile(new Path(this.root, "dir1/dir2/file3"));
+    createFile(new Path(this.root, "dir3/file4"));
+    // Directory modification times may only have a one second granularity, so set them explicitly
+    setModificationTime(this.root, 1000);
+    setModificationTime(new Path(this.root, "dir1"), 1000);
+    setModificationTime(new Path(this.root, "dir1/dir2"), 1000);
+    setModificationTime(new Path(this.root, "dir3"), 1000);
+  }
+
+  @Test
+  public void testListFilesRecursively() throws IOException {
+    SourceListingCache cache = new SourceListingCache(this.cacheDir, new Configuration());
+    Assert.assertEquals(listFiles(cache), expectedFiles());
+    Assert.assertEquals(cache.getDirectoryHits(), 0);
+    Assert.assertEquals(cache.getDirectoryMisses(), 4);
+
+    // Nothing changed, every directory listing is reused
+    cache = new SourceListingCache(this.cacheDir, new Configuration());
+    Assert.assertEquals(listFiles(cache), expectedFiles());
+    Assert.assertEquals(cache.getDirectoryHits(), 4);
+    Assert.assertEquals(cache.getDirectoryMisses(), 0);
+
+    // Adding a file in a nested directory only changes that directory
+    createFile(new Path(this.root, "dir1/dir2/file5"));
+    setModificationTime(new Path(this.root, "dir1/dir2"), 2000);
+    cache = new SourceListingCache(this.cacheDir, new Configuration());
+    Set<Path> files = listFiles(cache);
+    Assert.assertEquals(files, expectedFiles());
+    Assert.assertTrue(files.contains(this.fs.makeQualified(new Path(this.root, "dir1/dir2/file5"))));
+    Assert.assertEquals(cache.getDirectoryHits(), 3);
+    Assert.assertEquals(cache.getDirectoryMisses(), 1);
+
+    // Deleting a directory changes its parent
+    this.fs.delete(new Path(this.root, "dir3"), true);
+    setModificationTime(this.root, 2000);
+    cache = new SourceListingCache(this.cacheDir, new Configuration());
+    Assert.assertEquals(listFiles(cache), expectedFiles());
+    Assert.assertEquals(cache.getDirectoryHits(), 2);
+    Assert.assertEquals(cache.getDirectoryMisses(), 1);
+  }
+
+  @Test
+  public void testCorruptCacheFile() throws IOException {
+    Path otherCacheDir = new Path(this.tmpDir.getAbsolutePath(), "corruptCache");
+    SourceListingCache cache = new SourceListingCache(otherCacheDir, new Configuration());
+    listFiles(cache);
+
+    for (FileStatus cacheFile : this.fs.listStatus(otherCacheDir)) {
+      this.fs.create(cacheFile.getPath(), true).close();
+    }
+    cache = new SourceListingCache(otherCacheDir, new Configuration());
+    Assert.assertEquals(listFiles(cache), expectedFiles());
+    Assert.assertEquals(cache.getDirectoryHits(), 0);
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(this.tmpDir);
+  }
+
+  private Set<Path> listFiles(SourceListingCache cache) throws IOException {
+    return toPaths(cache.listFilesRecursively(this.fs, DATASET, this.root, FileListUtils.NO_OP_PATH_FILTER));
+  }
+
+  private Set<Path> expectedFiles() throws IOException {
+    return toPaths(FileListUtils.listFilesRecursively(this.fs, this.root));
+  }
+
+  private static Set<Path> toPaths(List<FileStatus> statuses) {
+    Set<Path> paths = Sets.newHashSet();
+    for (FileStatus status : statuses) {
+      paths.add(status.getPath());
+    }
+    return paths;
+  }
+
+  private void createFile(Path path) throws IOException {
+    this.fs.create(path, true).close();
+  }
+
+  private void setModificationTime(Path path, long modificationTime) throws IOException {
+    this.fs.setTimes(path, modificationTime, -1);
+  }
+}
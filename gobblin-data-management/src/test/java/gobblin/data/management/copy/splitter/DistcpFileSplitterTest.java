@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.data.management.copy.splitter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.data.management.copy.CopyableFile;
+import gobblin.data.management.copy.PreserveAttributes;
+import gobblin.data.management.copy.writer.FileAwareInputStreamDataWriterBuilder;
+import gobblin.source.workunit.WorkUnit;
+
+
+public class DistcpFileSplitterTest {
+
+  @Test
+  public void testSplitFile() throws Exception {
+    FileStatus status = new FileStatus(2500l, false, 1, 100l, 0l, new Path("/source/file"));
+    CopyableFile file = new CopyableFile(status, new Path("/target/file"), null, null, null,
+        PreserveAttributes.fromMnemonicString(""), "", 0, 0, Maps.<String, Object> newHashMap());
+
+    // Split size is rounded up to a multiple of the block size
+    List<WorkUnit> workUnits = DistcpFileSplitter.splitFile(file, WorkUnit.createEmpty(), 950);
+    Assert.assertEquals(workUnits.size(), 3);
+    long expectedLowPosition = 0;
+    for (int i = 0; i < workUnits.size(); i++) {
+      DistcpFileSplitter.Split split = DistcpFileSplitter.getSplit(workUnits.get(i)).get();
+      Assert.assertEquals(split.getSplitNumber(), i);
+      Assert.assertEquals(split.getTotalSplits(), 3);
+      Assert.assertEquals(split.getLowPosition(), expectedLowPosition);
+      expectedLowPosition = split.getHighPosition();
+    }
+    Assert.assertEquals(DistcpFileSplitter.getSplit(workUnits.get(0)).get().getLength(), 1000l);
+    Assert.assertEquals(expectedLowPosition, 2500l);
+
+    // Files no larger than the split size are not split
+    WorkUnit workUnit = WorkUnit.createEmpty();
+    workUnits = DistcpFileSplitter.splitFile(file, workUnit, 2500);
+    Assert.assertEquals(workUnits.size(), 1);
+    Assert.assertSame(workUnits.get(0), workUnit);
+    Assert.assertFalse(DistcpFileSplitter.getSplit(workUnit).isPresent());
+  }
+
+  @Test
+  public void testAllowSplit() {
+    State state = new State();
+    state.setProp(ConfigurationKeys.WRITER_BUILDER_CLASS, FileAwareInputStreamDataWriterBuilder.class.getName());
+    Assert.assertFalse(DistcpFileSplitter.allowSplit(state));
+
+    state.setProp(DistcpFileSplitter.MAX_SPLIT_SIZE_KEY, 1000);
+    Assert.assertTrue(DistcpFileSplitter.allowSplit(state));
+
+    state.setProp(ConfigurationKeys.CONVERTER_CLASSES_KEY, "gobblin.data.management.copy.converter.UnGzipConverter");
+    Assert.assertFalse(DistcpFileSplitter.allowSplit(state));
+  }
+
+  @Test
+  public void testMergeSplits() throws Exception {
+    File tmpDir = Files.createTempDir();
+    try {
+      FileSystem fs = FileSystem.getLocal(new Configuration());
+      Path target = new Path(tmpDir.getAbsolutePath(), "file");
+      List<Path> parts = Lists.newArrayList();
+      String[] contents = { "first-", "second-", "third" };
+      for (int i = 0; i < contents.length; i++) {
+        Path part = DistcpFileSplitter.getSplitPath(target, new DistcpFileSplitter.Split(0, 0, i, contents.length));
+        try (OutputStream os = fs.create(part)) {
+          os.write(contents[i].getBytes(Charsets.UTF_8));
+        }
+        parts.add(part);
+      }
+
+      DistcpFileSplitter.mergeSplits(fs, target, parts, 18);
+
+      try (InputStream is = fs.open(target)) {
+        Assert.assertEquals(IOUtils.toString(is, "UTF-8"), "first-second-third");
+      }
+      for (Path part : parts) {
+        Assert.assertFalse(fs.exists(part));
+      }
+
+      try {
+        DistcpFileSplitter.mergeSplits(fs, new Path(tmpDir.getAbsolutePath(), "other"),
+            Lists.newArrayList(target), 10);
+        Assert.fail("Merged file with unexpected length.");
+      } catch (IOException ioe) {
+        // expected
+      }
+    } finally {
+      FileUtils.deleteDirectory(tmpDir);
+    }
+  }
+}
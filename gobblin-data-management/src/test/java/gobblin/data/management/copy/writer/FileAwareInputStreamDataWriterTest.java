@@ -22,6 +22,7 @@ import gobblin.data.management.copy.FileAwareInputStream;
 import gobblin.data.management.copy.OwnerAndPermission;
 import gobblin.data.management.copy.PreserveAttributes;
 import gobblin.data.management.copy.TestCopyableDataset;
+import gobblin.data.management.copy.splitter.DistcpFileSplitter;
 import gobblin.util.io.StreamUtils;
 
 import java.io.File;
@@ -88,6 +89,39 @@ public class FileAwareInputStreamDataWriterTest {
     Assert.assertEquals(IOUtils.toString(new FileInputStream(writtenFilePath.toString())), streamString);
   }
 
+  @Test
+  public void testWriteSplit() throws Exception {
+    String streamString = "testContents";
+
+    FileStatus status = fs.getFileStatus(testTempPath);
+    OwnerAndPermission ownerAndPermission =
+        new OwnerAndPermission(status.getOwner(), status.getGroup(), new FsPermission(FsAction.ALL, FsAction.ALL, FsAction.ALL));
+    CopyableFile cf = CopyableFileUtils.getTestCopyableFile(ownerAndPermission);
+
+    CopyableDatasetMetadata metadata = new CopyableDatasetMetadata(new TestCopyableDataset(new Path("/source")));
+
+    WorkUnitState state = new WorkUnitState();
+    state.setProp(ConfigurationKeys.WRITER_STAGING_DIR, new Path(testTempPath, "staging").toString());
+    state.setProp(ConfigurationKeys.WRITER_OUTPUT_DIR, new Path(testTempPath, "output").toString());
+    state.setProp(ConfigurationKeys.WRITER_FILE_PATH, RandomStringUtils.randomAlphabetic(5));
+    CopySource.serializeCopyEntity(state, cf);
+    CopySource.serializeCopyableDataset(state, metadata);
+    DistcpFileSplitter.Split split = new DistcpFileSplitter.Split(4, 8, 1, 3);
+    DistcpFileSplitter.setSplit(state, split);
+
+    FileAwareInputStreamDataWriter dataWriter = new FileAwareInputStreamDataWriter(state, 1, 0);
+
+    // The extractor positions the stream at the start of the split
+    FileAwareInputStream fileAwareInputStream =
+        new FileAwareInputStream(cf, StreamUtils.convertStream(IOUtils.toInputStream(streamString.substring(4))));
+    dataWriter.write(fileAwareInputStream);
+    dataWriter.commit();
+    Path writtenFilePath = DistcpFileSplitter.getSplitPath(new Path(new Path(state.getProp(ConfigurationKeys.WRITER_OUTPUT_DIR),
+        cf.getDatasetAndPartition(metadata).identifier()), cf.getDestination()), split);
+    Assert.assertEquals(IOUtils.toString(new FileInputStream(writtenFilePath.toString())), "Cont");
+    Assert.assertEquals(dataWriter.bytesWritten(), 4);
+  }
+
   @Test
   public void testCommit() throws IOException {
 
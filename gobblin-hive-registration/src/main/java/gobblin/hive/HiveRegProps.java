@@ -39,6 +39,12 @@ public class HiveRegProps extends State {
   public static final String HIVE_DB_ROOT_DIR = "hive.db.root.dir";
   public static final String HIVE_REGISTER_THREADS = "hive.register.threads";
   public static final int DEFAULT_HIVE_REGISTER_THREADS = 20;
+  public static final String HIVE_REGISTER_BATCH_ENABLED = "hive.register.batch.enabled";
+  public static final boolean DEFAULT_HIVE_REGISTER_BATCH_ENABLED = false;
+  public static final String HIVE_REGISTER_BATCH_SIZE = "hive.register.batch.size";
+  public static final int DEFAULT_HIVE_REGISTER_BATCH_SIZE = 1000;
+  public static final String HIVE_REGISTER_CACHE_ENABLED = "hive.register.cache.enabled";
+  public static final boolean DEFAULT_HIVE_REGISTER_CACHE_ENABLED = false;
   public static final String HIVE_TABLE_PARTITION_PROPS = "hive.table.partition.props";
   public static final String HIVE_STORAGE_PROPS = "hive.storage.props";
   public static final String HIVE_SERDE_PROPS = "hive.serde.props";
@@ -115,4 +121,28 @@ public class HiveRegProps extends State {
   public int getNumThreads() {
     return getPropAsInt(HIVE_REGISTER_THREADS, DEFAULT_HIVE_REGISTER_THREADS);
   }
+
+  /**
+   * Whether partitions should be registered in batches, from {@link #HIVE_REGISTER_BATCH_ENABLED}, with a default
+   * value of {@link #DEFAULT_HIVE_REGISTER_BATCH_ENABLED}.
+   */
+  public boolean isBatchEnabled() {
+    return getPropAsBoolean(HIVE_REGISTER_BATCH_ENABLED, DEFAULT_HIVE_REGISTER_BATCH_ENABLED);
+  }
+
+  /**
+   * Get the maximum number of partitions per metastore call in batch mode from {@link #HIVE_REGISTER_BATCH_SIZE},
+   * with a default value of {@link #DEFAULT_HIVE_REGISTER_BATCH_SIZE}.
+   */
+  public int getBatchSize() {
+    return getPropAsInt(HIVE_REGISTER_BATCH_SIZE, DEFAULT_HIVE_REGISTER_BATCH_SIZE);
+  }
+
+  /**
+   * Whether the metastore metadata seen by a {@link HiveRegister} should be cached for its lifetime, from
+   * {@link #HIVE_REGISTER_CACHE_ENABLED}, with a default value of {@link #DEFAULT_HIVE_REGISTER_CACHE_ENABLED}.
+   */
+  public boolean isCacheEnabled() {
+    return getPropAsBoolean(HIVE_REGISTER_CACHE_ENABLED, DEFAULT_HIVE_REGISTER_CACHE_ENABLED);
+  }
 }
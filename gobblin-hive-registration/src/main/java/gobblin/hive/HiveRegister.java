@@ -15,6 +15,7 @@ package gobblin.hive;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -26,6 +27,7 @@ import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -38,6 +40,7 @@ import gobblin.hive.spec.HiveSpecWithPostActivities;
 import gobblin.hive.spec.HiveSpecWithPreActivities;
 import gobblin.hive.spec.HiveSpecWithPredicates;
 import gobblin.hive.spec.activity.Activity;
+import gobblin.metrics.MetricContext;
 import gobblin.util.ExecutorsUtils;
 import gobblin.util.executors.ScalingThreadPoolExecutor;
 import lombok.Getter;
@@ -67,10 +70,17 @@ public abstract class HiveRegister implements Closeable {
 
   protected final Optional<String> hiveDbRootDir;
   protected final ListeningExecutorService executor;
+  // Guarded by itself
   protected final List<Future<Void>> futures = Lists.newArrayList();
+  protected final Closer closer = Closer.create();
+
+  @Getter
+  protected final MetricContext metricContext;
 
   protected HiveRegister(State state) {
     this.props = new HiveRegProps(state);
+    this.metricContext =
+        this.closer.register(MetricContext.builder(getClass().getSimpleName() + "_" + UUID.randomUUID()).build());
     this.hiveDbRootDir = this.props.getDbRootDir();
     this.executor = MoreExecutors.listeningDecorator(
         ScalingThreadPoolExecutor.newScalingThreadPool(0, this.props.getNumThreads(), TimeUnit.SECONDS.toMillis(10),
@@ -90,34 +100,51 @@ public abstract class HiveRegister implements Closeable {
 
       @Override
       public Void call() throws Exception {
-
-        if (spec instanceof HiveSpecWithPredicates && !evaluatePredicates((HiveSpecWithPredicates) spec)) {
-          log.info("Skipping " + spec + " since predicates return false");
-          return null;
-        }
-
-        if (spec instanceof HiveSpecWithPreActivities) {
-          for (Activity activity : ((HiveSpecWithPreActivities) spec).getPreActivities()) {
-            activity.execute(HiveRegister.this);
-          }
-        }
-
-        registerPath(spec);
-
-        if (spec instanceof HiveSpecWithPostActivities) {
-          for (Activity activity : ((HiveSpecWithPostActivities) spec).getPostActivities()) {
-            activity.execute(HiveRegister.this);
-          }
+        if (beforeRegisterPath(spec)) {
+          registerPath(spec);
+          afterRegisterPath(spec);
         }
-
         return null;
       }
 
     });
-    this.futures.add(future);
+    synchronized (this.futures) {
+      this.futures.add(future);
+    }
     return future;
   }
 
+  /**
+   * Evaluate the {@link Predicate}s of the given {@link HiveSpec}, and execute its pre-activities if all
+   * {@link Predicate}s return true.
+   *
+   * @return false if the {@link HiveSpec} should be skipped, true otherwise.
+   */
+  protected boolean beforeRegisterPath(HiveSpec spec) throws IOException {
+    if (spec instanceof HiveSpecWithPredicates && !evaluatePredicates((HiveSpecWithPredicates) spec)) {
+      log.info("Skipping " + spec + " since predicates return false");
+      return false;
+    }
+
+    if (spec instanceof HiveSpecWithPreActivities) {
+      for (Activity activity : ((HiveSpecWithPreActivities) spec).getPreActivities()) {
+        activity.execute(this);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Execute the post-activities of the given {@link HiveSpec}.
+   */
+  protected void afterRegisterPath(HiveSpec spec) throws IOException {
+    if (spec instanceof HiveSpecWithPostActivities) {
+      for (Activity activity : ((HiveSpecWithPostActivities) spec).getPostActivities()) {
+        activity.execute(this);
+      }
+    }
+  }
+
   private boolean evaluatePredicates(HiveSpecWithPredicates spec) {
     for (Predicate<HiveRegister> pred : spec.getPredicates()) {
       if (!pred.apply(this)) {
@@ -314,7 +341,11 @@ public abstract class HiveRegister implements Closeable {
   @Override
   public void close() throws IOException {
     try {
-      for (Future<Void> future : this.futures) {
+      List<Future<Void>> futures;
+      synchronized (this.futures) {
+        futures = Lists.newArrayList(this.futures);
+      }
+      for (Future<Void> future : futures) {
         future.get();
       }
     } catch (InterruptedException e) {
@@ -323,6 +354,7 @@ public abstract class HiveRegister implements Closeable {
       throw new IOException(e.getCause());
     } finally {
       ExecutorsUtils.shutdownExecutorService(this.executor, Optional.of(log));
+      this.closer.close();
     }
   }
 
@@ -15,12 +15,17 @@ package gobblin.hive.metastore;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.metastore.IMetaStoreClient;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.Table;
@@ -28,6 +33,11 @@ import org.apache.thrift.TException;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import gobblin.annotation.Alpha;
 import gobblin.configuration.State;
@@ -59,6 +69,20 @@ import lombok.extern.slf4j.Slf4j;
  *   thread pool whose size is controlled by {@link HiveRegProps#HIVE_REGISTER_THREADS}.
  * </p>
  *
+ * <p>
+ *   If {@link HiveRegProps#HIVE_REGISTER_BATCH_ENABLED} is true, {@link HiveSpec}s with a partition are grouped by
+ *   table instead of being registered one at a time. Once {@link HiveRegProps#HIVE_REGISTER_BATCH_SIZE} of them are
+ *   pending for a table, when a caller waits on the future of one of them, or when this register is closed, the
+ *   existing partitions are fetched with a single call, and the new and changed partitions are added and altered
+ *   with a single call each. If a batch call fails, the partitions of the batch are registered one at a time.
+ * </p>
+ *
+ * <p>
+ *   If {@link HiveRegProps#HIVE_REGISTER_CACHE_ENABLED} is true, the databases, tables and partition names seen by
+ *   this register are kept in a {@link HiveMetaStoreCache} until it is closed, and metastore calls whose result is
+ *   known from the cache are skipped.
+ * </p>
+ *
  * @author ziliu
  */
 @Slf4j
@@ -67,6 +91,64 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
 
   private final HiveMetastoreClientPool clientPool;
   private final HiveLock locks = new HiveLock();
+  private final boolean batchEnabled;
+  private final int batchSize;
+  private final Optional<HiveMetaStoreCache> cache;
+  // Partition registrations pending in batch mode, keyed by db name and table name
+  private final Map<List<String>, List<PendingRegistration>> pendingRegistrations = Maps.newHashMap();
+
+  /**
+   * A {@link HiveSpec} pending registration in batch mode, and the future returned for it by
+   * {@link #register(HiveSpec)}.
+   */
+  private class PendingRegistration {
+    private final HiveSpec spec;
+    private final List<String> tableKey;
+    private final RegistrationFuture future = new RegistrationFuture(this);
+
+    private PendingRegistration(HiveSpec spec, List<String> tableKey) {
+      this.spec = spec;
+      this.tableKey = tableKey;
+    }
+  }
+
+  /**
+   * The future of a {@link PendingRegistration}. Waiting on it submits the pending batch of its table, so that a
+   * caller waiting for a registration does not depend on other registrations of the table or on {@link #close()}.
+   */
+  private class RegistrationFuture extends AbstractFuture<Void> {
+    private final PendingRegistration registration;
+
+    private RegistrationFuture(PendingRegistration registration) {
+      this.registration = registration;
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+      if (!isDone()) {
+        submitPendingBatch(this.registration.tableKey);
+      }
+      return super.get();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException, ExecutionException {
+      if (!isDone()) {
+        submitPendingBatch(this.registration.tableKey);
+      }
+      return super.get(timeout, unit);
+    }
+
+    @Override
+    protected boolean set(Void value) {
+      return super.set(value);
+    }
+
+    @Override
+    protected boolean setException(Throwable throwable) {
+      return super.setException(throwable);
+    }
+  }
 
   public HiveMetaStoreBasedRegister(State state, Optional<String> metastoreURI) throws IOException {
     super(state);
@@ -75,6 +157,245 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
     config.setMaxTotal(this.props.getNumThreads());
     config.setMaxIdle(this.props.getNumThreads());
     this.clientPool = HiveMetastoreClientPool.get(this.props.getProperties(), metastoreURI);
+    this.batchEnabled = this.props.isBatchEnabled();
+    this.batchSize = this.props.getBatchSize();
+    Preconditions.checkArgument(this.batchSize > 0, HiveRegProps.HIVE_REGISTER_BATCH_SIZE + " must be positive");
+    this.cache = this.props.isCacheEnabled() ? Optional.of(new HiveMetaStoreCache(this.metricContext))
+        : Optional.<HiveMetaStoreCache> absent();
+  }
+
+  /**
+   * In batch mode, a {@link HiveSpec} with a partition is not registered right away, but added to the pending
+   * registrations of its table. The returned {@link ListenableFuture} completes once the batch containing the
+   * {@link HiveSpec} has been registered.
+   */
+  @Override
+  public ListenableFuture<Void> register(HiveSpec spec) {
+    if (!this.batchEnabled || !spec.getPartition().isPresent()) {
+      return super.register(spec);
+    }
+
+    List<String> tableKey = ImmutableList.of(spec.getTable().getDbName(), spec.getTable().getTableName());
+    PendingRegistration registration = new PendingRegistration(spec, tableKey);
+    List<PendingRegistration> batch = null;
+    synchronized (this.pendingRegistrations) {
+      synchronized (this.futures) {
+        this.futures.add(registration.future);
+      }
+      List<PendingRegistration> pending = this.pendingRegistrations.get(tableKey);
+      if (pending == null) {
+        pending = Lists.newArrayList();
+        this.pendingRegistrations.put(tableKey, pending);
+      }
+      pending.add(registration);
+      if (pending.size() >= this.batchSize) {
+        batch = this.pendingRegistrations.remove(tableKey);
+      }
+    }
+    if (batch != null) {
+      submitBatch(batch);
+    }
+    return registration.future;
+  }
+
+  /**
+   * Register the pending partitions of all tables before waiting for all registrations to finish.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      List<List<PendingRegistration>> batches;
+      synchronized (this.pendingRegistrations) {
+        batches = Lists.newArrayList(this.pendingRegistrations.values());
+        this.pendingRegistrations.clear();
+      }
+      for (List<PendingRegistration> batch : batches) {
+        submitBatch(batch);
+      }
+    } finally {
+      try {
+        super.close();
+      } finally {
+        if (this.cache.isPresent()) {
+          log.info(String.format("Hive metastore cache had %d hits and %d misses, and avoided %d metastore calls",
+              this.cache.get().getHits(), this.cache.get().getMisses(), this.cache.get().getCallsAvoided()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Submit the pending registrations of the given table, if any.
+   */
+  private void submitPendingBatch(List<String> tableKey) {
+    List<PendingRegistration> batch;
+    synchronized (this.pendingRegistrations) {
+      batch = this.pendingRegistrations.remove(tableKey);
+    }
+    if (batch != null) {
+      submitBatch(batch);
+    }
+  }
+
+  private void submitBatch(final List<PendingRegistration> batch) {
+    this.executor.submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          registerBatch(batch);
+        } catch (Throwable t) {
+          for (PendingRegistration registration : batch) {
+            registration.future.setException(t);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Register a batch of {@link HiveSpec}s of the same table. The db is created once, and the table is created or
+   * altered once per run of consecutive {@link HiveSpec}s with the same table definition, so that the table ends up
+   * with the definition of the last {@link HiveSpec}. The partitions of each run are added or altered in chunks of
+   * {@link #batchSize}.
+   */
+  private void registerBatch(List<PendingRegistration> batch) {
+    List<PendingRegistration> toRegister = Lists.newArrayList();
+    for (PendingRegistration registration : batch) {
+      try {
+        if (beforeRegisterPath(registration.spec)) {
+          toRegister.add(registration);
+        } else {
+          registration.future.set(null);
+        }
+      } catch (Throwable t) {
+        registration.future.setException(t);
+      }
+    }
+    if (toRegister.isEmpty()) {
+      return;
+    }
+
+    List<Table> tables = Lists.newArrayListWithCapacity(toRegister.size());
+    for (PendingRegistration registration : toRegister) {
+      tables.add(HiveMetaStoreUtils.getTable(registration.spec.getTable()));
+    }
+
+    try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
+      createDbIfNotExists(client.get(), tables.get(0).getDbName());
+
+      int runStart = 0;
+      while (runStart < toRegister.size()) {
+        Table table = tables.get(runStart);
+        int runEnd = runStart + 1;
+        while (runEnd < toRegister.size() && tables.get(runEnd).equals(table)) {
+          runEnd++;
+        }
+        createOrAlterTable(client.get(), table, toRegister.get(runStart).spec);
+
+        try (AutoCloseableLock lock = this.locks.getTableLock(table.getDbName(), table.getTableName())) {
+          for (List<PendingRegistration> chunk : Lists.partition(toRegister.subList(runStart, runEnd),
+              this.batchSize)) {
+            addOrAlterPartitions(client.get(), table, chunk);
+          }
+        }
+        runStart = runEnd;
+      }
+    } catch (IOException | TException e) {
+      for (PendingRegistration registration : toRegister) {
+        registration.future.setException(e);
+      }
+      return;
+    }
+
+    for (PendingRegistration registration : toRegister) {
+      if (registration.future.isDone()) {
+        continue;
+      }
+      try {
+        afterRegisterPath(registration.spec);
+        registration.future.set(null);
+      } catch (Throwable t) {
+        registration.future.setException(t);
+      }
+    }
+  }
+
+  /**
+   * Add or alter the partitions of a chunk of {@link HiveSpec}s of the given table, using one call to get the
+   * existing partitions, one call to add the new partitions and one call to alter the changed partitions. If any of
+   * these calls fails, fall back to {@link #addOrAlterPartition(IMetaStoreClient, Table, Partition, HiveSpec)} for
+   * each partition.
+   *
+   * <p>
+   *   The futures of the {@link HiveSpec}s whose partition failed to register are completed exceptionally.
+   * </p>
+   */
+  private void addOrAlterPartitions(IMetaStoreClient client, Table table, List<PendingRegistration> chunk)
+      throws TException {
+    String dbName = table.getDbName();
+    String tableName = table.getTableName();
+
+    // If the chunk contains the same partition more than once, the last registration wins
+    Map<String, PendingRegistration> registrations = Maps.newLinkedHashMap();
+    for (PendingRegistration registration : chunk) {
+      List<String> values = registration.spec.getPartition().get().getValues();
+      if (table.getPartitionKeysSize() != values.size()) {
+        registration.future.setException(new IllegalArgumentException(
+            String.format("Partition key size is %s but partition value size is %s", table.getPartitionKeysSize(),
+                values.size())));
+        continue;
+      }
+      registrations.put(getPartitionName(table, values), registration);
+    }
+    if (registrations.isEmpty()) {
+      return;
+    }
+
+    try {
+      Map<String, Partition> existingPartitions = Maps.newHashMap();
+      for (Partition existingPartition : client.getPartitionsByNames(dbName, tableName,
+          Lists.newArrayList(registrations.keySet()))) {
+        existingPartitions.put(getPartitionName(table, existingPartition.getValues()), existingPartition);
+      }
+
+      List<Partition> partitionsToAdd = Lists.newArrayList();
+      List<Partition> partitionsToAlter = Lists.newArrayList();
+      for (Map.Entry<String, PendingRegistration> entry : registrations.entrySet()) {
+        HivePartition partition = entry.getValue().spec.getPartition().get();
+        Partition existingPartition = existingPartitions.get(entry.getKey());
+        if (existingPartition == null) {
+          partitionsToAdd.add(HiveMetaStoreUtils.getPartition(partition));
+        } else if (needToUpdatePartition(HiveMetaStoreUtils.getHivePartition(existingPartition), partition)) {
+          partitionsToAlter.add(HiveMetaStoreUtils.getPartition(partition));
+        }
+      }
+
+      if (!partitionsToAdd.isEmpty()) {
+        client.add_partitions(partitionsToAdd, true, false);
+      }
+      if (!partitionsToAlter.isEmpty()) {
+        client.alter_partitions(dbName, tableName, partitionsToAlter);
+      }
+      if (this.cache.isPresent()) {
+        for (String partitionName : registrations.keySet()) {
+          this.cache.get().addPartition(dbName, tableName, partitionName);
+        }
+      }
+      log.info(String.format("Added %d partitions and updated %d partitions in table %s in db %s, %d partitions "
+          + "already exist and no need to update", partitionsToAdd.size(), partitionsToAlter.size(), tableName, dbName,
+          registrations.size() - partitionsToAdd.size() - partitionsToAlter.size()));
+    } catch (TException e) {
+      log.warn(String.format("Unable to add or alter %d partitions in table %s in db %s in a batch, "
+          + "registering them one at a time", registrations.size(), tableName, dbName), e);
+      for (PendingRegistration registration : registrations.values()) {
+        try {
+          addOrAlterPartition(client, table,
+              HiveMetaStoreUtils.getPartition(registration.spec.getPartition().get()), registration.spec);
+        } catch (TException e2) {
+          registration.future.setException(new IOException(e2));
+        }
+      }
+    }
   }
 
   @Override
@@ -102,12 +423,18 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   }
 
   private boolean createDbIfNotExists(IMetaStoreClient client, String dbName) throws IOException {
+    if (this.cache.isPresent() && this.cache.get().containsDb(dbName)) {
+      this.cache.get().recordCallsAvoided(1);
+      return false;
+    }
+
     Database db = new Database();
     db.setName(dbName);
 
     try (AutoCloseableLock lock = this.locks.getDbLock(dbName)) {
       try {
         client.getDatabase(db.getName());
+        cacheDb(dbName);
         return false;
       } catch (NoSuchObjectException nsoe) {
         // proceed with create
@@ -122,8 +449,10 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
       try {
         client.createDatabase(db);
         log.info("Created database " + dbName);
+        cacheDb(dbName);
         return true;
       } catch (AlreadyExistsException e) {
+        cacheDb(dbName);
         return false;
       } catch (TException e) {
         throw new IOException("Unable to create Hive database " + dbName, e);
@@ -143,12 +472,20 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   public boolean addPartitionIfNotExists(HiveTable table, HivePartition partition) throws IOException {
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient();
         AutoCloseableLock lock = this.locks.getTableLock(table.getDbName(), table.getTableName())) {
+      Optional<String> partitionName = getCachedPartitionName(table.getPartitionKeys(), partition.getValues());
+      if (partitionName.isPresent()
+          && isPartitionCached(table.getDbName(), table.getTableName(), partitionName.get())) {
+        return false;
+      }
       try {
         client.get().getPartition(table.getDbName(), table.getTableName(), partition.getValues());
         return false;
       } catch (NoSuchObjectException e) {
         client.get().alter_partition(table.getDbName(), table.getTableName(),
             HiveMetaStoreUtils.getPartition(partition));
+        if (partitionName.isPresent()) {
+          cachePartition(table.getDbName(), table.getTableName(), partitionName.get());
+        }
         return true;
       }
     } catch (TException e) {
@@ -162,11 +499,12 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
     String tableName = table.getTableName();
 
     try (AutoCloseableLock lock = this.locks.getTableLock(dbName, tableName)) {
-      if (client.tableExists(table.getDbName(), table.getTableName())) {
+      if (isTableCached(dbName, tableName) || client.tableExists(dbName, tableName)) {
         return false;
       }
       client.createTable(table);
       log.info(String.format("Created Hive table %s in db %s", tableName, dbName));
+      cacheNewTable(table);
       return true;
     } catch (TException e) {
       throw new IOException(String.format("Error in creating or altering Hive table %s in db %s", table.getTableName(),
@@ -179,15 +517,32 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
     String dbName = table.getDbName();
     String tableName = table.getTableName();
     try (AutoCloseableLock lock = this.locks.getTableLock(dbName, tableName)) {
+      Optional<Table> cachedTable =
+          this.cache.isPresent() ? this.cache.get().getTable(dbName, tableName) : Optional.<Table> absent();
+      if (cachedTable.isPresent()) {
+        // Both the createTable call that would fail and the getTable call are avoided
+        this.cache.get().recordCallsAvoided(2);
+        if (needToUpdateTable(HiveMetaStoreUtils.getHiveTable(cachedTable.get()), spec.getTable())) {
+          client.alter_table(dbName, tableName, table);
+          log.info(String.format("updated Hive table %s in db %s", tableName, dbName));
+          cacheTable(table);
+        }
+        return;
+      }
+
       try {
         client.createTable(table);
         log.info(String.format("Created Hive table %s in db %s", tableName, dbName));
+        cacheNewTable(table);
       } catch (TException e) {
         try {
-          HiveTable existingTable = HiveMetaStoreUtils.getHiveTable(client.getTable(dbName, tableName));
-          if (needToUpdateTable(existingTable, spec.getTable())) {
+          Table existingTable = client.getTable(dbName, tableName);
+          if (needToUpdateTable(HiveMetaStoreUtils.getHiveTable(existingTable), spec.getTable())) {
             client.alter_table(dbName, tableName, table);
             log.info(String.format("updated Hive table %s in db %s", tableName, dbName));
+            cacheTable(table);
+          } else {
+            cacheTable(existingTable);
           }
         } catch (TException e2) {
           log.error(
@@ -201,6 +556,9 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
 
   @Override
   public boolean existsTable(String dbName, String tableName) throws IOException {
+    if (isTableCached(dbName, tableName)) {
+      return true;
+    }
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
       return client.get().tableExists(dbName, tableName);
     } catch (TException e) {
@@ -208,9 +566,22 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
     }
   }
 
+  /**
+   * Check the existence of a partition in the cached partition names of its table. On a cache miss, the partition is
+   * looked up by itself rather than by listing all partition names of the table, which may have a very large number
+   * of partitions.
+   */
   @Override
   public boolean existsPartition(String dbName, String tableName, List<Column> partitionKeys,
       List<String> partitionValues) throws IOException {
+    Optional<String> partitionName = getCachedPartitionName(partitionKeys, partitionValues);
+    if (partitionName.isPresent()) {
+      Optional<Boolean> cachedResult = this.cache.get().containsPartition(dbName, tableName, partitionName.get());
+      if (cachedResult.isPresent()) {
+        this.cache.get().recordCallsAvoided(1);
+        return cachedResult.get();
+      }
+    }
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
       client.get().getPartition(dbName, tableName, partitionValues);
       return true;
@@ -225,10 +596,13 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   @Override
   public void dropTableIfExists(String dbName, String tableName) throws IOException {
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
-      if (client.get().tableExists(dbName, tableName)) {
+      if (isTableCached(dbName, tableName) || client.get().tableExists(dbName, tableName)) {
         client.get().dropTable(dbName, tableName);
         log.info("Dropped table " + tableName + " in db " + dbName);
       }
+      if (this.cache.isPresent()) {
+        this.cache.get().removeTable(dbName, tableName);
+      }
     } catch (TException e) {
       throw new IOException(String.format("Unable to deregister table %s in db %s", tableName, dbName), e);
     }
@@ -237,9 +611,18 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   @Override
   public void dropPartitionIfExists(String dbName, String tableName, List<Column> partitionKeys,
       List<String> partitionValues) throws IOException {
+    Optional<String> partitionName = getCachedPartitionName(partitionKeys, partitionValues);
+    if (partitionName.isPresent()
+        && this.cache.get().containsPartition(dbName, tableName, partitionName.get()).equals(Optional.of(false))) {
+      this.cache.get().recordCallsAvoided(1);
+      return;
+    }
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
       client.get().dropPartition(dbName, tableName, partitionValues, false);
       log.info("Dropped partition " + partitionValues + " in table " + tableName + " in db " + dbName);
+      if (partitionName.isPresent()) {
+        this.cache.get().removePartition(dbName, tableName, partitionName.get());
+      }
     } catch (NoSuchObjectException e) {
       // Partition does not exist. Nothing to do
     } catch (TException e) {
@@ -254,31 +637,41 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
         String.format("Partition key size is %s but partition value size is %s", table.getPartitionKeys().size(),
             partition.getValues().size()));
 
+    String partitionName = getPartitionName(table, partition.getValues());
     try (AutoCloseableLock lock =
         this.locks.getPartitionLock(table.getDbName(), table.getTableName(), partition.getValues())) {
 
-      try {
-        client.add_partition(partition);
-        log.info(String.format("Added partition %s to table %s with location %s", stringifyPartition(partition),
-            table.getTableName(), partition.getSd().getLocation()));
-      } catch (TException e) {
+      // If the partition is known to exist, skip the add_partition call that would fail
+      String addFailure = "partition already exists";
+      if (!isPartitionCached(table.getDbName(), table.getTableName(), partitionName)) {
         try {
-          HivePartition existingPartition = HiveMetaStoreUtils
-              .getHivePartition(client.getPartition(table.getDbName(), table.getTableName(), partition.getValues()));
+          client.add_partition(partition);
+          log.info(String.format("Added partition %s to table %s with location %s", stringifyPartition(partition),
+              table.getTableName(), partition.getSd().getLocation()));
+          cachePartition(table.getDbName(), table.getTableName(), partitionName);
+          return;
+        } catch (TException e) {
+          addFailure = e.getMessage();
+        }
+      }
 
-          if (needToUpdatePartition(existingPartition, spec.getPartition().get())) {
-            client.alter_partition(table.getDbName(), table.getTableName(), partition);
-            log.info(String.format("Updated partition %s in table %s with location %s", stringifyPartition(partition),
-                table.getTableName(), partition.getSd().getLocation()));
-          } else {
-            log.info(String.format("Partition %s in table %s with location %s already exists and no need to update",
-                stringifyPartition(partition), table.getTableName(), partition.getSd().getLocation()));
-          }
-        } catch (TException e2) {
-          log.error(String.format("Unable to add or alter partition %s in table %s with location %s: " + e.getMessage(),
-              stringifyPartition(partition), table.getTableName(), partition.getSd().getLocation()), e);
-          throw e2;
+      try {
+        HivePartition existingPartition = HiveMetaStoreUtils
+            .getHivePartition(client.getPartition(table.getDbName(), table.getTableName(), partition.getValues()));
+        cachePartition(table.getDbName(), table.getTableName(), partitionName);
+
+        if (needToUpdatePartition(existingPartition, spec.getPartition().get())) {
+          client.alter_partition(table.getDbName(), table.getTableName(), partition);
+          log.info(String.format("Updated partition %s in table %s with location %s", stringifyPartition(partition),
+              table.getTableName(), partition.getSd().getLocation()));
+        } else {
+          log.info(String.format("Partition %s in table %s with location %s already exists and no need to update",
+              stringifyPartition(partition), table.getTableName(), partition.getSd().getLocation()));
         }
+      } catch (TException e2) {
+        log.error(String.format("Unable to add or alter partition %s in table %s with location %s: " + addFailure,
+            stringifyPartition(partition), table.getTableName(), partition.getSd().getLocation()), e2);
+        throw e2;
       }
     }
   }
@@ -292,8 +685,16 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
 
   @Override
   public Optional<HiveTable> getTable(String dbName, String tableName) throws IOException {
+    Optional<Table> cachedTable =
+        this.cache.isPresent() ? this.cache.get().getTable(dbName, tableName) : Optional.<Table> absent();
+    if (cachedTable.isPresent()) {
+      this.cache.get().recordCallsAvoided(1);
+      return Optional.of(HiveMetaStoreUtils.getHiveTable(cachedTable.get()));
+    }
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
-      return Optional.of(HiveMetaStoreUtils.getHiveTable(client.get().getTable(dbName, tableName)));
+      Table table = client.get().getTable(dbName, tableName);
+      cacheTable(table);
+      return Optional.of(HiveMetaStoreUtils.getHiveTable(table));
     } catch (NoSuchObjectException e) {
       return Optional.<HiveTable> absent();
     } catch (TException e) {
@@ -305,6 +706,12 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   public Optional<HivePartition> getPartition(String dbName, String tableName, List<Column> partitionKeys,
       List<String> partitionValues) throws IOException {
 
+    Optional<String> partitionName = getCachedPartitionName(partitionKeys, partitionValues);
+    if (partitionName.isPresent()
+        && this.cache.get().containsPartition(dbName, tableName, partitionName.get()).equals(Optional.of(false))) {
+      this.cache.get().recordCallsAvoided(1);
+      return Optional.<HivePartition> absent();
+    }
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
       return Optional
           .of(HiveMetaStoreUtils.getHivePartition(client.get().getPartition(dbName, tableName, partitionValues)));
@@ -319,10 +726,13 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   @Override
   public void alterTable(HiveTable table) throws IOException {
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
-      if (!client.get().tableExists(table.getDbName(), table.getTableName())) {
+      if (!isTableCached(table.getDbName(), table.getTableName())
+          && !client.get().tableExists(table.getDbName(), table.getTableName())) {
         throw new IOException("Table " + table.getTableName() + " in db " + table.getDbName() + " does not exist");
       }
-      client.get().alter_table(table.getDbName(), table.getTableName(), HiveMetaStoreUtils.getTable(table));
+      Table metaStoreTable = HiveMetaStoreUtils.getTable(table);
+      client.get().alter_table(table.getDbName(), table.getTableName(), metaStoreTable);
+      cacheTable(metaStoreTable);
     } catch (TException e) {
       throw new IOException("Unable to alter table " + table.getTableName() + " in db " + table.getDbName(), e);
     }
@@ -332,10 +742,90 @@ public class HiveMetaStoreBasedRegister extends HiveRegister {
   public void alterPartition(HiveTable table, HivePartition partition) throws IOException {
     try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
       client.get().alter_partition(table.getDbName(), table.getTableName(), HiveMetaStoreUtils.getPartition(partition));
+      Optional<String> partitionName = getCachedPartitionName(table.getPartitionKeys(), partition.getValues());
+      if (partitionName.isPresent()) {
+        cachePartition(table.getDbName(), table.getTableName(), partitionName.get());
+      }
     } catch (TException e) {
       throw new IOException(String.format("Unable to alter partition %s in table %s in db %s", partition.getValues(),
           table.getTableName(), table.getDbName()), e);
     }
   }
 
+  /**
+   * @return true if the table is known to exist from the cache, in which case the call checking its existence
+   *         is avoided.
+   */
+  private boolean isTableCached(String dbName, String tableName) {
+    if (this.cache.isPresent() && this.cache.get().getTable(dbName, tableName).isPresent()) {
+      this.cache.get().recordCallsAvoided(1);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return true if the partition is known to exist from the cache, in which case the call checking its existence
+   *         is avoided.
+   */
+  private boolean isPartitionCached(String dbName, String tableName, String partitionName) {
+    if (this.cache.isPresent()
+        && this.cache.get().containsPartition(dbName, tableName, partitionName).equals(Optional.of(true))) {
+      this.cache.get().recordCallsAvoided(1);
+      return true;
+    }
+    return false;
+  }
+
+  private void cacheDb(String dbName) {
+    if (this.cache.isPresent()) {
+      this.cache.get().addDb(dbName);
+    }
+  }
+
+  private void cacheTable(Table table) {
+    if (this.cache.isPresent()) {
+      this.cache.get().putTable(table);
+    }
+  }
+
+  /**
+   * Cache a table created by this register, which is known to have no partitions.
+   */
+  private void cacheNewTable(Table table) {
+    if (this.cache.isPresent()) {
+      this.cache.get().putTable(table);
+      this.cache.get().putPartitionNames(table.getDbName(), table.getTableName(), ImmutableList.<String> of());
+    }
+  }
+
+  private void cachePartition(String dbName, String tableName, String partitionName) {
+    if (this.cache.isPresent()) {
+      this.cache.get().addPartition(dbName, tableName, partitionName);
+    }
+  }
+
+  private static String getPartitionName(Table table, List<String> partitionValues) {
+    List<String> partitionKeyNames = Lists.newArrayList();
+    for (FieldSchema partitionKey : table.getPartitionKeys()) {
+      partitionKeyNames.add(partitionKey.getName());
+    }
+    return HiveMetaStoreCache.getPartitionName(partitionKeyNames, partitionValues);
+  }
+
+  /**
+   * @return the name of the partition if the cache is enabled, or {@link Optional#absent()} if it is disabled or the
+   *         partition cannot be named because the number of keys and values differ.
+   */
+  private Optional<String> getCachedPartitionName(List<Column> partitionKeys, List<String> partitionValues) {
+    if (!this.cache.isPresent() || partitionKeys == null || partitionKeys.size() != partitionValues.size()) {
+      return Optional.absent();
+    }
+    List<String> partitionKeyNames = Lists.newArrayList();
+    for (Column partitionKey : partitionKeys) {
+      partitionKeyNames.add(partitionKey.getName());
+    }
+    return Optional.of(HiveMetaStoreCache.getPartitionName(partitionKeyNames, partitionValues));
+  }
+
 }
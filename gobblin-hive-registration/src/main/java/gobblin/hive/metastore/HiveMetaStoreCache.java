@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.hive.metastore;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.hive.common.FileUtils;
+import org.apache.hadoop.hive.metastore.api.Table;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import gobblin.annotation.Alpha;
+import gobblin.metrics.ContextAwareCounter;
+import gobblin.metrics.MetricContext;
+
+
+/**
+ * A write-through cache of the Hive databases, tables and partition names seen by a
+ * {@link HiveMetaStoreBasedRegister}, which lets the register skip metastore calls whose result is already known.
+ *
+ * <p>
+ *   An instance of this class lives as long as the register that owns it, which is typically a single job. Entries
+ *   are loaded from the metastore on first access, and updated by the register after each of its own writes.
+ *   Changes made by other processes while the register is open are not visible through this cache.
+ * </p>
+ *
+ * <p>
+ *   Only existing databases and tables are cached. The partition names of a table are cached as a whole, so that
+ *   partitions missing from the cached set are known not to exist. Partition names listed from the metastore are only
+ *   cached if no partition of the table was added or removed through this cache while they were listed, since such
+ *   a change may be missing from the listing.
+ * </p>
+ */
+@Alpha
+public class HiveMetaStoreCache {
+
+  public static final String HITS = "hive.register.cache.hits";
+  public static final String MISSES = "hive.register.cache.misses";
+  public static final String CALLS_AVOIDED = "hive.register.cache.calls.avoided";
+
+  private final Set<String> databases = Sets.newConcurrentHashSet();
+  private final ConcurrentMap<List<String>, Table> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<List<String>, Set<String>> partitionNames = Maps.newConcurrentMap();
+  // Number of partition changes of each table, guarded by this
+  private final Map<List<String>, Long> partitionNamesVersions = Maps.newHashMap();
+
+  private final ContextAwareCounter hits;
+  private final ContextAwareCounter misses;
+  private final ContextAwareCounter callsAvoided;
+
+  public HiveMetaStoreCache(MetricContext metricContext) {
+    this.hits = metricContext.contextAwareCounter(HITS);
+    this.misses = metricContext.contextAwareCounter(MISSES);
+    this.callsAvoided = metricContext.contextAwareCounter(CALLS_AVOIDED);
+  }
+
+  /**
+   * @return true if the database is known to exist.
+   */
+  public boolean containsDb(String dbName) {
+    return record(this.databases.contains(dbName.toLowerCase()));
+  }
+
+  public void addDb(String dbName) {
+    this.databases.add(dbName.toLowerCase());
+  }
+
+  /**
+   * @return a copy of the cached {@link Table}, or {@link Optional#absent()} if the table is not cached.
+   */
+  public Optional<Table> getTable(String dbName, String tableName) {
+    Table table = this.tables.get(tableKey(dbName, tableName));
+    record(table != null);
+    return table == null ? Optional.<Table> absent() : Optional.of(table.deepCopy());
+  }
+
+  public void putTable(Table table) {
+    this.tables.put(tableKey(table.getDbName(), table.getTableName()), table.deepCopy());
+  }
+
+  /**
+   * Remove a table and its partition names from the cache.
+   */
+  public synchronized void removeTable(String dbName, String tableName) {
+    List<String> key = tableKey(dbName, tableName);
+    this.tables.remove(key);
+    this.partitionNames.remove(key);
+    incrementPartitionNamesVersion(key);
+  }
+
+  /**
+   * @return whether the partition exists, or {@link Optional#absent()} if the partition names of the table are not
+   *         cached.
+   */
+  public Optional<Boolean> containsPartition(String dbName, String tableName, String partitionName) {
+    Set<String> names = this.partitionNames.get(tableKey(dbName, tableName));
+    record(names != null);
+    return names == null ? Optional.<Boolean> absent() : Optional.of(names.contains(partitionName));
+  }
+
+  /**
+   * Get the version of the partition names of a table, which changes whenever a partition of the table is added or
+   * removed through this cache. It should be taken before listing the partition names from the metastore, and
+   * passed to {@link #putPartitionNames(String, String, Collection, long)}.
+   */
+  public synchronized long getPartitionNamesVersion(String dbName, String tableName) {
+    Long version = this.partitionNamesVersions.get(tableKey(dbName, tableName));
+    return version == null ? 0 : version;
+  }
+
+  /**
+   * Cache all partition names of a table, as listed from the metastore, unless a partition of the table has been
+   * added or removed since the given version was taken.
+   *
+   * @return true if the partition names are cached.
+   */
+  public synchronized boolean putPartitionNames(String dbName, String tableName, Collection<String> names,
+      long version) {
+    if (getPartitionNamesVersion(dbName, tableName) != version) {
+      return false;
+    }
+    putPartitionNames(dbName, tableName, names);
+    return true;
+  }
+
+  /**
+   * Cache all partition names of a table, e.g., of a table that was just created and has no partitions.
+   */
+  public synchronized void putPartitionNames(String dbName, String tableName, Collection<String> names) {
+    Set<String> nameSet = Sets.newConcurrentHashSet();
+    nameSet.addAll(names);
+    this.partitionNames.put(tableKey(dbName, tableName), nameSet);
+  }
+
+  /**
+   * Add a partition name to a table whose partition names are cached. The partition names of the table are not
+   * cached otherwise, but partition names being listed concurrently will not be cached either.
+   */
+  public synchronized void addPartition(String dbName, String tableName, String partitionName) {
+    List<String> key = tableKey(dbName, tableName);
+    incrementPartitionNamesVersion(key);
+    Set<String> names = this.partitionNames.get(key);
+    if (names != null) {
+      names.add(partitionName);
+    }
+  }
+
+  public synchronized void removePartition(String dbName, String tableName, String partitionName) {
+    List<String> key = tableKey(dbName, tableName);
+    incrementPartitionNamesVersion(key);
+    Set<String> names = this.partitionNames.get(key);
+    if (names != null) {
+      names.remove(partitionName);
+    }
+  }
+
+  /**
+   * Record the number of metastore calls skipped thanks to a cache hit.
+   */
+  public void recordCallsAvoided(int calls) {
+    this.callsAvoided.inc(calls);
+  }
+
+  public long getHits() {
+    return this.hits.getCount();
+  }
+
+  public long getMisses() {
+    return this.misses.getCount();
+  }
+
+  public long getCallsAvoided() {
+    return this.callsAvoided.getCount();
+  }
+
+  /**
+   * Get the name of a partition as stored in the metastore, e.g., "datepartition=2016-01-01".
+   *
+   * @param partitionKeyNames names of the partition keys of the table
+   * @param partitionValues values of the partition
+   */
+  public static String getPartitionName(List<String> partitionKeyNames, List<String> partitionValues) {
+    List<String> lowerCaseKeyNames = Lists.newArrayListWithCapacity(partitionKeyNames.size());
+    for (String keyName : partitionKeyNames) {
+      lowerCaseKeyNames.add(keyName.toLowerCase());
+    }
+    return FileUtils.makePartName(lowerCaseKeyNames, partitionValues);
+  }
+
+  private boolean record(boolean hit) {
+    if (hit) {
+      this.hits.inc();
+    } else {
+      this.misses.inc();
+    }
+    return hit;
+  }
+
+  private void incrementPartitionNamesVersion(List<String> key) {
+    Long version = this.partitionNamesVersions.get(key);
+    this.partitionNamesVersions.put(key, version == null ? 1 : version + 1);
+  }
+
+  private static List<String> tableKey(String dbName, String tableName) {
+    return ImmutableList.of(dbName.toLowerCase(), tableName.toLowerCase());
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.hive.metastore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Counter;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import gobblin.configuration.State;
+import gobblin.hive.HiveMetastoreClientPool;
+import gobblin.hive.HivePartition;
+import gobblin.hive.HiveRegProps;
+import gobblin.hive.HiveRegister;
+import gobblin.hive.HiveRegistrationUnit.Column;
+import gobblin.hive.HiveTable;
+import gobblin.hive.spec.HiveSpec;
+import gobblin.hive.spec.SimpleHiveSpec;
+import gobblin.util.AutoReturnableObject;
+
+
+/**
+ * Unit tests for {@link HiveMetaStoreBasedRegister} against the local Derby-backed Hive metastore.
+ */
+@Test(groups = { "gobblin.hive" })
+public class HiveMetaStoreBasedRegisterTest {
+
+  private static final String DB_NAME = "hive_register_test_db";
+  private static final String PARTITION_KEY = "datepartition";
+  private static final int NUM_PARTITIONS = 10;
+  private static final List<Column> PARTITION_KEYS = ImmutableList.of(new Column(PARTITION_KEY, "string", ""));
+
+  private File tmpDir;
+  private HiveMetastoreClientPool clientPool;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    this.tmpDir = Files.createTempDir();
+    this.clientPool = HiveMetastoreClientPool.get(new Properties(), Optional.<String> absent());
+    try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
+      client.get().dropDatabase(DB_NAME, false, true, true);
+    }
+  }
+
+  @Test
+  public void testBatchRegistration() throws Exception {
+    String tableName = "batch_table";
+
+    register(tableName, getState(true, false), "v1");
+    assertPartitions(tableName, "v1");
+
+    // Partitions that already exist and did not change are left untouched, changed partitions are altered
+    register(tableName, getState(true, false), "v1");
+    assertPartitions(tableName, "v1");
+    register(tableName, getState(true, false), "v2");
+    assertPartitions(tableName, "v2");
+  }
+
+  @Test
+  public void testBatchRegistrationMatchesNonBatchRegistration() throws Exception {
+    register("non_batch_table", getState(false, false), "v1");
+    register("batch_table_2", getState(true, false), "v1");
+
+    List<Partition> nonBatchPartitions = getPartitions("non_batch_table");
+    List<Partition> batchPartitions = getPartitions("batch_table_2");
+    Assert.assertEquals(batchPartitions.size(), nonBatchPartitions.size());
+    for (int i = 0; i < batchPartitions.size(); i++) {
+      Assert.assertEquals(batchPartitions.get(i).getValues(), nonBatchPartitions.get(i).getValues());
+      Assert.assertEquals(new Path(batchPartitions.get(i).getSd().getLocation()).getName(),
+          new Path(nonBatchPartitions.get(i).getSd().getLocation()).getName());
+    }
+  }
+
+  @Test
+  public void testBatchRegistrationCompletesWhenWaitedOn() throws Exception {
+    String tableName = "batch_wait_table";
+
+    try (HiveRegister register = HiveRegister.get(getState(true, false))) {
+      // Fewer partitions than the batch size are pending, waiting on one of them registers them
+      register.register(getSpec(tableName, "2016-01-10", "v1"));
+      register.register(getSpec(tableName, "2016-01-11", "v1")).get(1, TimeUnit.MINUTES);
+      Assert.assertEquals(getPartitions(tableName).size(), 2);
+
+      // Partitions registered afterwards are batched again
+      register.register(getSpec(tableName, "2016-01-12", "v1"));
+      register.register(getSpec(tableName, "2016-01-10", "v1")).get(1, TimeUnit.MINUTES);
+      Assert.assertEquals(getPartitions(tableName).size(), 3);
+    }
+    Assert.assertEquals(getPartitions(tableName).size(), 3);
+  }
+
+  @Test
+  public void testBatchRegistrationWithTableChange() throws Exception {
+    String tableName = "batch_table_change";
+    List<Column> newColumns = ImmutableList.of(new Column("value", "string", ""), new Column("extra", "string", ""));
+
+    try (HiveRegister register = HiveRegister.get(getState(true, false))) {
+      // The table definition changes within a single batch, the table should end up with the last definition
+      register.register(getSpec(tableName, "2016-01-10", "v1"));
+      register.register(getSpec(tableName, "2016-01-11", "v1", newColumns));
+      register.register(getSpec(tableName, "2016-01-12", "v1", newColumns)).get(1, TimeUnit.MINUTES);
+    }
+    Assert.assertEquals(getPartitions(tableName).size(), 3);
+    try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
+      List<FieldSchema> columns = client.get().getTable(DB_NAME, tableName).getSd().getCols();
+      Assert.assertEquals(columns.size(), 2);
+      Assert.assertEquals(columns.get(1).getName(), "extra");
+    }
+  }
+
+  @Test
+  public void testCachedRegistration() throws Exception {
+    String tableName = "cached_table";
+
+    try (HiveRegister register = HiveRegister.get(getState(false, true))) {
+      for (int i = 0; i < NUM_PARTITIONS; i++) {
+        register.register(getSpec(tableName, "2016-01-" + (i + 10), "v1")).get();
+      }
+      Assert.assertTrue(register.existsTable(DB_NAME, tableName));
+      Assert.assertTrue(register.existsPartition(DB_NAME, tableName, PARTITION_KEYS, ImmutableList.of("2016-01-10")));
+      Assert.assertFalse(register.existsPartition(DB_NAME, tableName, PARTITION_KEYS, ImmutableList.of("2015-01-01")));
+      Assert.assertFalse(
+          register.getPartition(DB_NAME, tableName, PARTITION_KEYS, ImmutableList.of("2015-01-01")).isPresent());
+
+      // Only the db and the table of the first spec are missing from the cache. For each other spec, the db lookup,
+      // and the createTable and getTable calls are avoided. Each of the four lookups above avoids one call.
+      SortedMap<String, Counter> counters = register.getMetricContext().getCounters();
+      Assert.assertEquals(counters.get(HiveMetaStoreCache.MISSES).getCount(), 2);
+      Assert.assertEquals(counters.get(HiveMetaStoreCache.HITS).getCount(), 3 * NUM_PARTITIONS - 2 + 4);
+      Assert.assertEquals(counters.get(HiveMetaStoreCache.CALLS_AVOIDED).getCount(), 3 * (NUM_PARTITIONS - 1) + 4);
+    }
+    assertPartitions(tableName, "v1");
+
+    // A new register does not know the partitions, which are updated through the metastore
+    register(tableName, getState(false, true), "v2");
+    assertPartitions(tableName, "v2");
+  }
+
+  @Test
+  public void testExistsPartitionOnCacheMiss() throws Exception {
+    String tableName = "cache_miss_table";
+    register(tableName, getState(false, false), "v1");
+
+    try (HiveRegister register = HiveRegister.get(getState(false, true))) {
+      Assert.assertTrue(register.existsPartition(DB_NAME, tableName, PARTITION_KEYS, ImmutableList.of("2016-01-10")));
+      Assert.assertFalse(register.existsPartition(DB_NAME, tableName, PARTITION_KEYS, ImmutableList.of("2015-01-01")));
+
+      // The partition names of the table are not listed, so each partition is looked up by itself
+      SortedMap<String, Counter> counters = register.getMetricContext().getCounters();
+      Assert.assertEquals(counters.get(HiveMetaStoreCache.MISSES).getCount(), 2);
+      Assert.assertEquals(counters.get(HiveMetaStoreCache.HITS).getCount(), 0);
+    }
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception {
+    try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
+      client.get().dropDatabase(DB_NAME, false, true, true);
+    }
+    FileUtils.deleteDirectory(this.tmpDir);
+  }
+
+  private State getState(boolean batchEnabled, boolean cacheEnabled) {
+    State state = new State();
+    state.setProp(HiveRegProps.HIVE_DB_ROOT_DIR, new File(this.tmpDir, "db").getAbsolutePath());
+    state.setProp(HiveRegProps.HIVE_REGISTER_BATCH_ENABLED, batchEnabled);
+    // Smaller than the number of partitions, so that some batches are registered before the register is closed
+    state.setProp(HiveRegProps.HIVE_REGISTER_BATCH_SIZE, 3);
+    state.setProp(HiveRegProps.HIVE_REGISTER_CACHE_ENABLED, cacheEnabled);
+    return state;
+  }
+
+  private void register(String tableName, State state, String version) throws IOException {
+    try (HiveRegister register = HiveRegister.get(state)) {
+      Assert.assertTrue(register instanceof HiveMetaStoreBasedRegister);
+      for (int i = 0; i < NUM_PARTITIONS; i++) {
+        register.register(getSpec(tableName, "2016-01-" + (i + 10), version));
+      }
+    }
+  }
+
+  private HiveSpec getSpec(String tableName, String partitionValue, String version) {
+    return getSpec(tableName, partitionValue, version, ImmutableList.of(new Column("value", "string", "")));
+  }
+
+  private HiveSpec getSpec(String tableName, String partitionValue, String version, List<Column> columns) {
+    File tableDir = new File(this.tmpDir, tableName);
+    Path partitionPath = new Path(new File(tableDir, version + "/" + partitionValue).getAbsolutePath());
+
+    HiveTable table = new HiveTable.Builder().withDbName(DB_NAME).withTableName(tableName)
+        .withPartitionKeys(PARTITION_KEYS).build();
+    table.setLocation(tableDir.getAbsolutePath());
+    table.setColumns(columns);
+    HivePartition partition = new HivePartition.Builder().withDbName(DB_NAME).withTableName(tableName)
+        .withPartitionValues(ImmutableList.of(partitionValue)).build();
+    partition.setLocation(partitionPath.toString());
+    partition.setColumns(columns);
+
+    return new SimpleHiveSpec.Builder<>(partitionPath).withTable(table)
+        .withPartition(Optional.of(partition)).build();
+  }
+
+  private void assertPartitions(String tableName, String version) throws Exception {
+    List<Partition> partitions = getPartitions(tableName);
+    Assert.assertEquals(partitions.size(), NUM_PARTITIONS);
+    for (Partition partition : partitions) {
+      Path location = new Path(partition.getSd().getLocation());
+      Assert.assertEquals(location.getName(), partition.getValues().get(0));
+      Assert.assertEquals(location.getParent().getName(), version);
+    }
+  }
+
+  private List<Partition> getPartitions(String tableName) throws Exception {
+    try (AutoReturnableObject<IMetaStoreClient> client = this.clientPool.getClient()) {
+      List<Partition> partitions = Lists.newArrayList(client.get().listPartitions(DB_NAME, tableName, (short) -1));
+      Collections.sort(partitions);
+      return partitions;
+    }
+  }
+}
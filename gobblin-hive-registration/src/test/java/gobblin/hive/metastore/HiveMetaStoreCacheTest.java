@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.hive.metastore;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import gobblin.metrics.MetricContext;
+
+
+/**
+ * Unit tests for {@link HiveMetaStoreCache}.
+ */
+@Test(groups = { "gobblin.hive" })
+public class HiveMetaStoreCacheTest {
+
+  private static final String DB_NAME = "db";
+  private static final String TABLE_NAME = "table";
+
+  @Test
+  public void testPartitionNamesListedBeforeConcurrentChangeAreNotCached() {
+    HiveMetaStoreCache cache = new HiveMetaStoreCache(MetricContext.builder("testConcurrentChange").build());
+
+    // Partition p2 is added while the partition names are listed without it
+    long version = cache.getPartitionNamesVersion(DB_NAME, TABLE_NAME);
+    cache.addPartition(DB_NAME, TABLE_NAME, "p2");
+    Assert.assertFalse(cache.putPartitionNames(DB_NAME, TABLE_NAME, ImmutableList.of("p1"), version));
+    Assert.assertEquals(cache.containsPartition(DB_NAME, TABLE_NAME, "p2"), Optional.<Boolean> absent());
+
+    // Partition names listed afterwards are cached and kept up to date
+    version = cache.getPartitionNamesVersion(DB_NAME, TABLE_NAME);
+    Assert.assertTrue(cache.putPartitionNames(DB_NAME, TABLE_NAME, ImmutableList.of("p1", "p2"), version));
+    cache.addPartition(DB_NAME, TABLE_NAME, "p3");
+    cache.removePartition(DB_NAME, TABLE_NAME, "p1");
+    Assert.assertEquals(cache.containsPartition(DB_NAME, TABLE_NAME, "p1"), Optional.of(false));
+    Assert.assertEquals(cache.containsPartition(DB_NAME, TABLE_NAME, "p2"), Optional.of(true));
+    Assert.assertEquals(cache.containsPartition(DB_NAME, TABLE_NAME, "p3"), Optional.of(true));
+  }
+}
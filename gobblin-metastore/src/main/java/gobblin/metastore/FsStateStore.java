@@ -17,21 +17,40 @@ import static gobblin.util.HadoopUtils.FS_SCHEMES_NON_ATOMIC;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.compress.DefaultCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Closer;
 
+import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.State;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.HadoopUtils;
 
 
@@ -48,17 +67,53 @@ import gobblin.util.HadoopUtils;
  *     {@link FsStateStore#get(String, String, String)} method may not work.
  * </p>
  *
+ * <p>
+ *     Tables with more than {@link #STATES_PER_INDEXED_BLOCK} states written by
+ *     {@link #putAll(String, String, Collection)} are written in compressed blocks of at most
+ *     {@link #STATES_PER_INDEXED_BLOCK} states, and come with an index file named after the table with the
+ *     {@link #INDEX_FILE_SUFFIX} suffix. The index maps each state ID to the offset of the block holding the
+ *     state, so {@link #get(String, String, String)} only reads that block instead of scanning the whole table.
+ *     The index also records the length of the table it was built for and is ignored if the table has changed
+ *     since, in which case the table is scanned as before. Indexes for existing tables can be built using
+ *     {@link #createIndex(String, String)} (see {@link gobblin.metastore.util.StateStoreIndexer}). Each index is
+ *     read once into memory, and the up to {@link #MAX_CACHED_INDEXES} most recently used indexes are kept until
+ *     their index files change.
+ * </p>
+ *
+ * <p>
+ *     {@link #getAll(String)} reads the tables of a store in parallel using up to
+ *     {@link ConfigurationKeys#STATE_STORE_GET_ALL_THREADS_KEY} threads, which are shared by all calls on the store
+ *     and stop when idle.
+ * </p>
+ *
  * @param <T> state object type
  *
  * @author Yinan Li
  */
 public class FsStateStore<T extends State> implements StateStore<T> {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(FsStateStore.class);
+
   public static final String TMP_FILE_PREFIX = "_tmp_";
+  public static final String INDEX_FILE_SUFFIX = ".idx";
+  public static final int STATES_PER_INDEXED_BLOCK = 16;
+  public static final int MAX_CACHED_INDEXES = 100;
+
+  // Key of the metadata entry of an index file holding the length of the indexed table
+  private static final Text INDEX_TABLE_LENGTH_KEY = new Text("table.length");
+
+  private static final PathFilter TABLE_FILE_FILTER = new PathFilter() {
+    @Override
+    public boolean accept(Path path) {
+      return !path.getName().endsWith(INDEX_FILE_SUFFIX);
+    }
+  };
 
   protected final Configuration conf;
   protected final FileSystem fs;
   protected boolean useTmpFileForPut;
+  private final int getAllThreads;
+  private final ExecutorService getAllExecutor;
 
   // Root directory for the task state store
   protected final String storeRootDir;
@@ -66,20 +121,36 @@ public class FsStateStore<T extends State> implements StateStore<T> {
   // Class of the state objects to be put into the store
   private final Class<T> stateClass;
 
+  // Indexes already read from their index files, keyed by the paths of the index files
+  private final Cache<Path, TableIndex> indexCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INDEXES).build();
+
   public FsStateStore(String fsUri, String storeRootDir, Class<T> stateClass) throws IOException {
     this.conf = new Configuration();
     this.fs = FileSystem.get(URI.create(fsUri), this.conf);
     this.useTmpFileForPut = !FS_SCHEMES_NON_ATOMIC.contains(this.fs.getUri().getScheme());
     this.storeRootDir = storeRootDir;
     this.stateClass = stateClass;
+    this.getAllThreads = ConfigurationKeys.DEFAULT_STATE_STORE_GET_ALL_THREADS;
+    this.getAllExecutor = createGetAllExecutor(this.getAllThreads);
   }
 
   public FsStateStore(FileSystem fs, String storeRootDir, Class<T> stateClass) throws IOException {
+    this(fs, storeRootDir, stateClass, ConfigurationKeys.DEFAULT_STATE_STORE_GET_ALL_THREADS);
+  }
+
+  /**
+   * @param getAllThreads the maximum number of tables {@link #getAll(String)} reads in parallel
+   *                      (see {@link ConfigurationKeys#STATE_STORE_GET_ALL_THREADS_KEY})
+   */
+  public FsStateStore(FileSystem fs, String storeRootDir, Class<T> stateClass, int getAllThreads)
+      throws IOException {
     this.fs = fs;
     this.useTmpFileForPut = !FS_SCHEMES_NON_ATOMIC.contains(this.fs.getUri().getScheme());
     this.conf = this.fs.getConf();
     this.storeRootDir = storeRootDir;
     this.stateClass = stateClass;
+    this.getAllThreads = getAllThreads;
+    this.getAllExecutor = createGetAllExecutor(this.getAllThreads);
   }
 
   public FsStateStore(String storeUrl, Class<T> stateClass) throws IOException {
@@ -89,6 +160,21 @@ public class FsStateStore<T extends State> implements StateStore<T> {
     this.useTmpFileForPut = !FS_SCHEMES_NON_ATOMIC.contains(this.fs.getUri().getScheme());
     this.storeRootDir = storePath.toUri().getPath();
     this.stateClass = stateClass;
+    this.getAllThreads = ConfigurationKeys.DEFAULT_STATE_STORE_GET_ALL_THREADS;
+    this.getAllExecutor = createGetAllExecutor(this.getAllThreads);
+  }
+
+  /**
+   * Create the executor {@link #getAll(String)} reads tables with. Its threads are daemon threads that stop when
+   * idle, so the executor does not need to be shut down.
+   */
+  private static ExecutorService createGetAllExecutor(int getAllThreads) {
+    int numThreads = Math.max(getAllThreads, 1);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOGGER), Optional.of("FsStateStoreGetAll-%d")));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
   }
 
   @Override
@@ -128,28 +214,7 @@ public class FsStateStore<T extends State> implements StateStore<T> {
    */
   @Override
   public void put(String storeName, String tableName, T state) throws IOException {
-    String tmpTableName = this.useTmpFileForPut ? TMP_FILE_PREFIX + tableName : tableName;
-    Path tmpTablePath = new Path(new Path(this.storeRootDir, storeName), tmpTableName);
-
-    if (!this.fs.exists(tmpTablePath) && !create(storeName, tmpTableName)) {
-      throw new IOException("Failed to create a state file for table " + tmpTableName);
-    }
-
-    Closer closer = Closer.create();
-    try {
-      SequenceFile.Writer writer = closer.register(SequenceFile.createWriter(this.fs, this.conf, tmpTablePath,
-          Text.class, this.stateClass, SequenceFile.CompressionType.BLOCK, new DefaultCodec()));
-      writer.append(new Text(Strings.nullToEmpty(state.getId())), state);
-    } catch (Throwable t) {
-      throw closer.rethrow(t);
-    } finally {
-      closer.close();
-    }
-
-    if (this.useTmpFileForPut) {
-      Path tablePath = new Path(new Path(this.storeRootDir, storeName), tableName);
-      HadoopUtils.renamePath(this.fs, tmpTablePath, tablePath);
-    }
+    putAll(storeName, tableName, Collections.singletonList(state));
   }
 
   /**
@@ -164,17 +229,37 @@ public class FsStateStore<T extends State> implements StateStore<T> {
   public void putAll(String storeName, String tableName, Collection<T> states) throws IOException {
     String tmpTableName = this.useTmpFileForPut ? TMP_FILE_PREFIX + tableName : tableName;
     Path tmpTablePath = new Path(new Path(this.storeRootDir, storeName), tmpTableName);
+    Path tablePath = new Path(new Path(this.storeRootDir, storeName), tableName);
 
     if (!this.fs.exists(tmpTablePath) && !create(storeName, tmpTableName)) {
       throw new IOException("Failed to create a state file for table " + tmpTableName);
     }
 
+    // Delete the index of the table being overwritten first so it is never used with the new table
+    deleteIndex(tablePath);
+
+    boolean indexed = states.size() > STATES_PER_INDEXED_BLOCK;
+    Map<String, Long> blockOffsets = Maps.newLinkedHashMap();
+
     Closer closer = Closer.create();
     try {
       SequenceFile.Writer writer = closer.register(SequenceFile.createWriter(this.fs, this.conf, tmpTablePath,
           Text.class, this.stateClass, SequenceFile.CompressionType.BLOCK, new DefaultCodec()));
+      int count = 0;
+      long blockOffset = 0;
       for (T state : states) {
-        writer.append(new Text(Strings.nullToEmpty(state.getId())), state);
+        String stateId = Strings.nullToEmpty(state.getId());
+        if (indexed) {
+          if (count++ % STATES_PER_INDEXED_BLOCK == 0) {
+            // Write out the current block so the next state starts a new block at a known offset
+            writer.sync();
+            blockOffset = writer.getLength();
+          }
+          if (!blockOffsets.containsKey(stateId)) {
+            blockOffsets.put(stateId, blockOffset);
+          }
+        }
+        writer.append(new Text(stateId), state);
       }
     } catch (Throwable t) {
       throw closer.rethrow(t);
@@ -183,9 +268,12 @@ public class FsStateStore<T extends State> implements StateStore<T> {
     }
 
     if (this.useTmpFileForPut) {
-      Path tablePath = new Path(new Path(this.storeRootDir, storeName), tableName);
       HadoopUtils.renamePath(this.fs, tmpTablePath, tablePath);
     }
+
+    if (indexed) {
+      writeIndex(storeName, tablePath, blockOffsets);
+    }
   }
 
   @Override
@@ -200,13 +288,18 @@ public class FsStateStore<T extends State> implements StateStore<T> {
       @SuppressWarnings("deprecation")
       SequenceFile.Reader reader = closer.register(new SequenceFile.Reader(this.fs, tablePath, this.conf));
       try {
-        Text key = new Text();
-        T state = this.stateClass.newInstance();
-        while (reader.next(key, state)) {
-          if (key.toString().equals(stateId)) {
+        Optional<Long> blockOffset = getIndexedBlockOffset(tablePath, stateId);
+        if (blockOffset.isPresent()) {
+          reader.sync(blockOffset.get());
+          T state = readState(reader, stateId);
+          if (state != null) {
             return state;
           }
+          LOGGER.warn(String.format("State %s not found at the indexed offset of table %s", stateId, tablePath));
+          // Fall back to scanning the table from the beginning
+          reader.sync(0);
         }
+        return readState(reader, stateId);
       } catch (Exception e) {
         throw new IOException(e);
       }
@@ -215,7 +308,16 @@ public class FsStateStore<T extends State> implements StateStore<T> {
     } finally {
       closer.close();
     }
+  }
 
+  private T readState(SequenceFile.Reader reader, String stateId) throws Exception {
+    Text key = new Text();
+    T state = this.stateClass.newInstance();
+    while (reader.next(key, state)) {
+      if (key.toString().equals(stateId)) {
+        return state;
+      }
+    }
     return null;
   }
 
@@ -253,7 +355,7 @@ public class FsStateStore<T extends State> implements StateStore<T> {
   }
 
   @Override
-  public List<T> getAll(String storeName) throws IOException {
+  public List<T> getAll(final String storeName) throws IOException {
     List<T> states = Lists.newArrayList();
 
     Path storePath = new Path(this.storeRootDir, storeName);
@@ -261,8 +363,45 @@ public class FsStateStore<T extends State> implements StateStore<T> {
       return states;
     }
 
-    for (FileStatus status : this.fs.listStatus(storePath)) {
-      states.addAll(getAll(storeName, status.getPath().getName()));
+    List<FileStatus> tableStatuses = Lists.newArrayList();
+    for (FileStatus status : this.fs.listStatus(storePath, TABLE_FILE_FILTER)) {
+      // Skip directories, e.g., the one holding temporary files of aliases being created
+      if (!status.isDirectory()) {
+        tableStatuses.add(status);
+      }
+    }
+
+    if (tableStatuses.size() <= 1 || this.getAllThreads <= 1) {
+      for (FileStatus status : tableStatuses) {
+        states.addAll(getAll(storeName, status.getPath().getName()));
+      }
+      return states;
+    }
+
+    List<Callable<List<T>>> callables = Lists.newArrayListWithCapacity(tableStatuses.size());
+    for (final FileStatus status : tableStatuses) {
+      callables.add(new Callable<List<T>>() {
+        @Override
+        public List<T> call() throws Exception {
+          return getAll(storeName, status.getPath().getName());
+        }
+      });
+    }
+
+    try {
+      List<Future<List<T>>> futures = this.getAllExecutor.invokeAll(callables);
+      // Futures are in the order of the tables so the result is the same as reading the tables serially
+      for (Future<List<T>> future : futures) {
+        states.addAll(future.get());
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading states of store " + storeName, ie);
+    } catch (ExecutionException ee) {
+      if (ee.getCause() instanceof IOException) {
+        throw (IOException) ee.getCause();
+      }
+      throw new IOException("Failed to read states of store " + storeName, ee.getCause());
     }
 
     return states;
@@ -279,7 +418,17 @@ public class FsStateStore<T extends State> implements StateStore<T> {
     Path tmpAliasTablePath = new Path(aliasTablePath.getParent(), new Path(TMP_FILE_PREFIX, aliasTablePath.getName()));
     // Make a copy of the original table as a work-around because
     // Hadoop version 1.2.1 has no support for symlink yet.
+    deleteIndex(aliasTablePath);
     HadoopUtils.copyFile(this.fs, originalTablePath, this.fs, aliasTablePath, tmpAliasTablePath, true, this.conf);
+
+    // The copy has the same layout as the original table, so its index applies to the alias as well
+    Path originalIndexPath = getIndexPath(originalTablePath);
+    if (this.fs.exists(originalIndexPath)) {
+      Path aliasIndexPath = getIndexPath(aliasTablePath);
+      Path tmpAliasIndexPath =
+          new Path(aliasIndexPath.getParent(), new Path(TMP_FILE_PREFIX, aliasIndexPath.getName()));
+      HadoopUtils.copyFile(this.fs, originalIndexPath, this.fs, aliasIndexPath, tmpAliasIndexPath, true, this.conf);
+    }
   }
 
   @Override
@@ -288,6 +437,7 @@ public class FsStateStore<T extends State> implements StateStore<T> {
     if (this.fs.exists(tablePath)) {
       this.fs.delete(tablePath, false);
     }
+    deleteIndex(tablePath);
   }
 
   @Override
@@ -297,4 +447,169 @@ public class FsStateStore<T extends State> implements StateStore<T> {
       this.fs.delete(storePath, true);
     }
   }
+
+  /**
+   * Build the index of an existing table, e.g., a table written before indexes were introduced, so that
+   * {@link #get(String, String, String)} does not need to scan it. Tables with at most
+   * {@link #STATES_PER_INDEXED_BLOCK} states and tables that are not block-compressed are not indexed.
+   *
+   * @param storeName store name
+   * @param tableName table name
+   * @return whether an index has been created for the table
+   * @throws IOException if there's something wrong reading the table or writing the index
+   */
+  public boolean createIndex(String storeName, String tableName) throws IOException {
+    Path tablePath = new Path(new Path(this.storeRootDir, storeName), tableName);
+    if (!this.fs.exists(tablePath)) {
+      return false;
+    }
+
+    Map<String, Long> blockOffsets = Maps.newLinkedHashMap();
+    Closer closer = Closer.create();
+    try {
+      @SuppressWarnings("deprecation")
+      SequenceFile.Reader reader = closer.register(new SequenceFile.Reader(this.fs, tablePath, this.conf));
+      if (!reader.isBlockCompressed()) {
+        return false;
+      }
+
+      Text key = new Text();
+      long blockOffset = 0;
+      long position = reader.getPosition();
+      // Keys of a block are all read at once, so the position only moves when a new block is read
+      while (reader.next(key)) {
+        if (reader.getPosition() != position) {
+          blockOffset = position;
+          position = reader.getPosition();
+        }
+        if (!blockOffsets.containsKey(key.toString())) {
+          blockOffsets.put(key.toString(), blockOffset);
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    if (blockOffsets.size() <= STATES_PER_INDEXED_BLOCK) {
+      return false;
+    }
+    writeIndex(storeName, tablePath, blockOffsets);
+    return true;
+  }
+
+  private static Path getIndexPath(Path tablePath) {
+    return new Path(tablePath.getParent(), tablePath.getName() + INDEX_FILE_SUFFIX);
+  }
+
+  private void deleteIndex(Path tablePath) throws IOException {
+    Path indexPath = getIndexPath(tablePath);
+    this.indexCache.invalidate(indexPath);
+    if (this.fs.exists(indexPath)) {
+      this.fs.delete(indexPath, false);
+    }
+  }
+
+  private void writeIndex(String storeName, Path tablePath, Map<String, Long> blockOffsets) throws IOException {
+    Path indexPath = getIndexPath(tablePath);
+    Path tmpIndexPath = this.useTmpFileForPut
+        ? new Path(new Path(this.storeRootDir, storeName), TMP_FILE_PREFIX + indexPath.getName()) : indexPath;
+
+    SequenceFile.Metadata metadata = new SequenceFile.Metadata();
+    metadata.set(INDEX_TABLE_LENGTH_KEY, new Text(Long.toString(this.fs.getFileStatus(tablePath).getLen())));
+
+    Closer closer = Closer.create();
+    try {
+      SequenceFile.Writer writer = closer.register(SequenceFile.createWriter(this.fs, this.conf, tmpIndexPath,
+          Text.class, LongWritable.class, SequenceFile.CompressionType.BLOCK, new DefaultCodec(), null, metadata));
+      Text key = new Text();
+      LongWritable value = new LongWritable();
+      for (Map.Entry<String, Long> entry : blockOffsets.entrySet()) {
+        key.set(entry.getKey());
+        value.set(entry.getValue());
+        writer.append(key, value);
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+
+    if (this.useTmpFileForPut) {
+      HadoopUtils.renamePath(this.fs, tmpIndexPath, indexPath);
+    }
+    this.indexCache.invalidate(indexPath);
+  }
+
+  /**
+   * Get the offset of the block holding the state with the given ID from the index of a table.
+   *
+   * @return the offset of the block or {@link Optional#absent()} if the table has no index, the index is
+   *         outdated or the state is not in the index
+   */
+  protected Optional<Long> getIndexedBlockOffset(Path tablePath, String stateId) throws IOException {
+    Path indexPath = getIndexPath(tablePath);
+    if (!this.fs.exists(indexPath)) {
+      return Optional.absent();
+    }
+
+    FileStatus indexStatus = this.fs.getFileStatus(indexPath);
+    TableIndex index = this.indexCache.getIfPresent(indexPath);
+    if (index == null || !index.isReadFrom(indexStatus)) {
+      index = readIndex(indexStatus);
+      this.indexCache.put(indexPath, index);
+    }
+
+    if (index.tableLength != this.fs.getFileStatus(tablePath).getLen()) {
+      LOGGER.warn("Ignoring outdated index " + indexPath);
+      return Optional.absent();
+    }
+    return Optional.fromNullable(index.blockOffsets.get(stateId));
+  }
+
+  private TableIndex readIndex(FileStatus indexStatus) throws IOException {
+    Map<String, Long> blockOffsets = Maps.newHashMap();
+    Closer closer = Closer.create();
+    try {
+      @SuppressWarnings("deprecation")
+      SequenceFile.Reader reader = closer.register(new SequenceFile.Reader(this.fs, indexStatus.getPath(), this.conf));
+      Text tableLength = reader.getMetadata().get(INDEX_TABLE_LENGTH_KEY);
+
+      Text key = new Text();
+      LongWritable value = new LongWritable();
+      while (reader.next(key, value)) {
+        blockOffsets.put(key.toString(), value.get());
+      }
+      return new TableIndex(indexStatus, tableLength == null ? -1L : Long.parseLong(tableLength.toString()),
+          blockOffsets);
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
+  /**
+   * The content of an index file, along with the length and modification time of the index file it was read from.
+   */
+  private static class TableIndex {
+
+    private final long indexLength;
+    private final long indexModificationTime;
+    private final long tableLength;
+    private final Map<String, Long> blockOffsets;
+
+    private TableIndex(FileStatus indexStatus, long tableLength, Map<String, Long> blockOffsets) {
+      this.indexLength = indexStatus.getLen();
+      this.indexModificationTime = indexStatus.getModificationTime();
+      this.tableLength = tableLength;
+      this.blockOffsets = blockOffsets;
+    }
+
+    private boolean isReadFrom(FileStatus indexStatus) {
+      return this.indexLength == indexStatus.getLen()
+          && this.indexModificationTime == indexStatus.getModificationTime();
+    }
+  }
 }
@@ -56,6 +56,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -117,6 +118,18 @@ public class DatabaseJobHistoryStoreV101 implements VersionedDatabaseJobHistoryS
       "INSERT INTO gobblin_task_properties (task_id,property_key,property_value) VALUES(?,?,?)"
           + " ON DUPLICATE KEY UPDATE property_value=VALUES(property_value)";
 
+  private static final int[] TASK_EXECUTION_COLUMN_TYPES = new int[] { Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP,
+      Types.TIMESTAMP, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.VARCHAR,
+      Types.VARCHAR, Types.VARCHAR };
+
+  private static final int[] METRIC_COLUMN_TYPES =
+      new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR };
+
+  private static final int[] PROPERTY_COLUMN_TYPES = new int[] { Types.VARCHAR, Types.VARCHAR, Types.VARCHAR };
+
+  // Maximum number of rows written by a single multi-row upsert statement
+  private static final int MAX_ROWS_PER_UPSERT_STATEMENT = 100;
+
   private static final String LIST_DISTINCT_JOB_EXECUTION_QUERY_TEMPLATE =
       "SELECT j.job_id FROM gobblin_job_executions j, "
           + "(SELECT MAX(last_modified_ts) AS most_recent_ts, job_name "
@@ -289,171 +302,106 @@ public class DatabaseJobHistoryStoreV101 implements VersionedDatabaseJobHistoryS
 
   private void upsertTaskExecutionInfos(Connection connection, TaskExecutionInfoArray taskExecutions)
           throws SQLException {
-    Optional<PreparedStatement> upsertStatement = Optional.absent();
-    int batchSize = 0;
+    MultiRowUpsert upsert = new MultiRowUpsert(connection, TASK_EXECUTION_UPSERT_STATEMENT_TEMPLATE,
+        TASK_EXECUTION_COLUMN_TYPES);
     for (TaskExecutionInfo taskExecution : taskExecutions) {
-      if (!upsertStatement.isPresent()) {
-        upsertStatement = Optional.of(connection.prepareStatement(TASK_EXECUTION_UPSERT_STATEMENT_TEMPLATE));
-      }
-      addTaskExecutionInfoToBatch(upsertStatement.get(), taskExecution);
-      if (batchSize++ > 1000) {
-        executeBatches(upsertStatement);
-        upsertStatement = Optional.absent();
-        batchSize = 0;
-      }
+      addTaskExecutionInfoToUpsert(upsert, taskExecution);
     }
-    executeBatches(upsertStatement);
+    upsert.flush();
   }
 
 
   private void upsertJobProperties(Connection connection, JobExecutionInfo jobExecutionInfo) throws SQLException {
     if (jobExecutionInfo.hasJobProperties()) {
-      Optional<PreparedStatement> upsertStatement = Optional.absent();
-      int batchSize = 0;
+      MultiRowUpsert upsert = new MultiRowUpsert(connection, JOB_PROPERTY_UPSERT_STATEMENT_TEMPLATE,
+          PROPERTY_COLUMN_TYPES);
       for (Map.Entry<String, String> property : jobExecutionInfo.getJobProperties().entrySet()) {
-        if (!upsertStatement.isPresent()) {
-          upsertStatement = Optional.of(connection.prepareStatement(JOB_PROPERTY_UPSERT_STATEMENT_TEMPLATE));
-        }
-        addPropertyToBatch(upsertStatement.get(), property.getKey(), property.getValue(), jobExecutionInfo.getJobId());
-        if (batchSize++ > 1000) {
-          executeBatches(upsertStatement);
-          upsertStatement = Optional.absent();
-          batchSize = 0;
-        }
+        addPropertyToUpsert(upsert, property.getKey(), property.getValue(), jobExecutionInfo.getJobId());
       }
-      executeBatches(upsertStatement);
+      upsert.flush();
     }
   }
 
   private void upsertTaskProperties(Connection connection, Optional<StringMap> jobProperties,
                                     TaskExecutionInfoArray taskExecutions)
         throws SQLException {
-    Optional<PreparedStatement> upsertStatement = Optional.absent();
-    int batchSize = 0;
+    MultiRowUpsert upsert = new MultiRowUpsert(connection, TASK_PROPERTY_UPSERT_STATEMENT_TEMPLATE,
+        PROPERTY_COLUMN_TYPES);
     for (TaskExecutionInfo taskExecution : taskExecutions) {
       if (taskExecution.hasTaskProperties()) {
         for (Map.Entry<String, String> property : taskExecution.getTaskProperties().entrySet()) {
           if (!jobProperties.isPresent() || !jobProperties.get().containsKey(property.getKey()) ||
                   !jobProperties.get().get(property.getKey()).equals(property.getValue())) {
-            if (!upsertStatement.isPresent()) {
-              upsertStatement = Optional.of(connection.prepareStatement(TASK_PROPERTY_UPSERT_STATEMENT_TEMPLATE));
-            }
-            addPropertyToBatch(upsertStatement.get(), property.getKey(), property.getValue(), taskExecution.getTaskId());
-            if (batchSize++ > 1000) {
-              executeBatches(upsertStatement);
-              upsertStatement = Optional.absent();
-              batchSize = 0;
-            }
+            addPropertyToUpsert(upsert, property.getKey(), property.getValue(), taskExecution.getTaskId());
           }
         }
       }
     }
-    executeBatches(upsertStatement);
+    upsert.flush();
   }
 
-  private void addPropertyToBatch(PreparedStatement upsertStatement, String key, String value, String id)
+  private void addPropertyToUpsert(MultiRowUpsert upsert, String key, String value, String id)
         throws SQLException {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(id));
     Preconditions.checkArgument(!Strings.isNullOrEmpty(key));
     Preconditions.checkArgument(!Strings.isNullOrEmpty(value));
 
-    int index = 0;
-    upsertStatement.setString(++index, id);
-    upsertStatement.setString(++index, key);
-    upsertStatement.setString(++index, value);
-    upsertStatement.addBatch();
+    upsert.addRow(id, key, value);
   }
 
   private void upsertJobMetrics(Connection connection, JobExecutionInfo jobExecutionInfo) throws SQLException {
     if (jobExecutionInfo.hasMetrics()) {
-      Optional<PreparedStatement> upsertStatement = Optional.absent();
-      int batchSize = 0;
+      MultiRowUpsert upsert = new MultiRowUpsert(connection, JOB_METRIC_UPSERT_STATEMENT_TEMPLATE,
+          METRIC_COLUMN_TYPES);
       for (Metric metric : jobExecutionInfo.getMetrics()) {
-        if (!upsertStatement.isPresent()) {
-          upsertStatement = Optional.of(connection.prepareStatement(JOB_METRIC_UPSERT_STATEMENT_TEMPLATE));
-        }
-        addMetricToBatch(upsertStatement.get(), metric, jobExecutionInfo.getJobId());
-        if (batchSize++ > 1000) {
-          executeBatches(upsertStatement);
-          upsertStatement = Optional.absent();
-          batchSize = 0;
-        }
+        addMetricToUpsert(upsert, metric, jobExecutionInfo.getJobId());
       }
-      executeBatches(upsertStatement);
+      upsert.flush();
     }
   }
 
   private void upsertTaskMetrics(Connection connection, TaskExecutionInfoArray taskExecutions)
         throws SQLException {
-    Optional<PreparedStatement> upsertStatement = Optional.absent();
-    int batchSize = 0;
+    MultiRowUpsert upsert = new MultiRowUpsert(connection, TASK_METRIC_UPSERT_STATEMENT_TEMPLATE,
+        METRIC_COLUMN_TYPES);
     for (TaskExecutionInfo taskExecution : taskExecutions) {
       if (taskExecution.hasMetrics()) {
         for (Metric metric : taskExecution.getMetrics()) {
-          if (!upsertStatement.isPresent()) {
-            upsertStatement = Optional.of(connection.prepareStatement(TASK_METRIC_UPSERT_STATEMENT_TEMPLATE));
-          }
-          addMetricToBatch(upsertStatement.get(), metric, taskExecution.getTaskId());
-          if (batchSize++ > 1000) {
-            executeBatches(upsertStatement);
-            upsertStatement = Optional.absent();
-            batchSize = 0;
-          }
+          addMetricToUpsert(upsert, metric, taskExecution.getTaskId());
         }
       }
     }
-    executeBatches(upsertStatement);
+    upsert.flush();
   }
 
-  private void executeBatches(Optional<PreparedStatement> upsertStatement) throws SQLException {
-    if (upsertStatement.isPresent()) {
-      try {
-        upsertStatement.get().executeBatch();
-      } finally {
-        upsertStatement.get().close();
-      }
-    }
-  }
-
-  private void addMetricToBatch(PreparedStatement upsertStatement, Metric metric, String id) throws SQLException {
+  private void addMetricToUpsert(MultiRowUpsert upsert, Metric metric, String id) throws SQLException {
     Preconditions.checkArgument(!Strings.isNullOrEmpty(id));
     Preconditions.checkArgument(metric.hasGroup());
     Preconditions.checkArgument(metric.hasName());
     Preconditions.checkArgument(metric.hasType());
     Preconditions.checkArgument(metric.hasValue());
 
-    int index = 0;
-    upsertStatement.setString(++index, id);
-    upsertStatement.setString(++index, metric.getGroup());
-    upsertStatement.setString(++index, metric.getName());
-    upsertStatement.setString(++index, metric.getType().name());
-    upsertStatement.setString(++index, metric.getValue());
-    upsertStatement.addBatch();
+    upsert.addRow(id, metric.getGroup(), metric.getName(), metric.getType().name(), metric.getValue());
   }
 
-  private void addTaskExecutionInfoToBatch(PreparedStatement upsertStatement, TaskExecutionInfo info)
+  private void addTaskExecutionInfoToUpsert(MultiRowUpsert upsert, TaskExecutionInfo info)
       throws SQLException {
     Preconditions.checkArgument(info.hasTaskId());
     Preconditions.checkArgument(info.hasJobId());
 
-    int index = 0;
-    upsertStatement.setString(++index, info.getTaskId());
-    upsertStatement.setString(++index, info.getJobId());
-    upsertStatement.setTimestamp(++index, info.hasStartTime() ? new Timestamp(info.getStartTime()) : null,
-            getCalendarUTCInstance());
-    upsertStatement.setTimestamp(++index, info.hasEndTime() ? new Timestamp(info.getEndTime()) : null,
-            getCalendarUTCInstance());
-    upsertStatement.setLong(++index, info.hasDuration() ? info.getDuration() : -1);
-    upsertStatement.setString(++index, info.hasState() ? info.getState().name() : null);
-    upsertStatement.setString(++index, info.hasFailureException() ? info.getFailureException() : null);
-    upsertStatement.setLong(++index, info.hasLowWatermark() ? info.getLowWatermark() : -1);
-    upsertStatement.setLong(++index, info.hasHighWatermark() ? info.getHighWatermark() : -1);
-    upsertStatement.setString(++index,
-        info.hasTable() && info.getTable().hasNamespace() ? info.getTable().getNamespace() : null);
-    upsertStatement.setString(++index, info.hasTable() && info.getTable().hasName() ? info.getTable().getName() : null);
-    upsertStatement.setString(++index,
+    upsert.addRow(
+        info.getTaskId(),
+        info.getJobId(),
+        info.hasStartTime() ? new Timestamp(info.getStartTime()) : null,
+        info.hasEndTime() ? new Timestamp(info.getEndTime()) : null,
+        info.hasDuration() ? info.getDuration() : -1L,
+        info.hasState() ? info.getState().name() : null,
+        info.hasFailureException() ? info.getFailureException() : null,
+        info.hasLowWatermark() ? info.getLowWatermark() : -1L,
+        info.hasHighWatermark() ? info.getHighWatermark() : -1L,
+        info.hasTable() && info.getTable().hasNamespace() ? info.getTable().getNamespace() : null,
+        info.hasTable() && info.getTable().hasName() ? info.getTable().getName() : null,
         info.hasTable() && info.getTable().hasType() ? info.getTable().getType().name() : null);
-    upsertStatement.addBatch();
   }
 
   private List<JobExecutionInfo> processQueryByIds(Connection connection, JobExecutionQuery query,
@@ -960,6 +908,75 @@ public class DatabaseJobHistoryStoreV101 implements VersionedDatabaseJobHistoryS
     return StringUtils.join(Iterables.limit(Iterables.cycle("?"), count).iterator(), ",");
   }
 
+  /**
+   * Buffers the rows of a single-row upsert statement template and writes them using multi-row
+   * {@code INSERT ... VALUES(...),(...) ON DUPLICATE KEY UPDATE ...} statements of up to
+   * {@link #MAX_ROWS_PER_UPSERT_STATEMENT} rows each, which takes a single round trip per statement
+   * instead of one per row with a JDBC batch.
+   */
+  private static class MultiRowUpsert {
+
+    private final Connection connection;
+    private final String statementPrefix;
+    private final String valuesGroup;
+    private final String statementSuffix;
+    private final int[] columnTypes;
+    private final List<Object[]> rows = Lists.newArrayList();
+
+    MultiRowUpsert(Connection connection, String template, int[] columnTypes) {
+      this.connection = connection;
+      // The first VALUES(...) group of the template holds the placeholders of a row
+      int valuesStart = template.indexOf("VALUES(") + "VALUES".length();
+      int valuesEnd = template.indexOf(')', valuesStart) + 1;
+      this.statementPrefix = template.substring(0, valuesStart);
+      this.valuesGroup = template.substring(valuesStart, valuesEnd);
+      this.statementSuffix = template.substring(valuesEnd);
+      this.columnTypes = columnTypes;
+      Preconditions.checkArgument(StringUtils.countMatches(this.valuesGroup, "?") == columnTypes.length);
+    }
+
+    void addRow(Object... values) throws SQLException {
+      Preconditions.checkArgument(values.length == this.columnTypes.length);
+      this.rows.add(values);
+      if (this.rows.size() >= MAX_ROWS_PER_UPSERT_STATEMENT) {
+        flush();
+      }
+    }
+
+    void flush() throws SQLException {
+      if (this.rows.isEmpty()) {
+        return;
+      }
+
+      String statement = this.statementPrefix
+          + StringUtils.join(Iterables.limit(Iterables.cycle(this.valuesGroup), this.rows.size()).iterator(), ",")
+          + this.statementSuffix;
+      try (PreparedStatement upsertStatement = this.connection.prepareStatement(statement)) {
+        int index = 0;
+        for (Object[] row : this.rows) {
+          for (int i = 0; i < row.length; i++) {
+            setParameter(upsertStatement, ++index, row[i], this.columnTypes[i]);
+          }
+        }
+        upsertStatement.executeUpdate();
+      }
+      this.rows.clear();
+    }
+
+    private static void setParameter(PreparedStatement statement, int index, Object value, int type)
+        throws SQLException {
+      if (value == null) {
+        statement.setNull(index, type);
+      } else if (type == Types.TIMESTAMP) {
+        statement.setTimestamp(index, (Timestamp) value, getCalendarUTCInstance());
+      } else if (type == Types.BIGINT) {
+        statement.setLong(index, (Long) value);
+      } else {
+        statement.setString(index, (String) value);
+      }
+    }
+  }
+
   @AllArgsConstructor
   private static class DatabaseVersion {
     @Getter
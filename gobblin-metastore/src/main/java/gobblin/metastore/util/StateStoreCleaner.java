@@ -40,6 +40,7 @@ import com.google.common.io.Closer;
 import com.google.common.io.Files;
 
 import gobblin.configuration.ConfigurationKeys;
+import gobblin.metastore.FsStateStore;
 import gobblin.util.ExecutorsUtils;
 
 
@@ -155,8 +156,16 @@ public class StateStoreCleaner implements Closeable {
 
         LOGGER.info("Cleaning up state store directory: " + this.stateStoreDir);
         for (FileStatus file : stateStoreFiles) {
-          if (shouldCleanUp(file) && !this.fs.delete(file.getPath(), false)) {
-            LOGGER.error("Failed to delete state store file: " + file.getPath());
+          if (shouldCleanUp(file)) {
+            if (!this.fs.delete(file.getPath(), false)) {
+              LOGGER.error("Failed to delete state store file: " + file.getPath());
+              continue;
+            }
+            Path indexPath = new Path(file.getPath().getParent(),
+                file.getPath().getName() + FsStateStore.INDEX_FILE_SUFFIX);
+            if (this.fs.exists(indexPath) && !this.fs.delete(indexPath, false)) {
+              LOGGER.error("Failed to delete state store index file: " + indexPath);
+            }
           }
         }
       } catch (IOException ioe) {
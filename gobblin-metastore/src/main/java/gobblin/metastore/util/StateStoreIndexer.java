@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.metastore.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.Closer;
+import com.google.common.io.Files;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.State;
+import gobblin.metastore.FsStateStore;
+
+
+/**
+ * A utility class for building the indexes (see {@link FsStateStore#createIndex(String, String)}) of existing
+ * state store files created by {@link FsStateStore}, so lookups of individual states in them do not need to scan
+ * the whole files. Files that already have an up-to-date index are skipped.
+ */
+public class StateStoreIndexer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StateStoreIndexer.class);
+
+  private final FileSystem fs;
+  private final Path stateStoreRootDir;
+  private final FsStateStore<State> stateStore;
+
+  public StateStoreIndexer(Properties properties) throws IOException {
+    Preconditions.checkArgument(properties.containsKey(ConfigurationKeys.STATE_STORE_ROOT_DIR_KEY),
+        "Missing configuration property for the state store root directory: "
+            + ConfigurationKeys.STATE_STORE_ROOT_DIR_KEY);
+
+    this.stateStoreRootDir = new Path(properties.getProperty(ConfigurationKeys.STATE_STORE_ROOT_DIR_KEY));
+    URI fsUri = URI.create(properties.getProperty(
+        ConfigurationKeys.STATE_STORE_FS_URI_KEY, ConfigurationKeys.LOCAL_FS_URI));
+    this.fs = FileSystem.get(fsUri, new Configuration());
+    this.stateStore = new FsStateStore<>(this.fs, this.stateStoreRootDir.toUri().getPath(), State.class);
+  }
+
+  /**
+   * Run the indexer.
+   *
+   * @return the number of indexes created
+   */
+  public int run() throws IOException {
+    FileStatus[] stateStoreDirs = this.fs.listStatus(this.stateStoreRootDir);
+    if (stateStoreDirs == null || stateStoreDirs.length == 0) {
+      LOGGER.warn("The state store root directory does not exist or is empty");
+      return 0;
+    }
+
+    int indexesCreated = 0;
+    for (FileStatus stateStoreDir : stateStoreDirs) {
+      if (!stateStoreDir.isDirectory()) {
+        continue;
+      }
+
+      String storeName = stateStoreDir.getPath().getName();
+      FileStatus[] stateStoreFiles = this.fs.listStatus(stateStoreDir.getPath(), new StateStoreFileFilter());
+      for (FileStatus file : stateStoreFiles) {
+        String tableName = file.getPath().getName();
+        Path indexPath = new Path(file.getPath().getParent(), tableName + FsStateStore.INDEX_FILE_SUFFIX);
+        if (this.fs.exists(indexPath) && this.fs.getFileStatus(indexPath).getModificationTime() >= file
+            .getModificationTime()) {
+          continue;
+        }
+        if (this.stateStore.createIndex(storeName, tableName)) {
+          LOGGER.info("Created index for state store file: " + file.getPath());
+          indexesCreated++;
+        }
+      }
+    }
+
+    return indexesCreated;
+  }
+
+  private static class StateStoreFileFilter implements PathFilter {
+
+    @Override
+    public boolean accept(Path path) {
+      String extension = Files.getFileExtension(path.getName());
+      return extension.equalsIgnoreCase("jst") || extension.equalsIgnoreCase("tst");
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: " + StateStoreIndexer.class.getSimpleName() + " <configuration file>");
+      System.exit(1);
+    }
+
+    Closer closer = Closer.create();
+    try {
+      Properties properties = new Properties();
+      properties.load(closer.register(new FileInputStream(args[0])));
+      new StateStoreIndexer(properties).run();
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+}
@@ -12,12 +12,16 @@
 
 package gobblin.metastore;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.DefaultCodec;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -91,6 +95,130 @@ public class FsStateStoreTest {
     Assert.assertEquals(states.get(2).getProp("k3"), "v3");
   }
 
+  @Test
+  public void testIndexedGet() throws IOException {
+    List<State> states = createStates(100);
+    this.stateStore.putAll("indexedStore", "indexedTable", states);
+    Assert.assertTrue(new File("metastore-test/indexedStore/indexedTable" + FsStateStore.INDEX_FILE_SUFFIX).exists());
+
+    for (int i : new int[] { 0, 15, 16, 57, 99 }) {
+      Assert.assertEquals(this.stateStore.get("indexedStore", "indexedTable", "s" + i).getProp("k" + i), "v" + i);
+    }
+    Assert.assertNull(this.stateStore.get("indexedStore", "indexedTable", "s100"));
+
+    this.stateStore.createAlias("indexedStore", "indexedTable", "indexedTableAlias");
+    Assert.assertEquals(this.stateStore.get("indexedStore", "indexedTableAlias", "s42").getProp("k42"), "v42");
+
+    // The index is deleted with the table and is not used for a new table with the same name
+    this.stateStore.delete("indexedStore", "indexedTableAlias");
+    Assert.assertFalse(
+        new File("metastore-test/indexedStore/indexedTableAlias" + FsStateStore.INDEX_FILE_SUFFIX).exists());
+    this.stateStore.putAll("indexedStore", "indexedTableAlias", createStates(3));
+    Assert.assertNull(this.stateStore.get("indexedStore", "indexedTableAlias", "s42"));
+    Assert.assertEquals(this.stateStore.get("indexedStore", "indexedTableAlias", "s2").getProp("k2"), "v2");
+
+    Assert.assertEquals(this.stateStore.getAll("indexedStore").size(), 103);
+  }
+
+  @Test
+  public void testCreateIndex() throws IOException {
+    this.stateStore.putAll("unindexedStore", "unindexedTable", createStates(50));
+    File indexFile = new File("metastore-test/unindexedStore/unindexedTable" + FsStateStore.INDEX_FILE_SUFFIX);
+    Assert.assertTrue(indexFile.delete());
+
+    Assert.assertTrue(((FsStateStore<State>) this.stateStore).createIndex("unindexedStore", "unindexedTable"));
+    Assert.assertTrue(indexFile.exists());
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals(this.stateStore.get("unindexedStore", "unindexedTable", "s" + i).getProp("k" + i), "v" + i);
+    }
+  }
+
+  @Test
+  public void testCreateIndexForLegacyTables() throws IOException {
+    // Tables written before indexes were introduced have no index and blocks of any number of states
+    Configuration conf = new Configuration(false);
+    conf.setInt("io.seqfile.compress.blocksize", 256);
+    writeLegacyTable(conf, "legacyTable", SequenceFile.CompressionType.BLOCK, 50);
+    writeLegacyTable(conf, "uncompressedLegacyTable", SequenceFile.CompressionType.NONE, 50);
+
+    FsStateStore<State> fsStateStore = (FsStateStore<State>) this.stateStore;
+    Assert.assertTrue(fsStateStore.createIndex("legacyStore", "legacyTable"));
+    Assert.assertTrue(new File("metastore-test/legacyStore/legacyTable" + FsStateStore.INDEX_FILE_SUFFIX).exists());
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals(this.stateStore.get("legacyStore", "legacyTable", "s" + i).getProp("k" + i), "v" + i);
+    }
+    Assert.assertNull(this.stateStore.get("legacyStore", "legacyTable", "s50"));
+
+    // Tables that are not block-compressed are not indexed and are still scanned
+    Assert.assertFalse(fsStateStore.createIndex("legacyStore", "uncompressedLegacyTable"));
+    Assert.assertFalse(
+        new File("metastore-test/legacyStore/uncompressedLegacyTable" + FsStateStore.INDEX_FILE_SUFFIX).exists());
+    Assert.assertEquals(this.stateStore.get("legacyStore", "uncompressedLegacyTable", "s42").getProp("k42"), "v42");
+
+    Assert.assertFalse(fsStateStore.createIndex("legacyStore", "nonExistingTable"));
+  }
+
+  @Test
+  public void testIndexChangedByAnotherStateStore() throws IOException {
+    StateStore<State> otherStateStore = new FsStateStore<>("file:///", "metastore-test", State.class);
+    this.stateStore.putAll("sharedStore", "sharedTable", createStates(50));
+    Assert.assertEquals(otherStateStore.get("sharedStore", "sharedTable", "s42").getProp("k42"), "v42");
+
+    // The index read by the other state store is not used once the table and its index are rewritten
+    List<State> states = createStates(100);
+    states.remove(42);
+    this.stateStore.putAll("sharedStore", "sharedTable", states);
+    Assert.assertNull(otherStateStore.get("sharedStore", "sharedTable", "s42"));
+    Assert.assertEquals(otherStateStore.get("sharedStore", "sharedTable", "s99").getProp("k99"), "v99");
+  }
+
+  @Test
+  public void testParallelGetAll() throws IOException {
+    for (int i = 0; i < 20; i++) {
+      this.stateStore.putAll("parallelStore", "table" + i, createStates(i));
+    }
+
+    List<State> states = this.stateStore.getAll("parallelStore");
+    Assert.assertEquals(states.size(), 190);
+    Assert.assertEquals(this.stateStore.getAll("parallelStore", "table19").size(), 19);
+
+    // Threads of a store are reused across calls, and tables are read in the same order whatever the thread count
+    StateStore<State> fewThreadsStateStore =
+        new FsStateStore<>(FileSystem.getLocal(new Configuration()), "metastore-test", State.class, 3);
+    for (int i = 0; i < 2; i++) {
+      List<State> fewThreadsStates = fewThreadsStateStore.getAll("parallelStore");
+      Assert.assertEquals(fewThreadsStates.size(), 190);
+      for (int j = 0; j < states.size(); j++) {
+        Assert.assertEquals(fewThreadsStates.get(j).getId(), states.get(j).getId());
+      }
+    }
+  }
+
+  private static List<State> createStates(int numStates) {
+    List<State> states = Lists.newArrayList();
+    for (int i = 0; i < numStates; i++) {
+      State state = new State();
+      state.setId("s" + i);
+      state.setProp("k" + i, "v" + i);
+      states.add(state);
+    }
+    return states;
+  }
+
+  private static void writeLegacyTable(Configuration conf, String tableName,
+      SequenceFile.CompressionType compressionType, int numStates) throws IOException {
+    FileSystem fs = FileSystem.getLocal(conf);
+    SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, new Path("metastore-test/legacyStore", tableName),
+        Text.class, State.class, compressionType, new DefaultCodec());
+    try {
+      for (State state : createStates(numStates)) {
+        writer.append(new Text(state.getId()), state);
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
   @AfterClass
   public void tearDown() throws IOException {
     FileSystem fs = FileSystem.getLocal(new Configuration(false));
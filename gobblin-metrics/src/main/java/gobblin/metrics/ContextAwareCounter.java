@@ -24,8 +24,9 @@ import gobblin.metrics.metric.InnerMetric;
  * {@link Tag}s.
  *
  * <p>
- *   Any updates to a {@link ContextAwareCounter} will be applied automatically to the
- *   {@link ContextAwareCounter} of the same name in the parent {@link MetricContext}.
+ *   Any updates to a {@link ContextAwareCounter} will be reflected automatically in the
+ *   {@link ContextAwareCounter} of the same name in the parent {@link MetricContext}. Updates are only applied
+ *   locally, and the parent aggregates the values of its descendants when it is read.
  * </p>
  *
  * <p>
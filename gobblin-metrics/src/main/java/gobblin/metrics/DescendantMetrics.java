@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.metrics;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+
+/**
+ * Tracks the local values of the metrics with the same name in all descendant {@link MetricContext}s of a metric.
+ *
+ * <p>
+ *   Instead of propagating every update up the {@link MetricContext} tree, a metric only updates its own local value,
+ *   which is registered here with every ancestor of the metric. An ancestor computes its value when it is read by
+ *   aggregating the local values of all its descendants, so updates don't contend on the ancestors.
+ * </p>
+ *
+ * <p>
+ *   Each local value is tracked as long as the metric owning it is reachable. Once the owner is garbage collected,
+ *   which happens after its {@link MetricContext} is cleaned up or the metric is removed, the local value is returned
+ *   once by {@link #expunge()} or {@link #add(Object, Object)} so that the ancestor can retain it. Expunging when
+ *   descendants are added keeps the tracked values bounded even if the ancestor is never read.
+ * </p>
+ *
+ * @param <T> type of the local values
+ */
+class DescendantMetrics<T> implements Iterable<T> {
+
+  private static class DescendantReference<T> extends WeakReference<Object> {
+    private final T localValue;
+
+    private DescendantReference(Object owner, T localValue, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      this.localValue = localValue;
+    }
+  }
+
+  private final Set<DescendantReference<T>> references = Sets.newConcurrentHashSet();
+  private final ReferenceQueue<Object> referenceQueue = new ReferenceQueue<>();
+
+  /**
+   * Track the local value of a descendant metric, and expunge the local values of descendant metrics whose owner was
+   * garbage collected.
+   *
+   * @param owner the descendant metric, the local value is tracked as long as it is reachable
+   * @param localValue the local value of the descendant metric
+   * @return the local values expunged as by {@link #expunge()}
+   */
+  List<T> add(Object owner, T localValue) {
+    List<T> expunged = expunge();
+    this.references.add(new DescendantReference<>(owner, localValue, this.referenceQueue));
+    return expunged;
+  }
+
+  /**
+   * @return the local values of descendant metrics whose owner was garbage collected since the last call, which are
+   *         no longer tracked.
+   */
+  @SuppressWarnings("unchecked")
+  List<T> expunge() {
+    List<T> expunged = Lists.newArrayList();
+    Reference<?> reference;
+    while ((reference = this.referenceQueue.poll()) != null) {
+      if (this.references.remove(reference)) {
+        expunged.add(((DescendantReference<T>) reference).localValue);
+      }
+    }
+    return expunged;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return Iterators.transform(this.references.iterator(), new Function<DescendantReference<T>, T>() {
+      @Override
+      public T apply(DescendantReference<T> input) {
+        return input.localValue;
+      }
+    });
+  }
+}
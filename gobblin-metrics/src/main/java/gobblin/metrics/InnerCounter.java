@@ -13,6 +13,7 @@
 package gobblin.metrics;
 
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 import com.codahale.metrics.Counter;
 import com.google.common.base.Optional;
@@ -22,6 +23,12 @@ import gobblin.metrics.metric.InnerMetric;
 
 /**
  * Implementation of {@link InnerMetric} for {@link Counter}.
+ *
+ * <p>
+ *   Updates are only applied to a local {@link Counter}, which is striped to avoid contention between threads. The
+ *   count of this counter is the local count plus the local counts of the counters with the same name in all
+ *   descendant {@link MetricContext}s, aggregated when the count is read (see {@link DescendantMetrics}).
+ * </p>
  */
 public class InnerCounter extends Counter implements InnerMetric {
   protected final String name;
@@ -29,6 +36,11 @@ public class InnerCounter extends Counter implements InnerMetric {
   protected final Optional<ContextAwareCounter> parentCounter;
   private final WeakReference<ContextAwareCounter> contextAwareCounter;
 
+  private final Counter localCounter = new Counter();
+  private final DescendantMetrics<Counter> descendantCounters = new DescendantMetrics<>();
+  // Total count of descendant counters that were garbage collected
+  private final Counter retiredCount = new Counter();
+
   public InnerCounter(MetricContext context, String name, ContextAwareCounter counter) {
     this.tagged = new Tagged();
     this.name = name;
@@ -39,24 +51,31 @@ public class InnerCounter extends Counter implements InnerMetric {
     } else {
       this.parentCounter = Optional.absent();
     }
+    if (this.parentCounter.isPresent()) {
+      getParentInnerCounter().addDescendant(this, this.localCounter);
+    }
 
     this.contextAwareCounter = new WeakReference<>(counter);
   }
 
   @Override
   public void inc(long n) {
-    super.inc(n);
-    if (this.parentCounter.isPresent()) {
-      this.parentCounter.get().inc(n);
-    }
+    this.localCounter.inc(n);
   }
 
   @Override
   public void dec(long n) {
-    super.dec(n);
-    if (this.parentCounter.isPresent()) {
-      this.parentCounter.get().dec(n);
+    this.localCounter.dec(n);
+  }
+
+  @Override
+  public long getCount() {
+    retireDescendants(this.descendantCounters.expunge());
+    long count = this.localCounter.getCount() + this.retiredCount.getCount();
+    for (Counter descendant : this.descendantCounters) {
+      count += descendant.getCount();
     }
+    return count;
   }
 
   public String getName() {
@@ -67,4 +86,27 @@ public class InnerCounter extends Counter implements InnerMetric {
   public ContextAwareMetric getContextAwareMetric() {
     return this.contextAwareCounter.get();
   }
+
+  /**
+   * Track the local counter of a descendant in this counter and all its ancestors.
+   */
+  void addDescendant(InnerCounter owner, Counter descendantLocalCounter) {
+    retireDescendants(this.descendantCounters.add(owner, descendantLocalCounter));
+    if (this.parentCounter.isPresent()) {
+      getParentInnerCounter().addDescendant(owner, descendantLocalCounter);
+    }
+  }
+
+  /**
+   * Add the counts of garbage collected descendant counters to the retired count.
+   */
+  private void retireDescendants(List<Counter> expunged) {
+    for (Counter retired : expunged) {
+      this.retiredCount.inc(retired.getCount());
+    }
+  }
+
+  private InnerCounter getParentInnerCounter() {
+    return (InnerCounter) this.parentCounter.get().getInnerMetric();
+  }
 }
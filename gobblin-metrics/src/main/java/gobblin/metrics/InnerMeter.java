@@ -13,7 +13,12 @@
 package gobblin.metrics;
 
 import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Meter;
 import com.google.common.base.Optional;
 
@@ -22,13 +27,38 @@ import gobblin.metrics.metric.InnerMetric;
 
 /**
  * Implementation of {@link InnerMetric} for {@link Meter}.
+ *
+ * <p>
+ *   Marks are only applied to a local {@link Meter}. The count and moving average rates of this meter are those of
+ *   the local meter plus those of the meters with the same name in all descendant {@link MetricContext}s, aggregated
+ *   when read (see {@link DescendantMetrics}). Since the rates are exponentially weighted moving averages, the sum of
+ *   the rates of the descendants is the rate of all their marks. The mean rate is computed from the aggregated count
+ *   and the creation time of this meter.
+ * </p>
+ *
+ * <p>
+ *   Once a descendant meter is garbage collected, its count is retained, and its rates keep being aggregated until
+ *   they have decayed below {@link #RETIRED_RATE_THRESHOLD}.
+ * </p>
  */
 public class InnerMeter extends Meter implements InnerMetric {
 
+  /** Rate, in events per second, below which the rates of a garbage collected descendant meter are ignored. */
+  static final double RETIRED_RATE_THRESHOLD = 0.001;
+
   private final String name;
   private final Optional<ContextAwareMeter> parentMeter;
   private final WeakReference<ContextAwareMeter> contextAwareMeter;
 
+  private final Clock clock = Clock.defaultClock();
+  private final long startTime = this.clock.getTick();
+  private final Meter localMeter = new Meter();
+  private final DescendantMetrics<Meter> descendantMeters = new DescendantMetrics<>();
+  // Descendant meters that were garbage collected but whose rates have not decayed yet
+  private final Queue<Meter> retiringMeters = new ConcurrentLinkedQueue<>();
+  // Total count of descendant meters that were garbage collected and whose rates have decayed
+  private final Counter retiredCount = new Counter();
+
   InnerMeter(MetricContext context, String name, ContextAwareMeter contextAwareMeter) {
     this.name = name;
 
@@ -38,15 +68,77 @@ public class InnerMeter extends Meter implements InnerMetric {
     } else {
       this.parentMeter = Optional.absent();
     }
+    if (this.parentMeter.isPresent()) {
+      getParentInnerMeter().addDescendant(this, this.localMeter);
+    }
     this.contextAwareMeter = new WeakReference<>(contextAwareMeter);
   }
 
   @Override
   public void mark(long n) {
-    super.mark(n);
-    if (this.parentMeter.isPresent()) {
-      this.parentMeter.get().mark(n);
+    this.localMeter.mark(n);
+  }
+
+  @Override
+  public long getCount() {
+    retireDescendants();
+    long count = this.localMeter.getCount() + this.retiredCount.getCount();
+    for (Meter meter : this.descendantMeters) {
+      count += meter.getCount();
+    }
+    for (Meter meter : this.retiringMeters) {
+      count += meter.getCount();
+    }
+    return count;
+  }
+
+  @Override
+  public double getMeanRate() {
+    long count = getCount();
+    if (count == 0) {
+      return 0.0;
+    }
+    double elapsed = this.clock.getTick() - this.startTime;
+    return count / elapsed * TimeUnit.SECONDS.toNanos(1);
+  }
+
+  @Override
+  public double getOneMinuteRate() {
+    retireDescendants();
+    double rate = this.localMeter.getOneMinuteRate();
+    for (Meter meter : this.descendantMeters) {
+      rate += meter.getOneMinuteRate();
+    }
+    for (Meter meter : this.retiringMeters) {
+      rate += meter.getOneMinuteRate();
     }
+    return rate;
+  }
+
+  @Override
+  public double getFiveMinuteRate() {
+    retireDescendants();
+    double rate = this.localMeter.getFiveMinuteRate();
+    for (Meter meter : this.descendantMeters) {
+      rate += meter.getFiveMinuteRate();
+    }
+    for (Meter meter : this.retiringMeters) {
+      rate += meter.getFiveMinuteRate();
+    }
+    return rate;
+  }
+
+  @Override
+  public double getFifteenMinuteRate() {
+    retireDescendants();
+    double rate = this.localMeter.getFifteenMinuteRate();
+    for (Meter meter : this.descendantMeters) {
+      rate += meter.getFifteenMinuteRate();
+    }
+    for (Meter meter : this.retiringMeters) {
+      rate += meter.getFifteenMinuteRate();
+    }
+    return rate;
   }
 
   public String getName() {
@@ -56,4 +148,32 @@ public class InnerMeter extends Meter implements InnerMetric {
   @Override public ContextAwareMetric getContextAwareMetric() {
     return this.contextAwareMeter.get();
   }
+
+  /**
+   * Track the local meter of a descendant in this meter and all its ancestors.
+   */
+  void addDescendant(InnerMeter owner, Meter descendantLocalMeter) {
+    this.retiringMeters.addAll(this.descendantMeters.add(owner, descendantLocalMeter));
+    if (this.parentMeter.isPresent()) {
+      getParentInnerMeter().addDescendant(owner, descendantLocalMeter);
+    }
+  }
+
+  /**
+   * Move garbage collected descendant meters to the retiring meters, and retire the count of retiring meters whose
+   * rates have all decayed.
+   */
+  private void retireDescendants() {
+    this.retiringMeters.addAll(this.descendantMeters.expunge());
+    for (Meter meter : this.retiringMeters) {
+      if (meter.getOneMinuteRate() < RETIRED_RATE_THRESHOLD && meter.getFiveMinuteRate() < RETIRED_RATE_THRESHOLD
+          && meter.getFifteenMinuteRate() < RETIRED_RATE_THRESHOLD && this.retiringMeters.remove(meter)) {
+        this.retiredCount.inc(meter.getCount());
+      }
+    }
+  }
+
+  private InnerMeter getParentInnerMeter() {
+    return (InnerMeter) this.parentMeter.get().getInnerMetric();
+  }
 }
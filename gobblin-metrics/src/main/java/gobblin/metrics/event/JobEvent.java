@@ -37,5 +37,7 @@ public class JobEvent {
   public static final String METADATA_JOB_COMPLETED_TASKS = "jobCompletedTasks";
   public static final String METADATA_JOB_LAUNCHER_TYPE = "jobLauncherType";
   public static final String METADATA_JOB_TRACKING_URL = "jobTrackingURL";
+  public static final String METADATA_DATASET_URN = "datasetUrn";
+  public static final String METADATA_DATASET_STATE = "datasetState";
 
 }
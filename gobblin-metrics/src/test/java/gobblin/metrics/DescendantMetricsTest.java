@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.metrics;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Counter;
+import com.google.common.collect.Lists;
+
+
+/**
+ * Unit tests for {@link DescendantMetrics}, and the lazy aggregation of {@link InnerCounter}s and {@link InnerMeter}s.
+ */
+@Test(groups = {"gobblin.metrics"})
+public class DescendantMetricsTest {
+
+  private static final String COUNTER = "records";
+  private static final String METER = "recordRate";
+
+  @Test
+  public void testExpunge() {
+    DescendantMetrics<Counter> descendants = new DescendantMetrics<>();
+    Object owner = new Object();
+    Counter counter = new Counter();
+    counter.inc(5);
+    descendants.add(owner, counter);
+    Assert.assertEquals(Lists.newArrayList(descendants), Lists.newArrayList(counter));
+    Assert.assertTrue(descendants.expunge().isEmpty());
+
+    owner = null;
+    List<Counter> expunged = Lists.newArrayList();
+    int maxTries = 10;
+    while (maxTries > 0 && expunged.isEmpty()) {
+      System.gc();
+      expunged.addAll(descendants.expunge());
+      maxTries--;
+    }
+    Assert.assertEquals(expunged, Lists.newArrayList(counter));
+    Assert.assertFalse(descendants.iterator().hasNext());
+  }
+
+  @Test
+  public void testExpungeOnAdd() {
+    DescendantMetrics<Counter> descendants = new DescendantMetrics<>();
+    Object owner = new Object();
+    Counter counter = new Counter();
+    Assert.assertTrue(descendants.add(owner, counter).isEmpty());
+
+    // Descendants are added without the descendant metrics ever being read
+    owner = null;
+    List<Object> liveOwners = Lists.newArrayList();
+    List<Counter> expunged = Lists.newArrayList();
+    int maxTries = 10;
+    while (maxTries > 0 && expunged.isEmpty()) {
+      System.gc();
+      Object liveOwner = new Object();
+      liveOwners.add(liveOwner);
+      expunged.addAll(descendants.add(liveOwner, new Counter()));
+      maxTries--;
+    }
+    Assert.assertEquals(expunged, Lists.newArrayList(counter));
+    Assert.assertTrue(descendants.expunge().isEmpty());
+    Assert.assertEquals(Lists.newArrayList(descendants).size(), liveOwners.size());
+  }
+
+  @Test
+  public void testConcurrentCounterUpdates() throws Exception {
+    MetricContext jobContext = MetricContext.builder("job_" + UUID.randomUUID()).build();
+    final ContextAwareCounter jobCounter = jobContext.contextAwareCounter(COUNTER);
+    List<MetricContext> taskContexts = Lists.newArrayList();
+    List<ContextAwareCounter> forkCounters = Lists.newArrayList();
+    for (int i = 0; i < 4; i++) {
+      MetricContext taskContext = jobContext.childBuilder("task" + i).build();
+      taskContexts.add(taskContext);
+      forkCounters.add(taskContext.childBuilder("fork").build().contextAwareCounter(COUNTER));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = Lists.newArrayList();
+      for (int i = 0; i < 8; i++) {
+        final ContextAwareCounter counter = forkCounters.get(i % forkCounters.size());
+        futures.add(executor.submit(new Runnable() {
+          @Override
+          public void run() {
+            for (int j = 0; j < 10000; j++) {
+              counter.inc();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    jobCounter.dec(5);
+    for (int i = 0; i < forkCounters.size(); i++) {
+      Assert.assertEquals(forkCounters.get(i).getCount(), 20000);
+      Assert.assertEquals(taskContexts.get(i).contextAwareCounter(COUNTER).getCount(), 20000);
+    }
+    Assert.assertEquals(jobCounter.getCount(), 80000 - 5);
+    Assert.assertEquals(jobContext.getCounters().get(COUNTER).getCount(), 80000 - 5);
+  }
+
+  @Test
+  public void testMeterAggregation() {
+    MetricContext jobContext = MetricContext.builder("job_" + UUID.randomUUID()).build();
+    ContextAwareMeter jobMeter = jobContext.contextAwareMeter(METER);
+    ContextAwareMeter taskMeter1 = jobContext.childBuilder("task1").build().contextAwareMeter(METER);
+    ContextAwareMeter taskMeter2 = jobContext.childBuilder("task2").build().contextAwareMeter(METER);
+
+    jobMeter.mark();
+    taskMeter1.mark(10);
+    taskMeter2.mark(100);
+
+    Assert.assertEquals(taskMeter1.getCount(), 10);
+    Assert.assertEquals(taskMeter2.getCount(), 100);
+    Assert.assertEquals(jobMeter.getCount(), 111);
+    Assert.assertTrue(jobMeter.getMeanRate() > taskMeter1.getMeanRate());
+  }
+}
@@ -49,6 +49,17 @@ public class MetricsPerformanceTest {
         forkAtDepth(Sets.newHashSet(0, 3)).depth(4).counters(1).run();
   }
 
+  /**
+   * Updates from 64 threads, either all in the same leaf context, or each in its own leaf context under a shared
+   * parent, which measures contention on the shared ancestors.
+   */
+  public void contentionPerformance() throws Exception {
+    PerformanceUtils.multiTest().name("ContentionCounterPerformance").threads(64).depth(4)
+        .forkAtDepth(Sets.newHashSet(1, 4)).counters(1).run();
+    PerformanceUtils.multiTest().name("ContentionMeterPerformance").threads(64).depth(4)
+        .forkAtDepth(Sets.newHashSet(1, 4)).meters(1).queries(20000000l).run();
+  }
+
   public void forkLevelPerformance() throws Exception {
     PerformanceUtils.multiTest().name("ForkLevelPerformance").threads(8).depth(4).counters(1).
         forkAtDepth(Sets.newHashSet(0, 1, 2, 3)).run();
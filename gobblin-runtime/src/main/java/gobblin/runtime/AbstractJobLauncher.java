@@ -307,7 +307,7 @@ public abstract class AbstractJobLauncher implements JobLauncher {
 
             TimingEvent jobCommitTimer = this.eventSubmitter.getTimingEvent(TimingEvent.LauncherTimings.JOB_COMMIT);
             this.jobContext.finalizeJobStateBeforeCommit();
-            this.jobContext.commit();
+            this.jobContext.commit(this.eventSubmitter);
             postProcessJobState(jobState);
             jobCommitTimer.stop();
           } finally {
@@ -408,8 +408,12 @@ public abstract class AbstractJobLauncher implements JobLauncher {
     try {
       this.jobContext.getSource().shutdown(this.jobContext.getJobState());
     } finally {
-      if (GobblinMetrics.isEnabled(this.jobProps)) {
-        GobblinMetricsRegistry.getInstance().remove(this.jobContext.getJobId());
+      try {
+        this.jobContext.closeJobHistoryWriter();
+      } finally {
+        if (GobblinMetrics.isEnabled(this.jobProps)) {
+          GobblinMetricsRegistry.getInstance().remove(this.jobContext.getJobId());
+        }
       }
     }
   }
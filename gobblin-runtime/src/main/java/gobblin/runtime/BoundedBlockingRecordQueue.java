@@ -12,6 +12,8 @@
 
 package gobblin.runtime;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -21,6 +23,7 @@ import com.codahale.metrics.MetricRegistry;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Queues;
 
 import gobblin.configuration.ConfigurationKeys;
@@ -42,6 +45,17 @@ import gobblin.configuration.ConfigurationKeys;
  *   </ul>
  * </p>
  *
+ * <p>
+ *   Records can also be handed off in batches using {@link #putBatch(List)} and {@link #getBatch()}, in which
+ *   case each batch occupies a single slot of the queue and costs a single put or get attempt. The capacity
+ *   of the queue is a number of slots, so a queue of batches should be given a capacity of the number of
+ *   records to buffer divided by the batch size. When batches
+ *   are used, the statistics additionally include the count and mean rate of records put into and taken
+ *   from the queue. If the queue is only ever used by one producer thread and one consumer thread, it can
+ *   be backed by a lock-free ring buffer (see {@link Builder#useSingleProducerSingleConsumer()}) instead of
+ *   an {@link java.util.concurrent.ArrayBlockingQueue}.
+ * </p>
+ *
  * @author Yinan Li
  */
 public class BoundedBlockingRecordQueue<T> {
@@ -49,10 +63,16 @@ public class BoundedBlockingRecordQueue<T> {
   private final int capacity;
   private final long timeout;
   private final TimeUnit timeoutTimeUnit;
-  private final BlockingQueue<T> blockingQueue;
+  private final boolean batched;
+  // Each element is either a single record or a RecordBatch
+  private final BlockingQueue<Object> blockingQueue;
 
   private final Optional<QueueStats> queueStats;
 
+  // Records of a batch that have not been handed out by get() yet. This is only accessed by the consumer.
+  private List<T> pendingBatch = Collections.emptyList();
+  private int pendingBatchIndex = 0;
+
   private BoundedBlockingRecordQueue(Builder<T> builder) {
     Preconditions.checkArgument(builder.capacity > 0, "Invalid queue capacity");
     Preconditions.checkArgument(builder.timeout > 0, "Invalid timeout time");
@@ -60,7 +80,10 @@ public class BoundedBlockingRecordQueue<T> {
     this.capacity = builder.capacity;
     this.timeout = builder.timeout;
     this.timeoutTimeUnit = builder.timeoutTimeUnit;
-    this.blockingQueue = Queues.newArrayBlockingQueue(builder.capacity);
+    this.batched = builder.batched;
+    this.blockingQueue = builder.singleProducerSingleConsumer
+        ? new SingleProducerSingleConsumerBlockingQueue<>(builder.capacity)
+        : Queues.newArrayBlockingQueue(builder.capacity);
 
     this.queueStats = builder.ifCollectStats ? Optional.of(new QueueStats()) : Optional.<QueueStats> absent();
   }
@@ -77,6 +100,35 @@ public class BoundedBlockingRecordQueue<T> {
     boolean offered = this.blockingQueue.offer(record, this.timeout, this.timeoutTimeUnit);
     if (this.queueStats.isPresent()) {
       this.queueStats.get().putsRateMeter.mark();
+      if (offered) {
+        this.queueStats.get().recordsPutMeter.mark();
+      }
+    }
+    return offered;
+  }
+
+  /**
+   * Put a batch of records to the tail of the queue as a single element, waiting (up to the configured
+   * timeout time) for an empty space to become available.
+   *
+   * <p>
+   *   The caller must not modify the batch after it has been successfully put into the queue.
+   * </p>
+   *
+   * @param records the batch of records to put to the tail of the queue
+   * @return whether the batch has been successfully put into the queue
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean putBatch(List<T> records) throws InterruptedException {
+    if (records.isEmpty()) {
+      return true;
+    }
+    boolean offered = this.blockingQueue.offer(new RecordBatch<>(records), this.timeout, this.timeoutTimeUnit);
+    if (this.queueStats.isPresent()) {
+      this.queueStats.get().putsRateMeter.mark();
+      if (offered) {
+        this.queueStats.get().recordsPutMeter.mark(records.size());
+      }
     }
     return offered;
   }
@@ -88,12 +140,61 @@ public class BoundedBlockingRecordQueue<T> {
    * @return the record at the head of the queue, or <code>null</code> if no record is available
    * @throws InterruptedException if interrupted while waiting
    */
+  @SuppressWarnings("unchecked")
   public T get() throws InterruptedException {
-    T record = this.blockingQueue.poll(this.timeout, this.timeoutTimeUnit);
+    if (this.pendingBatchIndex < this.pendingBatch.size()) {
+      return this.pendingBatch.get(this.pendingBatchIndex++);
+    }
+
+    Object element = this.blockingQueue.poll(this.timeout, this.timeoutTimeUnit);
     if (this.queueStats.isPresent()) {
       this.queueStats.get().getsRateMeter.mark();
     }
-    return record;
+    if (element instanceof RecordBatch) {
+      List<T> records = ((RecordBatch<T>) element).records;
+      if (this.queueStats.isPresent()) {
+        this.queueStats.get().recordsGetMeter.mark(records.size());
+      }
+      this.pendingBatch = records;
+      this.pendingBatchIndex = 1;
+      return records.get(0);
+    }
+    if (element != null && this.queueStats.isPresent()) {
+      this.queueStats.get().recordsGetMeter.mark();
+    }
+    return (T) element;
+  }
+
+  /**
+   * Get the next batch of records from the head of the queue, waiting (up to the configured timeout time)
+   * for a batch to become available. A record that was put into the queue individually is returned as a
+   * batch of one record.
+   *
+   * @return the batch of records at the head of the queue, or <code>null</code> if no record is available
+   * @throws InterruptedException if interrupted while waiting
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getBatch() throws InterruptedException {
+    if (this.pendingBatchIndex < this.pendingBatch.size()) {
+      List<T> remaining = this.pendingBatch.subList(this.pendingBatchIndex, this.pendingBatch.size());
+      this.pendingBatch = Collections.emptyList();
+      this.pendingBatchIndex = 0;
+      return remaining;
+    }
+
+    Object element = this.blockingQueue.poll(this.timeout, this.timeoutTimeUnit);
+    if (this.queueStats.isPresent()) {
+      this.queueStats.get().getsRateMeter.mark();
+    }
+    if (element == null) {
+      return null;
+    }
+    List<T> records =
+        element instanceof RecordBatch ? ((RecordBatch<T>) element).records : ImmutableList.of((T) element);
+    if (this.queueStats.isPresent()) {
+      this.queueStats.get().recordsGetMeter.mark(records.size());
+    }
+    return records;
   }
 
   /**
@@ -111,6 +212,8 @@ public class BoundedBlockingRecordQueue<T> {
    */
   public void clear() {
     this.blockingQueue.clear();
+    this.pendingBatch = Collections.emptyList();
+    this.pendingBatchIndex = 0;
   }
 
   /**
@@ -134,9 +237,11 @@ public class BoundedBlockingRecordQueue<T> {
     private long timeout = ConfigurationKeys.DEFAULT_FORK_RECORD_QUEUE_TIMEOUT;
     private TimeUnit timeoutTimeUnit = TimeUnit.MILLISECONDS;
     private boolean ifCollectStats = false;
+    private boolean batched = false;
+    private boolean singleProducerSingleConsumer = false;
 
     /**
-     * Configure the capacity of the queue.
+     * Configure the capacity of the queue, which is the number of records or batches of records it holds.
      *
      * @param capacity the capacity of the queue
      * @return this {@link Builder} instance
@@ -178,6 +283,28 @@ public class BoundedBlockingRecordQueue<T> {
       return this;
     }
 
+    /**
+     * Configure the queue to be used with {@link BoundedBlockingRecordQueue#putBatch(List)} so record-level
+     * statistics are also collected and registered.
+     *
+     * @return this {@link Builder} instance
+     */
+    public Builder<T> useBatches() {
+      this.batched = true;
+      return this;
+    }
+
+    /**
+     * Configure the queue to be backed by a lock-free ring buffer. The resulting queue must only be
+     * used by a single producer thread and a single consumer thread.
+     *
+     * @return this {@link Builder} instance
+     */
+    public Builder<T> useSingleProducerSingleConsumer() {
+      this.singleProducerSingleConsumer = true;
+      return this;
+    }
+
     /**
      * Build a new {@link BoundedBlockingRecordQueue}.
      *
@@ -188,6 +315,18 @@ public class BoundedBlockingRecordQueue<T> {
     }
   }
 
+  /**
+   * A batch of records occupying a single slot of the queue.
+   */
+  private static class RecordBatch<T> {
+
+    private final List<T> records;
+
+    private RecordBatch(List<T> records) {
+      this.records = records;
+    }
+  }
+
   /**
    * A class for collecting queue statistics.
    *
@@ -203,11 +342,17 @@ public class BoundedBlockingRecordQueue<T> {
     public static final String GET_ATTEMPT_RATE = "getAttemptRate";
     public static final String PUT_ATTEMPT_COUNT = "putAttemptCount";
     public static final String GET_ATTEMPT_COUNT = "getAttemptCount";
+    public static final String RECORD_PUT_RATE = "recordPutRate";
+    public static final String RECORD_GET_RATE = "recordGetRate";
+    public static final String RECORD_PUT_COUNT = "recordPutCount";
+    public static final String RECORD_GET_COUNT = "recordGetCount";
 
     private final Gauge<Integer> queueSizeGauge;
     private final Gauge<Double> fillRatioGauge;
     private final Meter putsRateMeter;
     private final Meter getsRateMeter;
+    private final Meter recordsPutMeter;
+    private final Meter recordsGetMeter;
 
     public QueueStats() {
       this.queueSizeGauge = new Gauge<Integer>() {
@@ -227,6 +372,8 @@ public class BoundedBlockingRecordQueue<T> {
 
       this.putsRateMeter = new Meter();
       this.getsRateMeter = new Meter();
+      this.recordsPutMeter = new Meter();
+      this.recordsGetMeter = new Meter();
     }
 
     /**
@@ -283,6 +430,44 @@ public class BoundedBlockingRecordQueue<T> {
       return this.getsRateMeter.getCount();
     }
 
+    /**
+     * Return the rate of records successfully put into the queue, which is higher than the rate of put
+     * attempts if records are put in batches.
+     *
+     * @return the rate of records put into the queue
+     */
+    public double recordPutRate() {
+      return this.recordsPutMeter.getMeanRate();
+    }
+
+    /**
+     * Return the total count of records successfully put into the queue.
+     *
+     * @return the total count of records put into the queue
+     */
+    public long recordPutCount() {
+      return this.recordsPutMeter.getCount();
+    }
+
+    /**
+     * Return the rate of records taken from the queue, which is higher than the rate of get
+     * attempts if records are put in batches.
+     *
+     * @return the rate of records taken from the queue
+     */
+    public double recordGetRate() {
+      return this.recordsGetMeter.getMeanRate();
+    }
+
+    /**
+     * Return the total count of records taken from the queue.
+     *
+     * @return the total count of records taken from the queue
+     */
+    public long recordGetCount() {
+      return this.recordsGetMeter.getCount();
+    }
+
     /**
      * Register all statistics as {@link com.codahale.metrics.Metric}s with a
      * {@link com.codahale.metrics.MetricRegistry}.
@@ -295,6 +480,11 @@ public class BoundedBlockingRecordQueue<T> {
       metricRegistry.register(MetricRegistry.name(prefix, FILL_RATIO), this.fillRatioGauge);
       metricRegistry.register(MetricRegistry.name(prefix, PUT_ATTEMPT_RATE), this.putsRateMeter);
       metricRegistry.register(MetricRegistry.name(prefix, GET_ATTEMPT_RATE), this.getsRateMeter);
+      if (BoundedBlockingRecordQueue.this.batched) {
+        // Record rates are identical to attempt rates unless records are put in batches
+        metricRegistry.register(MetricRegistry.name(prefix, RECORD_PUT_RATE), this.recordsPutMeter);
+        metricRegistry.register(MetricRegistry.name(prefix, RECORD_GET_RATE), this.recordsGetMeter);
+      }
     }
 
     @Override
@@ -305,7 +495,15 @@ public class BoundedBlockingRecordQueue<T> {
       sb.append(PUT_ATTEMPT_RATE).append("=").append(putAttemptRate()).append(", ");
       sb.append(PUT_ATTEMPT_COUNT).append("=").append(putAttemptCount()).append(", ");
       sb.append(GET_ATTEMPT_RATE).append("=").append(getAttemptRate()).append(", ");
-      sb.append(GET_ATTEMPT_COUNT).append("=").append(getAttemptCount()).append("]");
+      sb.append(GET_ATTEMPT_COUNT).append("=").append(getAttemptCount());
+      if (BoundedBlockingRecordQueue.this.batched) {
+        sb.append(", ");
+        sb.append(RECORD_PUT_RATE).append("=").append(recordPutRate()).append(", ");
+        sb.append(RECORD_PUT_COUNT).append("=").append(recordPutCount()).append(", ");
+        sb.append(RECORD_GET_RATE).append("=").append(recordGetRate()).append(", ");
+        sb.append(RECORD_GET_COUNT).append("=").append(recordGetCount());
+      }
+      sb.append("]");
       return sb.toString();
     }
   }
@@ -21,7 +21,9 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
@@ -63,6 +65,13 @@ import gobblin.writer.PartitionedDataWriter;
  *     </ul>
  * </p>
  *
+ * <p>
+ *     A {@link Fork} can alternatively be executed inline on the thread of its parent {@link Task}, in which case
+ *     it has no record queue and the parent {@link Task} hands each record to {@link #processRecordInline(Object)}
+ *     directly. The converter, row-level quality checker, writer, commit, and metrics of the {@link Fork} are
+ *     the same in both modes.
+ * </p>
+ *
  * @author Yinan Li
  */
 @SuppressWarnings("unchecked")
@@ -93,8 +102,12 @@ public class Fork implements Closeable, Runnable, FinalState {
   private final RowLevelPolicyChecker rowLevelPolicyChecker;
   private final RowLevelPolicyCheckResults rowLevelPolicyCheckingResult;
 
-  // A bounded blocking queue in between the parent task and this fork
-  private final BoundedBlockingRecordQueue<Object> recordQueue;
+  // Whether this fork is executed inline on the thread of the parent task
+  private final boolean inline;
+  // A bounded blocking queue in between the parent task and this fork, absent if this fork is executed inline
+  private final Optional<BoundedBlockingRecordQueue<Object>> recordQueue;
+  // Whether the parent task hands off records to this fork in batches
+  private final boolean batchedRecordHandOff;
 
   private final Closer closer = Closer.create();
 
@@ -114,6 +127,20 @@ public class Fork implements Closeable, Runnable, FinalState {
   private static final String FORK_METRICS_BRANCH_NAME_KEY = "forkBranchName";
 
   public Fork(TaskContext taskContext, Object schema, int branches, int index) throws Exception {
+    this(taskContext, schema, branches, index, false);
+  }
+
+  /**
+   * Instantiate a new {@link Fork}.
+   *
+   * @param taskContext the {@link TaskContext} of the parent {@link Task}
+   * @param schema the schema forked to this {@link Fork}
+   * @param branches the number of branches of the parent {@link Task}
+   * @param index the branch index of this {@link Fork}
+   * @param inline whether this {@link Fork} is executed inline on the thread of the parent {@link Task}
+   *               through {@link #processRecordInline(Object)} instead of being run in a separate thread
+   */
+  public Fork(TaskContext taskContext, Object schema, int branches, int index, boolean inline) throws Exception {
     this.logger = LoggerFactory.getLogger(Fork.class.getName() + "-" + index);
 
     this.taskContext = taskContext;
@@ -124,6 +151,7 @@ public class Fork implements Closeable, Runnable, FinalState {
 
     this.branches = branches;
     this.index = index;
+    this.inline = inline;
 
     this.converter =
         this.closer.register(new MultiConverter(this.taskContext.getConverters(this.index, this.forkTaskState)));
@@ -137,15 +165,27 @@ public class Fork implements Closeable, Runnable, FinalState {
       buildWriterIfNotPresent();
     }
 
-    this.recordQueue = BoundedBlockingRecordQueue.newBuilder()
-        .hasCapacity(this.taskState.getPropAsInt(ConfigurationKeys.FORK_RECORD_QUEUE_CAPACITY_KEY,
-            ConfigurationKeys.DEFAULT_FORK_RECORD_QUEUE_CAPACITY))
+    int recordQueueCapacity = this.taskState.getPropAsInt(ConfigurationKeys.FORK_RECORD_QUEUE_CAPACITY_KEY,
+        ConfigurationKeys.DEFAULT_FORK_RECORD_QUEUE_CAPACITY);
+    int recordBatchSize = this.taskState.getPropAsInt(ConfigurationKeys.FORK_RECORD_BATCH_SIZE_KEY,
+        ConfigurationKeys.DEFAULT_FORK_RECORD_BATCH_SIZE);
+    this.batchedRecordHandOff = recordBatchSize > 1;
+    BoundedBlockingRecordQueue.Builder<Object> recordQueueBuilder = BoundedBlockingRecordQueue.newBuilder()
+        .hasCapacity(this.batchedRecordHandOff ? getBatchQueueCapacity(recordQueueCapacity, recordBatchSize)
+            : recordQueueCapacity)
         .useTimeout(this.taskState.getPropAsLong(ConfigurationKeys.FORK_RECORD_QUEUE_TIMEOUT_KEY,
             ConfigurationKeys.DEFAULT_FORK_RECORD_QUEUE_TIMEOUT))
         .useTimeoutTimeUnit(
             TimeUnit.valueOf(this.taskState.getProp(ConfigurationKeys.FORK_RECORD_QUEUE_TIMEOUT_UNIT_KEY,
                 ConfigurationKeys.DEFAULT_FORK_RECORD_QUEUE_TIMEOUT_UNIT)))
-        .collectStats().build();
+        .collectStats();
+    if (this.batchedRecordHandOff) {
+      // The parent task is the only producer and this fork is the only consumer of the queue
+      recordQueueBuilder.useBatches().useSingleProducerSingleConsumer();
+    }
+    // Records are handed to an inline fork directly so no queue is needed
+    this.recordQueue = this.inline ? Optional.<BoundedBlockingRecordQueue<Object>> absent()
+        : Optional.of(recordQueueBuilder.build());
 
     this.forkState = new AtomicReference<>(ForkState.PENDING);
 
@@ -164,6 +204,7 @@ public class Fork implements Closeable, Runnable, FinalState {
 
   @Override
   public void run() {
+    Preconditions.checkState(!this.inline, "Fork %s is executed inline and cannot be run separately", this.index);
     compareAndSetForkState(ForkState.PENDING, ForkState.RUNNING);
     try {
       processRecords();
@@ -173,10 +214,63 @@ public class Fork implements Closeable, Runnable, FinalState {
       this.logger.error(String.format("Fork %d of task %s failed to process data records", this.index, this.taskId), t);
     } finally {
       // Clear the queue and count down so the parent task knows this fork is done (succeeded or failed)
-      this.recordQueue.clear();
+      if (this.recordQueue.isPresent()) {
+        this.recordQueue.get().clear();
+      }
     }
   }
 
+  /**
+   * Mark the start of inline execution of this {@link Fork} on the thread of the parent {@link Task}.
+   *
+   * <p>
+   *   This method is used by the {@link Task} that creates this {@link Fork} in place of {@link #run()}.
+   * </p>
+   */
+  public void startInline() {
+    Preconditions.checkState(this.inline, "Fork %s is not executed inline", this.index);
+    compareAndSetForkState(ForkState.PENDING, ForkState.RUNNING);
+  }
+
+  /**
+   * Process a new record synchronously on the calling thread, bypassing the record queue.
+   *
+   * <p>
+   *   This method is used by the {@link Task} that creates this {@link Fork} if this {@link Fork} is
+   *   executed inline. A failure to process the record fails this {@link Fork}.
+   * </p>
+   *
+   * @param record the new record
+   * @throws IOException if the record fails to be written
+   * @throws DataConversionException if the record fails to be converted
+   */
+  public void processRecordInline(Object record) throws IOException, DataConversionException {
+    try {
+      processRecord(record);
+    } catch (IOException | DataConversionException | RuntimeException e) {
+      this.forkState.set(ForkState.FAILED);
+      this.logger.error(String.format("Fork %d of task %s failed to process data records", this.index, this.taskId), e);
+      throw e;
+    }
+  }
+
+  /**
+   * Mark the completion of inline execution of this {@link Fork} after the parent {@link Task} has handed
+   * all of its records to {@link #processRecordInline(Object)}.
+   */
+  public void finishInline() {
+    compareAndSetForkState(ForkState.RUNNING, ForkState.SUCCEEDED);
+  }
+
+  /**
+   * Return whether this {@link Fork} is executed inline on the thread of the parent {@link Task}.
+   *
+   * @return whether this {@link Fork} is executed inline
+   */
+  public boolean isInline() {
+    return this.inline;
+  }
+
   /**
    * {@inheritDoc}.
    *
@@ -215,7 +309,27 @@ public class Fork implements Closeable, Runnable, FinalState {
       throw new IllegalStateException(
           String.format("Fork %d of task %s has failed and is no longer running", this.index, this.taskId));
     }
-    return this.recordQueue.put(record);
+    return getRecordQueue().put(record);
+  }
+
+  /**
+   * Put a batch of new records into the record queue for this {@link Fork} to process.
+   *
+   * <p>
+   *   This method is used by the {@link Task} that creates this {@link Fork}. The batch must not be
+   *   modified by the caller once it has been successfully put into the queue.
+   * </p>
+   *
+   * @param records the batch of new records
+   * @return whether the batch has been successfully put into the queue
+   * @throws InterruptedException
+   */
+  public boolean putRecords(List<Object> records) throws InterruptedException {
+    if (this.forkState.compareAndSet(ForkState.FAILED, ForkState.FAILED)) {
+      throw new IllegalStateException(
+          String.format("Fork %d of task %s has failed and is no longer running", this.index, this.taskId));
+    }
+    return getRecordQueue().putBatch(records);
   }
 
   /**
@@ -301,7 +415,10 @@ public class Fork implements Closeable, Runnable, FinalState {
    *         which means it may be absent if collecting of queue statistics is not enabled.
    */
   public Optional<BoundedBlockingRecordQueue<Object>.QueueStats> queueStats() {
-    return this.recordQueue.stats();
+    if (!this.recordQueue.isPresent()) {
+      return Optional.absent();
+    }
+    return this.recordQueue.get().stats();
   }
 
   /**
@@ -386,21 +503,29 @@ public class Fork implements Closeable, Runnable, FinalState {
   private void processRecords() throws IOException, DataConversionException {
     while (true) {
       try {
-        Object record = this.recordQueue.get();
+        if (this.batchedRecordHandOff) {
+          List<Object> records = this.recordQueue.get().getBatch();
+          if (records == null) {
+            // The parent task has already done pulling records so no new record means this fork is done
+            if (this.parentTaskDone) {
+              return;
+            }
+          } else {
+            for (Object record : records) {
+              processRecord(record);
+            }
+          }
+          continue;
+        }
+
+        Object record = this.recordQueue.get().get();
         if (record == null) {
           // The parent task has already done pulling records so no new record means this fork is done
           if (this.parentTaskDone) {
             return;
           }
         } else {
-          buildWriterIfNotPresent();
-
-          // Convert the record, check its data quality, and finally write it out if quality checking passes.
-          for (Object convertedRecord : this.converter.convertRecord(this.convertedSchema, record, this.taskState)) {
-            if (this.rowLevelPolicyChecker.executePolicies(convertedRecord, this.rowLevelPolicyCheckingResult)) {
-              this.writer.get().write(convertedRecord);
-            }
-          }
+          processRecord(record);
         }
       } catch (InterruptedException ie) {
         this.logger.warn("Interrupted while trying to get a record off the queue", ie);
@@ -409,6 +534,25 @@ public class Fork implements Closeable, Runnable, FinalState {
     }
   }
 
+  private BoundedBlockingRecordQueue<Object> getRecordQueue() {
+    Preconditions.checkState(this.recordQueue.isPresent(),
+        String.format("Fork %d of task %s is executed inline and has no record queue", this.index, this.taskId));
+    return this.recordQueue.get();
+  }
+
+  /**
+   * Convert a record, check its data quality, and finally write it out if quality checking passes.
+   */
+  private void processRecord(Object record) throws IOException, DataConversionException {
+    buildWriterIfNotPresent();
+
+    for (Object convertedRecord : this.converter.convertRecord(this.convertedSchema, record, this.taskState)) {
+      if (this.rowLevelPolicyChecker.executePolicies(convertedRecord, this.rowLevelPolicyCheckingResult)) {
+        this.writer.get().write(convertedRecord);
+      }
+    }
+  }
+
   /**
    * Check data quality.
    *
@@ -497,6 +641,15 @@ public class Fork implements Closeable, Runnable, FinalState {
     }
   }
 
+  /**
+   * Gets the number of batches the record queue holds, so that the queue holds about as many records as
+   * {@link ConfigurationKeys#FORK_RECORD_QUEUE_CAPACITY_KEY} when records are handed off in batches.
+   */
+  @VisibleForTesting
+  static int getBatchQueueCapacity(int recordQueueCapacity, int recordBatchSize) {
+    return Math.max(1, (recordQueueCapacity + recordBatchSize - 1) / recordBatchSize);
+  }
+
   /**
    * Creates a {@link List} of {@link Tag}s for a {@link Fork} instance. The {@link Tag}s are purely based on the
    * index and the branch name.
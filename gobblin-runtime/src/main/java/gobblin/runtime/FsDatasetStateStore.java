@@ -70,6 +70,11 @@ public class FsDatasetStateStore extends FsStateStore<JobState.DatasetState> {
     this.useTmpFileForPut = false;
   }
 
+  public FsDatasetStateStore(FileSystem fs, String storeRootDir, int getAllThreads) throws IOException {
+    super(fs, storeRootDir, JobState.DatasetState.class, getAllThreads);
+    this.useTmpFileForPut = false;
+  }
+
   public FsDatasetStateStore(String storeUrl) throws IOException {
     super(storeUrl, JobState.DatasetState.class);
     this.useTmpFileForPut = false;
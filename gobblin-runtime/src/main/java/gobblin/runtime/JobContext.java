@@ -15,8 +15,13 @@ package gobblin.runtime;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import lombok.Getter;
 
@@ -26,11 +31,13 @@ import org.apache.hadoop.fs.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.io.Closer;
@@ -49,6 +56,9 @@ import gobblin.instrumented.Instrumented;
 import gobblin.metastore.JobHistoryStore;
 import gobblin.metastore.MetaStoreModule;
 import gobblin.metrics.GobblinMetrics;
+import gobblin.metrics.event.EventSubmitter;
+import gobblin.metrics.event.JobEvent;
+import gobblin.metrics.event.TimingEvent;
 import gobblin.publisher.CommitSequencePublisher;
 import gobblin.publisher.DataPublisher;
 import gobblin.publisher.UnpublishedHandling;
@@ -58,8 +68,10 @@ import gobblin.runtime.commit.FsCommitSequenceStore;
 import gobblin.runtime.util.JobMetrics;
 import gobblin.source.Source;
 import gobblin.source.extractor.JobCommitPolicy;
+import gobblin.util.ExecutorsUtils;
 import gobblin.util.HadoopUtils;
 import gobblin.util.JobLauncherUtils;
+import gobblin.util.executors.IteratorExecutor;
 
 
 /**
@@ -85,8 +97,8 @@ public class JobContext {
   // State store for persisting job states
   private final FsDatasetStateStore datasetStateStore;
 
-  // Store for runtime job execution information
-  private final Optional<JobHistoryStore> jobHistoryStoreOptional;
+  // Writer of runtime job execution information to the job history store
+  private final Optional<JobHistoryWriter> jobHistoryWriterOptional;
 
   @Getter
   private final DeliverySemantics semantics;
@@ -123,27 +135,33 @@ public class JobContext {
         jobProps.getProperty(ConfigurationKeys.STATE_STORE_FS_URI_KEY, ConfigurationKeys.LOCAL_FS_URI);
     FileSystem stateStoreFs = FileSystem.get(URI.create(stateStoreFsUri), conf);
     String stateStoreRootDir = jobProps.getProperty(ConfigurationKeys.STATE_STORE_ROOT_DIR_KEY);
+    int stateStoreGetAllThreads = Integer.parseInt(jobProps.getProperty(
+        ConfigurationKeys.STATE_STORE_GET_ALL_THREADS_KEY,
+        Integer.toString(ConfigurationKeys.DEFAULT_STATE_STORE_GET_ALL_THREADS)));
     if (jobProps.containsKey(ConfigurationKeys.STATE_STORE_ENABLED) &&
         !Boolean.parseBoolean(jobProps.getProperty(ConfigurationKeys.STATE_STORE_ENABLED))) {
       this.datasetStateStore = new NoopDatasetStateStore(stateStoreFs, stateStoreRootDir);
     } else {
-      this.datasetStateStore = new FsDatasetStateStore(stateStoreFs, stateStoreRootDir);
+      this.datasetStateStore = new FsDatasetStateStore(stateStoreFs, stateStoreRootDir, stateStoreGetAllThreads);
     }
 
     boolean jobHistoryStoreEnabled = Boolean
         .valueOf(jobProps.getProperty(ConfigurationKeys.JOB_HISTORY_STORE_ENABLED_KEY, Boolean.FALSE.toString()));
-    if (jobHistoryStoreEnabled) {
-      Injector injector = Guice.createInjector(new MetaStoreModule(jobProps));
-      this.jobHistoryStoreOptional = Optional.of(injector.getInstance(JobHistoryStore.class));
-    } else {
-      this.jobHistoryStoreOptional = Optional.absent();
-    }
 
     State jobPropsState = new State();
     jobPropsState.addAll(jobProps);
     this.jobState = new JobState(jobPropsState, this.datasetStateStore.getLatestDatasetStatesByUrns(this.jobName),
         this.jobName, this.jobId);
 
+    if (jobHistoryStoreEnabled) {
+      Injector injector = Guice.createInjector(new MetaStoreModule(jobProps));
+      this.jobHistoryWriterOptional = Optional.of(new JobHistoryWriter(injector.getInstance(JobHistoryStore.class),
+          this.jobState, this.jobState.getPropAsLong(ConfigurationKeys.JOB_HISTORY_STORE_WRITE_INTERVAL_MS_KEY,
+              ConfigurationKeys.DEFAULT_JOB_HISTORY_STORE_WRITE_INTERVAL_MS)));
+    } else {
+      this.jobHistoryWriterOptional = Optional.absent();
+    }
+
     setTaskStagingAndOutputDirs();
 
     if (GobblinMetrics.isEnabled(jobProps)) {
@@ -309,10 +327,10 @@ public class JobContext {
    * Store job execution information into the job history store.
    */
   void storeJobExecutionInfo() {
-    if (this.jobHistoryStoreOptional.isPresent()) {
+    if (this.jobHistoryWriterOptional.isPresent()) {
       try {
         this.logger.info("Writing job execution information to the job history store");
-        this.jobHistoryStoreOptional.get().put(this.jobState.toJobExecutionInfo());
+        this.jobHistoryWriterOptional.get().write();
       } catch (IOException ioe) {
         this.logger.error("Failed to write job execution information to the job history store: " + ioe, ioe);
       }
@@ -322,8 +340,19 @@ public class JobContext {
   @Subscribe
   public void handleNewTaskCompletionEvent(NewTaskCompletionEvent newOutputTaskStateEvent) {
     LOG.info("{} more tasks of job {} have completed", newOutputTaskStateEvent.getTaskStates().size(), this.jobId);
-    // Update the job execution history store upon new task completion
-    storeJobExecutionInfo();
+    // Update the job execution history store upon new task completion, without blocking the caller
+    if (this.jobHistoryWriterOptional.isPresent()) {
+      this.jobHistoryWriterOptional.get().writeAsync(newOutputTaskStateEvent.getTaskStates());
+    }
+  }
+
+  /**
+   * Stop writing job execution information to the job history store.
+   */
+  void closeJobHistoryWriter() throws IOException {
+    if (this.jobHistoryWriterOptional.isPresent()) {
+      this.jobHistoryWriterOptional.get().close();
+    }
   }
 
   /**
@@ -342,8 +371,17 @@ public class JobContext {
 
   /**
    * Commit the job on a per-dataset basis.
+   *
+   * <p>
+   *   If {@link ConfigurationKeys#PARALLELIZE_DATASET_COMMIT_KEY} is set to true, datasets are committed in parallel
+   *   by up to {@link ConfigurationKeys#DATASET_COMMIT_THREADS_KEY} threads, and a failure to commit a dataset does
+   *   not prevent the other datasets from being committed. A {@link TimingEvent} is submitted for the commit of
+   *   each dataset.
+   * </p>
+   *
+   * @param eventSubmitter the {@link EventSubmitter} used to submit the dataset commit {@link TimingEvent}s
    */
-  void commit() throws IOException {
+  void commit(EventSubmitter eventSubmitter) throws IOException {
     this.datasetStatesByUrns = Optional.of(this.jobState.createDatasetStatesByUrns());
     boolean allDatasetsCommit = true;
     boolean shouldCommitDataInJob = shouldCommitDataInJob(this.jobState);
@@ -353,9 +391,21 @@ public class JobContext {
       this.logger.info("Job will not commit data since data are committed by tasks.");
     }
 
-    for (Map.Entry<String, JobState.DatasetState> entry : this.datasetStatesByUrns.get().entrySet()) {
-      allDatasetsCommit &=
-          processDatasetCommit(shouldCommitDataInJob, deliverySemantics, entry.getKey(), entry.getValue());
+    Map<String, JobState.DatasetState> datasetStates = this.datasetStatesByUrns.get();
+    int datasetCommitThreads = this.jobState.getPropAsBoolean(ConfigurationKeys.PARALLELIZE_DATASET_COMMIT_KEY,
+        ConfigurationKeys.DEFAULT_PARALLELIZE_DATASET_COMMIT)
+            ? Math.min(datasetStates.size(), this.jobState.getPropAsInt(ConfigurationKeys.DATASET_COMMIT_THREADS_KEY,
+                ConfigurationKeys.DEFAULT_DATASET_COMMIT_THREADS))
+            : 1;
+
+    if (datasetCommitThreads > 1) {
+      allDatasetsCommit = commitDatasetsInParallel(datasetStates, datasetCommitThreads, eventSubmitter,
+          shouldCommitDataInJob, deliverySemantics);
+    } else {
+      for (Map.Entry<String, JobState.DatasetState> entry : datasetStates.entrySet()) {
+        allDatasetsCommit &= timedProcessDatasetCommit(eventSubmitter, shouldCommitDataInJob, deliverySemantics,
+            entry.getKey(), entry.getValue());
+      }
     }
 
     if (!allDatasetsCommit) {
@@ -365,6 +415,72 @@ public class JobContext {
     this.jobState.setState(JobState.RunningState.COMMITTED);
   }
 
+  /**
+   * Commit datasets using a bounded pool of threads.
+   *
+   * @return {@code true} if all datasets were successfully committed or {@code false} otherwise
+   */
+  private boolean commitDatasetsInParallel(Map<String, JobState.DatasetState> datasetStates, int threads,
+      final EventSubmitter eventSubmitter, final boolean shouldCommitDataInJob,
+      final DeliverySemantics deliverySemantics) throws IOException {
+    this.logger.info(String.format("Committing %d datasets of job %s using %d threads", datasetStates.size(),
+        this.jobId, threads));
+
+    Iterator<Callable<Boolean>> datasetCommits = Iterators.transform(datasetStates.entrySet().iterator(),
+        new Function<Map.Entry<String, JobState.DatasetState>, Callable<Boolean>>() {
+          @Override
+          public Callable<Boolean> apply(final Map.Entry<String, JobState.DatasetState> entry) {
+            return new Callable<Boolean>() {
+              @Override
+              public Boolean call() throws Exception {
+                return timedProcessDatasetCommit(eventSubmitter, shouldCommitDataInJob, deliverySemantics,
+                    entry.getKey(), entry.getValue());
+              }
+            };
+          }
+        });
+
+    List<Future<Boolean>> futures;
+    try {
+      futures = new IteratorExecutor<>(datasetCommits, threads,
+          ExecutorsUtils.newThreadFactory(Optional.of(this.logger), Optional.of("DatasetCommitter-%d"))).execute();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while committing datasets of job " + this.jobId, ie);
+    }
+
+    // A dataset whose commit threw an exception is counted as failed, without affecting the other datasets
+    boolean allDatasetsCommit = true;
+    for (Future<Boolean> future : futures) {
+      try {
+        allDatasetsCommit &= future.get();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while committing datasets of job " + this.jobId, ie);
+      } catch (ExecutionException ee) {
+        this.logger.error(String.format("Failed to commit a dataset of job %s", this.jobId), ee.getCause());
+        allDatasetsCommit = false;
+      }
+    }
+    return allDatasetsCommit;
+  }
+
+  /**
+   * Call {@link #processDatasetCommit(boolean, DeliverySemantics, String, JobState.DatasetState)} and submit a
+   * {@link TimingEvent} for the commit of the dataset.
+   */
+  private boolean timedProcessDatasetCommit(EventSubmitter eventSubmitter, boolean shouldCommitDataInJob,
+      DeliverySemantics deliverySemantics, String datasetUrn, JobState.DatasetState datasetState)
+      throws IOException {
+    TimingEvent datasetCommitTimer = eventSubmitter.getTimingEvent(TimingEvent.LauncherTimings.DATASET_COMMIT);
+    try {
+      return processDatasetCommit(shouldCommitDataInJob, deliverySemantics, datasetUrn, datasetState);
+    } finally {
+      datasetCommitTimer.stop(ImmutableMap.of(JobEvent.METADATA_DATASET_URN, datasetUrn,
+          JobEvent.METADATA_DATASET_STATE, datasetState.getState().name()));
+    }
+  }
+
   @SuppressWarnings("unchecked")
   boolean processDatasetCommit(boolean shouldCommitDataInJob, DeliverySemantics deliverySemantics, String datasetUrn,
       JobState.DatasetState datasetState) throws IOException {
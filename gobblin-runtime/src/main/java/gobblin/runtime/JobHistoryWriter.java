@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+
+import gobblin.metastore.JobHistoryStore;
+import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.TaskExecutionInfo;
+import gobblin.rest.TaskExecutionInfoArray;
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * A class that writes the {@link JobExecutionInfo} of a job to a {@link JobHistoryStore} incrementally.
+ *
+ * <p>
+ *   Each write carries the job-level information, i.e., the job execution, metrics and properties, and only the
+ *   {@link TaskExecutionInfo}s that are new or have changed since they were last written. This relies on
+ *   {@link JobHistoryStore#put(JobExecutionInfo)} inserting or updating the tasks it is given and leaving the others
+ *   untouched, which is the case of the database-backed job history stores.
+ * </p>
+ *
+ * <p>
+ *   Writes upon task completion are made asynchronously by {@link #writeAsync(Collection)}, which never blocks the
+ *   caller. Bursts of task completions are coalesced: there is at most one pending write at any time, and it picks up
+ *   all the tasks completed since the previous write. Two asynchronous writes are at least the larger of the
+ *   configured minimum interval and the duration of the previous write apart, so a slow job history store gets
+ *   fewer and larger writes instead of an ever growing backlog. {@link #write()} writes synchronously, and is meant
+ *   to be used before the job starts to run and upon job termination.
+ * </p>
+ */
+class JobHistoryWriter implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JobHistoryWriter.class);
+
+  private final JobHistoryStore jobHistoryStore;
+  private final JobState jobState;
+  private final long minWriteIntervalMs;
+  private final ScheduledThreadPoolExecutor writeExecutor;
+
+  // Completed tasks not written yet
+  private final Queue<TaskState> pendingTaskStates = new ConcurrentLinkedQueue<>();
+  // Whether an asynchronous write is pending
+  private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+
+  // Last written TaskExecutionInfo of each task, guarded by this
+  private final Map<String, TaskExecutionInfo> writtenTaskExecutionInfos = Maps.newHashMap();
+  private volatile long nextWriteTime = 0;
+
+  JobHistoryWriter(JobHistoryStore jobHistoryStore, JobState jobState, long minWriteIntervalMs) {
+    this.jobHistoryStore = jobHistoryStore;
+    this.jobState = jobState;
+    this.minWriteIntervalMs = minWriteIntervalMs;
+    this.writeExecutor = new ScheduledThreadPoolExecutor(1,
+        ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("JobHistoryWriter-" + jobState.getJobId())));
+    // Pending writes are superseded by the final synchronous write
+    this.writeExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * Asynchronously write the job execution information along with the given newly completed tasks.
+   *
+   * <p>
+   *   This method does not block: the tasks are added to the next write, which is scheduled if it is not already.
+   * </p>
+   *
+   * @param taskStates {@link TaskState}s of the newly completed tasks
+   */
+  void writeAsync(Collection<TaskState> taskStates) {
+    this.pendingTaskStates.addAll(taskStates);
+    if (this.writeScheduled.compareAndSet(false, true)) {
+      scheduleWrite(this.nextWriteTime - System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Synchronously write the job execution information along with every task of the job that is new or has changed
+   * since it was last written.
+   *
+   * @throws IOException if the job execution information cannot be written
+   */
+  void write() throws IOException {
+    // Clear the pending tasks first, as a task is added to the job state before it is added to the pending tasks
+    this.pendingTaskStates.clear();
+    write(this.jobState.getTaskStates());
+  }
+
+  @Override
+  public void close() throws IOException {
+    ExecutorsUtils.shutdownExecutorService(this.writeExecutor, Optional.of(LOG));
+  }
+
+  private void scheduleWrite(long delayMs) {
+    try {
+      this.writeExecutor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          runScheduledWrite();
+        }
+      }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ree) {
+      // The writer has been closed, the final synchronous write picks up the pending tasks
+      this.writeScheduled.set(false);
+    }
+  }
+
+  private void runScheduledWrite() {
+    // The previous write may have completed after this one was scheduled
+    long delayMs = this.nextWriteTime - System.currentTimeMillis();
+    if (delayMs > 0) {
+      scheduleWrite(delayMs);
+      return;
+    }
+
+    // Reset the flag before draining so tasks completed from now on trigger another write
+    this.writeScheduled.set(false);
+    Map<String, TaskState> taskStates = Maps.newLinkedHashMap();
+    for (TaskState taskState = this.pendingTaskStates.poll(); taskState != null;
+        taskState = this.pendingTaskStates.poll()) {
+      taskStates.put(taskState.getTaskId(), taskState);
+    }
+
+    try {
+      write(taskStates.values());
+    } catch (Throwable t) {
+      LOG.error("Failed to write job execution information to the job history store: " + t, t);
+      // Retry the tasks with the next write
+      this.pendingTaskStates.addAll(taskStates.values());
+    }
+  }
+
+  private synchronized void write(Collection<TaskState> taskStates) throws IOException {
+    long startTime = System.currentTimeMillis();
+    try {
+      JobExecutionInfo jobExecutionInfo = this.jobState.toJobExecutionInfo(false);
+
+      Map<String, TaskExecutionInfo> changedTaskExecutionInfos = Maps.newLinkedHashMap();
+      for (TaskState taskState : taskStates) {
+        TaskExecutionInfo taskExecutionInfo = taskState.toTaskExecutionInfo();
+        if (!taskExecutionInfo.equals(this.writtenTaskExecutionInfos.get(taskExecutionInfo.getTaskId()))) {
+          changedTaskExecutionInfos.put(taskExecutionInfo.getTaskId(), taskExecutionInfo);
+        }
+      }
+      TaskExecutionInfoArray taskExecutionInfos = new TaskExecutionInfoArray();
+      taskExecutionInfos.addAll(changedTaskExecutionInfos.values());
+      jobExecutionInfo.setTaskExecutions(taskExecutionInfos);
+
+      LOG.info(String.format("Writing job execution information of job %s with %d new or changed tasks",
+          this.jobState.getJobId(), changedTaskExecutionInfos.size()));
+      this.jobHistoryStore.put(jobExecutionInfo);
+      this.writtenTaskExecutionInfos.putAll(changedTaskExecutionInfos);
+    } finally {
+      long endTime = System.currentTimeMillis();
+      this.nextWriteTime = endTime + Math.max(this.minWriteIntervalMs, endTime - startTime);
+    }
+  }
+}
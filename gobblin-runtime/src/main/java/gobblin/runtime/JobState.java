@@ -463,6 +463,17 @@ public class JobState extends SourceState {
    * @return a {@link JobExecutionInfo} instance
    */
   public JobExecutionInfo toJobExecutionInfo() {
+    return toJobExecutionInfo(true);
+  }
+
+  /**
+   * Convert this {@link JobState} instance to a {@link JobExecutionInfo} instance.
+   *
+   * @param includeTaskExecutions whether to add the execution information of every task of the job, or leave the
+   *                              list of task executions empty
+   * @return a {@link JobExecutionInfo} instance
+   */
+  public JobExecutionInfo toJobExecutionInfo(boolean includeTaskExecutions) {
     JobExecutionInfo jobExecutionInfo = new JobExecutionInfo();
 
     jobExecutionInfo.setJobName(this.jobName);
@@ -484,8 +495,10 @@ public class JobState extends SourceState {
 
     // Add task execution information
     TaskExecutionInfoArray taskExecutionInfos = new TaskExecutionInfoArray();
-    for (TaskState taskState : this.getTaskStates()) {
-      taskExecutionInfos.add(taskState.toTaskExecutionInfo());
+    if (includeTaskExecutions) {
+      for (TaskState taskState : this.getTaskStates()) {
+        taskExecutionInfos.add(taskState.toTaskExecutionInfo());
+      }
     }
     jobExecutionInfo.setTaskExecutions(taskExecutionInfos);
 
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+
+/**
+ * A bounded {@link BlockingQueue} backed by a lock-free ring buffer that supports exactly one producer thread
+ * and one consumer thread.
+ *
+ * <p>
+ *   The producer only ever writes the tail index and the consumer only ever writes the head index, so neither
+ *   side needs a lock. Blocking operations spin briefly and then park for short intervals while waiting for
+ *   space or data to become available. Using this queue with more than one producer or more than one consumer
+ *   results in undefined behavior.
+ * </p>
+ *
+ * <p>
+ *   {@link #iterator()} returns an iterator over a snapshot of the queue and does not support removal.
+ * </p>
+ *
+ * @param <E> element type
+ */
+class SingleProducerSingleConsumerBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private static final int SPINS_BEFORE_PARK = 128;
+  private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  private final Object[] buffer;
+  private final int capacity;
+
+  // Index of the next slot to read, only written by the consumer thread
+  private final AtomicLong head = new AtomicLong();
+  // Index of the next slot to write, only written by the producer thread
+  private final AtomicLong tail = new AtomicLong();
+
+  SingleProducerSingleConsumerBlockingQueue(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "Invalid queue capacity");
+    this.capacity = capacity;
+    this.buffer = new Object[capacity];
+  }
+
+  @Override
+  public boolean offer(E e) {
+    Preconditions.checkNotNull(e);
+    long currentTail = this.tail.get();
+    if (currentTail - this.head.get() >= this.capacity) {
+      return false;
+    }
+    this.buffer[index(currentTail)] = e;
+    // The ordered store publishes the element written above to the consumer
+    this.tail.lazySet(currentTail + 1);
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long currentHead = this.head.get();
+    if (currentHead >= this.tail.get()) {
+      return null;
+    }
+    int index = index(currentHead);
+    E e = (E) this.buffer[index];
+    this.buffer[index] = null;
+    this.head.lazySet(currentHead + 1);
+    return e;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    long currentHead = this.head.get();
+    if (currentHead >= this.tail.get()) {
+      return null;
+    }
+    return (E) this.buffer[index(currentHead)];
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int spins = 0;
+    while (!offer(e)) {
+      if (!waitUntil(true, deadline, spins++)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int spins = 0;
+    E e;
+    while ((e = poll()) == null) {
+      if (!waitUntil(true, deadline, spins++)) {
+        return null;
+      }
+    }
+    return e;
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    int spins = 0;
+    while (!offer(e)) {
+      waitUntil(false, 0L, spins++);
+    }
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    int spins = 0;
+    E e;
+    while ((e = poll()) == null) {
+      waitUntil(false, 0L, spins++);
+    }
+    return e;
+  }
+
+  @Override
+  public int size() {
+    long size = this.tail.get() - this.head.get();
+    return (int) Math.max(0, Math.min(size, this.capacity));
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return this.capacity - size();
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    Preconditions.checkNotNull(c);
+    Preconditions.checkArgument(c != this, "Cannot drain a queue to itself");
+    int drained = 0;
+    E e;
+    while (drained < maxElements && (e = poll()) != null) {
+      c.add(e);
+      drained++;
+    }
+    return drained;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Iterator<E> iterator() {
+    List<E> snapshot = Lists.newArrayListWithCapacity(size());
+    long currentTail = this.tail.get();
+    for (long i = this.head.get(); i < currentTail; i++) {
+      Object e = this.buffer[index(i)];
+      if (e != null) {
+        snapshot.add((E) e);
+      }
+    }
+    return Collections.unmodifiableList(snapshot).iterator();
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % this.capacity);
+  }
+
+  /**
+   * Wait a little for the other side to make progress.
+   *
+   * @return <code>false</code> if the wait is timed and the deadline has passed
+   */
+  private static boolean waitUntil(boolean timed, long deadline, int spins) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    long remaining = timed ? deadline - System.nanoTime() : PARK_NANOS;
+    if (remaining <= 0) {
+      return false;
+    }
+    if (spins < SPINS_BEFORE_PARK) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(Math.min(PARK_NANOS, remaining));
+    }
+    return true;
+  }
+}
@@ -13,6 +13,7 @@
 package gobblin.runtime;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closer;
 
@@ -57,7 +59,8 @@ import gobblin.state.ConstructState;
  *     <ul>
  *       <li>Extracting, converting, and forking the source schema.</li>
  *       <li>Extracting, converting, doing row-level quality checking, and forking each data record.</li>
- *       <li>Putting each forked record into the record queue managed by each {@link Fork}.</li>
+ *       <li>Putting each forked record into the record queue managed by each {@link Fork}, either one at a time
+ *       or in batches of {@link ConfigurationKeys#FORK_RECORD_BATCH_SIZE_KEY} records.</li>
  *       <li>Committing output data of each {@link Fork} once all {@link Fork}s finish.</li>
  *       <li>Cleaning up and exiting.</li>
  *     </ul>
@@ -69,6 +72,10 @@ import gobblin.state.ConstructState;
  *       <li>Writing the record out if it passes the quality checking.</li>
  *       <li>Cleaning up and exiting once all the records have been processed.</li>
  *     </ul>
+ *
+ *     If {@link ConfigurationKeys#FORK_INLINE_SINGLE_BRANCH_KEY} is enabled and the task has a single branch,
+ *     the {@link Fork} is instead executed inline on the task thread and each record is handed to it directly
+ *     without going through a record queue.
  * </p>
  *
  * @author Yinan Li
@@ -86,6 +93,13 @@ public class Task implements Runnable {
   private final Optional<CountDownLatch> countDownLatch;
   private final Map<Optional<Fork>, Optional<Future<?>>> forks = Maps.newLinkedHashMap();
 
+  // Number of records to accumulate for a fork before handing them off as a single batch
+  private final int recordBatchSize;
+  // Records accumulated for each branch that have not been handed off to the fork yet
+  private final List<List<Object>> pendingRecordBatches = Lists.newArrayList();
+  // The single fork of this task if it is executed inline on the task thread
+  private Optional<Fork> inlineFork = Optional.absent();
+
   // Number of task retries
   private final AtomicInteger retryCount = new AtomicInteger();
 
@@ -106,6 +120,8 @@ public class Task implements Runnable {
     this.taskStateTracker = taskStateTracker;
     this.taskExecutor = taskExecutor;
     this.countDownLatch = countDownLatch;
+    this.recordBatchSize = this.taskState.getPropAsInt(ConfigurationKeys.FORK_RECORD_BATCH_SIZE_KEY,
+        ConfigurationKeys.DEFAULT_FORK_RECORD_BATCH_SIZE);
   }
 
   @Override
@@ -117,6 +133,8 @@ public class Task implements Runnable {
 
     // Clear the map so it starts with a fresh set of forks for each run/retry
     this.forks.clear();
+    this.pendingRecordBatches.clear();
+    this.inlineFork = Optional.absent();
 
     Closer closer = Closer.create();
     Converter converter = null;
@@ -147,16 +165,27 @@ public class Task implements Runnable {
         throw new CopyNotSupportedException(schema + " is not copyable");
       }
 
+      boolean inlineFork = branches == 1 && this.taskState.getPropAsBoolean(
+          ConfigurationKeys.FORK_INLINE_SINGLE_BRANCH_KEY, ConfigurationKeys.DEFAULT_FORK_INLINE_SINGLE_BRANCH);
+
       // Create one fork for each forked branch
       for (int i = 0; i < branches; i++) {
         if (forkedSchemas.get(i)) {
           Fork fork = closer.register(new Fork(this.taskContext,
-              schema instanceof Copyable ? ((Copyable) schema).copy() : schema, branches, i));
-          // Run the Fork
-          this.forks.put(Optional.of(fork), Optional.<Future<?>> of(this.taskExecutor.submit(fork)));
+              schema instanceof Copyable ? ((Copyable) schema).copy() : schema, branches, i, inlineFork));
+          if (inlineFork) {
+            // The Fork is run on this thread as records are processed
+            fork.startInline();
+            this.inlineFork = Optional.of(fork);
+            this.forks.put(Optional.of(fork), Optional.<Future<?>> absent());
+          } else {
+            // Run the Fork
+            this.forks.put(Optional.of(fork), Optional.<Future<?>> of(this.taskExecutor.submit(fork)));
+          }
         } else {
           this.forks.put(Optional.<Fork> absent(), Optional.<Future<?>> absent());
         }
+        this.pendingRecordBatches.add(new ArrayList<>(this.recordBatchSize));
       }
 
       // Build the row-level quality checker
@@ -173,6 +202,9 @@ public class Task implements Runnable {
         }
       }
 
+      // Hand off records of any partially filled batches
+      handOffRecordBatches();
+
       LOG.info("Extracted " + recordsPulled + " data records");
       LOG.info("Row quality checker finished with results: " + rowResults.getResults());
 
@@ -181,8 +213,13 @@ public class Task implements Runnable {
 
       for (Optional<Fork> fork : this.forks.keySet()) {
         if (fork.isPresent()) {
-          // Tell the fork that the main branch is completed and no new incoming data records should be expected
-          fork.get().markParentTaskDone();
+          if (fork.get().isInline()) {
+            // All records have already been processed by the inline fork
+            fork.get().finishInline();
+          } else {
+            // Tell the fork that the main branch is completed and no new incoming data records should be expected
+            fork.get().markParentTaskDone();
+          }
         }
       }
 
@@ -465,6 +502,30 @@ public class Task implements Runnable {
       throw new CopyNotSupportedException(convertedRecord + " is not copyable");
     }
 
+    if (this.inlineFork.isPresent()) {
+      if (forkedRecords.get(0)) {
+        // The record is not shared with any other branch so it is handed to the fork as is
+        this.inlineFork.get().processRecordInline(convertedRecord);
+      }
+      return;
+    }
+
+    if (this.recordBatchSize > 1) {
+      // Add the record to the pending batch of each fork and hand off the batches that are full
+      int branch = 0;
+      for (Optional<Fork> fork : this.forks.keySet()) {
+        if (fork.isPresent() && forkedRecords.get(branch)) {
+          List<Object> batch = this.pendingRecordBatches.get(branch);
+          batch.add(convertedRecord instanceof Copyable ? ((Copyable<?>) convertedRecord).copy() : convertedRecord);
+          if (batch.size() >= this.recordBatchSize) {
+            handOffRecordBatch(fork.get(), branch);
+          }
+        }
+        branch++;
+      }
+      return;
+    }
+
     // If the record has been successfully put into the queues of every forks
     boolean allPutsSucceeded = false;
 
@@ -498,6 +559,41 @@ public class Task implements Runnable {
     }
   }
 
+  /**
+   * Hand off the pending records of every branch to the corresponding {@link Fork}.
+   */
+  private void handOffRecordBatches() throws InterruptedException {
+    if (this.recordBatchSize <= 1) {
+      return;
+    }
+
+    int branch = 0;
+    for (Optional<Fork> fork : this.forks.keySet()) {
+      if (fork.isPresent()) {
+        handOffRecordBatch(fork.get(), branch);
+      }
+      branch++;
+    }
+  }
+
+  /**
+   * Hand off the pending records of a branch to the given {@link Fork} as a single batch. A put may timeout
+   * and return a false, in which case the put is retried until it succeeds.
+   */
+  private void handOffRecordBatch(Fork fork, int branch) throws InterruptedException {
+    List<Object> batch = this.pendingRecordBatches.get(branch);
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    while (!fork.putRecords(batch)) {
+      LOG.debug(String.format("Timed out putting a batch of %d records to fork %d of task %s, retrying",
+          batch.size(), branch, this.taskId));
+    }
+    // The batch now belongs to the fork so start a new one
+    this.pendingRecordBatches.set(branch, new ArrayList<>(this.recordBatchSize));
+  }
+
   /**
    * Check if a schema or data record is being passed to more than one branches.
    */
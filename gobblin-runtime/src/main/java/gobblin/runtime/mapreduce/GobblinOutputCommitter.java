@@ -34,10 +34,13 @@ import com.google.common.io.Closer;
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.WorkUnitState;
 import gobblin.runtime.AbstractJobLauncher;
+import gobblin.runtime.JobState;
 import gobblin.runtime.listeners.JobListener;
+import gobblin.runtime.util.PackedWorkUnitFile;
 import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.JobLauncherUtils;
+import gobblin.util.SerializationUtils;
 
 
 /**
@@ -72,6 +75,8 @@ public class GobblinOutputCommitter extends OutputCommitter {
 
     // Iterate through all files in the jobInputDir, each file should correspond to a serialized wu or mwu
     try {
+      // The JobState is only needed for packed work unit files
+      JobState jobState = null;
       for (FileStatus status : fs.listStatus(jobInputDir, new WorkUnitFilter())) {
 
         Closer workUnitFileCloser = Closer.create();
@@ -99,6 +104,18 @@ public class GobblinOutputCommitter extends OutputCommitter {
             JobLauncherUtils.cleanTaskStagingData(new WorkUnitState(wu), LOG);
           }
         }
+
+        // If the file ends with ".wupack" read all its WorkUnits using the JobState they were written against
+        if (status.getPath().getName().endsWith(PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION)) {
+          if (jobState == null) {
+            jobState = new JobState();
+            SerializationUtils.deserializeState(fs, new Path(conf.get(ConfigurationKeys.JOB_STATE_FILE_PATH_KEY)),
+                jobState);
+          }
+          for (WorkUnit wu : PackedWorkUnitFile.readAll(fs, status.getPath(), jobState)) {
+            JobLauncherUtils.cleanTaskStagingData(new WorkUnitState(wu), LOG);
+          }
+        }
       }
     } finally {
       try {
@@ -157,7 +174,8 @@ public class GobblinOutputCommitter extends OutputCommitter {
     @Override
     public boolean accept(Path path) {
       return path.getName().endsWith(AbstractJobLauncher.WORK_UNIT_FILE_EXTENSION)
-          || path.getName().endsWith(AbstractJobLauncher.MULTI_WORK_UNIT_FILE_EXTENSION);
+          || path.getName().endsWith(AbstractJobLauncher.MULTI_WORK_UNIT_FILE_EXTENSION)
+          || path.getName().endsWith(PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
     }
   }
 }
@@ -70,6 +70,7 @@ import gobblin.runtime.TaskStateCollectorService;
 import gobblin.runtime.TaskStateTracker;
 import gobblin.runtime.util.JobMetrics;
 import gobblin.runtime.util.MetricGroup;
+import gobblin.runtime.util.PackedWorkUnitFile;
 import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.HadoopUtils;
@@ -418,6 +419,12 @@ public class MRJobLauncher extends AbstractJobLauncher {
     // The job input is a file named after the job ID listing all work unit file paths
     Path jobInputFile = new Path(this.jobInputPath, this.jobContext.getJobId() + WORK_UNIT_LIST_FILE_EXTENSION);
 
+    if (Boolean.valueOf(this.jobProps.getProperty(ConfigurationKeys.MR_JOB_PACKED_WORK_UNITS_ENABLED_KEY,
+        Boolean.toString(ConfigurationKeys.DEFAULT_MR_JOB_PACKED_WORK_UNITS_ENABLED)))) {
+      preparePackedJobInput(workUnits, jobInputFile);
+      return jobInputFile;
+    }
+
     Closer closer = Closer.create();
     try {
       ParallelRunner parallelRunner = closer.register(new ParallelRunner(this.parallelRunnerThreads, this.fs));
@@ -454,6 +461,50 @@ public class MRJobLauncher extends AbstractJobLauncher {
     return jobInputFile;
   }
 
+  /**
+   * Serialize the work units into {@link PackedWorkUnitFile}s as differences from the {@link JobState}, which is
+   * serialized separately, and list the location of the record of each work unit in the job input file.
+   */
+  private void preparePackedJobInput(List<WorkUnit> workUnits, Path jobInputFile) throws IOException {
+    int workUnitsPerFile = Integer.parseInt(this.jobProps.getProperty(
+        ConfigurationKeys.MR_JOB_WORK_UNITS_PER_PACKED_FILE_KEY,
+        Integer.toString(ConfigurationKeys.DEFAULT_MR_JOB_WORK_UNITS_PER_PACKED_FILE)));
+    JobState jobState = this.jobContext.getJobState();
+
+    Closer closer = Closer.create();
+    try {
+      OutputStream os = closer.register(this.fs.create(jobInputFile));
+      Writer osw = closer.register(new OutputStreamWriter(os, ConfigurationKeys.DEFAULT_CHARSET_ENCODING));
+      Writer bw = closer.register(new BufferedWriter(osw));
+
+      PackedWorkUnitFile.Writer packedFileWriter = null;
+      Path packedFile = null;
+      try {
+        for (int i = 0; i < workUnits.size(); i++) {
+          if (i % workUnitsPerFile == 0) {
+            if (packedFileWriter != null) {
+              packedFileWriter.close();
+            }
+            packedFile = new Path(this.jobInputPath, JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(),
+                i / workUnitsPerFile) + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+            packedFileWriter = new PackedWorkUnitFile.Writer(this.fs, packedFile, jobState);
+          }
+
+          long offset = packedFileWriter.append(workUnits.get(i));
+          bw.write(PackedWorkUnitFile.getRecordLocation(packedFile, offset) + "\n");
+        }
+      } finally {
+        if (packedFileWriter != null) {
+          packedFileWriter.close();
+        }
+      }
+    } catch (Throwable t) {
+      throw closer.rethrow(t);
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Cleanup the Hadoop MR working directory.
    */
@@ -521,6 +572,10 @@ public class MRJobLauncher extends AbstractJobLauncher {
     // A list of WorkUnits (flattened for MultiWorkUnits) to be run by this mapper
     private final List<WorkUnit> workUnits = Lists.newArrayList();
 
+    // Reader of the packed work unit file the last record was read from, if any
+    private Optional<PackedWorkUnitFile.Reader> packedWorkUnitFileReader = Optional.absent();
+    private Path packedWorkUnitFile;
+
     @Override
     protected void setup(Context context) {
       try(Closer closer = Closer.create()) {
@@ -585,6 +640,11 @@ public class MRJobLauncher extends AbstractJobLauncher {
 
     @Override
     public void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+      if (PackedWorkUnitFile.isRecordLocation(value.toString())) {
+        mapPackedWorkUnits(value.toString());
+        return;
+      }
+
       WorkUnit workUnit = (value.toString().endsWith(MULTI_WORK_UNIT_FILE_EXTENSION) ? MultiWorkUnit.createEmpty()
           : WorkUnit.createEmpty());
       SerializationUtils.deserializeState(this.fs, new Path(value.toString()), workUnit);
@@ -598,8 +658,31 @@ public class MRJobLauncher extends AbstractJobLauncher {
       }
     }
 
+    /**
+     * Read the {@link WorkUnit}s of a record of a {@link PackedWorkUnitFile}. Records of a file are listed
+     * consecutively in the job input, so the file is kept open for the following records.
+     */
+    private void mapPackedWorkUnits(String recordLocation) throws IOException {
+      Path path = PackedWorkUnitFile.getRecordPath(recordLocation);
+      if (!this.packedWorkUnitFileReader.isPresent() || !path.equals(this.packedWorkUnitFile)) {
+        closePackedWorkUnitFileReader();
+        this.packedWorkUnitFileReader = Optional.of(new PackedWorkUnitFile.Reader(this.fs, path, this.jobState));
+        this.packedWorkUnitFile = path;
+      }
+      this.workUnits.addAll(
+          this.packedWorkUnitFileReader.get().read(PackedWorkUnitFile.getRecordOffset(recordLocation)));
+    }
+
+    private void closePackedWorkUnitFileReader() throws IOException {
+      if (this.packedWorkUnitFileReader.isPresent()) {
+        this.packedWorkUnitFileReader.get().close();
+        this.packedWorkUnitFileReader = Optional.absent();
+      }
+    }
+
     @Override
     protected void cleanup(Context context) throws IOException, InterruptedException {
+      closePackedWorkUnitFileReader();
       try {
         this.serviceManager.stopAsync().awaitStopped(5, TimeUnit.SECONDS);
       } catch (TimeoutException te) {
@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime.util;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import gobblin.configuration.State;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.MultiWorkUnit;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.util.JobLauncherUtils;
+
+
+/**
+ * A file packing many {@link WorkUnit}s, each stored as the difference between its properties (and those of its
+ * {@link Extract}) and the properties of a base {@link State} shared by all of them, typically the
+ * {@link gobblin.runtime.JobState} that is serialized once per job anyway.
+ *
+ * <p>
+ *   Work units usually carry a full copy of the job configuration, so storing only the properties that are added
+ *   or changed relative to the base {@link State} makes the serialized work units much smaller, and packing them
+ *   avoids creating one file per work unit. Properties that do not include every key of the base {@link State},
+ *   e.g., those of work units of sources that do not copy the job configuration, are stored in full and flagged
+ *   as not inheriting the base properties, so they are never larger than without a base {@link State}.
+ * </p>
+ *
+ * <p>
+ *   The file starts with a header holding a hash of the base properties, followed by one record for each
+ *   {@link WorkUnit} appended using {@link Writer#append(WorkUnit)}. A record holds the flattened
+ *   {@link WorkUnit}s of a {@link MultiWorkUnit} (properties of the {@link MultiWorkUnit} itself are not kept), or
+ *   a single {@link WorkUnit}. Each record can be read on its own given the offset returned when it was appended,
+ *   and is read only if the base properties have not changed since the file was written.
+ * </p>
+ *
+ * <p>
+ *   {@link WorkUnit}s and {@link Extract}s read from records that inherit the base properties are not merged with
+ *   them. They only hold the properties of the record, and look up the other properties in the base properties
+ *   shared by all records read by a {@link Reader}, so a task running many {@link WorkUnit}s does not hold a copy
+ *   of the job configuration for each of them. The merged properties are only built when they are needed as a
+ *   whole, e.g., by {@link State#getProperties()} or when the {@link WorkUnit} is serialized, and are not kept.
+ * </p>
+ */
+public class PackedWorkUnitFile {
+
+  public static final String PACKED_WORK_UNIT_FILE_EXTENSION = ".wupack";
+
+  // Separates the file path from the record offset in a record location
+  private static final String RECORD_LOCATION_SEPARATOR = "\t";
+
+  private static final int MAGIC = 0x57555044;
+  private static final int VERSION = 2;
+
+  private PackedWorkUnitFile() {
+  }
+
+  /**
+   * Get a string locating the record at the given offset of a packed work unit file.
+   */
+  public static String getRecordLocation(Path path, long offset) {
+    return path.toUri().getPath() + RECORD_LOCATION_SEPARATOR + offset;
+  }
+
+  /**
+   * Check whether a string is a record location returned by {@link #getRecordLocation(Path, long)}.
+   */
+  public static boolean isRecordLocation(String location) {
+    return location.contains(RECORD_LOCATION_SEPARATOR);
+  }
+
+  /**
+   * Get the path of the packed work unit file from a record location.
+   */
+  public static Path getRecordPath(String location) {
+    return new Path(location.substring(0, location.lastIndexOf(RECORD_LOCATION_SEPARATOR)));
+  }
+
+  /**
+   * Get the offset of the record in the packed work unit file from a record location.
+   */
+  public static long getRecordOffset(String location) {
+    return Long.parseLong(location.substring(location.lastIndexOf(RECORD_LOCATION_SEPARATOR) + 1).trim());
+  }
+
+  /**
+   * Read all {@link WorkUnit}s of a packed work unit file.
+   *
+   * @param fs the {@link FileSystem} of the file
+   * @param path the path of the file
+   * @param baseState the base {@link State} the file was written with
+   * @return the flattened {@link WorkUnit}s of all records of the file
+   * @throws IOException if the file cannot be read or the base {@link State} has changed
+   */
+  public static List<WorkUnit> readAll(FileSystem fs, Path path, State baseState) throws IOException {
+    List<WorkUnit> workUnits = Lists.newArrayList();
+    try (Reader reader = new Reader(fs, path, baseState)) {
+      long fileLength = fs.getFileStatus(path).getLen();
+      while (reader.in.getPos() < fileLength) {
+        workUnits.addAll(reader.read(reader.in.getPos()));
+      }
+    }
+    return workUnits;
+  }
+
+  /**
+   * Writes {@link WorkUnit}s into a packed work unit file.
+   */
+  public static class Writer implements Closeable {
+
+    private final Properties baseProperties;
+    private final FSDataOutputStream out;
+
+    public Writer(FileSystem fs, Path path, State baseState) throws IOException {
+      this.baseProperties = baseState.getProperties();
+      this.out = fs.create(path);
+      this.out.writeInt(MAGIC);
+      this.out.writeInt(VERSION);
+      this.out.writeInt(this.baseProperties.hashCode());
+    }
+
+    /**
+     * Append a {@link WorkUnit} or a {@link MultiWorkUnit}.
+     *
+     * @return the offset of the record of the {@link WorkUnit} in the file
+     */
+    public long append(WorkUnit workUnit) throws IOException {
+      long offset = this.out.getPos();
+      List<WorkUnit> workUnits = workUnit instanceof MultiWorkUnit
+          ? JobLauncherUtils.flattenWorkUnits(((MultiWorkUnit) workUnit).getWorkUnits())
+          : Collections.singletonList(workUnit);
+
+      this.out.writeInt(workUnits.size());
+      for (WorkUnit flattenedWorkUnit : workUnits) {
+        writeDelta(this.out, flattenedWorkUnit.getProperties());
+        writeDelta(this.out, flattenedWorkUnit.getExtract().getProperties());
+      }
+      return offset;
+    }
+
+    /**
+     * Write whether the properties inherit the base properties, i.e., have every key of the base properties, followed
+     * by the properties that are set to a different value than in the base properties if they do, or by all the
+     * properties otherwise.
+     */
+    private void writeDelta(DataOutput out, Properties properties) throws IOException {
+      boolean inheritsBaseProperties = true;
+      for (String key : this.baseProperties.stringPropertyNames()) {
+        if (properties.getProperty(key) == null) {
+          inheritsBaseProperties = false;
+          break;
+        }
+      }
+
+      Map<String, String> setProperties = Maps.newHashMap();
+      for (String key : properties.stringPropertyNames()) {
+        String value = properties.getProperty(key);
+        if (!inheritsBaseProperties || !value.equals(this.baseProperties.getProperty(key))) {
+          setProperties.put(key, value);
+        }
+      }
+
+      out.writeBoolean(inheritsBaseProperties);
+      out.writeInt(setProperties.size());
+      for (Map.Entry<String, String> entry : setProperties.entrySet()) {
+        Text.writeString(out, entry.getKey());
+        Text.writeString(out, entry.getValue());
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.out.close();
+    }
+  }
+
+  /**
+   * Reads records of a packed work unit file.
+   */
+  public static class Reader implements Closeable {
+
+    private final Path path;
+    private final Properties baseProperties;
+    private final FSDataInputStream in;
+
+    public Reader(FileSystem fs, Path path, State baseState) throws IOException {
+      this.path = path;
+      this.baseProperties = baseState.getProperties();
+      this.in = fs.open(path);
+
+      try {
+        Preconditions.checkState(this.in.readInt() == MAGIC, "Not a packed work unit file: " + path);
+        int version = this.in.readInt();
+        Preconditions.checkState(version == VERSION, "Unsupported packed work unit file version: " + version);
+        if (this.in.readInt() != this.baseProperties.hashCode()) {
+          throw new IOException(
+              "Properties of the base state differ from the ones packed work unit file " + path + " was written with");
+        }
+      } catch (IOException | RuntimeException e) {
+        this.in.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Read the record at the given offset.
+     *
+     * @return the flattened {@link WorkUnit}s of the record merged with the base properties
+     */
+    public List<WorkUnit> read(long offset) throws IOException {
+      this.in.seek(offset);
+      int numWorkUnits = this.in.readInt();
+      Preconditions.checkState(numWorkUnits >= 0, "Invalid record at offset %s of %s", offset, this.path);
+
+      List<WorkUnit> workUnits = Lists.newArrayListWithCapacity(numWorkUnits);
+      for (int i = 0; i < numWorkUnits; i++) {
+        boolean workUnitInheritsBaseProperties = this.in.readBoolean();
+        Properties workUnitProperties = readProperties(this.in);
+        boolean extractInheritsBaseProperties = this.in.readBoolean();
+        Properties extractProperties = readProperties(this.in);
+
+        Extract extract = extractInheritsBaseProperties ? new InheritingExtract(this.baseProperties)
+            : new Extract(null, null, null, null);
+        extract.addAll(extractProperties);
+
+        WorkUnit workUnit = workUnitInheritsBaseProperties ? new InheritingWorkUnit(extract, this.baseProperties)
+            : new WorkUnit(extract);
+        workUnit.addAll(workUnitProperties);
+        workUnits.add(workUnit);
+      }
+      return workUnits;
+    }
+
+    private static Properties readProperties(DataInput in) throws IOException {
+      Properties properties = new Properties();
+      int numSetProperties = in.readInt();
+      for (int i = 0; i < numSetProperties; i++) {
+        String key = Text.readString(in);
+        properties.setProperty(key, Text.readString(in));
+      }
+      return properties;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.in.close();
+    }
+  }
+
+  /**
+   * The base properties inherited by a {@link State} read from a record, except the ones removed from the
+   * {@link State} since.
+   */
+  private static class InheritedProperties {
+
+    private final Properties baseProperties;
+    private final Set<String> removedKeys = Sets.newConcurrentHashSet();
+
+    private InheritedProperties(Properties baseProperties) {
+      this.baseProperties = baseProperties;
+    }
+
+    private String get(String key) {
+      return this.removedKeys.contains(key) ? null : this.baseProperties.getProperty(key);
+    }
+
+    private void remove(String key) {
+      if (this.baseProperties.containsKey(key)) {
+        this.removedKeys.add(key);
+      }
+    }
+
+    private Set<String> getNames() {
+      Set<String> names = Sets.newHashSet(this.baseProperties.stringPropertyNames());
+      names.removeAll(this.removedKeys);
+      return names;
+    }
+
+    /**
+     * @return a copy of the inherited properties overridden by the given properties
+     */
+    private Properties merge(Properties properties) {
+      Properties merged = new Properties();
+      for (String key : getNames()) {
+        merged.setProperty(key, this.baseProperties.getProperty(key));
+      }
+      merged.putAll(properties);
+      return merged;
+    }
+  }
+
+  /**
+   * A {@link WorkUnit} that looks up the properties it does not set in the base properties.
+   */
+  private static class InheritingWorkUnit extends WorkUnit {
+
+    private final InheritedProperties inheritedProperties;
+
+    private InheritingWorkUnit(Extract extract, Properties baseProperties) {
+      super(extract);
+      this.inheritedProperties = new InheritedProperties(baseProperties);
+    }
+
+    @Override
+    public String getProp(String key) {
+      String value = super.getProp(key);
+      return value != null ? value : this.inheritedProperties.get(key);
+    }
+
+    @Override
+    public String getProp(String key, String def) {
+      String value = getProp(key);
+      return value != null ? value : def;
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return getProp(key) != null;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      Set<String> names = this.inheritedProperties.getNames();
+      names.addAll(super.getPropertyNames());
+      return names;
+    }
+
+    @Override
+    public Properties getProperties() {
+      return this.inheritedProperties.merge(super.getProperties());
+    }
+
+    @Override
+    public void removeProp(String key) {
+      super.removeProp(key);
+      this.inheritedProperties.remove(key);
+    }
+
+    @Override
+    public void addAllIfNotExist(Properties properties) {
+      for (String key : properties.stringPropertyNames()) {
+        if (!contains(key)) {
+          setProp(key, properties.getProperty(key));
+        }
+      }
+    }
+
+    @Override
+    public void overrideWith(Properties properties) {
+      for (String key : properties.stringPropertyNames()) {
+        if (contains(key)) {
+          setProp(key, properties.getProperty(key));
+        }
+      }
+    }
+
+    @Override
+    public void write(DataOutput out, SerializationFormat format) throws IOException {
+      new State(getProperties()).write(out, format);
+    }
+
+    @Override
+    public String toString() {
+      return getProperties().toString();
+    }
+  }
+
+  /**
+   * An {@link Extract} that looks up the properties it does not set in the base properties.
+   */
+  private static class InheritingExtract extends Extract {
+
+    private final InheritedProperties inheritedProperties;
+
+    @SuppressWarnings("deprecation")
+    private InheritingExtract(Properties baseProperties) {
+      super(null, null, null, null);
+      this.inheritedProperties = new InheritedProperties(baseProperties);
+    }
+
+    @Override
+    public String getProp(String key) {
+      String value = super.getProp(key);
+      return value != null ? value : this.inheritedProperties.get(key);
+    }
+
+    @Override
+    public String getProp(String key, String def) {
+      String value = getProp(key);
+      return value != null ? value : def;
+    }
+
+    @Override
+    public boolean contains(String key) {
+      return getProp(key) != null;
+    }
+
+    @Override
+    public Set<String> getPropertyNames() {
+      Set<String> names = this.inheritedProperties.getNames();
+      names.addAll(super.getPropertyNames());
+      return names;
+    }
+
+    @Override
+    public Properties getProperties() {
+      return this.inheritedProperties.merge(super.getProperties());
+    }
+
+    @Override
+    public void removeProp(String key) {
+      super.removeProp(key);
+      this.inheritedProperties.remove(key);
+    }
+
+    @Override
+    public void addAllIfNotExist(Properties properties) {
+      for (String key : properties.stringPropertyNames()) {
+        if (!contains(key)) {
+          setProp(key, properties.getProperty(key));
+        }
+      }
+    }
+
+    @Override
+    public void overrideWith(Properties properties) {
+      for (String key : properties.stringPropertyNames()) {
+        if (contains(key)) {
+          setProp(key, properties.getProperty(key));
+        }
+      }
+    }
+
+    @Override
+    public void write(DataOutput out, SerializationFormat format) throws IOException {
+      new State(getProperties()).write(out, format);
+    }
+
+    @Override
+    public String toString() {
+      return getProperties().toString();
+    }
+  }
+}
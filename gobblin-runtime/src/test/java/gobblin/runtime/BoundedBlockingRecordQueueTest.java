@@ -23,6 +23,7 @@ import org.testng.annotations.Test;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 
@@ -122,6 +123,71 @@ public class BoundedBlockingRecordQueueTest {
         .getCount(), 8);
   }
 
+  @Test
+  public void testPutAndGetBatches() throws InterruptedException {
+    final BoundedBlockingRecordQueue<Integer> batchedQueue = BoundedBlockingRecordQueue.<Integer> newBuilder()
+        .hasCapacity(2).useTimeout(1000).useTimeoutTimeUnit(TimeUnit.MILLISECONDS).useBatches()
+        .useSingleProducerSingleConsumer().collectStats().build();
+
+    final List<Integer> produced = Lists.newArrayList();
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < 10; i += 2) {
+            List<Integer> batch = ImmutableList.of(i, i + 1);
+            while (!batchedQueue.putBatch(batch)) {
+              // Retry until the batch is accepted
+            }
+            produced.addAll(batch);
+          }
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      }
+    });
+
+    final List<Integer> consumed = Lists.newArrayList();
+    Thread consumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          // Mix record-at-a-time and batch gets
+          consumed.add(batchedQueue.get());
+          while (consumed.size() < 10) {
+            List<Integer> batch = batchedQueue.getBatch();
+            if (batch != null) {
+              consumed.addAll(batch);
+            }
+          }
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      }
+    });
+
+    producer.start();
+    consumer.start();
+
+    producer.join();
+    consumer.join();
+
+    Assert.assertEquals(consumed, produced);
+    Assert.assertNull(batchedQueue.getBatch());
+
+    BoundedBlockingRecordQueue<Integer>.QueueStats stats = batchedQueue.stats().get();
+    Assert.assertEquals(stats.putAttemptCount(), 5);
+    Assert.assertEquals(stats.recordPutCount(), 10);
+    Assert.assertEquals(stats.recordGetCount(), 10);
+
+    MetricRegistry metricRegistry = new MetricRegistry();
+    stats.registerAll(metricRegistry, METRIC_NAME_PREFIX);
+    Assert.assertEquals(metricRegistry.getMeters().size(), 4);
+    Assert.assertEquals(metricRegistry
+        .meter(MetricRegistry.name(METRIC_NAME_PREFIX, BoundedBlockingRecordQueue.QueueStats.RECORD_PUT_RATE))
+        .getCount(), 10);
+  }
+
   @AfterClass
   public void tearDown() throws InterruptedException {
     this.boundedBlockingRecordQueue.clear();
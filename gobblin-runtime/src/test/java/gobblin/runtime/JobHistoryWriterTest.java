@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import gobblin.configuration.WorkUnitState;
+import gobblin.metastore.JobHistoryStore;
+import gobblin.rest.JobExecutionInfo;
+import gobblin.rest.JobExecutionQuery;
+import gobblin.rest.TaskExecutionInfo;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.WorkUnit;
+import gobblin.util.JobLauncherUtils;
+
+
+/**
+ * Unit tests for {@link JobHistoryWriter}.
+ */
+@Test(groups = { "gobblin.runtime" })
+public class JobHistoryWriterTest {
+
+  private static final String JOB_NAME = "TestJob";
+
+  @Test
+  public void testWriteNewOrChangedTasksOnly() throws IOException {
+    String jobId = JobLauncherUtils.newJobId(JOB_NAME);
+    JobState jobState = new JobState(JOB_NAME, jobId);
+    TaskState taskState0 = createTaskState(jobId, 0);
+    TaskState taskState1 = createTaskState(jobId, 1);
+    jobState.addTaskState(taskState0);
+    jobState.addTaskState(taskState1);
+
+    RecordingJobHistoryStore jobHistoryStore = new RecordingJobHistoryStore();
+    try (JobHistoryWriter writer = new JobHistoryWriter(jobHistoryStore, jobState, 0)) {
+      writer.write();
+      writer.write();
+      taskState1.setWorkingState(WorkUnitState.WorkingState.COMMITTED);
+      writer.write();
+    }
+
+    Assert.assertEquals(jobHistoryStore.jobExecutionInfos.size(), 3);
+    Assert.assertEquals(getTaskIds(jobHistoryStore.jobExecutionInfos.get(0)),
+        ImmutableList.of(taskState0.getTaskId(), taskState1.getTaskId()));
+    Assert.assertEquals(getTaskIds(jobHistoryStore.jobExecutionInfos.get(1)), ImmutableList.of());
+    Assert.assertEquals(getTaskIds(jobHistoryStore.jobExecutionInfos.get(2)), ImmutableList.of(taskState1.getTaskId()));
+    for (JobExecutionInfo jobExecutionInfo : jobHistoryStore.jobExecutionInfos) {
+      Assert.assertEquals(jobExecutionInfo.getJobId(), jobId);
+      Assert.assertTrue(jobExecutionInfo.hasJobProperties());
+    }
+  }
+
+  @Test
+  public void testAsyncWritesAreCoalesced() throws Exception {
+    String jobId = JobLauncherUtils.newJobId(JOB_NAME);
+    JobState jobState = new JobState(JOB_NAME, jobId);
+
+    RecordingJobHistoryStore jobHistoryStore = new RecordingJobHistoryStore();
+    try (JobHistoryWriter writer = new JobHistoryWriter(jobHistoryStore, jobState, 1000)) {
+      // The next asynchronous write cannot happen before the minimum interval has elapsed
+      writer.write();
+
+      List<String> taskIds = Lists.newArrayList();
+      for (int i = 0; i < 3; i++) {
+        TaskState taskState = createTaskState(jobId, i);
+        jobState.addTaskState(taskState);
+        writer.writeAsync(ImmutableList.of(taskState));
+        taskIds.add(taskState.getTaskId());
+      }
+      Assert.assertEquals(jobHistoryStore.jobExecutionInfos.size(), 1);
+
+      for (int i = 0; i < 100 && jobHistoryStore.jobExecutionInfos.size() < 2; i++) {
+        Thread.sleep(100);
+      }
+      Assert.assertEquals(jobHistoryStore.jobExecutionInfos.size(), 2);
+      Assert.assertEquals(getTaskIds(jobHistoryStore.jobExecutionInfos.get(1)), taskIds);
+
+      // All tasks have been written already
+      writer.write();
+      Assert.assertEquals(getTaskIds(jobHistoryStore.jobExecutionInfos.get(2)), ImmutableList.of());
+    }
+  }
+
+  private static TaskState createTaskState(String jobId, int sequence) {
+    TaskState taskState = new TaskState(new WorkUnitState(WorkUnit.create(
+        new Extract(Extract.TableType.SNAPSHOT_ONLY, JobHistoryWriterTest.class.getName(), JOB_NAME))));
+    taskState.setJobId(jobId);
+    taskState.setTaskId(JobLauncherUtils.newTaskId(jobId, sequence));
+    taskState.setWorkingState(WorkUnitState.WorkingState.SUCCESSFUL);
+    return taskState;
+  }
+
+  private static List<String> getTaskIds(JobExecutionInfo jobExecutionInfo) {
+    List<String> taskIds = Lists.newArrayList();
+    for (TaskExecutionInfo taskExecutionInfo : jobExecutionInfo.getTaskExecutions()) {
+      taskIds.add(taskExecutionInfo.getTaskId());
+    }
+    return taskIds;
+  }
+
+  private static class RecordingJobHistoryStore implements JobHistoryStore {
+
+    private final List<JobExecutionInfo> jobExecutionInfos =
+        Collections.synchronizedList(Lists.<JobExecutionInfo> newArrayList());
+
+    @Override
+    public void put(JobExecutionInfo jobExecutionInfo) throws IOException {
+      this.jobExecutionInfos.add(jobExecutionInfo);
+    }
+
+    @Override
+    public List<JobExecutionInfo> get(JobExecutionQuery query) throws IOException {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+
+/**
+ * Unit tests for {@link SingleProducerSingleConsumerBlockingQueue}.
+ */
+@Test(groups = { "gobblin.runtime" })
+public class SingleProducerSingleConsumerBlockingQueueTest {
+
+  @Test
+  public void testOfferAndPoll() throws InterruptedException {
+    SingleProducerSingleConsumerBlockingQueue<Integer> queue = new SingleProducerSingleConsumerBlockingQueue<>(2);
+    Assert.assertNull(queue.poll());
+    Assert.assertTrue(queue.offer(1));
+    Assert.assertTrue(queue.offer(2));
+    Assert.assertFalse(queue.offer(3));
+    Assert.assertFalse(queue.offer(3, 10, TimeUnit.MILLISECONDS));
+    Assert.assertEquals(queue.size(), 2);
+    Assert.assertEquals(queue.remainingCapacity(), 0);
+    Assert.assertEquals(Lists.newArrayList(queue.iterator()), Lists.newArrayList(1, 2));
+
+    Assert.assertEquals(queue.peek(), Integer.valueOf(1));
+    Assert.assertEquals(queue.poll(), Integer.valueOf(1));
+    Assert.assertTrue(queue.offer(3));
+    Assert.assertEquals(queue.poll(), Integer.valueOf(2));
+    Assert.assertEquals(queue.poll(10, TimeUnit.MILLISECONDS), Integer.valueOf(3));
+    Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+    queue.offer(4);
+    queue.clear();
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testProducerAndConsumer() throws InterruptedException {
+    final int count = 100000;
+    final SingleProducerSingleConsumerBlockingQueue<Integer> queue =
+        new SingleProducerSingleConsumerBlockingQueue<>(16);
+
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < count; i++) {
+            queue.put(i);
+          }
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      }
+    });
+
+    final List<Integer> consumed = Lists.newArrayListWithCapacity(count);
+    Thread consumer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < count; i++) {
+            consumed.add(queue.take());
+          }
+        } catch (InterruptedException ie) {
+          throw new RuntimeException(ie);
+        }
+      }
+    });
+
+    producer.start();
+    consumer.start();
+    producer.join();
+    consumer.join();
+
+    Assert.assertEquals(consumed.size(), count);
+    for (int i = 0; i < count; i++) {
+      Assert.assertEquals(consumed.get(i).intValue(), i);
+    }
+  }
+}
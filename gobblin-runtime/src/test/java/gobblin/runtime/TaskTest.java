@@ -12,31 +12,48 @@
 
 package gobblin.runtime;
 
-import static org.mockito.Mockito.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import com.google.common.base.Optional;
-
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.configuration.WorkUnitState;
+import gobblin.converter.Converter;
+import gobblin.converter.DataConversionException;
+import gobblin.converter.SchemaConversionException;
+import gobblin.converter.SingleRecordIterable;
 import gobblin.fork.IdentityForkOperator;
 import gobblin.publisher.TaskPublisher;
+import gobblin.qualitychecker.row.RowLevelPolicy;
+import gobblin.qualitychecker.row.RowLevelPolicyChecker;
+import gobblin.qualitychecker.task.TaskLevelPolicyCheckResults;
+import gobblin.qualitychecker.task.TaskLevelPolicyChecker;
 import gobblin.source.extractor.DataRecordException;
 import gobblin.source.extractor.Extractor;
 import gobblin.source.workunit.Extract;
 import gobblin.source.workunit.WorkUnit;
-import gobblin.qualitychecker.task.TaskLevelPolicyCheckResults;
-import gobblin.qualitychecker.task.TaskLevelPolicyChecker;
+import gobblin.writer.DataWriter;
+import gobblin.writer.DataWriterBuilder;
 
 
 /**
@@ -89,6 +106,315 @@ public class TaskTest {
     Assert.assertEquals(task.getTaskState().getWorkingState(), WorkUnitState.WorkingState.SUCCESSFUL);
   }
 
+  /**
+   * Check that the {@link Fork} of a single-branch {@link Task} is executed inline on the task thread without a
+   * record queue when {@link ConfigurationKeys#FORK_INLINE_SINGLE_BRANCH_KEY} is enabled.
+   */
+  @Test
+  public void testInlineSingleBranchFork() throws Exception {
+    TaskState taskState = new TaskState(new WorkUnitState(WorkUnit.create(
+        new Extract(Extract.TableType.SNAPSHOT_ONLY, this.getClass().getName(), this.getClass().getSimpleName()))));
+    taskState.setProp(ConfigurationKeys.METRICS_ENABLED_KEY, Boolean.toString(false));
+    taskState.setProp(ConfigurationKeys.FORK_INLINE_SINGLE_BRANCH_KEY, Boolean.toString(true));
+    taskState.setTaskId("testInlineSingleBranchForkTaskId");
+
+    TaskContext mockTaskContext = mock(TaskContext.class);
+    when(mockTaskContext.getExtractor()).thenReturn(new EmptyExtractor());
+    when(mockTaskContext.getForkOperator()).thenReturn(new IdentityForkOperator());
+    when(mockTaskContext.getTaskState()).thenReturn(taskState);
+    when(mockTaskContext.getTaskLevelPolicyChecker(any(TaskState.class), anyInt()))
+        .thenReturn(mock(TaskLevelPolicyChecker.class));
+
+    TaskPublisher mockTaskPublisher = mock(TaskPublisher.class);
+    when(mockTaskPublisher.canPublish()).thenReturn(TaskPublisher.PublisherState.SUCCESS);
+    when(mockTaskContext.getTaskPublisher(any(TaskState.class), any(TaskLevelPolicyCheckResults.class), anyInt()))
+        .thenReturn(mockTaskPublisher);
+
+    // A mock TaskExecutor makes sure no Fork is submitted to a separate thread
+    TaskExecutor mockTaskExecutor = mock(TaskExecutor.class);
+
+    Task task =
+        new Task(mockTaskContext, mock(TaskStateTracker.class), mockTaskExecutor, Optional.<CountDownLatch> absent());
+    task.run();
+
+    Assert.assertEquals(task.getTaskState().getWorkingState(), WorkUnitState.WorkingState.SUCCESSFUL);
+    Assert.assertEquals(task.getForks().size(), 1);
+    Fork fork = task.getForks().get(0).get();
+    Assert.assertTrue(fork.isInline());
+    Assert.assertFalse(fork.queueStats().isPresent());
+    verify(mockTaskExecutor, never()).submit(any(Fork.class));
+  }
+
+  /**
+   * Check that records go through the converter and the writer of an inline {@link Fork}, and that the written
+   * records are committed.
+   */
+  @Test
+  public void testInlineSingleBranchForkProcessesRecords() throws Exception {
+    RecordingDataWriterBuilder writerBuilder = new RecordingDataWriterBuilder(false);
+    TaskContext mockTaskContext = createInlineForkTaskContext("testInlineForkProcessesRecordsTaskId",
+        ImmutableList.of("a", "b", "c"), writerBuilder);
+    TaskExecutor mockTaskExecutor = mock(TaskExecutor.class);
+
+    Task task =
+        new Task(mockTaskContext, mock(TaskStateTracker.class), mockTaskExecutor, Optional.<CountDownLatch> absent());
+    task.run();
+
+    Assert.assertEquals(task.getTaskState().getWorkingState(), WorkUnitState.WorkingState.SUCCESSFUL);
+    Assert.assertEquals(writerBuilder.writtenRecords, ImmutableList.of("A", "B", "C"));
+    Assert.assertTrue(writerBuilder.committed);
+    Assert.assertEquals(task.getTaskState().getPropAsLong(ConfigurationKeys.WRITER_RECORDS_WRITTEN), 3);
+    Assert.assertTrue(task.getForks().get(0).get().isSucceeded());
+    verify(mockTaskExecutor, never()).submit(any(Fork.class));
+  }
+
+  /**
+   * Check that a failure of the writer of an inline {@link Fork} fails the {@link Task} without committing the
+   * written records.
+   */
+  @Test
+  public void testInlineSingleBranchForkWriterFailure() throws Exception {
+    RecordingDataWriterBuilder writerBuilder = new RecordingDataWriterBuilder(true);
+    TaskContext mockTaskContext = createInlineForkTaskContext("testInlineForkWriterFailureTaskId",
+        ImmutableList.of("a", "b", "c"), writerBuilder);
+
+    Task task = new Task(mockTaskContext, mock(TaskStateTracker.class), mock(TaskExecutor.class),
+        Optional.<CountDownLatch> absent());
+    task.run();
+
+    Assert.assertEquals(task.getTaskState().getWorkingState(), WorkUnitState.WorkingState.FAILED);
+    Assert.assertTrue(task.getTaskState().contains(ConfigurationKeys.TASK_FAILURE_EXCEPTION_KEY));
+    Assert.assertEquals(writerBuilder.writtenRecords, ImmutableList.of("A"));
+    Assert.assertFalse(writerBuilder.committed);
+    Assert.assertFalse(task.getForks().get(0).get().isSucceeded());
+  }
+
+  /**
+   * Check that records handed off in batches from a {@link Task} to a {@link Fork} running in a separate thread are
+   * all written in order, and that the record queue counts batches as put attempts but counts every record.
+   */
+  @Test
+  public void testBatchedRecordHandOff() throws Exception {
+    RecordingDataWriterBuilder writerBuilder = new RecordingDataWriterBuilder(false);
+    TaskContext mockTaskContext = createForkTaskContext("testBatchedRecordHandOffTaskId",
+        ImmutableList.of("a", "b", "c", "d", "e", "f", "g"), writerBuilder, false);
+    mockTaskContext.getTaskState().setProp(ConfigurationKeys.FORK_RECORD_BATCH_SIZE_KEY, 3);
+
+    Task task = new Task(mockTaskContext, mock(TaskStateTracker.class), new TaskExecutor(new Properties()),
+        Optional.<CountDownLatch> absent());
+    task.run();
+
+    Assert.assertEquals(task.getTaskState().getWorkingState(), WorkUnitState.WorkingState.SUCCESSFUL);
+    Assert.assertEquals(writerBuilder.writtenRecords, ImmutableList.of("A", "B", "C", "D", "E", "F", "G"));
+    Assert.assertTrue(writerBuilder.committed);
+    Assert.assertEquals(task.getTaskState().getPropAsLong(ConfigurationKeys.WRITER_RECORDS_WRITTEN), 7);
+
+    Fork fork = task.getForks().get(0).get();
+    Assert.assertFalse(fork.isInline());
+    BoundedBlockingRecordQueue<Object>.QueueStats queueStats = fork.queueStats().get();
+    // Two full batches of 3 records and the remaining record
+    Assert.assertEquals(queueStats.putAttemptCount(), 3);
+    Assert.assertEquals(queueStats.recordPutCount(), 7);
+    Assert.assertEquals(queueStats.recordGetCount(), 7);
+    Assert.assertEquals(queueStats.queueSize(), 0);
+  }
+
+  /**
+   * Check that the record queue of a {@link Fork} holds about {@link ConfigurationKeys#FORK_RECORD_QUEUE_CAPACITY_KEY}
+   * records when records are handed off in batches.
+   */
+  @Test
+  public void testBatchQueueCapacity() {
+    Assert.assertEquals(Fork.getBatchQueueCapacity(100, 1), 100);
+    Assert.assertEquals(Fork.getBatchQueueCapacity(100, 10), 10);
+    Assert.assertEquals(Fork.getBatchQueueCapacity(100, 3), 34);
+    Assert.assertEquals(Fork.getBatchQueueCapacity(5, 10), 1);
+  }
+
+  /**
+   * Create a mock {@link TaskContext} of a single-branch {@link Task} with an inline {@link Fork}, whose extractor
+   * returns the given records, whose fork converter upper-cases them and whose writer is built by the given builder.
+   */
+  private TaskContext createInlineForkTaskContext(String taskId, List<String> records,
+      RecordingDataWriterBuilder writerBuilder) throws Exception {
+    return createForkTaskContext(taskId, records, writerBuilder, true);
+  }
+
+  /**
+   * Create a mock {@link TaskContext} of a single-branch {@link Task}, whose extractor returns the given records,
+   * whose fork converter upper-cases them and whose writer is built by the given builder.
+   */
+  private TaskContext createForkTaskContext(String taskId, List<String> records,
+      RecordingDataWriterBuilder writerBuilder, boolean inlineFork) throws Exception {
+    TaskState taskState = new TaskState(new WorkUnitState(WorkUnit.create(
+        new Extract(Extract.TableType.SNAPSHOT_ONLY, this.getClass().getName(), this.getClass().getSimpleName()))));
+    taskState.setProp(ConfigurationKeys.METRICS_ENABLED_KEY, Boolean.toString(false));
+    taskState.setProp(ConfigurationKeys.FORK_INLINE_SINGLE_BRANCH_KEY, Boolean.toString(inlineFork));
+    taskState.setTaskId(taskId);
+
+    TaskContext mockTaskContext = mock(TaskContext.class);
+    when(mockTaskContext.getExtractor()).thenReturn(new ListExtractor(records));
+    when(mockTaskContext.getForkOperator()).thenReturn(new IdentityForkOperator());
+    when(mockTaskContext.getTaskState()).thenReturn(taskState);
+    when(mockTaskContext.getConverters(eq(0), any(TaskState.class)))
+        .thenReturn(ImmutableList.<Converter<?, ?, ?, ?>> of(new UpperCaseConverter()));
+    RowLevelPolicyChecker rowLevelPolicyChecker = new RowLevelPolicyChecker(Lists.<RowLevelPolicy> newArrayList(),
+        taskId, FileSystem.getLocal(new Configuration()));
+    when(mockTaskContext.getRowLevelPolicyChecker()).thenReturn(rowLevelPolicyChecker);
+    when(mockTaskContext.getRowLevelPolicyChecker(anyInt())).thenReturn(rowLevelPolicyChecker);
+    when(mockTaskContext.getDataWriterBuilder(anyInt(), anyInt())).thenReturn(writerBuilder);
+    when(mockTaskContext.getTaskLevelPolicyChecker(any(TaskState.class), anyInt()))
+        .thenReturn(mock(TaskLevelPolicyChecker.class));
+
+    TaskPublisher mockTaskPublisher = mock(TaskPublisher.class);
+    when(mockTaskPublisher.canPublish()).thenReturn(TaskPublisher.PublisherState.SUCCESS);
+    when(mockTaskContext.getTaskPublisher(any(TaskState.class), any(TaskLevelPolicyCheckResults.class), anyInt()))
+        .thenReturn(mockTaskPublisher);
+    return mockTaskContext;
+  }
+
+  /**
+   * An implementation of {@link Extractor} that returns the records of a list.
+   */
+  private static class ListExtractor implements Extractor<String, String> {
+
+    private final Iterator<String> records;
+    private final long recordCount;
+
+    private ListExtractor(List<String> records) {
+      this.records = records.iterator();
+      this.recordCount = records.size();
+    }
+
+    @Override
+    public String getSchema() throws IOException {
+      return "schema";
+    }
+
+    @Override
+    public String readRecord(@Deprecated String reuse) throws DataRecordException, IOException {
+      return this.records.hasNext() ? this.records.next() : null;
+    }
+
+    @Override
+    public long getExpectedRecordCount() {
+      return this.recordCount;
+    }
+
+    @Override
+    public long getHighWatermark() {
+      return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Do nothing
+    }
+  }
+
+  /**
+   * A {@link Converter} that upper-cases {@link String} records.
+   */
+  private static class UpperCaseConverter extends Converter<String, String, String, String> {
+
+    @Override
+    public String convertSchema(String inputSchema, WorkUnitState workUnit) throws SchemaConversionException {
+      return inputSchema;
+    }
+
+    @Override
+    public Iterable<String> convertRecord(String outputSchema, String inputRecord, WorkUnitState workUnit)
+        throws DataConversionException {
+      return new SingleRecordIterable<>(inputRecord.toUpperCase());
+    }
+  }
+
+  /**
+   * A {@link DataWriterBuilder} of {@link DataWriter}s that keep written records in memory, and optionally fail
+   * after writing the first record.
+   */
+  private static class RecordingDataWriterBuilder extends DataWriterBuilder<String, String> {
+
+    private final boolean failAfterFirstRecord;
+    private final List<String> writtenRecords = Lists.newArrayList();
+    private boolean committed = false;
+
+    private RecordingDataWriterBuilder(boolean failAfterFirstRecord) {
+      this.failAfterFirstRecord = failAfterFirstRecord;
+    }
+
+    @Override
+    public DataWriter<String> build() throws IOException {
+      return new DataWriter<String>() {
+
+        @Override
+        public void write(String record) throws IOException {
+          if (RecordingDataWriterBuilder.this.failAfterFirstRecord
+              && !RecordingDataWriterBuilder.this.writtenRecords.isEmpty()) {
+            throw new IOException("Failed to write record " + record);
+          }
+          RecordingDataWriterBuilder.this.writtenRecords.add(record);
+        }
+
+        @Override
+        public void commit() throws IOException {
+          RecordingDataWriterBuilder.this.committed = true;
+        }
+
+        @Override
+        public void cleanup() throws IOException {
+          // Do nothing
+        }
+
+        @Override
+        public long recordsWritten() {
+          return RecordingDataWriterBuilder.this.writtenRecords.size();
+        }
+
+        @Override
+        public long bytesWritten() throws IOException {
+          return 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+          // Do nothing
+        }
+      };
+    }
+  }
+
+  /**
+   * An implementation of {@link Extractor} that does not return any record.
+   */
+  private static class EmptyExtractor implements Extractor {
+
+    @Override
+    public Object getSchema() throws IOException {
+      return null;
+    }
+
+    @Override
+    public Object readRecord(@Deprecated Object reuse) throws DataRecordException, IOException {
+      return null;
+    }
+
+    @Override
+    public long getExpectedRecordCount() {
+      return 0;
+    }
+
+    @Override
+    public long getHighWatermark() {
+      return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      // Do nothing
+    }
+  }
+
   /**
    * An implementation of {@link Extractor} that throws an {@link IOException} during the invocation of
    * {@link #readRecord(Object)}.
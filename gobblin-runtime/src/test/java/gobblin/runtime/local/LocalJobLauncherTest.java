@@ -163,6 +163,20 @@ public class LocalJobLauncherTest {
     }
   }
 
+  @Test
+  public void testLaunchJobWithMultipleDatasetsAndParallelCommit() throws Exception {
+    Properties jobProps = loadJobProps();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY,
+        jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY) + "-testLaunchJobWithMultipleDatasetsAndParallelCommit");
+    jobProps.setProperty(ConfigurationKeys.PARALLELIZE_DATASET_COMMIT_KEY, Boolean.TRUE.toString());
+    jobProps.setProperty(ConfigurationKeys.DATASET_COMMIT_THREADS_KEY, "2");
+    try {
+      this.jobLauncherTestHelper.runTestWithMultipleDatasets(jobProps);
+    } finally {
+      this.jobLauncherTestHelper.deleteStateStore(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+    }
+  }
+
   @Test
   public void testLaunchJobWithCommitSuccessfulTasksPolicy() throws Exception {
     Properties jobProps = loadJobProps();
@@ -199,6 +213,19 @@ public class LocalJobLauncherTest {
     }
   }
 
+  @Test
+  public void testLaunchJobWithMultipleDatasetsAndFaultyExtractorAndParallelCommit() throws Exception {
+    Properties jobProps = loadJobProps();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY, jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY)
+        + "-testLaunchJobWithMultipleDatasetsAndFaultyExtractorAndParallelCommit");
+    jobProps.setProperty(ConfigurationKeys.PARALLELIZE_DATASET_COMMIT_KEY, Boolean.TRUE.toString());
+    try {
+      this.jobLauncherTestHelper.runTestWithMultipleDatasetsAndFaultyExtractor(jobProps, true);
+    } finally {
+      this.jobLauncherTestHelper.deleteStateStore(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+    }
+  }
+
   @AfterClass(alwaysRun = true)
   public void tearDown() throws IOException {
     if (testMetastoreDatabase != null) {
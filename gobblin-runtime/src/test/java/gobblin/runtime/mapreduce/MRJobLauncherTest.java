@@ -130,6 +130,21 @@ public class MRJobLauncherTest extends BMNGRunner {
     }
   }
 
+  @Test
+  public void testLaunchJobWithPackedWorkUnits() throws Exception {
+    Properties jobProps = loadJobProps();
+    jobProps.setProperty(ConfigurationKeys.JOB_NAME_KEY,
+        jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY) + "-testLaunchJobWithPackedWorkUnits");
+    jobProps.setProperty(ConfigurationKeys.MR_JOB_PACKED_WORK_UNITS_ENABLED_KEY, Boolean.toString(true));
+    jobProps.setProperty(ConfigurationKeys.MR_JOB_WORK_UNITS_PER_PACKED_FILE_KEY, "2");
+    jobProps.setProperty("use.multiworkunit", Boolean.toString(true));
+    try {
+      this.jobLauncherTestHelper.runTest(jobProps);
+    } finally {
+      this.jobLauncherTestHelper.deleteStateStore(jobProps.getProperty(ConfigurationKeys.JOB_NAME_KEY));
+    }
+  }
+
   @Test(groups = { "ignore" })
   public void testCancelJob() throws Exception {
     this.jobLauncherTestHelper.runTestWithCancellation(loadJobProps());
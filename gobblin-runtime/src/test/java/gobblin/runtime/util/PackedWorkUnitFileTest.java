@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.runtime.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import gobblin.configuration.ConfigurationKeys;
+import gobblin.configuration.SourceState;
+import gobblin.configuration.State;
+import gobblin.configuration.WorkUnitState;
+import gobblin.runtime.JobState;
+import gobblin.source.workunit.Extract;
+import gobblin.source.workunit.MultiWorkUnit;
+import gobblin.source.workunit.WorkUnit;
+
+
+/**
+ * Unit tests for {@link PackedWorkUnitFile}.
+ */
+@Test(groups = { "gobblin.runtime" })
+public class PackedWorkUnitFileTest {
+
+  private static final Path TEST_DIR = new Path("PackedWorkUnitFileTest");
+
+  private FileSystem fs;
+  private JobState jobState;
+  private SourceState sourceState;
+
+  @BeforeClass
+  public void setUp() throws IOException {
+    this.fs = FileSystem.getLocal(new Configuration());
+    this.fs.delete(TEST_DIR, true);
+
+    this.jobState = new JobState("TestJob", "TestJob-1");
+    for (int i = 0; i < 100; i++) {
+      this.jobState.setProp("job.key" + i, "job.value" + i);
+    }
+    this.sourceState = new SourceState(this.jobState, Collections.<WorkUnitState> emptyList());
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    WorkUnit workUnit1 = createWorkUnit("task1", "t1");
+    workUnit1.setProp("job.key1", "overridden");
+    workUnit1.removeProp("job.key2");
+
+    MultiWorkUnit multiWorkUnit = MultiWorkUnit.createEmpty();
+    multiWorkUnit.addWorkUnit(createWorkUnit("task2", "t2"));
+    multiWorkUnit.addWorkUnit(createWorkUnit("task3", "t3"));
+
+    Path path = new Path(TEST_DIR, "test" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    long offset1;
+    long offset2;
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, path, this.jobState)) {
+      offset1 = writer.append(workUnit1);
+      offset2 = writer.append(multiWorkUnit);
+    }
+
+    try (PackedWorkUnitFile.Reader reader = new PackedWorkUnitFile.Reader(this.fs, path, this.jobState)) {
+      // Records can be read in any order
+      List<WorkUnit> workUnits = reader.read(offset2);
+      Assert.assertEquals(workUnits.size(), 2);
+      assertSameWorkUnit(workUnits.get(0), multiWorkUnit.getWorkUnits().get(0));
+      assertSameWorkUnit(workUnits.get(1), multiWorkUnit.getWorkUnits().get(1));
+
+      workUnits = reader.read(offset1);
+      Assert.assertEquals(workUnits.size(), 1);
+      assertSameWorkUnit(workUnits.get(0), workUnit1);
+      Assert.assertEquals(workUnits.get(0).getProp("job.key1"), "overridden");
+      Assert.assertFalse(workUnits.get(0).contains("job.key2"));
+    }
+
+    List<WorkUnit> workUnits = PackedWorkUnitFile.readAll(this.fs, path, this.jobState);
+    Assert.assertEquals(workUnits.size(), 3);
+    Assert.assertEquals(workUnits.get(2).getProp(ConfigurationKeys.TASK_ID_KEY), "task3");
+
+    String location = PackedWorkUnitFile.getRecordLocation(path, offset2);
+    Assert.assertTrue(PackedWorkUnitFile.isRecordLocation(location));
+    Assert.assertEquals(PackedWorkUnitFile.getRecordPath(location).getName(), path.getName());
+    Assert.assertEquals(PackedWorkUnitFile.getRecordOffset(location), offset2);
+  }
+
+  @Test
+  public void testPackedFileIsSmaller() throws IOException {
+    Path path = new Path(TEST_DIR, "size" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    ByteArrayOutputStream unpacked = new ByteArrayOutputStream();
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, path, this.jobState);
+        DataOutputStream out = new DataOutputStream(unpacked)) {
+      for (int i = 0; i < 100; i++) {
+        WorkUnit workUnit = createWorkUnit("task" + i, "table" + i);
+        writer.append(workUnit);
+        workUnit.write(out);
+      }
+    }
+
+    Assert.assertTrue(this.fs.getFileStatus(path).getLen() * 10 < unpacked.size());
+  }
+
+  @Test
+  public void testInheritedProperties() throws IOException {
+    WorkUnit expected = createWorkUnit("task1", "t1");
+    Path path = new Path(TEST_DIR, "inheriting" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    long offset;
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, path, this.jobState)) {
+      offset = writer.append(expected);
+    }
+
+    WorkUnit workUnit;
+    try (PackedWorkUnitFile.Reader reader = new PackedWorkUnitFile.Reader(this.fs, path, this.jobState)) {
+      workUnit = reader.read(offset).get(0);
+    }
+    Assert.assertEquals(workUnit.getProp("job.key1"), "job.value1");
+    Assert.assertEquals(workUnit.getExtract().getProp("job.key1"), "job.value1");
+    Assert.assertEquals(workUnit.getPropertyNames(), expected.getPropertyNames());
+
+    // Inherited properties can be overridden and removed like properties of the work unit
+    workUnit.setProp("job.key1", "overridden");
+    workUnit.removeProp("job.key2");
+    workUnit.overrideWith(new State(this.jobState));
+    Assert.assertEquals(workUnit.getProp("job.key1"), "job.value1");
+    Assert.assertFalse(workUnit.contains("job.key2"));
+    Assert.assertEquals(workUnit.getProp("job.key2", "default"), "default");
+    Assert.assertFalse(workUnit.getPropertyNames().contains("job.key2"));
+    Assert.assertFalse(workUnit.getProperties().containsKey("job.key2"));
+    Assert.assertEquals(this.jobState.getProp("job.key2"), "job.value2");
+
+    // Serialized work units hold the merged properties
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      workUnit.write(out);
+    }
+    WorkUnit deserialized = WorkUnit.createEmpty();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      deserialized.readFields(in);
+    }
+    assertSameWorkUnit(deserialized, workUnit);
+  }
+
+  @Test
+  public void testWorkUnitsNotInheritingBaseState() throws IOException {
+    // Work units of sources that do not copy the job configuration are not larger than without a base state
+    WorkUnit workUnit = WorkUnit.createEmpty();
+    workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, "task1");
+    workUnit.setProp("job.key1", "overridden");
+
+    Path path = new Path(TEST_DIR, "notInheriting" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    long offset;
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, path, this.jobState)) {
+      offset = writer.append(workUnit);
+    }
+    Path noBaseStatePath = new Path(TEST_DIR, "noBaseState" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, noBaseStatePath, new State())) {
+      writer.append(workUnit);
+    }
+    Assert.assertEquals(this.fs.getFileStatus(path).getLen(), this.fs.getFileStatus(noBaseStatePath).getLen());
+
+    try (PackedWorkUnitFile.Reader reader = new PackedWorkUnitFile.Reader(this.fs, path, this.jobState)) {
+      List<WorkUnit> workUnits = reader.read(offset);
+      Assert.assertEquals(workUnits.size(), 1);
+      assertSameWorkUnit(workUnits.get(0), workUnit);
+      Assert.assertFalse(workUnits.get(0).contains("job.key2"));
+    }
+  }
+
+  @Test(expectedExceptions = IOException.class)
+  public void testChangedBaseState() throws IOException {
+    Path path = new Path(TEST_DIR, "changed" + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.fs, path, this.jobState)) {
+      writer.append(createWorkUnit("task1", "t1"));
+    }
+
+    State changedState = new State(this.jobState);
+    changedState.setProp("job.key1", "changed");
+    new PackedWorkUnitFile.Reader(this.fs, path, changedState).close();
+  }
+
+  @AfterClass
+  public void tearDown() throws IOException {
+    this.fs.delete(TEST_DIR, true);
+  }
+
+  @SuppressWarnings("deprecation")
+  private WorkUnit createWorkUnit(String taskId, String table) {
+    // Work units created this way carry a full copy of the job configuration, as do the ones of many sources
+    Extract extract = new Extract(this.sourceState, Extract.TableType.SNAPSHOT_ONLY, "namespace", table);
+    WorkUnit workUnit = new WorkUnit(this.sourceState, extract);
+    workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, taskId);
+    return workUnit;
+  }
+
+  private static void assertSameWorkUnit(WorkUnit actual, WorkUnit expected) {
+    Assert.assertEquals(actual.getProperties(), expected.getProperties());
+    Assert.assertEquals(actual.getExtract().getProperties(), expected.getExtract().getProperties());
+  }
+}
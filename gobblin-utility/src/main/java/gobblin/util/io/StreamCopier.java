@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+package gobblin.util.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+import gobblin.util.ExecutorsUtils;
+
+
+/**
+ * Copies an {@link InputStream} to an {@link OutputStream} with a large buffer, optionally overlapping reads and
+ * writes.
+ *
+ * <p>
+ *   Each read fills the whole buffer unless the end of the input is reached, so the output receives one write per
+ *   buffer. Buffers are heap buffers, so reads and writes go to the buffer's array without an intermediate copy. If
+ *   the input is an {@link FSDataInputStream} whose underlying stream supports reading into a {@link ByteBuffer},
+ *   such as an HDFS stream, data is read with {@link FSDataInputStream#read(ByteBuffer)}.
+ * </p>
+ *
+ * <p>
+ *   If double buffered, a background thread reads into one buffer while the calling thread writes the other, so a
+ *   copy between remote file systems is bounded by the slower side rather than by the sum of both. The background
+ *   thread is taken from the {@link ExecutorService} given with {@link #withReaderExecutor(ExecutorService)}, so
+ *   callers copying many files can share threads, or is otherwise created for the copy.
+ * </p>
+ *
+ * <p>
+ *   The time the calling thread spends waiting for data to be read, and writing data, is recorded, and can also be
+ *   reported to {@link Timer}s, along with the bytes copied to a {@link Meter}. Like {@link StreamUtils#copy}, the
+ *   streams are not closed.
+ * </p>
+ *
+ * <p>
+ *   For files on a local file system, {@link #transfer} copies between {@link FileChannel}s with
+ *   {@link FileChannel#transferTo}, which lets the operating system copy the data without going through user space.
+ *   If {@link FileChannel#transferTo} transfers nothing before the end of the source, the rest is copied through a
+ *   buffer instead.
+ * </p>
+ */
+public class StreamCopier {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreamCopier.class);
+
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  private static final ByteBuffer END_OF_INPUT = ByteBuffer.allocate(0);
+
+  private final InputStream inputStream;
+  private final OutputStream outputStream;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private boolean doubleBuffered = false;
+  private Optional<Meter> bytesCopiedMeter = Optional.absent();
+  private Optional<Timer> readWaitTimer = Optional.absent();
+  private Optional<Timer> writeWaitTimer = Optional.absent();
+  private Optional<ExecutorService> readerExecutor = Optional.absent();
+
+  private boolean useByteBufferReads;
+  private long readWaitNanos = 0;
+  private long writeWaitNanos = 0;
+  private long copyNanos = 0;
+
+  public StreamCopier(InputStream inputStream, OutputStream outputStream) {
+    this.inputStream = inputStream;
+    this.outputStream = outputStream;
+    this.useByteBufferReads = inputStream instanceof FSDataInputStream;
+  }
+
+  public StreamCopier withBufferSize(int bufferSize) {
+    Preconditions.checkArgument(bufferSize > 0, "Buffer size must be positive.");
+    this.bufferSize = bufferSize;
+    return this;
+  }
+
+  public StreamCopier withDoubleBuffering(boolean doubleBuffered) {
+    this.doubleBuffered = doubleBuffered;
+    return this;
+  }
+
+  public StreamCopier withBytesCopiedMeter(Meter meter) {
+    this.bytesCopiedMeter = Optional.of(meter);
+    return this;
+  }
+
+  public StreamCopier withReadWaitTimer(Timer timer) {
+    this.readWaitTimer = Optional.of(timer);
+    return this;
+  }
+
+  public StreamCopier withWriteWaitTimer(Timer timer) {
+    this.writeWaitTimer = Optional.of(timer);
+    return this;
+  }
+
+  /**
+   * Read in a task submitted to the given {@link ExecutorService} when double buffered, instead of in a thread created
+   * for each copy. The {@link ExecutorService} is not shut down by the copier.
+   */
+  public StreamCopier withReaderExecutor(ExecutorService executor) {
+    this.readerExecutor = Optional.of(executor);
+    return this;
+  }
+
+  /**
+   * Copy the input stream to the output stream until the end of the input stream.
+   *
+   * @return Total bytes copied
+   */
+  public long copy() throws IOException {
+    long startNanos = System.nanoTime();
+    try {
+      return this.doubleBuffered ? copyDoubleBuffered() : copySingleBuffered();
+    } finally {
+      this.copyNanos = System.nanoTime() - startNanos;
+    }
+  }
+
+  /**
+   * @return the total time spent by the copying thread waiting for data to be read, in nanoseconds.
+   */
+  public long getReadWaitNanos() {
+    return this.readWaitNanos;
+  }
+
+  /**
+   * @return the total time spent by the copying thread writing data, in nanoseconds.
+   */
+  public long getWriteWaitNanos() {
+    return this.writeWaitNanos;
+  }
+
+  /**
+   * @return the duration of the last call to {@link #copy()}, in nanoseconds.
+   */
+  public long getCopyNanos() {
+    return this.copyNanos;
+  }
+
+  /**
+   * Copy count bytes starting at the given position of the source {@link FileChannel} to the current position of the
+   * target {@link FileChannel}, with {@link FileChannel#transferTo}. If a call to {@link FileChannel#transferTo}
+   * transfers no bytes before the end of the source, the remaining bytes are copied through a heap buffer.
+   *
+   * @return Total bytes copied, which is less than count if the end of the source is reached.
+   */
+  public static long transfer(FileChannel source, long position, long count, FileChannel target) throws IOException {
+    long transferred = 0;
+    while (transferred < count) {
+      long bytes = source.transferTo(position + transferred, count - transferred, target);
+      if (bytes <= 0) {
+        if (position + transferred >= source.size()) {
+          break;
+        }
+        LOG.debug("No bytes transferred before the end of the source channel, copying the rest through a buffer.");
+        return transferred + copyBuffered(source, position + transferred, count - transferred, target);
+      }
+      transferred += bytes;
+    }
+    return transferred;
+  }
+
+  private static long copyBuffered(FileChannel source, long position, long count, FileChannel target)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, DEFAULT_BUFFER_SIZE));
+    long copied = 0;
+    while (copied < count) {
+      buffer.clear();
+      buffer.limit((int) Math.min(buffer.capacity(), count - copied));
+      int bytesRead = source.read(buffer, position + copied);
+      if (bytesRead <= 0) {
+        break;
+      }
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        target.write(buffer);
+      }
+      copied += bytesRead;
+    }
+    return copied;
+  }
+
+  private long copySingleBuffered() throws IOException {
+    ByteBuffer buffer = allocate();
+    long totalBytesCopied = 0;
+    boolean endOfInput = false;
+    while (!endOfInput) {
+      buffer.clear();
+      long startNanos = System.nanoTime();
+      endOfInput = fill(buffer);
+      recordReadWait(System.nanoTime() - startNanos);
+      buffer.flip();
+      totalBytesCopied += write(buffer);
+    }
+    return totalBytesCopied;
+  }
+
+  private long copyDoubleBuffered() throws IOException {
+    final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(2);
+    // Room for both buffers and the end of input marker, so the reader never blocks when handing them over
+    final BlockingQueue<ByteBuffer> filledBuffers = new ArrayBlockingQueue<>(3);
+    final AtomicReference<Throwable> readError = new AtomicReference<>();
+    freeBuffers.add(allocate());
+    freeBuffers.add(allocate());
+
+    Optional<ExecutorService> ownExecutor = this.readerExecutor.isPresent() ? Optional.<ExecutorService> absent()
+        : Optional.of(Executors.newSingleThreadExecutor(
+            ExecutorsUtils.newDaemonThreadFactory(Optional.of(LOG), Optional.of("StreamCopier-reader-%d"))));
+    Future<?> reader = this.readerExecutor.or(ownExecutor).get().submit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          boolean endOfInput = false;
+          while (!endOfInput) {
+            ByteBuffer buffer = freeBuffers.take();
+            buffer.clear();
+            endOfInput = fill(buffer);
+            buffer.flip();
+            filledBuffers.put(buffer);
+          }
+        } catch (Throwable t) {
+          readError.set(t);
+        } finally {
+          filledBuffers.offer(END_OF_INPUT);
+        }
+      }
+    });
+
+    long totalBytesCopied = 0;
+    try {
+      while (true) {
+        long startNanos = System.nanoTime();
+        ByteBuffer buffer = filledBuffers.take();
+        recordReadWait(System.nanoTime() - startNanos);
+        if (buffer == END_OF_INPUT) {
+          break;
+        }
+        totalBytesCopied += write(buffer);
+        freeBuffers.put(buffer);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while copying stream.");
+    } finally {
+      // Stops the reader if it is still running, e.g., because a write failed
+      reader.cancel(true);
+      if (ownExecutor.isPresent()) {
+        ownExecutor.get().shutdownNow();
+      }
+    }
+
+    Throwable t = readError.get();
+    if (t != null) {
+      if (t instanceof IOException) {
+        throw (IOException) t;
+      }
+      throw new IOException("Failed to read input stream.", t);
+    }
+    return totalBytesCopied;
+  }
+
+  private ByteBuffer allocate() {
+    return ByteBuffer.allocate(this.bufferSize);
+  }
+
+  /**
+   * Read into the buffer until it is full or the end of the input is reached.
+   *
+   * @return whether the end of the input was reached.
+   */
+  private boolean fill(ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (read(buffer) < 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int read(ByteBuffer buffer) throws IOException {
+    if (this.useByteBufferReads) {
+      try {
+        return ((FSDataInputStream) this.inputStream).read(buffer);
+      } catch (UnsupportedOperationException uoe) {
+        // The underlying stream does not support ByteBuffer reads, fall back to reading through an array
+        LOG.debug("Input stream does not support reading into a ByteBuffer, reading through a byte array.");
+        this.useByteBufferReads = false;
+      }
+    }
+
+    int bytesRead =
+        this.inputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    if (bytesRead > 0) {
+      buffer.position(buffer.position() + bytesRead);
+    }
+    return bytesRead;
+  }
+
+  private int write(ByteBuffer buffer) throws IOException {
+    int bytes = buffer.remaining();
+    if (bytes == 0) {
+      return 0;
+    }
+    long startNanos = System.nanoTime();
+    this.outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), bytes);
+    long writeNanos = System.nanoTime() - startNanos;
+    this.writeWaitNanos += writeNanos;
+    if (this.writeWaitTimer.isPresent()) {
+      this.writeWaitTimer.get().update(writeNanos, TimeUnit.NANOSECONDS);
+    }
+    if (this.bytesCopiedMeter.isPresent()) {
+      this.bytesCopiedMeter.get().mark(bytes);
+    }
+    return bytes;
+  }
+
+  private void recordReadWait(long nanos) {
+    this.readWaitNanos += nanos;
+    if (this.readWaitTimer.isPresent()) {
+      this.readWaitTimer.get().update(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+}
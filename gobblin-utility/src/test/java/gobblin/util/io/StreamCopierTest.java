@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.util.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.io.Files;
+
+
+@Test
+public class StreamCopierTest {
+
+  private static final int BUFFER_SIZE = 1000;
+
+  @Test
+  public void testCopySingleBuffered() throws IOException {
+    assertCopied(createData(10 * BUFFER_SIZE + 7), false, false);
+  }
+
+  @Test
+  public void testCopyDoubleBuffered() throws IOException {
+    assertCopied(createData(10 * BUFFER_SIZE + 7), true, false);
+  }
+
+  @Test
+  public void testCopyFromFSDataInputStream() throws IOException {
+    // The stream does not support ByteBuffer reads, so the copier falls back to reading through an array
+    assertCopied(createData(10 * BUFFER_SIZE + 7), false, true);
+    assertCopied(createData(10 * BUFFER_SIZE + 7), true, true);
+  }
+
+  @Test
+  public void testCopyEmptyStream() throws IOException {
+    assertCopied(new byte[0], false, false);
+    assertCopied(new byte[0], true, false);
+  }
+
+  @Test
+  public void testCopyWithSharedReaderExecutor() throws IOException {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      for (int i = 0; i < 3; i++) {
+        byte[] data = createData(10 * BUFFER_SIZE + i);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        long bytesCopied = new StreamCopier(new ByteArrayInputStream(data), os).withBufferSize(BUFFER_SIZE)
+            .withDoubleBuffering(true).withReaderExecutor(executor).copy();
+        Assert.assertEquals(bytesCopied, data.length);
+        Assert.assertEquals(os.toByteArray(), data);
+      }
+      // The executor is reused across copies and not shut down by the copier
+      Assert.assertFalse(executor.isShutdown());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testMetrics() throws IOException {
+    byte[] data = createData(10 * BUFFER_SIZE);
+    Meter meter = new Meter();
+    Timer readWaitTimer = new Timer();
+    Timer writeWaitTimer = new Timer();
+
+    StreamCopier copier = new StreamCopier(new ByteArrayInputStream(data), new ByteArrayOutputStream())
+        .withBufferSize(BUFFER_SIZE).withBytesCopiedMeter(meter).withReadWaitTimer(readWaitTimer)
+        .withWriteWaitTimer(writeWaitTimer);
+    Assert.assertEquals(copier.copy(), data.length);
+
+    Assert.assertEquals(meter.getCount(), data.length);
+    // One write per full buffer
+    Assert.assertEquals(writeWaitTimer.getCount(), 10);
+    // One more read to reach the end of the input
+    Assert.assertEquals(readWaitTimer.getCount(), 11);
+    Assert.assertTrue(copier.getCopyNanos() >= copier.getReadWaitNanos() + copier.getWriteWaitNanos());
+  }
+
+  @Test
+  public void testReadFailureDoubleBuffered() {
+    InputStream failingStream = new InputStream() {
+      private int bytesRead = 0;
+
+      @Override
+      public int read() throws IOException {
+        if (this.bytesRead++ > 3 * BUFFER_SIZE) {
+          throw new IOException("Read failure");
+        }
+        return 0;
+      }
+    };
+
+    try {
+      new StreamCopier(failingStream, new ByteArrayOutputStream()).withBufferSize(BUFFER_SIZE)
+          .withDoubleBuffering(true).copy();
+      Assert.fail("Read failure was not propagated.");
+    } catch (IOException ioe) {
+      Assert.assertEquals(ioe.getMessage(), "Read failure");
+    }
+  }
+
+  @Test
+  public void testTransfer() throws IOException {
+    File tmpDir = Files.createTempDir();
+    try {
+      byte[] data = createData(10 * BUFFER_SIZE);
+      File source = new File(tmpDir, "source");
+      File target = new File(tmpDir, "target");
+      Files.write(data, source);
+
+      try (FileInputStream is = new FileInputStream(source); FileOutputStream os = new FileOutputStream(target)) {
+        Assert.assertEquals(StreamCopier.transfer(is.getChannel(), 100, data.length, os.getChannel()),
+            data.length - 100);
+      }
+
+      byte[] expected = new byte[data.length - 100];
+      System.arraycopy(data, 100, expected, 0, expected.length);
+      Assert.assertEquals(Files.toByteArray(target), expected);
+    } finally {
+      for (File file : tmpDir.listFiles()) {
+        file.delete();
+      }
+      tmpDir.delete();
+    }
+  }
+
+  @Test
+  public void testTransferFallsBackToBufferedCopy() throws IOException {
+    File tmpDir = Files.createTempDir();
+    try {
+      byte[] data = createData(10 * BUFFER_SIZE);
+      File source = new File(tmpDir, "source");
+      File target = new File(tmpDir, "target");
+      Files.write(data, source);
+
+      try (FileInputStream is = new FileInputStream(source); FileOutputStream os = new FileOutputStream(target)) {
+        final FileChannel sourceChannel = is.getChannel();
+        // The source channel transfers the first buffer, and nothing afterwards
+        FileChannel zeroTransferChannel = Mockito.mock(FileChannel.class);
+        Mockito.when(
+            zeroTransferChannel.transferTo(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(FileChannel.class)))
+            .thenAnswer(new Answer<Long>() {
+              @Override
+              public Long answer(InvocationOnMock invocation) throws Throwable {
+                return sourceChannel.transferTo((Long) invocation.getArguments()[0], BUFFER_SIZE,
+                    (FileChannel) invocation.getArguments()[2]);
+              }
+            }).thenReturn(0L);
+        Mockito.when(zeroTransferChannel.size()).thenReturn((long) data.length);
+        Mockito.when(zeroTransferChannel.read(Mockito.any(ByteBuffer.class), Mockito.anyLong()))
+            .thenAnswer(new Answer<Integer>() {
+              @Override
+              public Integer answer(InvocationOnMock invocation) throws Throwable {
+                return sourceChannel.read((ByteBuffer) invocation.getArguments()[0],
+                    (Long) invocation.getArguments()[1]);
+              }
+            });
+
+        Assert.assertEquals(StreamCopier.transfer(zeroTransferChannel, 100, data.length, os.getChannel()),
+            data.length - 100);
+        Mockito.verify(zeroTransferChannel, Mockito.times(2))
+            .transferTo(Mockito.anyLong(), Mockito.anyLong(), Mockito.any(FileChannel.class));
+      }
+
+      byte[] expected = new byte[data.length - 100];
+      System.arraycopy(data, 100, expected, 0, expected.length);
+      Assert.assertEquals(Files.toByteArray(target), expected);
+    } finally {
+      for (File file : tmpDir.listFiles()) {
+        file.delete();
+      }
+      tmpDir.delete();
+    }
+  }
+
+  private static void assertCopied(byte[] data, boolean doubleBuffered, boolean fsDataInputStream)
+      throws IOException {
+    InputStream is = new ByteArrayInputStream(data);
+    if (fsDataInputStream) {
+      is = StreamUtils.convertStream(is);
+    }
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    long bytesCopied = new StreamCopier(is, os).withBufferSize(BUFFER_SIZE).withDoubleBuffering(doubleBuffered).copy();
+    Assert.assertEquals(bytesCopied, data.length);
+    Assert.assertEquals(os.toByteArray(), data);
+  }
+
+  private static byte[] createData(int length) {
+    byte[] data = new byte[length];
+    new Random(length).nextBytes(data);
+    return data;
+  }
+}
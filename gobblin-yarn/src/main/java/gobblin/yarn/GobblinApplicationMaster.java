@@ -73,6 +73,7 @@ import gobblin.runtime.app.ServiceBasedAppLauncher;
 import gobblin.util.ConfigUtils;
 import gobblin.yarn.event.ApplicationMasterShutdownRequest;
 import gobblin.yarn.event.DelegationTokenUpdatedEvent;
+import gobblin.yarn.event.HelixTaskCompletedEvent;
 
 
 /**
@@ -415,7 +416,8 @@ public class GobblinApplicationMaster implements ApplicationLauncher {
    * A custom {@link MessageHandlerFactory} for {@link ControllerUserDefinedMessageHandler}s that
    * handle messages of type {@link org.apache.helix.model.Message.MessageType#USER_DEFINE_MSG}.
    */
-  private class ControllerUserDefinedMessageHandlerFactory implements MessageHandlerFactory {
+  @VisibleForTesting
+  class ControllerUserDefinedMessageHandlerFactory implements MessageHandlerFactory {
 
     @Override
     public MessageHandler createHandler(Message message, NotificationContext context) {
@@ -440,6 +442,7 @@ public class GobblinApplicationMaster implements ApplicationLauncher {
      *
      *   <ul>
      *     <li>{@link HelixMessageSubTypes#TOKEN_FILE_UPDATED}</li>
+     *     <li>{@link HelixMessageSubTypes#TASK_COMPLETED}</li>
      *   </ul>
      * </p>
      */
@@ -462,6 +465,15 @@ public class GobblinApplicationMaster implements ApplicationLauncher {
           return helixTaskResult;
         }
 
+        if (messageSubType.equalsIgnoreCase(HelixMessageSubTypes.TASK_COMPLETED.toString())) {
+          eventBus.post(new HelixTaskCompletedEvent(
+              this._message.getRecord().getSimpleField(ConfigurationKeys.JOB_ID_KEY),
+              this._message.getRecord().getSimpleField(ConfigurationKeys.TASK_ID_KEY)));
+          HelixTaskResult helixTaskResult = new HelixTaskResult();
+          helixTaskResult.setSuccess(true);
+          return helixTaskResult;
+        }
+
         throw new IllegalArgumentException(String.format("Unknown %s message subtype: %s",
             Message.MessageType.USER_DEFINE_MSG.toString(), messageSubType));
       }
@@ -31,7 +31,10 @@ import org.apache.helix.task.WorkflowContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Maps;
+import com.google.common.eventbus.EventBus;
 
 import gobblin.configuration.ConfigurationKeys;
 import gobblin.metrics.Tag;
@@ -41,6 +44,7 @@ import gobblin.runtime.AbstractJobLauncher;
 import gobblin.runtime.JobLauncher;
 import gobblin.runtime.TaskState;
 import gobblin.runtime.TaskStateCollectorService;
+import gobblin.runtime.util.PackedWorkUnitFile;
 import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.JobLauncherUtils;
@@ -62,7 +66,26 @@ import gobblin.util.SerializationUtils;
  *   Each {@link WorkUnit} of the job is persisted to the {@link FileSystem} of choice and the path to the file
  *   storing the serialized {@link WorkUnit} is passed to the Helix task running the {@link WorkUnit} as a
  *   user-defined property {@link GobblinYarnConfigurationKeys#WORK_UNIT_FILE_PATH}. Upon startup, the Helix
- *   task reads the property for the file path and de-serializes the {@link WorkUnit} from the file.
+ *   task reads the property for the file path and de-serializes the {@link WorkUnit} from the file. If
+ *   {@link GobblinYarnConfigurationKeys#PACKED_WORK_UNITS_ENABLED_KEY} is set to true, {@link WorkUnit}s are
+ *   instead packed into a few {@link PackedWorkUnitFile}s as differences from the job state, and the property holds
+ *   the location of the record of the {@link WorkUnit} in one of them.
+ * </p>
+ *
+ * <p>
+ *   If the {@link EventBus} of the {@link GobblinApplicationMaster} is given, the Helix tasks report their
+ *   successful completion through {@link HelixMessageSubTypes#TASK_COMPLETED} messages, and the job is considered
+ *   complete as soon as all of them have been received. The state of the job in Helix is then only checked every
+ *   {@link GobblinYarnConfigurationKeys#JOB_COMPLETION_CHECK_INTERVAL_SECONDS_KEY} seconds, in case some tasks
+ *   fail. Otherwise, the state of the job in Helix is checked every second.
+ * </p>
+ *
+ * <p>
+ *   When all tasks have reported their completion, Helix may not have recorded the completion of all of them yet,
+ *   and could still retry one of them, e.g., if its container is lost before Helix records it. The retried task
+ *   would fail to read its {@link WorkUnit} once the persisted {@link WorkUnit}s of the job are deleted, so unless
+ *   the job has reached a terminal state in Helix, it is deleted from Helix before they are. Every task has already
+ *   completed successfully at that point, so no work is lost.
  * </p>
  *
  * <p>
@@ -78,6 +101,8 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
   private static final String WORK_UNIT_FILE_EXTENSION = ".wu";
 
+  private static final long DEFAULT_JOB_COMPLETION_CHECK_INTERVAL_MS = 1000;
+
   private final HelixManager helixManager;
   private final TaskDriver helixTaskDriver;
   private final String helixQueueName;
@@ -93,12 +118,24 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
   private final TaskStateCollectorService taskStateCollectorService;
 
+  // EventBus of the GobblinApplicationMaster on which HelixTaskCompletedEvents are posted
+  private final Optional<EventBus> applicationMasterEventBus;
+  private final HelixJobCompletionTracker jobCompletionTracker;
+  private final long jobCompletionCheckIntervalMs;
+
   private volatile boolean jobSubmitted = false;
+  private volatile boolean jobDeleted = false;
   private volatile boolean jobComplete = false;
 
   public GobblinHelixJobLauncher(Properties jobProps, HelixManager helixManager, Path appWorkDir,
       List<? extends Tag<?>> metadataTags)
       throws Exception {
+    this(jobProps, helixManager, appWorkDir, metadataTags, Optional.<EventBus>absent());
+  }
+
+  public GobblinHelixJobLauncher(Properties jobProps, HelixManager helixManager, Path appWorkDir,
+      List<? extends Tag<?>> metadataTags, Optional<EventBus> applicationMasterEventBus)
+      throws Exception {
     super(jobProps, metadataTags);
 
     this.helixManager = helixManager;
@@ -122,6 +159,14 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
     this.taskStateCollectorService = new TaskStateCollectorService(jobProps, this.jobContext.getJobState(),
         this.eventBus, this.fs, outputTaskStateDir);
+
+    this.applicationMasterEventBus = applicationMasterEventBus;
+    this.jobCompletionTracker = new HelixJobCompletionTracker(this.jobContext.getJobId());
+    this.jobCompletionCheckIntervalMs = this.applicationMasterEventBus.isPresent()
+        ? 1000L * Integer.parseInt(jobProps.getProperty(
+            GobblinYarnConfigurationKeys.JOB_COMPLETION_CHECK_INTERVAL_SECONDS_KEY,
+            Integer.toString(GobblinYarnConfigurationKeys.DEFAULT_JOB_COMPLETION_CHECK_INTERVAL_SECONDS)))
+        : DEFAULT_JOB_COMPLETION_CHECK_INTERVAL_MS;
   }
 
   @Override
@@ -135,6 +180,12 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
 
   @Override
   protected void runWorkUnits(List<WorkUnit> workUnits) throws Exception {
+    // Listen to task completions before any task gets a chance to run
+    if (this.applicationMasterEventBus.isPresent()) {
+      this.applicationMasterEventBus.get().register(this.jobCompletionTracker);
+    }
+
+    boolean helixJobTerminated = false;
     try {
       // Start the output TaskState collector service
       this.taskStateCollectorService.startAsync().awaitRunning();
@@ -147,20 +198,28 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
       this.jobSubmitted = true;
 
       TimingEvent jobRunTimer = this.eventSubmitter.getTimingEvent(TimingEvent.RunJobTimings.HELIX_JOB_RUN);
-      waitForJobCompletion();
+      helixJobTerminated = waitForJobCompletion();
       jobRunTimer.stop();
       LOGGER.info(String.format("Job %s completed", this.jobContext.getJobId()));
       this.jobComplete = true;
     } finally {
+      if (this.applicationMasterEventBus.isPresent()) {
+        this.applicationMasterEventBus.get().unregister(this.jobCompletionTracker);
+      }
       // The last iteration of output TaskState collecting will run when the collector service gets stopped
       this.taskStateCollectorService.stopAsync().awaitTerminated();
+      // Prevent Helix from retrying a task whose persisted WorkUnit is about to be deleted
+      if (!helixJobTerminated) {
+        executeCancellation();
+      }
       deletePersistedWorkUnitsForJob();
     }
   }
 
   @Override
-  protected void executeCancellation() {
-    if (this.jobSubmitted) {
+  protected synchronized void executeCancellation() {
+    if (this.jobSubmitted && !this.jobDeleted) {
+      this.jobDeleted = true;
       try {
         this.helixTaskDriver.deleteJob(this.helixQueueName, this.jobContext.getJobId());
       } catch (IllegalArgumentException e) {
@@ -175,19 +234,28 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
   private JobConfig.Builder createJob(List<WorkUnit> workUnits) throws IOException {
     Map<String, TaskConfig> taskConfigMap = Maps.newHashMap();
 
-    try (ParallelRunner stateSerDeRunner = new ParallelRunner(this.stateSerDeRunnerThreads, this.fs)) {
-      int multiTaskIdSequence = 0;
-      for (WorkUnit workUnit : workUnits) {
-        if (workUnit instanceof MultiWorkUnit) {
-          workUnit.setId(JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(), multiTaskIdSequence++));
-        }
-        addWorkUnit(workUnit, stateSerDeRunner, taskConfigMap);
+    int multiTaskIdSequence = 0;
+    for (WorkUnit workUnit : workUnits) {
+      if (workUnit instanceof MultiWorkUnit) {
+        workUnit.setId(JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(), multiTaskIdSequence++));
       }
+    }
 
-      Path jobStateFilePath = new Path(this.appWorkDir, this.jobContext.getJobId() + "." + JOB_STATE_FILE_NAME);
-      SerializationUtils.serializeState(this.fs, jobStateFilePath, this.jobContext.getJobState());
+    if (this.jobContext.getJobState().getPropAsBoolean(GobblinYarnConfigurationKeys.PACKED_WORK_UNITS_ENABLED_KEY,
+        GobblinYarnConfigurationKeys.DEFAULT_PACKED_WORK_UNITS_ENABLED)) {
+      addPackedWorkUnits(workUnits, taskConfigMap);
+    } else {
+      try (ParallelRunner stateSerDeRunner = new ParallelRunner(this.stateSerDeRunnerThreads, this.fs)) {
+        for (WorkUnit workUnit : workUnits) {
+          addWorkUnit(workUnit, stateSerDeRunner, taskConfigMap);
+        }
+      }
     }
 
+    Path jobStateFilePath = new Path(this.appWorkDir, this.jobContext.getJobId() + "." + JOB_STATE_FILE_NAME);
+    SerializationUtils.serializeState(this.fs, jobStateFilePath, this.jobContext.getJobState());
+    this.jobCompletionTracker.setTaskCount(taskConfigMap.size());
+
     JobConfig.Builder jobConfigBuilder = new JobConfig.Builder();
     jobConfigBuilder.setMaxAttemptsPerTask(this.jobContext.getJobState().getPropAsInt(
         ConfigurationKeys.MAX_TASK_RETRIES_KEY, ConfigurationKeys.DEFAULT_MAX_TASK_RETRIES));
@@ -220,13 +288,57 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
       Map<String, TaskConfig> taskConfigMap) throws IOException {
     String workUnitFilePath = persistWorkUnit(
         new Path(this.inputWorkUnitDir, this.jobContext.getJobId()), workUnit, stateSerDeRunner);
+    addTaskConfig(workUnit, workUnitFilePath, taskConfigMap);
+  }
+
+  /**
+   * Add {@link WorkUnit}s (flattened) packed into {@link PackedWorkUnitFile}s as differences from the job state,
+   * which is serialized separately. Each Helix task is given the location of the record of its {@link WorkUnit}.
+   */
+  private void addPackedWorkUnits(List<WorkUnit> workUnits, Map<String, TaskConfig> taskConfigMap)
+      throws IOException {
+    int workUnitsPerFile = this.jobContext.getJobState().getPropAsInt(
+        GobblinYarnConfigurationKeys.WORK_UNITS_PER_PACKED_FILE_KEY,
+        GobblinYarnConfigurationKeys.DEFAULT_WORK_UNITS_PER_PACKED_FILE);
+    Path workUnitFileDir = new Path(this.inputWorkUnitDir, this.jobContext.getJobId());
 
+    PackedWorkUnitFile.Writer packedFileWriter = null;
+    Path packedFile = null;
+    try {
+      for (int i = 0; i < workUnits.size(); i++) {
+        if (i % workUnitsPerFile == 0) {
+          if (packedFileWriter != null) {
+            packedFileWriter.close();
+          }
+          packedFile = new Path(workUnitFileDir, JobLauncherUtils.newMultiTaskId(this.jobContext.getJobId(),
+              i / workUnitsPerFile) + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+          packedFileWriter = new PackedWorkUnitFile.Writer(this.fs, packedFile, this.jobContext.getJobState());
+        }
+
+        WorkUnit workUnit = workUnits.get(i);
+        long offset = packedFileWriter.append(workUnit);
+        addTaskConfig(workUnit, PackedWorkUnitFile.getRecordLocation(packedFile, offset), taskConfigMap);
+      }
+    } finally {
+      if (packedFileWriter != null) {
+        packedFileWriter.close();
+      }
+    }
+  }
+
+  /**
+   * Add the configuration of the Helix task running a single {@link WorkUnit} (flattened).
+   */
+  private void addTaskConfig(WorkUnit workUnit, String workUnitFilePath, Map<String, TaskConfig> taskConfigMap) {
     Map<String, String> rawConfigMap = Maps.newHashMap();
     rawConfigMap.put(GobblinYarnConfigurationKeys.WORK_UNIT_FILE_PATH, workUnitFilePath);
     rawConfigMap.put(ConfigurationKeys.JOB_NAME_KEY, this.jobContext.getJobName());
     rawConfigMap.put(ConfigurationKeys.JOB_ID_KEY, this.jobContext.getJobId());
     rawConfigMap.put(ConfigurationKeys.TASK_ID_KEY, workUnit.getId());
     rawConfigMap.put(GobblinYarnConfigurationKeys.TASK_SUCCESS_OPTIONAL_KEY, "true");
+    if (this.applicationMasterEventBus.isPresent()) {
+      rawConfigMap.put(GobblinYarnConfigurationKeys.TASK_COMPLETION_MESSAGE_ENABLED_KEY, "true");
+    }
 
     taskConfigMap.put(workUnit.getId(), TaskConfig.from(rawConfigMap));
   }
@@ -243,20 +355,31 @@ public class GobblinHelixJobLauncher extends AbstractJobLauncher {
     return workUnitFile.toString();
   }
 
-  private void waitForJobCompletion() throws InterruptedException {
-    while (true) {
-      WorkflowContext workflowContext = TaskUtil.getWorkflowContext(this.helixManager, this.helixQueueName);
-      if (workflowContext != null) {
-        org.apache.helix.task.TaskState helixJobState = workflowContext.getJobState(this.jobResourceName);
-        if (helixJobState == org.apache.helix.task.TaskState.COMPLETED ||
-            helixJobState == org.apache.helix.task.TaskState.FAILED ||
-            helixJobState == org.apache.helix.task.TaskState.STOPPED) {
-          return;
+  /**
+   * Wait for the job to complete.
+   *
+   * @return {@code true} if the job has reached a terminal state in Helix, or {@code false} if all its tasks have
+   *         reported their completion before Helix has recorded it
+   */
+  private boolean waitForJobCompletion() throws InterruptedException {
+    boolean helixJobTerminated = this.jobCompletionTracker.waitForJobCompletion(new Supplier<Boolean>() {
+      @Override
+      public Boolean get() {
+        WorkflowContext workflowContext = TaskUtil.getWorkflowContext(helixManager, helixQueueName);
+        if (workflowContext == null) {
+          return false;
         }
+        org.apache.helix.task.TaskState helixJobState = workflowContext.getJobState(jobResourceName);
+        return helixJobState == org.apache.helix.task.TaskState.COMPLETED ||
+            helixJobState == org.apache.helix.task.TaskState.FAILED ||
+            helixJobState == org.apache.helix.task.TaskState.STOPPED;
       }
+    }, this.jobCompletionCheckIntervalMs);
 
-      Thread.sleep(1000);
+    if (!helixJobTerminated) {
+      LOGGER.info(String.format("All tasks of job %s have reported their completion", this.jobContext.getJobId()));
     }
+    return helixJobTerminated;
   }
 
   /**
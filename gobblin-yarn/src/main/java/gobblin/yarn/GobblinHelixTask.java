@@ -14,10 +14,15 @@ package gobblin.yarn;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import org.apache.helix.Criteria;
+import org.apache.helix.HelixManager;
+import org.apache.helix.InstanceType;
+import org.apache.helix.model.Message;
 import org.apache.helix.task.Task;
 import org.apache.helix.task.TaskCallbackContext;
 import org.apache.helix.task.TaskConfig;
@@ -39,6 +44,7 @@ import gobblin.runtime.TaskExecutor;
 import gobblin.runtime.TaskState;
 import gobblin.runtime.TaskStateTracker;
 import gobblin.runtime.util.JobMetrics;
+import gobblin.runtime.util.PackedWorkUnitFile;
 import gobblin.source.workunit.MultiWorkUnit;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.JobLauncherUtils;
@@ -52,12 +58,16 @@ import gobblin.util.SerializationUtils;
  * <p>
  *   Upon startup, a {@link GobblinHelixTask} reads the property
  *   {@link GobblinYarnConfigurationKeys#WORK_UNIT_FILE_PATH} for the path of the file storing a serialized
- *   {@link WorkUnit} on the {@link FileSystem} of choice and de-serializes the {@link WorkUnit}. Depending on
+ *   {@link WorkUnit} on the {@link FileSystem} of choice and de-serializes the {@link WorkUnit}, or for the location
+ *   of the {@link WorkUnit} in a {@link PackedWorkUnitFile} from which it reads the {@link WorkUnit}. Depending on
  *   if the serialized {@link WorkUnit} is a {@link MultiWorkUnit}, it then creates one or more Gobblin
  *   {@link gobblin.runtime.Task}s to run the {@link WorkUnit}(s) (possibly wrapped in the {@link MultiWorkUnit})
  *   and waits for the Gobblin {@link gobblin.runtime.Task}(s) to finish. Upon completion of the Gobblin
  *   {@link gobblin.runtime.Task}(s), it persists the {@link TaskState} of each {@link gobblin.runtime.Task} to
- *   a file that will be collected by the {@link GobblinHelixJobLauncher} later upon completion of the job.
+ *   a file that will be collected by the {@link GobblinHelixJobLauncher} later upon completion of the job. If
+ *   {@link GobblinYarnConfigurationKeys#TASK_COMPLETION_MESSAGE_ENABLED_KEY} is set, it then notifies the
+ *   {@link GobblinApplicationMaster} of its successful completion through a {@link HelixMessageSubTypes#TASK_COMPLETED}
+ *   message.
  * </p>
  *
  * @author Yinan Li
@@ -76,6 +86,7 @@ public class GobblinHelixTask implements Task {
   private final JobState jobState = new JobState();
   private final String jobId;
   private final String participantId;
+  private final HelixManager helixManager;
 
   private final FileSystem fs;
   private final StateStore<TaskState> taskStateStore;
@@ -87,7 +98,8 @@ public class GobblinHelixTask implements Task {
 
     this.taskConfig = taskCallbackContext.getTaskConfig();
     this.jobId = this.taskConfig.getConfigMap().get(ConfigurationKeys.JOB_ID_KEY);
-    this.participantId = taskCallbackContext.getManager().getInstanceName();
+    this.helixManager = taskCallbackContext.getManager();
+    this.participantId = this.helixManager.getInstanceName();
 
     this.fs = fs;
     Path taskStateOutputDir = new Path(appWorkDir, GobblinYarnConfigurationKeys.OUTPUT_TASK_STATE_DIR_NAME);
@@ -108,27 +120,40 @@ public class GobblinHelixTask implements Task {
   @Override
   public TaskResult run() {
     try {
-      Path workUnitFilePath =
-          new Path(this.taskConfig.getConfigMap().get(GobblinYarnConfigurationKeys.WORK_UNIT_FILE_PATH));
-
-      WorkUnit workUnit = workUnitFilePath.getName().endsWith(AbstractJobLauncher.MULTI_WORK_UNIT_FILE_EXTENSION)
-          ? MultiWorkUnit.createEmpty() : WorkUnit.createEmpty();
-      SerializationUtils.deserializeState(this.fs, workUnitFilePath, workUnit);
+      String workUnitFileLocation =
+          this.taskConfig.getConfigMap().get(GobblinYarnConfigurationKeys.WORK_UNIT_FILE_PATH);
 
       // The list of individual WorkUnits (flattened) to run
       List<WorkUnit> workUnits = Lists.newArrayList();
 
-      if (workUnit instanceof MultiWorkUnit) {
-        // Flatten the MultiWorkUnit so the job configuration properties can be added to each individual WorkUnits
-        List<WorkUnit> flattenedWorkUnits =
-            JobLauncherUtils.flattenWorkUnits(((MultiWorkUnit) workUnit).getWorkUnits());
-        workUnits.addAll(flattenedWorkUnits);
+      if (PackedWorkUnitFile.isRecordLocation(workUnitFileLocation)) {
+        try (PackedWorkUnitFile.Reader reader = new PackedWorkUnitFile.Reader(this.fs,
+            PackedWorkUnitFile.getRecordPath(workUnitFileLocation), this.jobState)) {
+          workUnits.addAll(reader.read(PackedWorkUnitFile.getRecordOffset(workUnitFileLocation)));
+        }
       } else {
-        workUnits.add(workUnit);
+        Path workUnitFilePath = new Path(workUnitFileLocation);
+        WorkUnit workUnit = workUnitFilePath.getName().endsWith(AbstractJobLauncher.MULTI_WORK_UNIT_FILE_EXTENSION)
+            ? MultiWorkUnit.createEmpty() : WorkUnit.createEmpty();
+        SerializationUtils.deserializeState(this.fs, workUnitFilePath, workUnit);
+
+        if (workUnit instanceof MultiWorkUnit) {
+          // Flatten the MultiWorkUnit so the job configuration properties can be added to each individual WorkUnits
+          List<WorkUnit> flattenedWorkUnits =
+              JobLauncherUtils.flattenWorkUnits(((MultiWorkUnit) workUnit).getWorkUnits());
+          workUnits.addAll(flattenedWorkUnits);
+        } else {
+          workUnits.add(workUnit);
+        }
       }
 
       AbstractJobLauncher.runWorkUnits(this.jobId, this.participantId, this.jobState, workUnits, this.taskStateTracker,
           this.taskExecutor, this.taskStateStore, LOGGER);
+
+      if (Boolean.valueOf(
+          this.taskConfig.getConfigMap().get(GobblinYarnConfigurationKeys.TASK_COMPLETION_MESSAGE_ENABLED_KEY))) {
+        sendTaskCompletedMessage();
+      }
       return new TaskResult(TaskResult.Status.COMPLETED, String.format("completed tasks: %d", workUnits.size()));
     } catch (InterruptedException ie) {
       Thread.currentThread().interrupt();
@@ -139,6 +164,36 @@ public class GobblinHelixTask implements Task {
     }
   }
 
+  /**
+   * Notify the {@link GobblinApplicationMaster} that this task has completed successfully. This is best effort: the
+   * {@link GobblinHelixJobLauncher} falls back to checking the state of the job in Helix if the message is lost.
+   */
+  private void sendTaskCompletedMessage() {
+    try {
+      Criteria criteria = new Criteria();
+      criteria.setInstanceName("%");
+      criteria.setResource("%");
+      criteria.setPartition("%");
+      criteria.setPartitionState("%");
+      criteria.setRecipientInstanceType(InstanceType.CONTROLLER);
+      criteria.setSessionSpecific(true);
+
+      Message taskCompletedMessage = new Message(Message.MessageType.USER_DEFINE_MSG,
+          HelixMessageSubTypes.TASK_COMPLETED.toString().toLowerCase() + UUID.randomUUID().toString());
+      taskCompletedMessage.setMsgSubType(HelixMessageSubTypes.TASK_COMPLETED.toString());
+      taskCompletedMessage.setMsgState(Message.MessageState.NEW);
+      taskCompletedMessage.setTgtSessionId("*");
+      taskCompletedMessage.getRecord().setSimpleField(ConfigurationKeys.JOB_ID_KEY, this.jobId);
+      taskCompletedMessage.getRecord().setSimpleField(ConfigurationKeys.TASK_ID_KEY,
+          this.taskConfig.getConfigMap().get(ConfigurationKeys.TASK_ID_KEY));
+
+      this.helixManager.getMessagingService().send(criteria, taskCompletedMessage);
+    } catch (Exception e) {
+      LOGGER.warn(String.format("Failed to send the task completed message of task %s of job %s",
+          this.taskConfig.getConfigMap().get(ConfigurationKeys.TASK_ID_KEY), this.jobId), e);
+    }
+  }
+
   @Override
   public void cancel() {
     // TODO: implement cancellation.
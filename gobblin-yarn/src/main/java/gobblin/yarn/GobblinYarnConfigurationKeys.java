@@ -54,6 +54,13 @@ public class GobblinYarnConfigurationKeys {
   public static final String HELIX_CLUSTER_NAME_KEY = GOBBLIN_YARN_PREFIX + "helix.cluster.name";
   public static final String ZK_CONNECTION_STRING_KEY = GOBBLIN_YARN_PREFIX + "zk.connection.string";
   public static final String WORK_UNIT_FILE_PATH = GOBBLIN_YARN_PREFIX + "work.unit.file.path";
+  public static final String PACKED_WORK_UNITS_ENABLED_KEY = GOBBLIN_YARN_PREFIX + "packed.work.units.enabled";
+  public static final boolean DEFAULT_PACKED_WORK_UNITS_ENABLED = false;
+  public static final String WORK_UNITS_PER_PACKED_FILE_KEY = GOBBLIN_YARN_PREFIX + "work.units.per.packed.file";
+  public static final int DEFAULT_WORK_UNITS_PER_PACKED_FILE = 1000;
+  public static final String JOB_COMPLETION_CHECK_INTERVAL_SECONDS_KEY =
+      GOBBLIN_YARN_PREFIX + "job.completion.check.interval.seconds";
+  public static final int DEFAULT_JOB_COMPLETION_CHECK_INTERVAL_SECONDS = 30;
   public static final String HELIX_INSTANCE_MAX_RETRIES = GOBBLIN_YARN_PREFIX + "helix.instance.max.retries";
   public static final String HELIX_INSTANCE_NAME_OPTION_NAME = "helix_instance_name";
 
@@ -85,6 +92,7 @@ public class GobblinYarnConfigurationKeys {
 
   // Other misc configuration properties.
   public static final String TASK_SUCCESS_OPTIONAL_KEY = "TASK_SUCCESS_OPTIONAL";
+  public static final String TASK_COMPLETION_MESSAGE_ENABLED_KEY = "TASK_COMPLETION_MESSAGE_ENABLED";
   public static final String LOG_COPIER_SCHEDULER = GOBBLIN_YARN_PREFIX + "log.copier.scheduler";
   public static final String LOG_COPIER_MAX_FILE_SIZE = GOBBLIN_YARN_PREFIX + "log.copier.max.file.size";
 }
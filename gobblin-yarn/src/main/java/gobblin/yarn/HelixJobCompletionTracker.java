@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package gobblin.yarn;
+
+import java.util.Set;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.Subscribe;
+
+import gobblin.yarn.event.HelixTaskCompletedEvent;
+
+
+/**
+ * Keeps track of the Helix tasks of a job that have reported their completion through
+ * {@link HelixTaskCompletedEvent}s, and waits for the job to complete.
+ *
+ * <p>
+ *   Duplicate {@link HelixTaskCompletedEvent}s and events of other jobs are ignored. The job is considered complete
+ *   as soon as as many distinct tasks as the job has have reported their completion, or once the job reaches a
+ *   terminal state in Helix, which is only checked when no task has completed during the last check interval.
+ * </p>
+ */
+class HelixJobCompletionTracker {
+
+  private final String jobId;
+  private final Set<String> completedTaskIds = Sets.newHashSet();
+  private int taskCount = -1;
+  private boolean newTaskCompleted = false;
+
+  HelixJobCompletionTracker(String jobId) {
+    this.jobId = jobId;
+  }
+
+  @Subscribe
+  public synchronized void handleHelixTaskCompleted(HelixTaskCompletedEvent event) {
+    if (this.jobId.equals(event.getJobId()) && this.completedTaskIds.add(event.getTaskId())) {
+      this.newTaskCompleted = true;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Set the number of tasks of the job. Until it is set, the job is only considered complete once it reaches a
+   * terminal state in Helix.
+   */
+  synchronized void setTaskCount(int taskCount) {
+    this.taskCount = taskCount;
+  }
+
+  synchronized boolean allTasksCompleted() {
+    return this.taskCount >= 0 && this.completedTaskIds.size() >= this.taskCount;
+  }
+
+  /**
+   * Wait for the job to complete.
+   *
+   * @param helixJobTerminated whether the job has reached a terminal state in Helix
+   * @param checkIntervalMs how long to wait for a task to report its completion before checking the state of the job
+   *                        in Helix
+   * @return {@code true} if the job has reached a terminal state in Helix, or {@code false} if all its tasks have
+   *         reported their completion before Helix has recorded it
+   */
+  boolean waitForJobCompletion(Supplier<Boolean> helixJobTerminated, long checkIntervalMs)
+      throws InterruptedException {
+    boolean checkHelixJobState = true;
+    while (true) {
+      if (allTasksCompleted()) {
+        return false;
+      }
+      if (checkHelixJobState && helixJobTerminated.get()) {
+        return true;
+      }
+      checkHelixJobState = !awaitTaskCompletion(checkIntervalMs);
+    }
+  }
+
+  /**
+   * Wait for a task to report its completion.
+   *
+   * @return whether a task has completed since the last call, or {@code false} if the timeout has elapsed
+   */
+  private synchronized boolean awaitTaskCompletion(long timeoutMs) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+    while (!this.newTaskCompleted) {
+      long remainingMs = deadline - System.currentTimeMillis();
+      if (remainingMs <= 0) {
+        return false;
+      }
+      wait(remainingMs);
+    }
+    this.newTaskCompleted = false;
+    return true;
+  }
+}
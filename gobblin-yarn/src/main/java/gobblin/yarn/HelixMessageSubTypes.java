@@ -32,5 +32,11 @@ public enum HelixMessageSubTypes {
   /**
    * This type is for messages sent when the file storing the delegation token has been updated.
    */
-  TOKEN_FILE_UPDATED
+  TOKEN_FILE_UPDATED,
+
+  /**
+   * This type is for messages sent by a {@link GobblinHelixTask} to the {@link GobblinApplicationMaster} when it
+   * has completed successfully.
+   */
+  TASK_COMPLETED
 }
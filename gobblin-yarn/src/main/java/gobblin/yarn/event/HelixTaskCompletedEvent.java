@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+package gobblin.yarn.event;
+
+/**
+ * A type of events for the successful completion of a {@link gobblin.yarn.GobblinHelixTask} to be used with a
+ * {@link com.google.common.eventbus.EventBus}.
+ */
+public class HelixTaskCompletedEvent {
+
+  private final String jobId;
+  private final String taskId;
+
+  public HelixTaskCompletedEvent(String jobId, String taskId) {
+    this.jobId = jobId;
+    this.taskId = taskId;
+  }
+
+  /**
+   * Get the ID of the job the completed task belongs to.
+   *
+   * @return the job ID
+   */
+  public String getJobId() {
+    return this.jobId;
+  }
+
+  /**
+   * Get the ID of the completed task, which is the ID of the {@link gobblin.source.workunit.WorkUnit} or
+   * {@link gobblin.source.workunit.MultiWorkUnit} it ran.
+   *
+   * @return the task ID
+   */
+  public String getTaskId() {
+    return this.taskId;
+  }
+}
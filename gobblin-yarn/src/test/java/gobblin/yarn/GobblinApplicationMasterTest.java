@@ -13,6 +13,8 @@
 package gobblin.yarn;
 
 import java.net.URL;
+import java.util.List;
+import java.util.UUID;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.test.TestingServer;
@@ -21,6 +23,8 @@ import org.apache.hadoop.yarn.util.ConverterUtils;
 import org.apache.helix.HelixManager;
 import org.apache.helix.HelixManagerFactory;
 import org.apache.helix.InstanceType;
+import org.apache.helix.messaging.handling.HelixTaskResult;
+import org.apache.helix.messaging.handling.MessageHandler;
 import org.apache.helix.model.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,12 +35,16 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.io.Closer;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
+import gobblin.configuration.ConfigurationKeys;
 import gobblin.testing.AssertWithBackoff;
 import gobblin.yarn.event.ApplicationMasterShutdownRequest;
+import gobblin.yarn.event.HelixTaskCompletedEvent;
 
 
 /**
@@ -141,6 +149,29 @@ public class GobblinApplicationMasterTest implements HelixMessageTestBase {
     }
   }
 
+  @Test
+  public void testHandleTaskCompletedMessage() throws Exception {
+    TaskCompletedEventListener listener = new TaskCompletedEventListener();
+    this.gobblinApplicationMaster.getEventBus().register(listener);
+    try {
+      Message taskCompletedMessage = new Message(Message.MessageType.USER_DEFINE_MSG, UUID.randomUUID().toString());
+      taskCompletedMessage.setMsgSubType(HelixMessageSubTypes.TASK_COMPLETED.toString());
+      taskCompletedMessage.getRecord().setSimpleField(ConfigurationKeys.JOB_ID_KEY, "job_test_1");
+      taskCompletedMessage.getRecord().setSimpleField(ConfigurationKeys.TASK_ID_KEY, "task_test_1");
+
+      MessageHandler handler = this.gobblinApplicationMaster.new ControllerUserDefinedMessageHandlerFactory()
+          .createHandler(taskCompletedMessage, null);
+      HelixTaskResult result = handler.handleMessage();
+
+      Assert.assertTrue(result.isSuccess());
+      Assert.assertEquals(listener.events.size(), 1);
+      Assert.assertEquals(listener.events.get(0).getJobId(), "job_test_1");
+      Assert.assertEquals(listener.events.get(0).getTaskId(), "task_test_1");
+    } finally {
+      this.gobblinApplicationMaster.getEventBus().unregister(listener);
+    }
+  }
+
   @Test(dependsOnMethods = "testSendShutdownRequest")
   public void testHandleApplicationMasterShutdownRequest() throws Exception {
     Logger log = LoggerFactory.getLogger("testHandleApplicationMasterShutdownRequest");
@@ -173,4 +204,13 @@ public class GobblinApplicationMasterTest implements HelixMessageTestBase {
     Assert.assertEquals(message.getMsgType(), Message.MessageType.SHUTDOWN.toString());
     Assert.assertEquals(message.getMsgSubType(), HelixMessageSubTypes.WORK_UNIT_RUNNER_SHUTDOWN.toString());
   }
+
+  private static class TaskCompletedEventListener {
+    private final List<HelixTaskCompletedEvent> events = Lists.newArrayList();
+
+    @Subscribe
+    public void handleHelixTaskCompleted(HelixTaskCompletedEvent event) {
+      this.events.add(event);
+    }
+  }
 }
@@ -23,11 +23,16 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
+import org.apache.helix.ClusterMessagingService;
+import org.apache.helix.Criteria;
 import org.apache.helix.HelixManager;
+import org.apache.helix.InstanceType;
+import org.apache.helix.model.Message;
 import org.apache.helix.task.TaskCallbackContext;
 import org.apache.helix.task.TaskConfig;
 import org.apache.helix.task.TaskResult;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import org.testng.Assert;
@@ -44,6 +49,7 @@ import gobblin.example.simplejson.SimpleJsonSource;
 import gobblin.runtime.AbstractJobLauncher;
 import gobblin.runtime.JobState;
 import gobblin.runtime.TaskExecutor;
+import gobblin.runtime.util.PackedWorkUnitFile;
 import gobblin.source.workunit.WorkUnit;
 import gobblin.util.SerializationUtils;
 import gobblin.writer.AvroDataWriterBuilder;
@@ -149,6 +155,73 @@ public class GobblinHelixTaskTest {
     TestHelper.assertGenericRecords(outputAvroFile, schema);
   }
 
+  @Test(dependsOnMethods = "testRun")
+  public void testRunPackedWorkUnit() throws IOException {
+    Path jobStateFilePath =
+        new Path(appWorkDir, TestHelper.TEST_JOB_ID + "." + AbstractJobLauncher.JOB_STATE_FILE_NAME);
+    JobState jobState = new JobState();
+    SerializationUtils.deserializeState(this.localFs, jobStateFilePath, jobState);
+
+    // Pack the WorkUnit with a different output directory as a record following another one
+    Path packedTaskOutputDir = new Path(this.appWorkDir, "packed-output");
+    WorkUnit workUnit = WorkUnit.createEmpty();
+    prepareWorkUnit(workUnit);
+    workUnit.setProp(ConfigurationKeys.TASK_ID_KEY, TestHelper.TEST_TASK_ID + "_packed");
+    workUnit.setProp(ConfigurationKeys.WRITER_STAGING_DIR,
+        this.appWorkDir.toString() + Path.SEPARATOR + "packed-staging");
+    workUnit.setProp(ConfigurationKeys.WRITER_OUTPUT_DIR, packedTaskOutputDir.toString());
+    workUnit.setProp(SimpleJsonSource.SOURCE_FILE_KEY,
+        new File(this.appWorkDir.toString(), TestHelper.TEST_JOB_NAME + ".json").getAbsolutePath());
+
+    Path packedFilePath =
+        new Path(this.appWorkDir, TestHelper.TEST_JOB_NAME + PackedWorkUnitFile.PACKED_WORK_UNIT_FILE_EXTENSION);
+    long offset;
+    try (PackedWorkUnitFile.Writer writer = new PackedWorkUnitFile.Writer(this.localFs, packedFilePath, jobState)) {
+      writer.append(WorkUnit.createEmpty());
+      offset = writer.append(workUnit);
+    }
+
+    Map<String, String> taskConfigMap = Maps.newHashMap();
+    taskConfigMap.put(GobblinYarnConfigurationKeys.WORK_UNIT_FILE_PATH,
+        PackedWorkUnitFile.getRecordLocation(packedFilePath, offset));
+    taskConfigMap.put(ConfigurationKeys.JOB_ID_KEY, TestHelper.TEST_JOB_ID);
+    taskConfigMap.put(ConfigurationKeys.TASK_ID_KEY, TestHelper.TEST_TASK_ID + "_packed");
+    taskConfigMap.put(GobblinYarnConfigurationKeys.TASK_COMPLETION_MESSAGE_ENABLED_KEY, "true");
+
+    ClusterMessagingService messagingService = Mockito.mock(ClusterMessagingService.class);
+    Mockito.when(this.helixManager.getMessagingService()).thenReturn(messagingService);
+
+    TaskConfig taskConfig = new TaskConfig("", taskConfigMap, true);
+    TaskCallbackContext taskCallbackContext = Mockito.mock(TaskCallbackContext.class);
+    Mockito.when(taskCallbackContext.getTaskConfig()).thenReturn(taskConfig);
+    Mockito.when(taskCallbackContext.getManager()).thenReturn(this.helixManager);
+
+    GobblinHelixTaskFactory gobblinHelixTaskFactory =
+        new GobblinHelixTaskFactory(Optional.<ContainerMetrics>absent(), this.taskExecutor, this.taskStateTracker,
+            this.localFs, this.appWorkDir);
+    TaskResult taskResult = gobblinHelixTaskFactory.createNewTask(taskCallbackContext).run();
+    Assert.assertEquals(taskResult.getStatus(), TaskResult.Status.COMPLETED);
+
+    File outputAvroFile = new File(packedTaskOutputDir.toString(),
+        TestHelper.REL_WRITER_FILE_PATH + File.separator + TestHelper.WRITER_FILE_NAME);
+    Assert.assertTrue(outputAvroFile.exists());
+
+    Schema schema = new Schema.Parser().parse(TestHelper.SOURCE_SCHEMA);
+    TestHelper.assertGenericRecords(outputAvroFile, schema);
+
+    // The task reports its completion to the controller
+    ArgumentCaptor<Criteria> criteria = ArgumentCaptor.forClass(Criteria.class);
+    ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+    Mockito.verify(messagingService).send(criteria.capture(), message.capture());
+    Assert.assertEquals(criteria.getValue().getRecipientInstanceType(), InstanceType.CONTROLLER);
+    Assert.assertEquals(message.getValue().getMsgType(), Message.MessageType.USER_DEFINE_MSG.toString());
+    Assert.assertEquals(message.getValue().getMsgSubType(), HelixMessageSubTypes.TASK_COMPLETED.toString());
+    Assert.assertEquals(message.getValue().getRecord().getSimpleField(ConfigurationKeys.JOB_ID_KEY),
+        TestHelper.TEST_JOB_ID);
+    Assert.assertEquals(message.getValue().getRecord().getSimpleField(ConfigurationKeys.TASK_ID_KEY),
+        TestHelper.TEST_TASK_ID + "_packed");
+  }
+
   @AfterClass
   public void tearDown() throws IOException {
     try {
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2014-2016 LinkedIn Corp. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ */
+
+
+package gobblin.yarn;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.eventbus.EventBus;
+
+import gobblin.yarn.event.HelixTaskCompletedEvent;
+
+
+/**
+ * Unit tests for {@link HelixJobCompletionTracker}, which the {@link GobblinHelixJobLauncher} uses to wait for a job to
+ * complete.
+ */
+@Test(groups = { "gobblin.yarn" })
+public class HelixJobCompletionTrackerTest {
+
+  private static final String JOB_ID = "job_test_1";
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @Test
+  public void testReturnsOnceAllTasksHaveCompleted() throws Exception {
+    EventBus eventBus = new EventBus();
+    HelixJobCompletionTracker tracker = new HelixJobCompletionTracker(JOB_ID);
+    eventBus.register(tracker);
+    tracker.setTaskCount(2);
+
+    CountingHelixJobState helixJobState = new CountingHelixJobState();
+    Future<Boolean> helixJobTerminated = waitForJobCompletion(tracker, helixJobState, TimeUnit.MINUTES.toMillis(1));
+
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_1"));
+    // Duplicate messages and messages of other jobs are not counted
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_1"));
+    eventBus.post(new HelixTaskCompletedEvent("job_test_2", "task_2"));
+    Thread.sleep(100);
+    Assert.assertFalse(helixJobTerminated.isDone());
+
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_2"));
+    // The job is complete before Helix records it, and Helix is only polled once before any task completes
+    Assert.assertFalse(helixJobTerminated.get(1, TimeUnit.MINUTES));
+    Assert.assertEquals(helixJobState.checks.get(), 1);
+
+    // Late messages are ignored
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_2"));
+    eventBus.unregister(tracker);
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_3"));
+    Assert.assertTrue(tracker.allTasksCompleted());
+  }
+
+  @Test
+  public void testFallsBackToHelixJobState() throws Exception {
+    EventBus eventBus = new EventBus();
+    HelixJobCompletionTracker tracker = new HelixJobCompletionTracker(JOB_ID);
+    eventBus.register(tracker);
+    tracker.setTaskCount(2);
+
+    // The completion message of the second task is lost or the task fails
+    CountingHelixJobState helixJobState = new CountingHelixJobState();
+    Future<Boolean> helixJobTerminated = waitForJobCompletion(tracker, helixJobState, 50);
+    eventBus.post(new HelixTaskCompletedEvent(JOB_ID, "task_1"));
+    Thread.sleep(200);
+    Assert.assertFalse(helixJobTerminated.isDone());
+    Assert.assertTrue(helixJobState.checks.get() > 1);
+
+    helixJobState.terminated.set(true);
+    Assert.assertTrue(helixJobTerminated.get(1, TimeUnit.MINUTES));
+    Assert.assertFalse(tracker.allTasksCompleted());
+  }
+
+  @Test
+  public void testWithoutTaskCount() throws Exception {
+    HelixJobCompletionTracker tracker = new HelixJobCompletionTracker(JOB_ID);
+    tracker.handleHelixTaskCompleted(new HelixTaskCompletedEvent(JOB_ID, "task_1"));
+    Assert.assertFalse(tracker.allTasksCompleted());
+
+    CountingHelixJobState helixJobState = new CountingHelixJobState();
+    helixJobState.terminated.set(true);
+    Assert.assertTrue(tracker.waitForJobCompletion(helixJobState, 50));
+  }
+
+  @AfterClass
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  private Future<Boolean> waitForJobCompletion(final HelixJobCompletionTracker tracker,
+      final Supplier<Boolean> helixJobState, final long checkIntervalMs) {
+    return this.executor.submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return tracker.waitForJobCompletion(helixJobState, checkIntervalMs);
+      }
+    });
+  }
+
+  /**
+   * Stands for the state of the job in Helix, and counts how many times it is checked.
+   */
+  private static class CountingHelixJobState implements Supplier<Boolean> {
+    private final AtomicBoolean terminated = new AtomicBoolean(false);
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @Override
+    public Boolean get() {
+      this.checks.incrementAndGet();
+      return this.terminated.get();
+    }
+  }
+}